@@ -0,0 +1,218 @@
+package mj.aastaar.benchmarks;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import mj.aastaar.datastructures.CustomHashMap;
+import mj.aastaar.datastructures.LongDoubleHashMap;
+import mj.aastaar.map.Node;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmark of CustomHashMap with Node keys against java.util.HashMap
+ * and the primitive LongDoubleHashMap with packed positions (Node.key), as
+ * the cost maps of DijkstraWithHashMap. The keys are the positions of an
+ * area explored by a search: a square, or a strip eight positions wide,
+ * which shows how Node.hashCode spreads over the buckets. The keys are put
+ * in a random order.
+ *
+ * The put benchmarks fill a new map, with and without an initial size large
+ * enough that the map never resizes, so the difference is the cost of
+ * resizing. The lookup benchmarks get every key from a filled map with an
+ * equal but different node, and check as many missing keys with
+ * containsKey. The setup prints the amount of distinct hash codes and the
+ * longest chain of CustomHashMap at its final size. The nodes and the boxed
+ * values are created in the setup, so the GC profiler (-prof gc) shows the
+ * allocation of the entries and tables.
+ *
+ * @author MJ
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class HashMapBenchmark {
+
+    private static final double LOAD_FACTOR = 0.75;
+
+    /**
+     * The amount of keys, up to about the positions of a 512 * 512 map.
+     */
+    @Param({"1000", "16000", "250000"})
+    public int size;
+
+    /**
+     * The shape of the area of the keys, "square" or "strip".
+     */
+    @Param({"square", "strip"})
+    public String shape;
+
+    private Node[] keys;
+    private Node[] probes;
+    private Node[] missing;
+    private long[] packedKeys;
+    private long[] packedProbes;
+    private long[] packedMissing;
+    private Double[] values;
+    private CustomHashMap<Node, Double> customMap;
+    private HashMap<Node, Double> javaMap;
+    private LongDoubleHashMap primitiveMap;
+
+    /**
+     * Creating the keys in a random order, and the filled maps of the lookup
+     * benchmarks.
+     */
+    @Setup
+    public void setUp() {
+        int width = shape.equals("strip") ? 8 : (int) Math.ceil(Math.sqrt(size));
+        keys = new Node[size];
+        probes = new Node[size];
+        missing = new Node[size];
+        packedKeys = new long[size];
+        packedProbes = new long[size];
+        packedMissing = new long[size];
+        values = new Double[size];
+        int height = (size + width - 1) / width;
+        for (int i = 0; i < size; i++) {
+            keys[i] = new Node(i / width, i % width, 0);
+            missing[i] = new Node(height + i / width, i % width, 0);
+        }
+        Random random = new Random(2020);
+        for (int i = size - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            Node temp = keys[i];
+            keys[i] = keys[j];
+            keys[j] = temp;
+        }
+        for (int i = 0; i < size; i++) {
+            probes[i] = new Node(keys[i].getX(), keys[i].getY(), 0);
+            packedKeys[i] = Node.key(keys[i].getX(), keys[i].getY());
+            packedProbes[i] = packedKeys[i];
+            packedMissing[i] = Node.key(missing[i].getX(), missing[i].getY());
+            values[i] = (double) i;
+        }
+        customMap = putCustomHashMap();
+        javaMap = putJavaHashMap();
+        primitiveMap = putLongDoubleHashMap();
+        printDistribution();
+    }
+
+    @Benchmark
+    public CustomHashMap<Node, Double> putCustomHashMap() {
+        CustomHashMap<Node, Double> map = new CustomHashMap<>();
+        for (int i = 0; i < size; i++) {
+            map.put(keys[i], values[i]);
+        }
+        return map;
+    }
+
+    @Benchmark
+    public CustomHashMap<Node, Double> putCustomHashMapPresized() {
+        CustomHashMap<Node, Double> map = new CustomHashMap<>((int) (size / LOAD_FACTOR) + 1);
+        for (int i = 0; i < size; i++) {
+            map.put(keys[i], values[i]);
+        }
+        return map;
+    }
+
+    @Benchmark
+    public HashMap<Node, Double> putJavaHashMap() {
+        HashMap<Node, Double> map = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            map.put(keys[i], values[i]);
+        }
+        return map;
+    }
+
+    @Benchmark
+    public HashMap<Node, Double> putJavaHashMapPresized() {
+        HashMap<Node, Double> map = new HashMap<>((int) (size / LOAD_FACTOR) + 1);
+        for (int i = 0; i < size; i++) {
+            map.put(keys[i], values[i]);
+        }
+        return map;
+    }
+
+    @Benchmark
+    public LongDoubleHashMap putLongDoubleHashMap() {
+        LongDoubleHashMap map = new LongDoubleHashMap();
+        for (int i = 0; i < size; i++) {
+            map.put(packedKeys[i], i);
+        }
+        return map;
+    }
+
+    @Benchmark
+    public double lookupCustomHashMap() {
+        double sum = 0;
+        for (int i = 0; i < size; i++) {
+            sum += customMap.get(probes[i]);
+            if (customMap.containsKey(missing[i])) {
+                sum++;
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double lookupJavaHashMap() {
+        double sum = 0;
+        for (int i = 0; i < size; i++) {
+            sum += javaMap.get(probes[i]);
+            if (javaMap.containsKey(missing[i])) {
+                sum++;
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double lookupLongDoubleHashMap() {
+        double sum = 0;
+        for (int i = 0; i < size; i++) {
+            sum += primitiveMap.get(packedProbes[i], 0);
+            if (primitiveMap.containsKey(packedMissing[i])) {
+                sum++;
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Printing how the hash codes of the keys spread over the buckets of a
+     * CustomHashMap of the smallest size that holds them without resizing.
+     */
+    private void printDistribution() {
+        int buckets = 16;
+        while (buckets * LOAD_FACTOR < size) {
+            buckets *= 2;
+        }
+        HashSet<Integer> codes = new HashSet<>();
+        int[] chains = new int[buckets];
+        int longest = 0;
+        int filled = 0;
+        for (Node key : keys) {
+            codes.add(key.hashCode());
+            int i = (key.hashCode() & Integer.MAX_VALUE) % buckets;
+            if (chains[i]++ == 0) {
+                filled++;
+            }
+            longest = Math.max(longest, chains[i]);
+        }
+        System.out.println(size + " " + shape + " keys: " + codes.size() + " distinct hash codes, "
+                + filled + " of " + buckets + " buckets filled, longest chain " + longest);
+    }
+}
@@ -0,0 +1,111 @@
+package mj.aastaar.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import mj.aastaar.Scenario;
+import mj.aastaar.algorithms.PathfindingAlgorithm;
+import mj.aastaar.map.Grid;
+import mj.aastaar.utils.BenchmarkRunner;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmark of the pathfinding algorithms on the bundled maps. Every
+ * invocation runs one query of a fixed query set (see QuerySet) of one path
+ * length bucket, so the results of different algorithms are comparable. The
+ * throughput, the average time and the distribution of the times with its
+ * percentiles are reported.
+ *
+ * The compressed path database is not in the default algorithms, as
+ * building it computes the paths between all positions, which takes hours
+ * on a 512 * 512 map. It can be chosen with -p algorithm=CompressedPathSearch.
+ * The algorithms are created by BenchmarkRunner.create, so the names are
+ * those of BenchmarkRunner.ALGORITHMS.
+ *
+ * @author MJ
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = "-Xmx2g")
+public class PathfindingBenchmark {
+
+    /**
+     * The amount of queries in a query set.
+     */
+    public static final int QUERIES = 64;
+
+    /**
+     * The seed of the query sets.
+     */
+    public static final long SEED = 2020;
+
+    @Param({"mapdata/sc1-map/Rosewood.map",
+        "mapdata/sc1-map/Aftershock.map",
+        "mapdata/sc1-map/Legacy.map",
+        "mapdata/wc3maps512-map/divideandconquer.map",
+        "mapdata/wc3maps512-map/timbermawhold.map",
+        "mapdata/wc3maps512-map/bootybay.map"})
+    public String map;
+
+    @Param({"DijkstraWithArray", "DijkstraWithHashMap", "AStarWithArray",
+        "AStarWithHashMap", "BidirectionalDijkstra", "BidirectionalAStar",
+        "JumpPointSearch", "JumpPointSearchPlus", "HierarchicalPathfinding",
+        "ContractionHierarchySearch", "AStarWithLandmarks"})
+    public String algorithm;
+
+    /**
+     * The index of the path length bucket, see QuerySet.BUCKET_BOUNDS.
+     */
+    @Param({"0", "1", "2", "3"})
+    public int bucket;
+
+    @Param({"8"})
+    public int directions;
+
+    private PathfindingAlgorithm search;
+    private QuerySet queries;
+    private int next;
+
+    /**
+     * Loading the map, drawing the queries and creating the algorithm. The
+     * first query is run once, so that algorithms that preprocess the grid
+     * at their first search do it before the measurements.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        Scenario scenario = new Scenario();
+        scenario.initGrids(new String[]{map}, QuerySet.IMPASSABLE, QuerySet.HEAVY_EDGE_WEIGHT);
+        Grid grid = scenario.getGrid();
+        queries = QuerySet.generate(grid, bucket, directions, QUERIES, SEED);
+        if (queries.size() == 0) {
+            throw new IllegalStateException("No queries in bucket " + bucket + " on " + map);
+        }
+        search = BenchmarkRunner.create(algorithm, scenario, directions);
+        search.search(queries.getStart(0), queries.getGoal(0), directions);
+        next = 0;
+    }
+
+    /**
+     * Running the next query.
+     *
+     * @return The length of the found path, consumed by JMH
+     */
+    @Benchmark
+    public int search() {
+        int i = next;
+        next = i + 1 == queries.size() ? 0 : i + 1;
+        return search.search(queries.getStart(i), queries.getGoal(i), directions);
+    }
+}
@@ -0,0 +1,216 @@
+package mj.aastaar.benchmarks;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import mj.aastaar.datastructures.CustomPriorityQueue;
+import mj.aastaar.datastructures.IndexedMinHeap;
+import mj.aastaar.datastructures.OpenList;
+import mj.aastaar.datastructures.RadixHeap;
+import mj.aastaar.map.Node;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmark of CustomPriorityQueue against java.util.PriorityQueue and
+ * the primitive open lists IndexedMinHeap and RadixHeap. Every structure is
+ * created empty in the measured code, so the cost of growing the arrays is
+ * included, as in a search.
+ *
+ * The drain workload inserts all the priorities and then removes them. The
+ * steady workload keeps the size of the queue about the same like Dijkstra's
+ * algorithm does: it fills the queue and then repeatedly removes the minimum,
+ * inserts two priorities above it and removes the minimum again. The
+ * priorities never go below the latest removed one, so the radix heap can be
+ * used for both workloads. The nodes of the node queues are created in the
+ * setup, so the GC profiler (-prof gc) shows the allocation of the
+ * structures themselves.
+ *
+ * @author MJ
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class PriorityQueueBenchmark {
+
+    private static final Comparator<Node> BY_PRIORITY = new Comparator<Node>() {
+        @Override
+        public int compare(Node a, Node b) {
+            return Double.compare(a.getPriority(), b.getPriority());
+        }
+    };
+
+    /**
+     * The amount of priorities in the queue.
+     */
+    @Param({"1000", "10000", "100000"})
+    public int size;
+
+    private double[] priorities;
+    private double[] increments;
+    private Node[] nodes;
+
+    /**
+     * Drawing the priorities and the increments of the steady workload.
+     */
+    @Setup
+    public void setUp() {
+        Random random = new Random(2020);
+        priorities = new double[size];
+        increments = new double[2 * size];
+        nodes = new Node[3 * size];
+        for (int i = 0; i < size; i++) {
+            priorities[i] = random.nextDouble() * size;
+        }
+        for (int i = 0; i < increments.length; i++) {
+            increments[i] = 1 + random.nextDouble() * Math.sqrt(2);
+        }
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = new Node(i, 0, 0);
+        }
+    }
+
+    @Benchmark
+    public double drainCustomPriorityQueue() {
+        CustomPriorityQueue queue = new CustomPriorityQueue();
+        for (int i = 0; i < size; i++) {
+            nodes[i].setPriority(priorities[i]);
+            queue.heapInsert(nodes[i]);
+        }
+        double sum = 0;
+        while (!queue.isEmpty()) {
+            sum += queue.heapDelMin().getPriority();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double drainJavaPriorityQueue() {
+        PriorityQueue<Node> queue = new PriorityQueue<>(BY_PRIORITY);
+        for (int i = 0; i < size; i++) {
+            nodes[i].setPriority(priorities[i]);
+            queue.add(nodes[i]);
+        }
+        double sum = 0;
+        while (!queue.isEmpty()) {
+            sum += queue.poll().getPriority();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double drainIndexedMinHeap() {
+        IndexedMinHeap heap = new IndexedMinHeap(size);
+        for (int i = 0; i < size; i++) {
+            heap.add(i, priorities[i]);
+        }
+        double sum = 0;
+        while (!heap.isEmpty()) {
+            sum += priorities[heap.poll()];
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double drainRadixHeap() {
+        RadixHeap heap = new RadixHeap(size);
+        for (int i = 0; i < size; i++) {
+            heap.add(i, priorities[i]);
+        }
+        double sum = 0;
+        while (!heap.isEmpty()) {
+            sum += priorities[heap.poll()];
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double steadyCustomPriorityQueue() {
+        CustomPriorityQueue queue = new CustomPriorityQueue();
+        for (int i = 0; i < size; i++) {
+            nodes[i].setPriority(priorities[i]);
+            queue.heapInsert(nodes[i]);
+        }
+        int added = size;
+        double sum = 0;
+        for (int round = 0; round < size; round++) {
+            double min = queue.heapDelMin().getPriority();
+            for (int j = 0; j < 2; j++) {
+                Node node = nodes[added];
+                node.setPriority(min + increments[added++ - size]);
+                queue.heapInsert(node);
+            }
+            sum += min + queue.heapDelMin().getPriority();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double steadyJavaPriorityQueue() {
+        PriorityQueue<Node> queue = new PriorityQueue<>(BY_PRIORITY);
+        for (int i = 0; i < size; i++) {
+            nodes[i].setPriority(priorities[i]);
+            queue.add(nodes[i]);
+        }
+        int added = size;
+        double sum = 0;
+        for (int round = 0; round < size; round++) {
+            double min = queue.poll().getPriority();
+            for (int j = 0; j < 2; j++) {
+                Node node = nodes[added];
+                node.setPriority(min + increments[added++ - size]);
+                queue.add(node);
+            }
+            sum += min + queue.poll().getPriority();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double steadyIndexedMinHeap() {
+        IndexedMinHeap heap = new IndexedMinHeap(3 * size);
+        return steady(heap, new double[3 * size]);
+    }
+
+    @Benchmark
+    public double steadyRadixHeap() {
+        RadixHeap heap = new RadixHeap(3 * size);
+        return steady(heap, new double[3 * size]);
+    }
+
+    /**
+     * The steady workload on an open list, with the priorities of the keys
+     * kept in an array like the costs of a search.
+     */
+    private double steady(OpenList heap, double[] keyPriorities) {
+        for (int i = 0; i < size; i++) {
+            keyPriorities[i] = priorities[i];
+            heap.add(i, priorities[i]);
+        }
+        int added = size;
+        double sum = 0;
+        for (int round = 0; round < size; round++) {
+            double min = keyPriorities[heap.poll()];
+            for (int j = 0; j < 2; j++) {
+                keyPriorities[added] = min + increments[added - size];
+                heap.add(added, keyPriorities[added]);
+                added++;
+            }
+            sum += min + keyPriorities[heap.poll()];
+        }
+        return sum;
+    }
+}
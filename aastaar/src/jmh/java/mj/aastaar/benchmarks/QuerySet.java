@@ -0,0 +1,134 @@
+package mj.aastaar.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import mj.aastaar.algorithms.AStarWithArray;
+import mj.aastaar.map.Grid;
+import mj.aastaar.map.Node;
+
+/**
+ * A fixed set of pathfinding queries on a map, grouped by the length of
+ * their shortest paths. The queries are drawn with a seeded random number
+ * generator and measured with A*, so every run and every algorithm gets the
+ * same queries.
+ *
+ * @author MJ
+ */
+public class QuerySet {
+
+    /**
+     * The smallest path lengths (in steps) of the buckets, and the end of
+     * the last bucket.
+     */
+    public static final int[] BUCKET_BOUNDS = {1, 64, 128, 256, Integer.MAX_VALUE};
+
+    /**
+     * The characters of impassable terrain on the bundled maps, as in Main.
+     */
+    public static final char[] IMPASSABLE = {'T', 'W', '@'};
+
+    /**
+     * The edge weight of heavier terrain on the bundled maps, as in Main.
+     */
+    public static final double HEAVY_EDGE_WEIGHT = 2.0;
+
+    private static final int ATTEMPTS_PER_QUERY = 200;
+
+    private final Node[] starts;
+    private final Node[] goals;
+    private final int[] lengths;
+
+    private QuerySet(List<Node> starts, List<Node> goals, List<Integer> lengths) {
+        this.starts = starts.toArray(new Node[starts.size()]);
+        this.goals = goals.toArray(new Node[goals.size()]);
+        this.lengths = new int[lengths.size()];
+        for (int i = 0; i < this.lengths.length; i++) {
+            this.lengths[i] = lengths.get(i);
+        }
+    }
+
+    /**
+     * Drawing queries whose shortest paths have a length in one bucket. The
+     * goals of the shorter buckets are drawn near the start, as the length
+     * of a path is at least the larger coordinate difference.
+     *
+     * @param grid Pathfinding grid
+     * @param bucket The index of the bucket in BUCKET_BOUNDS
+     * @param directions The amount of allowed directions
+     * @param count The amount of queries
+     * @param seed The seed of the random number generator
+     * @return The queries, fewer than the count if the map does not have
+     * enough of them
+     */
+    public static QuerySet generate(Grid grid, int bucket, int directions, int count, long seed) {
+        if (bucket < 0 || bucket >= BUCKET_BOUNDS.length - 1) {
+            throw new IllegalArgumentException("No bucket " + bucket);
+        }
+        int min = BUCKET_BOUNDS[bucket];
+        int max = BUCKET_BOUNDS[bucket + 1];
+        int radius = (int) Math.min(max - 1L, Math.max(grid.getLength(), grid.getRowLength()));
+        Random random = new Random(seed);
+        AStarWithArray reference = new AStarWithArray(grid);
+        List<Node> starts = new ArrayList<>();
+        List<Node> goals = new ArrayList<>();
+        List<Integer> lengths = new ArrayList<>();
+        for (int attempt = 0; attempt < count * ATTEMPTS_PER_QUERY && starts.size() < count; attempt++) {
+            Node start = new Node(random.nextInt(grid.getLength()),
+                    random.nextInt(grid.getRowLength()), 0);
+            Node goal = new Node(near(random, start.getX(), radius, grid.getLength()),
+                    near(random, start.getY(), radius, grid.getRowLength()), 0);
+            if (!grid.isReachable(start, goal)) {
+                continue;
+            }
+            int length = reference.search(start, goal, directions);
+            if (length >= min && length < max) {
+                starts.add(start);
+                goals.add(goal);
+                lengths.add(length);
+            }
+        }
+        return new QuerySet(starts, goals, lengths);
+    }
+
+    /**
+     *
+     * @return The amount of queries
+     */
+    public int size() {
+        return starts.length;
+    }
+
+    /**
+     *
+     * @param i The index of the query
+     * @return The start node of the query
+     */
+    public Node getStart(int i) {
+        return starts[i];
+    }
+
+    /**
+     *
+     * @param i The index of the query
+     * @return The goal node of the query
+     */
+    public Node getGoal(int i) {
+        return goals[i];
+    }
+
+    /**
+     *
+     * @param i The index of the query
+     * @return The length of the shortest path of the query
+     */
+    public int getLength(int i) {
+        return lengths[i];
+    }
+
+    private static int near(Random random, int center, int radius, int size) {
+        int low = Math.max(0, center - radius);
+        int high = Math.min(size - 1, center + radius);
+        return low + random.nextInt(high - low + 1);
+    }
+}
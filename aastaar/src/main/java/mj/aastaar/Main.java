@@ -1,7 +1,12 @@
 package mj.aastaar;
 
+import java.io.File;
 import java.math.BigDecimal;
 import java.math.MathContext;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 import javafx.application.Application;
 import javafx.application.Platform;
@@ -54,6 +59,9 @@ import mj.aastaar.utils.PathfindingPerformanceTester;
 public class Main extends Application {
 
     private static Scenario scenario;
+    private static int warmup = PathfindingPerformanceTester.DEFAULT_WARMUP;
+    private static File histogramDirectory = new File("histograms");
+    private static File tableDirectory = new File(".");
     private GraphicsContext pathGraphics;
     private int showExplored;
     private double tileSize;
@@ -61,19 +69,78 @@ public class Main extends Application {
     /**
      * The main program.
      *
-     * @param args Command-line arguments
+     * @param args Command-line arguments, map files or directories of map
+     * files to use instead of the bundled maps, and the options
+     * --warmup &lt;searches&gt; for the warmup phase of the performance tests
+     * and --histograms &lt;directory&gt; for the latency histograms that the
+     * tests write, and --tables &lt;directory&gt; for the precomputed tables
+     * of the bundled maps, stored under mapdata/ in the working directory by
+     * default
      */
     public static void main(String[] args) {
-        run();
+        List<String> mapFiles;
+        try {
+            mapFiles = parseOptions(args);
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            System.exit(1);
+            return;
+        }
+        run(mapFiles.toArray(new String[mapFiles.size()]));
+    }
+
+    /**
+     * Reading the options of the performance tests from the command line.
+     *
+     * @param args Command-line arguments
+     * @return The arguments that are not options, the map files
+     * @throws IllegalArgumentException If an option is unknown or invalid
+     */
+    private static List<String> parseOptions(String[] args) {
+        List<String> mapFiles = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (!arg.startsWith("--")) {
+                mapFiles.add(arg);
+                continue;
+            }
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value of " + arg);
+            }
+            String value = args[++i];
+            switch (arg) {
+                case "--warmup":
+                    try {
+                        warmup = Integer.parseInt(value);
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("Not a number: " + value);
+                    }
+                    if (warmup < 0) {
+                        throw new IllegalArgumentException("Negative warmup: " + value);
+                    }
+                    break;
+                case "--histograms":
+                    histogramDirectory = new File(value);
+                    break;
+                case "--tables":
+                    tableDirectory = new File(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + arg);
+            }
+        }
+        return mapFiles;
     }
 
     /**
      * Initializing the scenario and maps. Initializing the pathfinding
      * algorithms and launching the Java FX GUI.
+     *
+     * @param mapFiles Map files or directories, or none for the bundled maps
      */
-    private static void run() {
+    private static void run(String[] mapFiles) {
         scenario = new Scenario();
-        initMaps();
+        initMaps(mapFiles);
         scenario.initRandomPositions();
         Grid grid = scenario.getGrid();
 
@@ -89,9 +156,14 @@ public class Main extends Application {
 
     /**
      * Initialize the maps, impassable characters and edge weights for passing
-     * through heavier terrain.
+     * through heavier terrain. Maps given on the command line are loaded from
+     * the file system in parallel. The tables computed for the bundled maps
+     * are stored in the table directory, so that they are only computed at
+     * the first start.
+     *
+     * @param mapFiles Map files or directories, or none for the bundled maps
      */
-    private static void initMaps() {
+    private static void initMaps(String[] mapFiles) {
         String[] mapPaths = {"mapdata/sc1-map/Rosewood.map",
             "mapdata/sc1-map/Aftershock.map",
             "mapdata/sc1-map/Legacy.map",
@@ -100,6 +172,18 @@ public class Main extends Application {
             "mapdata/wc3maps512-map/bootybay.map"};
         char[] impassable = {'T', 'W', '@'};
         double heavyEdgeWeight = 2.0;
+        if (mapFiles.length > 0) {
+            List<Path> paths = new ArrayList<>();
+            for (String mapFile : mapFiles) {
+                paths.add(Paths.get(mapFile));
+            }
+            scenario.initGrids(paths, impassable, heavyEdgeWeight,
+                    Runtime.getRuntime().availableProcessors());
+            if (scenario.getGrids() != null) {
+                return;
+            }
+        }
+        scenario.setTableDirectory(tableDirectory);
         scenario.initGrids(mapPaths, impassable, heavyEdgeWeight);
     }
 
@@ -127,20 +211,25 @@ public class Main extends Application {
 
     /**
      * Using the performance tester class to test pathfinding speed. Setting the
-     * number of times the tests are run.
+     * number of times the tests are run. The latency histograms of the run
+     * are written to the histogram directory, named after the current map.
      *
      * @param algorithms The algorithms that are tested
      * @param algoNames The names of the algorithms that are
      */
     private static String runPerformanceTests(AlgorithmVisualization[] algoVisuals) {
         int[] nums = {10, 10, 20};
-        PathfindingPerformanceTester tester = new PathfindingPerformanceTester(scenario);
+        PathfindingPerformanceTester tester = new PathfindingPerformanceTester(scenario, warmup);
         long t = System.nanoTime();
         tester.run(nums);
         BigDecimal elapsedTime = new BigDecimal((System.nanoTime() - t) / 1000000000);
+        int exported = tester.exportHistograms(histogramDirectory, scenario.getMapName());
 
         String testResults = tester.toString() + "\nPerformance tests ran\nin a total of "
                 + elapsedTime.round(new MathContext(3)) + " seconds.";
+        if (exported > 0) {
+            testResults += "\nLatency histograms written\nto " + histogramDirectory + ".";
+        }
         return testResults;
     }
 
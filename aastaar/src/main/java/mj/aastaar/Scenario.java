@@ -1,10 +1,19 @@
 package mj.aastaar;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
 import mj.aastaar.algorithms.AlgorithmVisualization;
+import mj.aastaar.algorithms.JumpPointTable;
 import mj.aastaar.algorithms.PathfindingAlgorithm;
+import mj.aastaar.algorithms.heuristic.LandmarkTable;
 import mj.aastaar.map.Grid;
 import mj.aastaar.map.MapCreator;
+import mj.aastaar.map.MapLoader;
+import mj.aastaar.map.MapParser;
 import mj.aastaar.map.Node;
 
 /**
@@ -18,6 +27,11 @@ public class Scenario {
 
     private Grid grid;
     private Grid[] grids;
+    private JumpPointTable[] jumpTables;
+    private LandmarkTable[] landmarkTables;
+    private String[] mapPaths;
+    private Path[] mapFiles;
+    private File tableDirectory;
     private Node start;
     private Node goal;
     private AlgorithmVisualization[] algorithmVisuals;
@@ -59,6 +73,81 @@ public class Scenario {
         return grids;
     }
 
+    /**
+     * The directory where the precomputed tables of the maps on the class
+     * path are stored, see JumpPointTable.loadOrBuild and
+     * LandmarkTable.loadOrBuild. Without a directory,
+     * a table that is not stored next to the map is computed every time.
+     *
+     * @param tableDirectory Table directory, or null
+     */
+    public void setTableDirectory(File tableDirectory) {
+        this.tableDirectory = tableDirectory;
+    }
+
+    /**
+     * The table is loaded when it is first needed, from next to a map file or
+     * from the table directory, or computed and stored there if it is missing
+     * or out of date. After a change to the grid, the table is computed again
+     * without storing it.
+     *
+     * @return The precomputed JPS+ jump distances of the current grid, or
+     * null if the grid is empty
+     */
+    public JumpPointTable getJumpTable() {
+        Grid current = grids[gridIndex];
+        if (jumpTables[gridIndex] == null && current.getLength() > 0) {
+            jumpTables[gridIndex] = (mapFiles != null)
+                    ? JumpPointTable.loadOrBuild(mapFiles[gridIndex], current)
+                    : JumpPointTable.loadOrBuild(mapPaths[gridIndex], current,
+                            tableDirectory);
+        } else if (current.getModifications() > 0 && jumpTables[gridIndex] != null
+                && !jumpTables[gridIndex].matches(current)) {
+            jumpTables[gridIndex] = JumpPointTable.build(current);
+        }
+        return jumpTables[gridIndex];
+    }
+
+    /**
+     * The table is loaded like the jump point table, see getJumpTable. A
+     * table for the other amount of directions replaces the earlier one.
+     *
+     * @param directions The amount of allowed directions for valid moves
+     * @return The ALT landmark costs of the current grid, or null if the grid
+     * is empty
+     */
+    public LandmarkTable getLandmarkTable(int directions) {
+        Grid current = grids[gridIndex];
+        LandmarkTable table = landmarkTables[gridIndex];
+        if ((table == null || table.getDirections() != directions) && current.getLength() > 0) {
+            landmarkTables[gridIndex] = (mapFiles != null)
+                    ? LandmarkTable.loadOrBuild(mapFiles[gridIndex], current, directions)
+                    : LandmarkTable.loadOrBuild(mapPaths[gridIndex], current, directions,
+                            tableDirectory);
+        } else if (current.getModifications() > 0 && table != null && !table.matches(current)) {
+            landmarkTables[gridIndex] = LandmarkTable.build(current, directions);
+        }
+        return landmarkTables[gridIndex];
+    }
+
+    /**
+     *
+     * @return The file name of the map of the current grid without the
+     * extension, or null if no maps have been loaded
+     */
+    public String getMapName() {
+        String name;
+        if (mapFiles != null) {
+            name = mapFiles[gridIndex].getFileName().toString();
+        } else if (mapPaths != null) {
+            name = new File(mapPaths[gridIndex]).getName();
+        } else {
+            return null;
+        }
+        int extension = name.lastIndexOf('.');
+        return (extension > 0) ? name.substring(0, extension) : name;
+    }
+
     /**
      *
      * @return
@@ -126,15 +215,16 @@ public class Scenario {
     }
 
     /**
-     * Running the specified algorithm, adding the shortest path (array of
-     * nodes) for visualization.
+     * Running the specified algorithm, adding the shortest path (cell
+     * indices, see CompactPath) for visualization.
      *
      * @param algorithmVisual Composition of an algorithm, name and color etc.
      */
     public void runPathfindingAlgorithm(AlgorithmVisualization algorithmVisual) {
         PathfindingAlgorithm algorithm = algorithmVisual.getAlgorithm();
         int pathLength = algorithm.search(start, goal, 4);
-        algorithmVisual.setShortestPath(algorithm.getPath().shortestPath(goal, start, pathLength));
+        algorithmVisual.setShortestPath(algorithm.getPath()
+                .compactPath(goal, start, pathLength, grid.getRowLength()));
     }
 
     /**
@@ -160,6 +250,10 @@ public class Scenario {
 
     /**
      *  Initialize Grids for maps based on map file data.
+     * A map that MapParser rejects, such as one with fewer rows than its
+     * header, is reported and read with MapCreator as before.
+     * The JPS+ jump distance tables and the ALT landmark tables are loaded
+     * when they are first needed, see getJumpTable and getLandmarkTable.
      * 
      * @param mapPaths Map data file paths
      * @param impassable Characters representing impassable terrain
@@ -167,15 +261,68 @@ public class Scenario {
      */
     public void initGrids(String[] mapPaths, char[] impassable, double heavyEdgeWeight) {
         grids = new Grid[mapPaths.length];
+        jumpTables = new JumpPointTable[mapPaths.length];
+        landmarkTables = new LandmarkTable[mapPaths.length];
+        this.mapPaths = mapPaths.clone();
+        this.mapFiles = null;
+        MapParser parser = new MapParser(impassable, heavyEdgeWeight);
         for (int i = 0; i < mapPaths.length; i++) {
-            MapCreator mapCreator = new MapCreator();
-            mapCreator.createMapFromFile(mapPaths[i]);
-            if (mapCreator.getGrid() != null) {
-                char[][] gridArray = mapCreator.getGrid();
-                grids[i] = new Grid(gridArray, impassable, heavyEdgeWeight);
+            try {
+                grids[i] = parser.parseResource(mapPaths[i]);
+            } catch (IOException e) {
+                System.out.println("Error when attempting to read the level data file:\n" + e);
+                MapCreator mapCreator = new MapCreator();
+                mapCreator.createMapFromFile(mapPaths[i]);
+                grids[i] = new Grid(mapCreator.getGrid(), impassable, heavyEdgeWeight);
+            }
+        }
+        setGrid(grids[0]);
+        gridIndex = 0;
+    }
+
+    /**
+     * Initialize Grids for map and grid files on the file system, loaded in
+     * parallel by MapLoader. The load time of every map is printed. A map
+     * that can not be loaded is reported and left out, so the grids are the
+     * loaded maps in the order of the files. If no map is loaded, the current
+     * grids are kept.
+     *
+     * @param paths Map and grid files, and directories containing them
+     * @param impassable Characters representing impassable terrain
+     * @param heavyEdgeWeight Edge weight for passing through heavier terrain
+     * @param threads The largest amount of maps loaded at the same time
+     * @return The results of loading the maps, including the failed ones
+     */
+    public List<MapLoader.Result> initGrids(List<Path> paths, char[] impassable,
+            double heavyEdgeWeight, int threads) {
+        List<MapLoader.Result> results;
+        try {
+            results = new MapLoader(impassable, heavyEdgeWeight, threads)
+                    .load(MapLoader.mapFiles(paths));
+        } catch (IOException e) {
+            System.out.println("Error when attempting to list the map files:\n" + e);
+            return new ArrayList<>();
+        }
+        List<Grid> loaded = new ArrayList<>();
+        List<Path> files = new ArrayList<>();
+        for (MapLoader.Result result : results) {
+            System.out.println(result);
+            if (result.isLoaded()) {
+                loaded.add(result.getGrid());
+                files.add(result.getPath());
             }
         }
+        if (loaded.isEmpty()) {
+            System.out.println("No maps loaded.");
+            return results;
+        }
+        grids = loaded.toArray(new Grid[loaded.size()]);
+        jumpTables = new JumpPointTable[grids.length];
+        landmarkTables = new LandmarkTable[grids.length];
+        mapPaths = null;
+        mapFiles = files.toArray(new Path[files.size()]);
         setGrid(grids[0]);
         gridIndex = 0;
+        return results;
     }
 }
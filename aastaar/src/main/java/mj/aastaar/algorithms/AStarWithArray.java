@@ -1,5 +1,8 @@
 package mj.aastaar.algorithms;
 
+import mj.aastaar.algorithms.heuristic.GridHeuristic;
+import mj.aastaar.algorithms.heuristic.Heuristic;
+import mj.aastaar.datastructures.OpenList;
 import mj.aastaar.map.Grid;
 import mj.aastaar.map.Node;
 
@@ -10,16 +13,72 @@ import mj.aastaar.map.Node;
  */
 public class AStarWithArray extends DijkstraWithArray {
 
+    private Heuristic heuristic;
+    private final Node position = new Node(0, 0, 0);
+
     /**
+     * Using the distance heuristic of the grid.
      *
      * @param grid Pathfinding grid
      */
     public AStarWithArray(Grid grid) {
-        super(grid);
+        this(grid, new GridHeuristic(grid));
+    }
+
+    /**
+     *
+     * @param grid Pathfinding grid
+     * @param heuristic The estimate of the cost to the goal
+     */
+    public AStarWithArray(Grid grid, Heuristic heuristic) {
+        this(grid, heuristic, OpenList.INDEXED_HEAP);
     }
 
+    /**
+     *
+     * @param grid Pathfinding grid
+     * @param heuristic The estimate of the cost to the goal
+     * @param openList The open list implementation, see OpenList
+     */
+    public AStarWithArray(Grid grid, Heuristic heuristic, int openList) {
+        super(grid, openList);
+        this.heuristic = heuristic;
+    }
+
+    /**
+     * The position is passed to the heuristic in a reused node, so the
+     * search does not allocate one for every position it reaches.
+     *
+     * @param cell The index of the position that is added to the frontier
+     * @param cost The cost to the position
+     * @return The cost plus the estimate of the cost to the goal
+     */
     @Override
-    public void setPriority(Node node, double cost) {
-        node.setPriority(cost + getGrid().heuristic(node, getGoal()));
+    public double priority(int cell, double cost) {
+        position.setX(getGrid().getX(cell));
+        position.setY(getGrid().getY(cell));
+        return cost + heuristic.estimate(position, getGoal(), getDirections());
+    }
+
+    /**
+     * The Manhattan distance of the grid is an integer, the other heuristics
+     * are not known to be.
+     *
+     * @param directions The amount of allowed directions for valid moves
+     * @return True if the move costs and the estimates are integers,
+     * otherwise false
+     */
+    @Override
+    public boolean integralPriorities(int directions) {
+        return directions <= 4 && heuristic instanceof GridHeuristic
+                && super.integralPriorities(directions);
+    }
+
+    /**
+     *
+     * @return The estimate of the cost to the goal
+     */
+    public Heuristic getHeuristic() {
+        return heuristic;
     }
 }
@@ -1,5 +1,7 @@
 package mj.aastaar.algorithms;
 
+import mj.aastaar.algorithms.heuristic.GridHeuristic;
+import mj.aastaar.algorithms.heuristic.Heuristic;
 import mj.aastaar.map.Grid;
 import mj.aastaar.map.Node;
 
@@ -9,17 +11,49 @@ import mj.aastaar.map.Node;
  * @author MJ
  */
 public class AStarWithHashMap extends DijkstraWithHashMap {
-    
+
+    private Heuristic heuristic;
+    private final Node position = new Node(0, 0, 0);
+
     /**
+     * Using the distance heuristic of the grid.
      *
      * @param grid Pathfinding grid
      */
     public AStarWithHashMap(Grid grid) {
+        this(grid, new GridHeuristic(grid));
+    }
+
+    /**
+     *
+     * @param grid Pathfinding grid
+     * @param heuristic The estimate of the cost to the goal
+     */
+    public AStarWithHashMap(Grid grid, Heuristic heuristic) {
         super(grid);
+        this.heuristic = heuristic;
     }
     
+    /**
+     * The position is passed to the heuristic in a reused node, so the
+     * search does not allocate one for every position it reaches.
+     *
+     * @param key The packed position that is added to the frontier
+     * @param cost The cost to the position
+     * @return The cost plus the estimate of the cost to the goal
+     */
     @Override
-    public void setPriority(Node node, double cost) {
-        node.setPriority(cost + getGrid().heuristic(node, getGoal()));
+    public double priority(long key, double cost) {
+        position.setX(Node.keyX(key));
+        position.setY(Node.keyY(key));
+        return cost + heuristic.estimate(position, getGoal(), getDirections());
+    }
+
+    /**
+     *
+     * @return The estimate of the cost to the goal
+     */
+    public Heuristic getHeuristic() {
+        return heuristic;
     }
 }
@@ -1,5 +1,6 @@
 package mj.aastaar.algorithms;
 
+import mj.aastaar.algorithms.path.CompactPath;
 import mj.aastaar.map.Node;
 
 /**
@@ -14,6 +15,7 @@ public class AlgorithmVisualization {
     private String name;
     private String color;
     private Node[] shortestPath;
+    private CompactPath compactPath;
 
     /**
      *
@@ -52,13 +54,26 @@ public class AlgorithmVisualization {
     }
 
     /**
+     * Created from the compact path at every call if the path was set as one.
      *
      * @return Nodes included in the shortest path found by the algorithm
      */
     public Node[] getShortestPath() {
+        if (compactPath != null) {
+            return compactPath.toNodes();
+        }
         return shortestPath;
     }
 
+    /**
+     *
+     * @return The shortest path found by the algorithm as cell indices, or
+     * null if it was set as nodes
+     */
+    public CompactPath getCompactPath() {
+        return compactPath;
+    }
+
     /**
      *
      * @param algorithm Pathfinding algorithm
@@ -89,5 +104,16 @@ public class AlgorithmVisualization {
      */
     public void setShortestPath(Node[] shortestPath) {
         this.shortestPath = shortestPath;
+        this.compactPath = null;
+    }
+
+    /**
+     *
+     * @param compactPath The shortest path found by the algorithm as cell
+     * indices, see CompactPath
+     */
+    public void setShortestPath(CompactPath compactPath) {
+        this.compactPath = compactPath;
+        this.shortestPath = null;
     }
 }
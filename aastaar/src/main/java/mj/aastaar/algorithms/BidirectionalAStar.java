@@ -0,0 +1,62 @@
+package mj.aastaar.algorithms;
+
+import mj.aastaar.algorithms.heuristic.GridHeuristic;
+import mj.aastaar.algorithms.heuristic.Heuristic;
+import mj.aastaar.map.Grid;
+import mj.aastaar.map.Node;
+
+/**
+ * Implementation of bidirectional A*. Inheriting BidirectionalDijkstra.
+ * The forward direction estimates the distance to the goal and the backward
+ * direction the distance to the start, so the priorities of the two frontiers
+ * can not be added together. Instead the search stops when the smallest
+ * priority of either frontier is at least the best meeting cost, because the
+ * priorities are lower bounds for the cost of any path through them.
+ *
+ * @author MJ
+ */
+public class BidirectionalAStar extends BidirectionalDijkstra {
+
+    private Heuristic heuristic;
+
+    /**
+     * Searching on one thread.
+     *
+     * @param grid Pathfinding grid
+     */
+    public BidirectionalAStar(Grid grid) {
+        this(grid, false);
+    }
+
+    /**
+     *
+     * @param grid Pathfinding grid
+     * @param parallel True if the backward search runs on another thread
+     */
+    public BidirectionalAStar(Grid grid, boolean parallel) {
+        this(grid, parallel, new GridHeuristic(grid));
+    }
+
+    /**
+     * The movement costs are symmetric, so the same heuristic estimates the
+     * cost to the goal and the cost to the start.
+     *
+     * @param grid Pathfinding grid
+     * @param parallel True if the backward search runs on another thread
+     * @param heuristic The estimate of the cost to the target
+     */
+    public BidirectionalAStar(Grid grid, boolean parallel, Heuristic heuristic) {
+        super(grid, parallel);
+        this.heuristic = heuristic;
+    }
+
+    @Override
+    protected double heuristic(Node node, Node target) {
+        return heuristic.estimate(node, target, getDirections());
+    }
+
+    @Override
+    protected boolean canStop(double forwardKey, double backwardKey, double bestCost) {
+        return forwardKey >= bestCost || backwardKey >= bestCost;
+    }
+}
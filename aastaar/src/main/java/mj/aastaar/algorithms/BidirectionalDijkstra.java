@@ -0,0 +1,396 @@
+package mj.aastaar.algorithms;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLongArray;
+import mj.aastaar.algorithms.path.Path;
+import mj.aastaar.algorithms.path.PathWithHashMap;
+import mj.aastaar.datastructures.IndexedMinHeap;
+import mj.aastaar.datastructures.OpenList;
+import mj.aastaar.map.Grid;
+import mj.aastaar.map.Node;
+
+/**
+ * Implementation of bidirectional Dijkstra's algorithm, which searches
+ * forward from the start and backward from the goal at the same time.
+ * The movement costs of the grid are symmetric, so the backward search uses
+ * the same costs as the forward search.
+ *
+ * Whenever a position has been reached from both directions, the cost of the
+ * path through it is a candidate for the best meeting cost. The search stops
+ * when the sum of the smallest priorities of the two frontiers is at least the
+ * best meeting cost, so no cheaper path can be left, and the two halves are
+ * joined through the meeting position.
+ *
+ * The two directions are expanded one node at a time, always the direction
+ * with the smaller frontier, or on two threads if the search is parallel.
+ * Each direction keeps its costs and parents in a SearchContext of its own,
+ * allocated at the first search and reused with generation stamps, so a
+ * search does not allocate anything for the size of the map.
+ *
+ * @author MJ
+ */
+public class BidirectionalDijkstra implements PathfindingAlgorithm {
+
+    private static final double INFINITY = SearchContext.INFINITY;
+    private static final ExecutorService BACKWARD_SEARCHES = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "backward-search");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private Grid grid;
+    private boolean parallel;
+    private int directions;
+    private PathWithHashMap path;
+    private SearchDirection forward;
+    private SearchDirection backward;
+    private volatile double bestCost;
+    private volatile boolean done;
+    private int meeting;
+    private int steps;
+    private boolean[][] visited;
+
+    /**
+     * Searching on one thread.
+     *
+     * @param grid Pathfinding grid
+     */
+    public BidirectionalDijkstra(Grid grid) {
+        this(grid, false);
+    }
+
+    /**
+     *
+     * @param grid Pathfinding grid
+     * @param parallel True if the backward search runs on another thread
+     */
+    public BidirectionalDijkstra(Grid grid, boolean parallel) {
+        this.grid = grid;
+        this.parallel = parallel;
+    }
+
+    @Override
+    public int search(Node start, Node goal, int directions) {
+        if (!grid.nodeIsValid(start) || !grid.nodeIsValid(goal)) {
+            System.out.println("Invalid positions.");
+            return -1;
+        }
+        if (forward == null) {
+            forward = new SearchDirection();
+            backward = new SearchDirection();
+            forward.opposite = backward;
+            backward.opposite = forward;
+        }
+        this.directions = directions;
+        bestCost = INFINITY;
+        meeting = -1;
+        steps = -1;
+        done = false;
+        path = null;
+        visited = null;
+        forward.begin(start, goal);
+        backward.begin(goal, start);
+        if (!grid.isReachable(start, goal)) {
+            return -1;
+        }
+        if (start.equals(goal)) {
+            offerMeeting(forward.sourceCell, 0.0);
+        }
+
+        if (parallel) {
+            if (!searchInParallel()) {
+                return -1;
+            }
+        } else {
+            while (!canStop(forward.minKey(), backward.minKey(), bestCost)) {
+                if (forward.frontier.size() <= backward.frontier.size()) {
+                    forward.expandNext();
+                } else {
+                    backward.expandNext();
+                }
+            }
+        }
+        if (meeting == -1) {
+            return -1;
+        }
+        steps = forward.steps(meeting) + backward.steps(meeting);
+        return steps;
+    }
+
+    /**
+     * The path of the latest search, joined at the first call from the
+     * forward path from the start to the meeting position and the backward
+     * path from the meeting position to the goal.
+     *
+     * @return The shortest path, or null if no path was found
+     */
+    @Override
+    public Path getPath() {
+        if (path == null && meeting != -1) {
+            path = new PathWithHashMap(Math.max(steps, 1));
+            int cell = meeting;
+            int previous;
+            while ((previous = forward.context.getParent(cell)) != -1) {
+                path.putCameFrom(key(cell), key(previous));
+                cell = previous;
+            }
+            cell = meeting;
+            int next;
+            while ((next = backward.context.getParent(cell)) != -1) {
+                path.putCameFrom(key(next), key(cell));
+                cell = next;
+            }
+        }
+        return path;
+    }
+
+    @Override
+    public double getCost(Node goal) {
+        if (meeting == -1 || !goal.equals(backward.source)) {
+            return -1;
+        }
+        return bestCost;
+    }
+
+    /**
+     * The positions expanded by either of the directions.
+     *
+     * @return Visited positions
+     */
+    @Override
+    public boolean[][] getVisited() {
+        if (visited == null && forward != null) {
+            visited = new boolean[grid.getLength()][grid.getRowLength()];
+            forward.markVisited(visited);
+            backward.markVisited(visited);
+        }
+        return visited;
+    }
+
+    /**
+     *
+     * @return Pathfinding grid
+     */
+    public Grid getGrid() {
+        return grid;
+    }
+
+    /**
+     *
+     * @return The amount of allowed directions in the latest search
+     */
+    public int getDirections() {
+        return directions;
+    }
+
+    /**
+     * The estimated cost from a position to the source of the opposite
+     * direction. Dijkstra's algorithm does not estimate the remaining cost.
+     *
+     * @param node The position
+     * @param target The source of the opposite direction
+     * @return Zero
+     */
+    protected double heuristic(Node node, Node target) {
+        return 0.0;
+    }
+
+    /**
+     * Checking the termination criterion: no path through the unexpanded
+     * positions can be cheaper than the best meeting cost, if the smallest
+     * costs of the two frontiers add up to at least the best meeting cost.
+     *
+     * @param forwardKey Smallest priority of the forward frontier
+     * @param backwardKey Smallest priority of the backward frontier
+     * @param bestCost Best meeting cost found so far
+     * @return True if the search can stop, otherwise false
+     */
+    protected boolean canStop(double forwardKey, double backwardKey, double bestCost) {
+        return forwardKey + backwardKey >= bestCost;
+    }
+
+    /**
+     * Running the backward search on another thread. The costs are shared
+     * through atomic arrays, so that of two threads reaching the same position,
+     * at least the latter one sees the cost of the other. Each direction checks
+     * the termination criterion with the last expanded priority of the other
+     * direction, which is never larger than its current smallest priority.
+     *
+     * @return False if the search was interrupted, otherwise true
+     */
+    private boolean searchInParallel() {
+        Future<?> backwardSearch = BACKWARD_SEARCHES.submit(() -> runDirection(backward));
+        try {
+            runDirection(forward);
+            backwardSearch.get();
+        } catch (InterruptedException e) {
+            done = true;
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            done = true;
+            throw new IllegalStateException("The backward search failed.", e.getCause());
+        }
+        return true;
+    }
+
+    private void runDirection(SearchDirection direction) {
+        while (!done) {
+            double key = direction.minKey();
+            if (key >= INFINITY || canStop(key, direction.opposite.lastKey, bestCost)) {
+                done = true;
+                return;
+            }
+            direction.expandNext();
+        }
+    }
+
+    /**
+     * Updating the best meeting cost, if the path through the position is
+     * cheaper than the best one found so far.
+     *
+     * @param cell The index of the position reached from both directions
+     * @param cost The cost of the path through the position
+     */
+    private synchronized void offerMeeting(int cell, double cost) {
+        if (cost < bestCost) {
+            bestCost = cost;
+            meeting = cell;
+        }
+    }
+
+    private long key(int cell) {
+        return Node.key(grid.getX(cell), grid.getY(cell));
+    }
+
+    /**
+     * The state of the search in one direction, reused by every search.
+     */
+    private class SearchDirection {
+
+        private final SearchContext context;
+        private final IndexedMinHeap frontier;
+        private final AtomicLongArray sharedCost;
+        private final int[] neighbours = new int[8];
+        private final double[] moveCosts = new double[8];
+        private final Node position = new Node(0, 0, 0);
+        private Node source;
+        private Node target;
+        private int sourceCell;
+        private volatile double lastKey;
+        private SearchDirection opposite;
+
+        SearchDirection() {
+            int cellCount = grid.getCellCount();
+            context = new SearchContext(grid.getLength(), grid.getRowLength());
+            frontier = (IndexedMinHeap) context.getOpenList(OpenList.INDEXED_HEAP);
+            if (parallel) {
+                sharedCost = new AtomicLongArray(cellCount);
+                for (int i = 0; i < cellCount; i++) {
+                    sharedCost.set(i, Double.doubleToRawLongBits(INFINITY));
+                }
+            } else {
+                sharedCost = null;
+            }
+        }
+
+        /**
+         * Starting a search from the source. In a parallel search, only the
+         * shared costs of the positions reached by the previous search are
+         * reset.
+         */
+        void begin(Node source, Node target) {
+            if (sharedCost != null) {
+                for (int i = 0; i < context.getTouchedCount(); i++) {
+                    sharedCost.set(context.getTouched(i), Double.doubleToRawLongBits(INFINITY));
+                }
+            }
+            context.begin(null);
+            this.source = source;
+            this.target = target;
+            sourceCell = grid.getIndex(source.getX(), source.getY());
+            setCost(sourceCell, 0.0, -1);
+            lastKey = heuristic(source, target);
+            frontier.add(sourceCell, lastKey);
+        }
+
+        /**
+         * The cost to a position, read by the opposite direction.
+         */
+        double getCost(int cell) {
+            if (sharedCost == null) {
+                return context.getCost(cell);
+            }
+            return Double.longBitsToDouble(sharedCost.get(cell));
+        }
+
+        void setCost(int cell, double cost, int parent) {
+            context.reach(cell, cost, parent);
+            if (sharedCost != null) {
+                sharedCost.set(cell, Double.doubleToRawLongBits(cost));
+            }
+        }
+
+        /**
+         *
+         * @return The smallest priority in the frontier
+         */
+        double minKey() {
+            return frontier.isEmpty() ? INFINITY : frontier.peekPriority();
+        }
+
+        /**
+         * Expanding the position with the smallest priority, and checking if
+         * the positions reached from it have been reached by the opposite
+         * direction.
+         */
+        void expandNext() {
+            lastKey = frontier.peekPriority();
+            int cell = frontier.poll();
+            context.close(cell);
+            double currentCost = context.getCost(cell);
+            int count = grid.getNeighbours(cell, directions, neighbours, moveCosts);
+            for (int i = 0; i < count; i++) {
+                int next = neighbours[i];
+                double newCost = currentCost + moveCosts[i];
+                if (newCost < context.getCost(next)) {
+                    setCost(next, newCost, cell);
+                    if (!context.isClosed(next)) {
+                        position.setX(grid.getX(next));
+                        position.setY(grid.getY(next));
+                        frontier.add(next, newCost + heuristic(position, target));
+                    }
+                    double oppositeCost = opposite.getCost(next);
+                    if (oppositeCost < INFINITY && newCost + oppositeCost < bestCost) {
+                        offerMeeting(next, newCost + oppositeCost);
+                    }
+                }
+            }
+        }
+
+        /**
+         *
+         * @param cell The index of a reached position
+         * @return The amount of steps from the source to the position
+         */
+        int steps(int cell) {
+            int count = 0;
+            while ((cell = context.getParent(cell)) != -1) {
+                count++;
+            }
+            return count;
+        }
+
+        void markVisited(boolean[][] visited) {
+            for (int i = 0; i < context.getTouchedCount(); i++) {
+                int cell = context.getTouched(i);
+                if (context.isClosed(cell)) {
+                    visited[grid.getX(cell)][grid.getY(cell)] = true;
+                }
+            }
+        }
+    }
+}
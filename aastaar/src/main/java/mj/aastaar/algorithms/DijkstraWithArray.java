@@ -1,76 +1,184 @@
 package mj.aastaar.algorithms;
 
 import mj.aastaar.algorithms.path.Path;
-import mj.aastaar.algorithms.path.PathWithArray;
-import mj.aastaar.datastructures.CustomPriorityQueue;
+import mj.aastaar.algorithms.path.PathWithHashMap;
+import mj.aastaar.datastructures.OpenList;
 import mj.aastaar.map.Grid;
 import mj.aastaar.map.Node;
 
 /**
  * Implementation of uniform cost search, which is a variant of Dijkstra's
- * algorithm. Using 2D-arrays for the path and path cost.
- * 
+ * algorithm. Using arrays of the size of the grid for the path and path cost,
+ * shared with the other searches of the thread, see SearchContext. The open
+ * list is an indexed binary heap unless another implementation is chosen,
+ * such as a bucket queue for integer move costs.
+ *
  * @author MJ
  */
 public class DijkstraWithArray implements PathfindingAlgorithm {
 
     private Node goal;
+    private int directions;
     private Grid grid;
-    private PathWithArray path;
-    private CustomPriorityQueue frontier;
-    private double cost[][];
+    private SearchState state;
+    private PathWithHashMap path;
     private boolean[][] visited;
+    private int steps;
+    private SearchStats stats;
+    private final int openList;
+    private final int[] neighbours = new int[8];
+    private final double[] moveCosts = new double[8];
+    private final SearchContext.Owner owner = context -> state = context.snapshot();
 
     /**
      *
      * @param grid Pathfinding grid
      */
     public DijkstraWithArray(Grid grid) {
+        this(grid, OpenList.INDEXED_HEAP);
+    }
+
+    /**
+     *
+     * @param grid Pathfinding grid
+     * @param openList The open list implementation, see OpenList
+     */
+    public DijkstraWithArray(Grid grid, int openList) {
+        if (openList < OpenList.INDEXED_HEAP || openList > OpenList.RADIX_HEAP) {
+            throw new IllegalArgumentException("Unknown open list: " + openList);
+        }
         this.grid = grid;
+        this.openList = openList;
     }
 
     @Override
     public int search(Node start, Node goal, int directions) {
+        if (stats == null) {
+            return run(start, goal, directions, null);
+        }
+        stats.begin();
+        int length = run(start, goal, directions, stats);
+        stats.end();
+        return length;
+    }
+
+    @Override
+    public void setStats(SearchStats stats) {
+        this.stats = stats;
+    }
+
+    @Override
+    public SearchStats getStats() {
+        return stats;
+    }
+
+    /**
+     * The search, counting its work if the counters are given.
+     */
+    private int run(Node start, Node goal, int directions, SearchStats stats) {
         if (!grid.nodeIsValid(start) || !grid.nodeIsValid(goal)) {
             System.out.println("Invalid positions.");
             return -1;
         }
-        initDataStructures();
-        initCost();
+        SearchContext context = SearchContext.forGrid(grid);
+        context.begin(owner);
+        state = context;
+        path = null;
+        visited = null;
+        steps = -1;
         this.goal = goal;
-        frontier.heapInsert(start);
-        cost[start.getX()][start.getY()] = 0.0;
+        this.directions = directions;
+        if (!grid.isReachable(start, goal)) {
+            return -1;
+        }
+        int kind = openList;
+        if (kind == OpenList.BUCKET_QUEUE && !integralPriorities(directions)) {
+            kind = OpenList.RADIX_HEAP;
+        }
+        OpenList frontier = context.getOpenList(kind);
+        int startCell = grid.getIndex(start.getX(), start.getY());
+        int goalCell = grid.getIndex(goal.getX(), goal.getY());
+        context.reach(startCell, 0.0, -1);
+        frontier.add(startCell, priority(startCell, 0.0));
+        if (stats != null) {
+            stats.insert(frontier.size());
+        }
 
         while (!frontier.isEmpty()) {
-            Node current = frontier.heapDelMin();
-            if (current.equals(goal)) {
-                return path.earlyExit(current, start);
+            int cell = frontier.poll();
+            if (stats != null) {
+                stats.pop();
+            }
+            if (cell == goalCell) {
+                steps = earlyExit(cell);
+                return steps;
             }
-            if (visited[current.getX()][current.getY()]) {
+            if (context.isClosed(cell)) {
+                if (stats != null) {
+                    stats.skipStale();
+                }
                 continue;
             }
-            visited[current.getX()][current.getY()] = true;
-            expandFrontier(current, directions);
+            context.close(cell);
+            expandFrontier(context, frontier, cell, directions, stats);
         }
         return -1;
     }
 
+    /**
+     * The path of the latest search, traced back from the goal at the first
+     * call.
+     *
+     * @return The shortest path, or null before the first search
+     */
     @Override
     public Path getPath() {
+        if (path == null && state != null) {
+            path = new PathWithHashMap(Math.max(steps, 0));
+            int cell = grid.getIndex(goal.getX(), goal.getY());
+            long to = goal.getKey();
+            for (int i = 0; i < steps; i++) {
+                cell = state.getParent(cell);
+                long from = Node.key(grid.getX(cell), grid.getY(cell));
+                path.putCameFrom(to, from);
+                to = from;
+            }
+        }
         return path;
     }
 
     @Override
     public double getCost(Node goal) {
-        double c = cost[goal.getX()][goal.getY()];
-        if (c == 1000000000.0) {
+        if (state == null || !grid.inBounds(goal.getX(), goal.getY())) {
+            return -1;
+        }
+        double c = state.getCost(grid.getIndex(goal.getX(), goal.getY()));
+        if (c == SearchContext.INFINITY) {
             return -1;
         }
         return c;
     }
-    
+
+    /**
+     * The positions expanded by the latest search, collected at the first
+     * call.
+     *
+     * @return Visited positions
+     */
     @Override
     public boolean[][] getVisited() {
+        if (visited == null) {
+            visited = new boolean[grid.getLength()][grid.getRowLength()];
+            if (state == null) {
+                return visited;
+            }
+            for (int i = 0; i < state.getTouchedCount(); i++) {
+                int cell = state.getTouched(i);
+                if (state.isClosed(cell)) {
+                    visited[grid.getX(cell)][grid.getY(cell)] = true;
+                }
+            }
+        }
         return visited;
     }
 
@@ -92,56 +200,86 @@ public class DijkstraWithArray implements PathfindingAlgorithm {
 
     /**
      *
-     * @param node The node that needs it's priority set
-     * @param cost The cost to the node
+     * @return The amount of allowed directions in the latest search
      */
-    public void setPriority(Node node, double cost) {
-        node.setPriority(cost);
+    public int getDirections() {
+        return directions;
     }
 
     /**
-     * Adding new nodes to the frontier (a.k.a. open set) and path
      *
-     * @param current The position where the expansion is happening from
-     * @param directions Allowed amount of directions for movement
+     * @return The open list implementation, see OpenList
      */
-    private void expandFrontier(Node current, int directions) {
-        for (Node next : grid.getNeighbours(current.getX(), current.getY(), directions)) {
-            if (next == null) {
-                continue;
-            }
-            double newCost = cost[current.getX()][current.getY()] + grid.cost(current, next);
-            if (newCost < cost[next.getX()][next.getY()]) {
-                cost[next.getX()][next.getY()] = newCost;
-                setPriority(next, newCost);
-                frontier.heapInsert(next);
-                path.putCameFrom(next, current);
-            }
-        }
+    public int getOpenList() {
+        return openList;
     }
 
     /**
-     * Initializing data structures for the path, frontier and cost.
+     *
+     * @param cell The index of the position that is added to the frontier
+     * @param cost The cost to the position
+     * @return The priority of the position in the frontier
      */
-    private void initDataStructures() {
-        int nx = grid.getLength();
-        int ny = grid.getRowLength();
-        path = new PathWithArray(nx, ny);
-        frontier = new CustomPriorityQueue(nx * ny);
-        cost = new double[nx][ny];
-        visited = new boolean[nx][ny];
+    public double priority(int cell, double cost) {
+        return cost;
     }
 
     /**
-     * Initializing the cost for each node in the grid.
+     * Checking if every priority of a search is an integer, so the bucket
+     * queue can be used.
+     *
+     * @param directions The amount of allowed directions for valid moves
+     * @return True if the move costs are integers, otherwise false
      */
-    private void initCost() {
-        int nx = grid.getLength();
-        int ny = grid.getRowLength();
-        for (int i = 0; i < nx; i++) {
-            for (int j = 0; j < ny; j++) {
-                cost[i][j] = 1000000000.0;
+    public boolean integralPriorities(int directions) {
+        return grid.hasIntegralCosts(directions);
+    }
+
+    /**
+     * Adding new nodes to the frontier (a.k.a. open set) and path
+     *
+     * @param context The arrays of the search
+     * @param frontier The open list of the search
+     * @param cell The index of the position where the expansion is happening
+     * from
+     * @param directions Allowed amount of directions for movement
+     * @param stats The counters of the search, or null
+     */
+    private void expandFrontier(SearchContext context, OpenList frontier, int cell, int directions,
+            SearchStats stats) {
+        double currentCost = context.getCost(cell);
+        int count = grid.getNeighbours(cell, directions, neighbours, moveCosts);
+        if (stats != null) {
+            stats.expand();
+            stats.generate(count);
+        }
+        for (int i = 0; i < count; i++) {
+            int nextCell = neighbours[i];
+            double newCost = currentCost + moveCosts[i];
+            if (newCost < context.getCost(nextCell)) {
+                context.reach(nextCell, newCost, cell);
+                frontier.add(nextCell, priority(nextCell, newCost));
+                if (stats != null) {
+                    stats.insert(frontier.size());
+                    if (context.isClosed(nextCell)) {
+                        stats.reopen();
+                    }
+                }
             }
         }
     }
+
+    /**
+     * Tracing the steps back from the goal to the start.
+     *
+     * @param cell The index of the goal
+     * @return Amount of steps in the shortest path
+     */
+    private int earlyExit(int cell) {
+        int count = 0;
+        while ((cell = state.getParent(cell)) != -1) {
+            count++;
+        }
+        return count;
+    }
 }
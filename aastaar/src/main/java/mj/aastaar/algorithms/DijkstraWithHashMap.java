@@ -2,25 +2,34 @@ package mj.aastaar.algorithms;
 
 import mj.aastaar.algorithms.path.Path;
 import mj.aastaar.algorithms.path.PathWithHashMap;
-import mj.aastaar.datastructures.CustomHashMap;
-import mj.aastaar.datastructures.CustomPriorityQueue;
+import mj.aastaar.datastructures.LongDoubleHashMap;
+import mj.aastaar.datastructures.LongHashSet;
+import mj.aastaar.datastructures.LongMinHeap;
 import mj.aastaar.map.Grid;
 import mj.aastaar.map.Node;
 
 /**
  * Implementation of uniform cost search, which is a variant of Dijkstra's
- * algorithm. Using custom hash maps for the path and path cost.
+ * algorithm. Using primitive hash maps of packed positions for the path and
+ * path cost, and a hash set of the expanded positions, so the memory use
+ * depends on the amount of positions the search reaches and not on the size
+ * of the map. The frontier is a heap of packed positions that is reused by
+ * the searches, so an expansion does not allocate a node.
  *
  * @author MJ
  */
 public class DijkstraWithHashMap implements PathfindingAlgorithm {
 
     private Node goal;
+    private int directions;
     private PathWithHashMap path;
-    private CustomPriorityQueue frontier;
-    private CustomHashMap<Node, Double> cost;
+    private final LongMinHeap frontier = new LongMinHeap(1024);
+    private LongDoubleHashMap cost;
+    private LongHashSet closed;
     private Grid grid;
-    private boolean[][] visited;
+    private SearchStats stats;
+    private final int[] neighbours = new int[8];
+    private final double[] moveCosts = new double[8];
 
     /**
      *
@@ -40,24 +49,58 @@ public class DijkstraWithHashMap implements PathfindingAlgorithm {
      */
     @Override
     public int search(Node start, Node goal, int directions) {
+        if (stats == null) {
+            return run(start, goal, directions);
+        }
+        stats.begin();
+        int length = run(start, goal, directions);
+        stats.end();
+        return length;
+    }
+
+    @Override
+    public void setStats(SearchStats stats) {
+        this.stats = stats;
+    }
+
+    @Override
+    public SearchStats getStats() {
+        return stats;
+    }
+
+    private int run(Node start, Node goal, int directions) {
         if (!grid.nodeIsValid(start) || !grid.nodeIsValid(goal)) {
             System.out.println("Invalid positions.");
             return -1;
         }
         initDataStructures();
         this.goal = goal;
-        frontier.heapInsert(start);
-        cost.put(start, 0.0);
+        this.directions = directions;
+        if (!grid.isReachable(start, goal)) {
+            return -1;
+        }
+        long startKey = start.getKey();
+        long goalKey = goal.getKey();
+        frontier.add(startKey, priority(startKey, 0.0));
+        cost.put(startKey, 0.0);
+        if (stats != null) {
+            stats.insert(frontier.size());
+        }
 
         while (!frontier.isEmpty()) {
-            Node current = frontier.heapDelMin();
-            if (current.equals(goal)) {
-                return path.earlyExit(current, start);
+            long current = frontier.poll();
+            if (stats != null) {
+                stats.pop();
+            }
+            if (current == goalKey) {
+                return path.earlyExit(goal, start);
             }
-            if (visited[current.getX()][current.getY()]) {
+            if (!closed.add(current)) {
+                if (stats != null) {
+                    stats.skipStale();
+                }
                 continue;
             }
-            visited[current.getX()][current.getY()] = true;
             expandFrontier(current, directions);
         }
         return -1;
@@ -70,14 +113,25 @@ public class DijkstraWithHashMap implements PathfindingAlgorithm {
 
     @Override
     public double getCost(Node goal) {
-        if (!cost.containsKey(goal)) {
+        if (cost == null) {
             return -1;
         }
-        return cost.get(goal);
+        return cost.get(goal.getKey(), -1);
     }
 
+    /**
+     * The expanded positions of the latest search as a grid-sized array.
+     *
+     * @return Visited positions
+     */
     @Override
     public boolean[][] getVisited() {
+        boolean[][] visited = new boolean[grid.getLength()][grid.getRowLength()];
+        if (closed != null) {
+            for (long key : closed.keys()) {
+                visited[Node.keyX(key)][Node.keyY(key)] = true;
+            }
+        }
         return visited;
     }
 
@@ -99,35 +153,55 @@ public class DijkstraWithHashMap implements PathfindingAlgorithm {
 
     /**
      *
-     * @param node The node that needs it's priority set
-     * @param cost The cost to the node
+     * @return The amount of allowed directions in the latest search
      */
-    public void setPriority(Node node, double cost) {
-        node.setPriority(cost);
+    public int getDirections() {
+        return directions;
     }
 
-    // used by the search to put new nodes to the frontier (a.k.a. open set) and path
-    private void expandFrontier(Node current, int directions) {
-        for (Node next : grid.getNeighbours(current.getX(), current.getY(), directions)) {
-            if (next == null) {
-                continue;
-            }
-            double newCost = cost.get(current) + grid.cost(current, next);
-            if (!cost.containsKey(next) || newCost < cost.get(next)) {
-                cost.put(next, newCost);
-                setPriority(next, newCost);
-                frontier.heapInsert(next);
-                path.putCameFrom(next, current);
+    /**
+     *
+     * @param key The packed position that is added to the frontier, see
+     * Node.key
+     * @param cost The cost to the position
+     * @return The priority of the position in the frontier
+     */
+    public double priority(long key, double cost) {
+        return cost;
+    }
+
+    // used by the search to put new positions to the frontier (a.k.a. open set) and path
+    private void expandFrontier(long currentKey, int directions) {
+        double currentCost = cost.get(currentKey, 0.0);
+        int cell = grid.getIndex(Node.keyX(currentKey), Node.keyY(currentKey));
+        int count = grid.getNeighbours(cell, directions, neighbours, moveCosts);
+        if (stats != null) {
+            stats.expand();
+            stats.generate(count);
+        }
+        for (int i = 0; i < count; i++) {
+            int x = grid.getX(neighbours[i]);
+            int y = grid.getY(neighbours[i]);
+            double newCost = currentCost + moveCosts[i];
+            long key = Node.key(x, y);
+            if (newCost < cost.get(key, Double.POSITIVE_INFINITY)) {
+                cost.put(key, newCost);
+                frontier.add(key, priority(key, newCost));
+                path.putCameFrom(key, currentKey);
+                if (stats != null) {
+                    stats.insert(frontier.size());
+                    if (closed.contains(key)) {
+                        stats.reopen();
+                    }
+                }
             }
         }
     }
 
     private void initDataStructures() {
-        int nx = grid.getLength();
-        int ny = grid.getRowLength();
-        path = new PathWithHashMap(nx * ny);
-        frontier = new CustomPriorityQueue(nx * ny);
-        cost = new CustomHashMap<>(nx * ny);
-        visited = new boolean[nx][ny];
+        path = new PathWithHashMap(1024);
+        frontier.clear();
+        cost = new LongDoubleHashMap(1024);
+        closed = new LongHashSet(1024);
     }
 }
@@ -0,0 +1,378 @@
+package mj.aastaar.algorithms;
+
+import mj.aastaar.algorithms.path.Path;
+import mj.aastaar.algorithms.path.PathWithArray;
+import mj.aastaar.datastructures.CustomPriorityQueue;
+import mj.aastaar.map.Grid;
+import mj.aastaar.map.Node;
+
+/**
+ * Implementation of Jump Point Search, which is A* on an 8-connected grid
+ * that prunes symmetric paths by jumping over positions that no optimal path
+ * has to branch from. Diagonal moves do not cut corners, and the distance is
+ * estimated with the octile heuristic.
+ *
+ * The pruning rules only hold on uniform-cost terrain, so the jumps only
+ * travel across runs of the same terrain: every position that is next to
+ * passable terrain with a different weight stops a jump, and is expanded in
+ * all directions like the start position.
+ *
+ * @author MJ
+ */
+public class JumpPointSearch implements PathfindingAlgorithm {
+
+    private final int DIRECTIONS = 8;
+    private final double INFINITY = 1000000000.0;
+
+    private Node goal;
+    private Grid grid;
+    private PathWithArray path;
+    private Node[][] jumpParent;
+    private CustomPriorityQueue frontier;
+    private double[][] cost;
+    private boolean[][] visited;
+    private boolean[][] terrainBorder;
+    private SearchStats stats;
+
+    /**
+     * Finding the positions where the terrain weight changes, so that the
+     * search does not need to check them during the jumps.
+     *
+     * @param grid Pathfinding grid
+     */
+    public JumpPointSearch(Grid grid) {
+        this.grid = grid;
+        initTerrainBorders();
+    }
+
+    /**
+     * Only movement in eight directions is supported.
+     *
+     * @param start The start node
+     * @param goal The goal node
+     * @param directions The amount of allowed directions, has to be 8
+     * @return The length of the shortest path between two positions
+     */
+    @Override
+    public int search(Node start, Node goal, int directions) {
+        if (stats == null) {
+            return run(start, goal, directions);
+        }
+        stats.begin();
+        int length = run(start, goal, directions);
+        stats.end();
+        return length;
+    }
+
+    @Override
+    public void setStats(SearchStats stats) {
+        this.stats = stats;
+    }
+
+    @Override
+    public SearchStats getStats() {
+        return stats;
+    }
+
+    private int run(Node start, Node goal, int directions) {
+        if (directions != DIRECTIONS) {
+            System.out.println("Jump point search requires 8 directions.");
+            return -1;
+        }
+        if (!grid.nodeIsValid(start) || !grid.nodeIsValid(goal)) {
+            System.out.println("Invalid positions.");
+            return -1;
+        }
+        initDataStructures();
+        this.goal = goal;
+        if (!grid.isReachable(start, goal)) {
+            return -1;
+        }
+        frontier.heapInsert(new Node(start.getX(), start.getY(), 0.0));
+        cost[start.getX()][start.getY()] = 0.0;
+        if (stats != null) {
+            stats.insert(frontier.getHeapSize());
+        }
+
+        while (!frontier.isEmpty()) {
+            Node current = frontier.heapDelMin();
+            if (stats != null) {
+                stats.pop();
+            }
+            if (current.equals(goal)) {
+                return tracePath(current, start);
+            }
+            if (visited[current.getX()][current.getY()]) {
+                if (stats != null) {
+                    stats.skipStale();
+                }
+                continue;
+            }
+            visited[current.getX()][current.getY()] = true;
+            if (stats != null) {
+                stats.expand();
+            }
+            identifySuccessors(current);
+        }
+        return -1;
+    }
+
+    @Override
+    public Path getPath() {
+        return path;
+    }
+
+    @Override
+    public double getCost(Node goal) {
+        double c = cost[goal.getX()][goal.getY()];
+        if (c == INFINITY) {
+            return -1;
+        }
+        return c;
+    }
+
+    /**
+     * Only the jump points are visited by the search.
+     *
+     * @return The expanded jump points
+     */
+    @Override
+    public boolean[][] getVisited() {
+        return visited;
+    }
+
+    /**
+     *
+     * @return Pathfinding grid
+     */
+    public Grid getGrid() {
+        return grid;
+    }
+
+    /**
+     *
+     * @return Goal node
+     */
+    public Node getGoal() {
+        return goal;
+    }
+
+    /**
+     * Jumping to the next jump point in every direction that is not pruned,
+     * adding the jump points to the frontier.
+     *
+     * @param current The jump point that is expanded
+     */
+    private void identifySuccessors(Node current) {
+        int x = current.getX();
+        int y = current.getY();
+        Node parent = jumpParent[x][y];
+
+        if (parent == null || terrainBorder[x][y]) {
+            for (int dx = -1; dx <= 1; dx++) {
+                for (int dy = -1; dy <= 1; dy++) {
+                    if (dx != 0 || dy != 0) {
+                        addSuccessor(current, dx, dy);
+                    }
+                }
+            }
+            return;
+        }
+        int dx = Integer.signum(x - parent.getX());
+        int dy = Integer.signum(y - parent.getY());
+        if (dx != 0 && dy != 0) {
+            addSuccessor(current, dx, 0);
+            addSuccessor(current, 0, dy);
+            addSuccessor(current, dx, dy);
+        } else if (dx != 0) {
+            addSuccessor(current, dx, 0);
+            addSuccessor(current, dx, 1);
+            addSuccessor(current, dx, -1);
+            addSuccessor(current, 0, 1);
+            addSuccessor(current, 0, -1);
+        } else {
+            addSuccessor(current, 0, dy);
+            addSuccessor(current, 1, dy);
+            addSuccessor(current, -1, dy);
+            addSuccessor(current, 1, 0);
+            addSuccessor(current, -1, 0);
+        }
+    }
+
+    /**
+     * Jumping from a position to a direction and adding the found jump point
+     * to the frontier, if the path to it is the cheapest found so far.
+     * All the steps of a jump are on the same terrain, so the cost of the
+     * jump is the amount of steps times the cost of the first step.
+     *
+     * @param current The position where the jump starts
+     * @param dx The x-component of the direction
+     * @param dy The y-component of the direction
+     */
+    private void addSuccessor(Node current, int dx, int dy) {
+        int x = current.getX();
+        int y = current.getY();
+        int steps = jump(x, y, dx, dy);
+        if (steps < 1) {
+            return;
+        }
+        int nextX = x + steps * dx;
+        int nextY = y + steps * dy;
+        if (stats != null) {
+            stats.generate(1);
+        }
+        double newCost = cost[x][y] + steps * grid.cost(x, y, x + dx, y + dy);
+        if (newCost < cost[nextX][nextY]) {
+            cost[nextX][nextY] = newCost;
+            Node next = new Node(nextX, nextY, 0.0);
+            next.setPriority(newCost + grid.octileHeuristic(next, goal));
+            frontier.heapInsert(next);
+            jumpParent[nextX][nextY] = current;
+            if (stats != null) {
+                stats.insert(frontier.getHeapSize());
+                if (visited[nextX][nextY]) {
+                    stats.reopen();
+                }
+            }
+        }
+    }
+
+    /**
+     * Moving to a direction until a jump point is found. A position is a jump
+     * point if it is the goal, if it borders different terrain, if it has a
+     * forced neighbour, or if a diagonal jump point has a jump point in the
+     * horizontal or vertical directions.
+     *
+     * @param x X-coordinate of the position where the jump starts
+     * @param y Y-coordinate of the position where the jump starts
+     * @param dx The x-component of the direction
+     * @param dy The y-component of the direction
+     * @return The amount of steps to the jump point, or 0 if there is none
+     */
+    protected int jump(int x, int y, int dx, int dy) {
+        int steps = 0;
+        while (canStep(x, y, dx, dy)) {
+            x += dx;
+            y += dy;
+            steps++;
+            if (isGoal(x, y) || terrainBorder[x][y]) {
+                return steps;
+            }
+            if (dx != 0 && dy != 0) {
+                if (jump(x, y, dx, 0) > 0 || jump(x, y, 0, dy) > 0) {
+                    return steps;
+                }
+            } else if (hasForcedNeighbour(grid, x, y, dx, dy)) {
+                return steps;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * A horizontal or vertical move has a forced neighbour at the side,
+     * if the position beside the parent is blocked,
+     * but the position beside the current position is not.
+     *
+     * @param grid Pathfinding grid
+     * @param x X-coordinate of the position
+     * @param y Y-coordinate of the position
+     * @param dx The x-component of the direction
+     * @param dy The y-component of the direction
+     * @return True if the position has a forced neighbour, otherwise false
+     */
+    static boolean hasForcedNeighbour(Grid grid, int x, int y, int dx, int dy) {
+        if (dx != 0) {
+            return (grid.isPassable(x, y + 1) && !grid.isPassable(x - dx, y + 1))
+                    || (grid.isPassable(x, y - 1) && !grid.isPassable(x - dx, y - 1));
+        }
+        return (grid.isPassable(x + 1, y) && !grid.isPassable(x + 1, y - dy))
+                || (grid.isPassable(x - 1, y) && !grid.isPassable(x - 1, y - dy));
+    }
+
+    /**
+     *
+     * @param x X-coordinate of the position where the step starts
+     * @param y Y-coordinate of the position where the step starts
+     * @param dx The x-component of the direction
+     * @param dy The y-component of the direction
+     * @return True if the step is allowed, otherwise false
+     */
+    private boolean canStep(int x, int y, int dx, int dy) {
+        if (dx != 0 && dy != 0) {
+            return grid.canMoveDiagonally(x, y, dx, dy);
+        }
+        return grid.isPassable(x + dx, y + dy);
+    }
+
+    /**
+     *
+     * @param x X-coordinate of the position
+     * @param y Y-coordinate of the position
+     * @return True if the position is the goal of the current search
+     */
+    protected boolean isGoal(int x, int y) {
+        return x == goal.getX() && y == goal.getY();
+    }
+
+    /**
+     * Filling in the positions between the jump points of the found path,
+     * and returning the amount of steps in the path.
+     *
+     * @param current The goal node
+     * @param start The start node
+     * @return Amount of steps in the shortest path
+     */
+    private int tracePath(Node current, Node start) {
+        while (!current.equals(start)) {
+            Node parent = jumpParent[current.getX()][current.getY()];
+            int dx = Integer.signum(current.getX() - parent.getX());
+            int dy = Integer.signum(current.getY() - parent.getY());
+            Node previous = parent;
+            int x = parent.getX();
+            int y = parent.getY();
+            while (x != current.getX() || y != current.getY()) {
+                x += dx;
+                y += dy;
+                Node step = new Node(x, y, 0.0);
+                path.putCameFrom(step, previous);
+                previous = step;
+            }
+            current = parent;
+        }
+        return path.earlyExit(goal, start);
+    }
+
+    /**
+     * Initializing data structures for the path, frontier and cost.
+     */
+    private void initDataStructures() {
+        int nx = grid.getLength();
+        int ny = grid.getRowLength();
+        path = new PathWithArray(nx, ny);
+        jumpParent = new Node[nx][ny];
+        frontier = new CustomPriorityQueue(nx * ny);
+        cost = new double[nx][ny];
+        visited = new boolean[nx][ny];
+        for (int i = 0; i < nx; i++) {
+            for (int j = 0; j < ny; j++) {
+                cost[i][j] = INFINITY;
+            }
+        }
+    }
+
+    /**
+     * Marking the passable positions that have a passable neighbour with a
+     * different terrain weight.
+     */
+    private void initTerrainBorders() {
+        int nx = grid.getLength();
+        int ny = grid.getRowLength();
+        terrainBorder = new boolean[nx][ny];
+        for (int x = 0; x < nx; x++) {
+            for (int y = 0; y < ny; y++) {
+                terrainBorder[x][y] = grid.bordersDifferentTerrain(x, y);
+            }
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package mj.aastaar.algorithms;
+
+import mj.aastaar.map.Grid;
+import mj.aastaar.map.Node;
+
+/**
+ * Implementation of JPS+, which is Jump Point Search with the jumps looked up
+ * from a precomputed table of jump distances instead of scanning the grid.
+ * Inheriting JumpPointSearch, so the pruning rules and the found paths are the
+ * same.
+ *
+ * If the grid has been changed since the table was checked, the table is
+ * computed again at the next search unless the terrain still matches it.
+ *
+ * @author MJ
+ */
+public class JumpPointSearchPlus extends JumpPointSearch {
+
+    private JumpPointTable table;
+    private int modifications;
+
+    /**
+     * Computing the jump distance table for the grid.
+     *
+     * @param grid Pathfinding grid
+     */
+    public JumpPointSearchPlus(Grid grid) {
+        this(grid, JumpPointTable.build(grid));
+    }
+
+    /**
+     *
+     * @param grid Pathfinding grid
+     * @param table Jump distance table computed for the grid
+     */
+    public JumpPointSearchPlus(Grid grid, JumpPointTable table) {
+        super(grid);
+        if (!table.matches(grid)) {
+            throw new IllegalArgumentException("The jump point table does not match the grid.");
+        }
+        this.table = table;
+        this.modifications = grid.getModifications();
+    }
+
+    @Override
+    public int search(Node start, Node goal, int directions) {
+        Grid grid = getGrid();
+        if (grid.getModifications() != modifications) {
+            modifications = grid.getModifications();
+            if (!table.matches(grid)) {
+                table = JumpPointTable.build(grid);
+            }
+        }
+        return super.search(start, goal, directions);
+    }
+
+    /**
+     *
+     * @return Jump distance table
+     */
+    public JumpPointTable getTable() {
+        return table;
+    }
+
+    /**
+     * Looking up the next jump point from the table. The goal is not in the
+     * table, so a jump stops early if the goal is on the way, or for diagonal
+     * jumps, if the goal can be reached with a straight jump from a position
+     * on the way.
+     *
+     * @param x X-coordinate of the position where the jump starts
+     * @param y Y-coordinate of the position where the jump starts
+     * @param dx The x-component of the direction
+     * @param dy The y-component of the direction
+     * @return The amount of steps to the jump point, or 0 if there is none
+     */
+    @Override
+    protected int jump(int x, int y, int dx, int dy) {
+        int distance = table.distance(x, y, JumpPointTable.direction(dx, dy));
+        int steps = (distance > 0) ? distance : 0;
+        int free = (distance > 0) ? distance : -distance;
+        int goalX = getGoal().getX();
+        int goalY = getGoal().getY();
+
+        if (dx == 0 || dy == 0) {
+            int goalSteps = straightSteps(x, y, dx, dy, goalX, goalY);
+            if (goalSteps > 0 && goalSteps <= free && (steps == 0 || goalSteps < steps)) {
+                return goalSteps;
+            }
+            return steps;
+        }
+        if (Integer.signum(goalX - x) != dx || Integer.signum(goalY - y) != dy) {
+            return steps;
+        }
+        int diagonalSteps = Math.min(Math.abs(goalX - x), Math.abs(goalY - y));
+        if (diagonalSteps <= free && (steps == 0 || diagonalSteps < steps)) {
+            int turnX = x + diagonalSteps * dx;
+            int turnY = y + diagonalSteps * dy;
+            if (isGoal(turnX, turnY)) {
+                return diagonalSteps;
+            }
+            int turnDx = (turnX == goalX) ? 0 : dx;
+            int turnDy = (turnY == goalY) ? 0 : dy;
+            int goalSteps = straightSteps(turnX, turnY, turnDx, turnDy, goalX, goalY);
+            int turnDistance = table.distance(turnX, turnY, JumpPointTable.direction(turnDx, turnDy));
+            if (goalSteps <= Math.abs(turnDistance)) {
+                return diagonalSteps;
+            }
+        }
+        return steps;
+    }
+
+    /**
+     *
+     * @return Amount of straight steps from a position to the goal,
+     * or 0 if the goal is not in the given direction
+     */
+    private int straightSteps(int x, int y, int dx, int dy, int goalX, int goalY) {
+        if (dx == 0 && dy == 0) {
+            return 0;
+        }
+        if (dx == 0) {
+            return (goalX == x && Integer.signum(goalY - y) == dy) ? Math.abs(goalY - y) : 0;
+        }
+        return (goalY == y && Integer.signum(goalX - x) == dx) ? Math.abs(goalX - x) : 0;
+    }
+}
@@ -0,0 +1,250 @@
+package mj.aastaar.algorithms;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import mj.aastaar.map.Grid;
+import mj.aastaar.utils.TableStore;
+
+/**
+ * Precomputed jump distances for JPS+. For every position and each of the
+ * eight directions the table holds the amount of steps to the next jump
+ * point as a positive number, or the amount of steps that can be taken before
+ * a wall as zero or a negative number. The directions are in the same order
+ * as the neighbours in Grid.getNeighbours.
+ *
+ * The table depends only on the passability and terrain weights of the grid,
+ * and can be stored next to the map file.
+ *
+ * @author MJ
+ */
+public class JumpPointTable {
+
+    /**
+     * The x-components of the eight directions.
+     */
+    public static final int[] DX = {1, -1, 0, 0, 1, 1, -1, -1};
+
+    /**
+     * The y-components of the eight directions.
+     */
+    public static final int[] DY = {0, 0, 1, -1, 1, -1, 1, -1};
+
+    private static final int MAGIC = 0x4a50532b;
+    private static final int VERSION = 2;
+    private static final String FILE_EXTENSION = ".jps";
+
+    private final int length;
+    private final int rowLength;
+    private final long fingerprint;
+    private final short[] distances;
+
+    private JumpPointTable(int length, int rowLength, long fingerprint, short[] distances) {
+        this.length = length;
+        this.rowLength = rowLength;
+        this.fingerprint = fingerprint;
+        this.distances = distances;
+    }
+
+    /**
+     *
+     * @param x The x-coordinate of the position
+     * @param y The y-coordinate of the position
+     * @param direction Direction index, from 0 to 7
+     * @return Steps to the next jump point if positive, otherwise the negated
+     * amount of steps before a wall
+     */
+    public int distance(int x, int y, int direction) {
+        return distances[((x * rowLength) + y) * 8 + direction];
+    }
+
+    /**
+     *
+     * @param dx The x-component of a direction
+     * @param dy The y-component of a direction
+     * @return The index of the direction
+     */
+    public static int direction(int dx, int dy) {
+        for (int i = 0; i < 8; i++) {
+            if (DX[i] == dx && DY[i] == dy) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Checking that the table was computed for a grid with the same size,
+     * passability and terrain weights.
+     *
+     * @param grid Pathfinding grid
+     * @return True if the table can be used with the grid, otherwise false
+     */
+    public boolean matches(Grid grid) {
+        return grid.getLength() == length && grid.getRowLength() == rowLength
+                && grid.terrainChecksum() == fingerprint;
+    }
+
+    /**
+     * Computing the jump distances for every position of the grid with one
+     * sweep per direction, starting from the far end of the direction, so
+     * that the distance of a position is always based on its neighbour.
+     *
+     * @param grid Pathfinding grid
+     * @return The jump distance table
+     */
+    public static JumpPointTable build(Grid grid) {
+        int nx = grid.getLength();
+        int ny = grid.getRowLength();
+        if (nx > Short.MAX_VALUE || ny > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("The grid is too large for a jump point table.");
+        }
+        JumpPointTable table = new JumpPointTable(nx, ny, grid.terrainChecksum(), new short[nx * ny * 8]);
+        for (int direction = 0; direction < 8; direction++) {
+            int dx = DX[direction];
+            int dy = DY[direction];
+            for (int i = 0; i < nx; i++) {
+                int x = (dx > 0) ? nx - 1 - i : i;
+                for (int j = 0; j < ny; j++) {
+                    int y = (dy > 0) ? ny - 1 - j : j;
+                    table.set(x, y, direction, table.computeDistance(grid, x, y, dx, dy));
+                }
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Loading a stored table from a stream. The size and checksum in the
+     * header are checked against the grid before the distances are read.
+     *
+     * @param is Input stream of a table file
+     * @param grid The grid that the table is used with
+     * @return The jump distance table
+     * @throws IOException If the stream can not be read,
+     * or the table does not match the grid
+     */
+    public static JumpPointTable load(InputStream is, Grid grid) throws IOException {
+        DataInputStream in = new DataInputStream(is);
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+            throw new IOException("Not a jump point table file.");
+        }
+        int nx = in.readInt();
+        int ny = in.readInt();
+        long fingerprint = in.readLong();
+        if (nx != grid.getLength() || ny != grid.getRowLength()
+                || fingerprint != grid.terrainChecksum()) {
+            throw new IOException("The jump point table was computed for a different map.");
+        }
+        long size = (long) nx * ny * 8;
+        if (size * 2 > Integer.MAX_VALUE) {
+            throw new IOException("The jump point table is too large.");
+        }
+        byte[] bytes = new byte[(int) size * 2];
+        in.readFully(bytes);
+        short[] distances = new short[(int) size];
+        ByteBuffer.wrap(bytes).asShortBuffer().get(distances);
+        return new JumpPointTable(nx, ny, fingerprint, distances);
+    }
+
+    /**
+     * Writing the table to a file.
+     *
+     * @param file Table file
+     * @throws IOException If the file can not be written
+     */
+    public void save(File file) throws IOException {
+        ByteBuffer bytes = ByteBuffer.allocate(distances.length * 2);
+        bytes.asShortBuffer().put(distances);
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(length);
+            out.writeInt(rowLength);
+            out.writeLong(fingerprint);
+            out.write(bytes.array());
+        }
+    }
+
+    /**
+     * Loading the table of a map resource from the table directory, or the
+     * table stored next to the map on the class path, or computing the table
+     * and storing it in the table directory.
+     *
+     * @param mapPath Map resource path
+     * @param grid Pathfinding grid created from the map
+     * @param directory Table directory, or null if a computed table is not
+     * stored
+     * @return The jump distance table
+     */
+    public static JumpPointTable loadOrBuild(String mapPath, Grid grid, File directory) {
+        String tablePath = tablePath(mapPath);
+        File file = (directory != null) ? new File(directory, tablePath) : null;
+        return TableStore.loadOrBuild("jump point table", file, tablePath,
+                is -> load(is, grid), () -> build(grid), JumpPointTable::save);
+    }
+
+    /**
+     * Loading the table stored next to a map file on the file system, or
+     * computing the table and storing it next to the map.
+     *
+     * @param mapFile Map or grid file
+     * @param grid Pathfinding grid loaded from the file
+     * @return The jump distance table
+     */
+    public static JumpPointTable loadOrBuild(Path mapFile, Grid grid) {
+        Path tableFile = mapFile.resolveSibling(tablePath(mapFile.getFileName().toString()));
+        return TableStore.loadOrBuild("jump point table", tableFile.toFile(), null,
+                is -> load(is, grid), () -> build(grid), JumpPointTable::save);
+    }
+
+    /**
+     *
+     * @param mapPath Map file path
+     * @return The path of the table file stored next to the map
+     */
+    public static String tablePath(String mapPath) {
+        if (mapPath.endsWith(".map")) {
+            return mapPath.substring(0, mapPath.length() - ".map".length()) + FILE_EXTENSION;
+        }
+        return mapPath + FILE_EXTENSION;
+    }
+
+    /**
+     * The distance of a position is one step more than the distance of the
+     * next position in the same direction, unless the next position is a
+     * jump point itself.
+     */
+    private int computeDistance(Grid grid, int x, int y, int dx, int dy) {
+        boolean diagonal = dx != 0 && dy != 0;
+        if (diagonal ? !grid.canMoveDiagonally(x, y, dx, dy) : !grid.isPassable(x + dx, y + dy)) {
+            return 0;
+        }
+        int nextX = x + dx;
+        int nextY = y + dy;
+        boolean jumpPoint = grid.bordersDifferentTerrain(nextX, nextY);
+        if (diagonal) {
+            jumpPoint = jumpPoint || distance(nextX, nextY, direction(dx, 0)) > 0
+                    || distance(nextX, nextY, direction(0, dy)) > 0;
+        } else {
+            jumpPoint = jumpPoint
+                    || JumpPointSearch.hasForcedNeighbour(grid, nextX, nextY, dx, dy);
+        }
+        if (jumpPoint) {
+            return 1;
+        }
+        int next = distance(nextX, nextY, direction(dx, dy));
+        return (next > 0) ? next + 1 : next - 1;
+    }
+
+    private void set(int x, int y, int direction, int distance) {
+        distances[((x * rowLength) + y) * 8 + direction] = (short) distance;
+    }
+}
@@ -15,6 +15,8 @@ public interface PathfindingAlgorithm {
      * The main method for running the pathfinding algorithm,
      * returns the amount of steps in a shortest path or -1 if not found.
      * Assumes that the start node has been checked as in bounds and passable.
+     * A goal outside the connected area of the start is rejected without
+     * searching, see Grid.isReachable.
      * 
      * @param start The start node
      * @param goal The goal node
@@ -39,4 +41,23 @@ public interface PathfindingAlgorithm {
      * @return The cost of the shortest path, or -1 if not found
      */
     public double getCost(Node goal);
+
+    /**
+     * Counting the work of the following searches, see SearchStats. The
+     * counters are reset at the start of every search. Algorithms that do
+     * not count their work ignore this.
+     *
+     * @param stats The counters, or null to stop counting
+     */
+    public default void setStats(SearchStats stats) {
+    }
+
+    /**
+     *
+     * @return The counters of the latest search, or null if the work is not
+     * counted
+     */
+    public default SearchStats getStats() {
+        return null;
+    }
 }
@@ -0,0 +1,270 @@
+package mj.aastaar.algorithms;
+
+import java.util.Arrays;
+import mj.aastaar.datastructures.BucketQueue;
+import mj.aastaar.datastructures.IndexedMinHeap;
+import mj.aastaar.datastructures.NodeHeapOpenList;
+import mj.aastaar.datastructures.OpenList;
+import mj.aastaar.datastructures.RadixHeap;
+import mj.aastaar.map.Grid;
+
+/**
+ * Reusable arrays for the searches of one thread. The arrays are allocated
+ * once per grid size, and a search starts by increasing a generation counter
+ * instead of clearing them: a position whose stamp is older than the current
+ * generation is treated as not reached, so the work of a search depends on
+ * the amount of positions it reaches and not on the size of the map.
+ *
+ * The state of a search is only valid until the next search with the same
+ * context. Before another owner starts a search, the previous owner is asked
+ * to release the context, so it can copy the positions it reached.
+ *
+ * @author MJ
+ */
+public class SearchContext implements SearchState {
+
+    /**
+     * The cost of the positions that have not been reached.
+     */
+    public static final double INFINITY = 1000000000.0;
+
+    private static final ThreadLocal<SearchContext> CONTEXTS = new ThreadLocal<>();
+
+    /**
+     * The user of a context, notified before another user starts a search.
+     */
+    public interface Owner {
+
+        /**
+         * Called before the state of the latest search is overwritten.
+         *
+         * @param context The context the latest search used
+         */
+        public void release(SearchContext context);
+    }
+
+    private final int length;
+    private final int rowLength;
+    private final double[] cost;
+    private final int[] parent;
+    private final int[] reached;
+    private final int[] closed;
+    private final OpenList[] openLists;
+    private int[] touched;
+    private int touchedCount;
+    private int generation;
+    private Owner owner;
+
+    /**
+     * A context that is not shared with the other searches of the thread.
+     *
+     * @param length The grid length
+     * @param rowLength The grid row length
+     */
+    public SearchContext(int length, int rowLength) {
+        this.length = length;
+        this.rowLength = rowLength;
+        this.cost = new double[length * rowLength];
+        this.parent = new int[length * rowLength];
+        this.reached = new int[length * rowLength];
+        this.closed = new int[length * rowLength];
+        this.openLists = new OpenList[OpenList.RADIX_HEAP + 1];
+        this.touched = new int[1024];
+    }
+
+    /**
+     * The context of the current thread, allocated again only when the size
+     * of the grid changes.
+     *
+     * @param grid Pathfinding grid
+     * @return A context with room for every position of the grid
+     */
+    public static SearchContext forGrid(Grid grid) {
+        SearchContext context = CONTEXTS.get();
+        if (context == null || !context.fits(grid)) {
+            context = new SearchContext(grid.getLength(), grid.getRowLength());
+            CONTEXTS.set(context);
+        }
+        return context;
+    }
+
+    /**
+     *
+     * @param grid Pathfinding grid
+     * @return True if the context has the size of the grid, otherwise false
+     */
+    public boolean fits(Grid grid) {
+        return length == grid.getLength() && rowLength == grid.getRowLength();
+    }
+
+    /**
+     * Starting a new search. Invalidates the state of the previous search,
+     * after letting its owner release it if the owner changes.
+     *
+     * @param owner The user of the new search
+     */
+    public void begin(Owner owner) {
+        if (this.owner != null && this.owner != owner) {
+            this.owner.release(this);
+        }
+        this.owner = owner;
+        for (OpenList openList : openLists) {
+            if (openList != null) {
+                openList.clear();
+            }
+        }
+        touchedCount = 0;
+        generation++;
+        if (generation == Integer.MAX_VALUE) {
+            Arrays.fill(reached, 0);
+            Arrays.fill(closed, 0);
+            generation = 1;
+        }
+    }
+
+    /**
+     * Setting the cost and parent of a position reached by the current
+     * search.
+     *
+     * @param cell The index of the position
+     * @param cost The cost to the position
+     * @param parent The index of the position it was reached from, or -1
+     */
+    public void reach(int cell, double cost, int parent) {
+        if (reached[cell] != generation) {
+            reached[cell] = generation;
+            if (touchedCount == touched.length) {
+                touched = Arrays.copyOf(touched, touchedCount * 2);
+            }
+            touched[touchedCount++] = cell;
+        }
+        this.cost[cell] = cost;
+        this.parent[cell] = parent;
+    }
+
+    /**
+     * Marking a position as expanded by the current search.
+     *
+     * @param cell The index of the position
+     */
+    public void close(int cell) {
+        closed[cell] = generation;
+    }
+
+    @Override
+    public double getCost(int cell) {
+        return reached[cell] == generation ? cost[cell] : INFINITY;
+    }
+
+    @Override
+    public int getParent(int cell) {
+        return reached[cell] == generation ? parent[cell] : -1;
+    }
+
+    @Override
+    public boolean isClosed(int cell) {
+        return closed[cell] == generation;
+    }
+
+    @Override
+    public int getTouchedCount() {
+        return touchedCount;
+    }
+
+    @Override
+    public int getTouched(int i) {
+        return touched[i];
+    }
+
+    /**
+     * The frontier of the current search, empty at the start. Every kind of
+     * open list is allocated at its first use.
+     *
+     * @param kind The open list implementation, see OpenList
+     * @return The open list of the given kind
+     */
+    public OpenList getOpenList(int kind) {
+        if (kind < 0 || kind >= openLists.length) {
+            throw new IllegalArgumentException("Unknown open list: " + kind);
+        }
+        if (openLists[kind] == null) {
+            int cellCount = length * rowLength;
+            if (kind == OpenList.INDEXED_HEAP) {
+                openLists[kind] = new IndexedMinHeap(cellCount);
+            } else if (kind == OpenList.NODE_HEAP) {
+                openLists[kind] = new NodeHeapOpenList(cellCount);
+            } else if (kind == OpenList.BUCKET_QUEUE) {
+                openLists[kind] = new BucketQueue(cellCount);
+            } else {
+                openLists[kind] = new RadixHeap(cellCount);
+            }
+        }
+        return openLists[kind];
+    }
+
+    /**
+     * Copying the reached positions of the current search, so they stay
+     * valid after the context is reused.
+     *
+     * @return The state of the current search
+     */
+    public SearchState snapshot() {
+        return new Snapshot(this);
+    }
+
+    /**
+     * The reached positions of a search sorted by index, found with a binary
+     * search.
+     */
+    private static class Snapshot implements SearchState {
+
+        private final int[] cells;
+        private final int[] order;
+        private final double[] costs;
+        private final int[] parents;
+        private final boolean[] closed;
+
+        Snapshot(SearchContext context) {
+            int count = context.touchedCount;
+            order = Arrays.copyOf(context.touched, count);
+            cells = Arrays.copyOf(order, count);
+            Arrays.sort(cells);
+            costs = new double[count];
+            parents = new int[count];
+            closed = new boolean[count];
+            for (int i = 0; i < count; i++) {
+                costs[i] = context.getCost(cells[i]);
+                parents[i] = context.getParent(cells[i]);
+                closed[i] = context.isClosed(cells[i]);
+            }
+        }
+
+        @Override
+        public double getCost(int cell) {
+            int i = Arrays.binarySearch(cells, cell);
+            return i < 0 ? INFINITY : costs[i];
+        }
+
+        @Override
+        public int getParent(int cell) {
+            int i = Arrays.binarySearch(cells, cell);
+            return i < 0 ? -1 : parents[i];
+        }
+
+        @Override
+        public boolean isClosed(int cell) {
+            int i = Arrays.binarySearch(cells, cell);
+            return i >= 0 && closed[i];
+        }
+
+        @Override
+        public int getTouchedCount() {
+            return order.length;
+        }
+
+        @Override
+        public int getTouched(int i) {
+            return order[i];
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package mj.aastaar.algorithms;
+
+/**
+ * The costs, parents and expanded positions of a search, with the positions
+ * given as indices of the grid, see Grid.getIndex. Only the positions the
+ * search has reached are stored.
+ *
+ * @author MJ
+ */
+public interface SearchState {
+
+    /**
+     *
+     * @param cell The index of a position
+     * @return The cost to the position, or SearchContext.INFINITY if the
+     * position has not been reached
+     */
+    public double getCost(int cell);
+
+    /**
+     *
+     * @param cell The index of a position
+     * @return The index of the position the position was reached from, or -1
+     * for the start and for positions that have not been reached
+     */
+    public int getParent(int cell);
+
+    /**
+     *
+     * @param cell The index of a position
+     * @return True if the position has been expanded, otherwise false
+     */
+    public boolean isClosed(int cell);
+
+    /**
+     *
+     * @return The amount of reached positions
+     */
+    public int getTouchedCount();
+
+    /**
+     *
+     * @param i The order of a reached position, from 0 to getTouchedCount - 1
+     * @return The index of the position
+     */
+    public int getTouched(int i);
+}
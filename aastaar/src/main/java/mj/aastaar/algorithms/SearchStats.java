@@ -0,0 +1,217 @@
+package mj.aastaar.algorithms;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Counters of the work done by one search, see
+ * PathfindingAlgorithm.setStats. An algorithm only counts when it has been
+ * given a SearchStats object, and otherwise the counting is skipped with one
+ * check of a field that is null, so the counting can stay in the searches.
+ *
+ * The counters are reset when a search begins. A popped position that has
+ * already been expanded is counted both as a pop and as a stale pop. A
+ * reopening is a cheaper path to a position that has already been expanded,
+ * which only happens with an inconsistent heuristic: the searches do not
+ * expand a position again, so its new entry in the open list is stale.
+ *
+ * The memory allocated by a search is only measured when it is asked for,
+ * as reading the allocation counter of the thread at the beginning and the
+ * end takes tens of nanoseconds, which would be added to every search.
+ *
+ * @author MJ
+ */
+public class SearchStats {
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private long expanded;
+    private long generated;
+    private long inserts;
+    private long pops;
+    private long stalePops;
+    private long reopenings;
+    private int peakOpenListSize;
+    private final boolean allocations;
+    private long allocationStart;
+    private long allocatedBytes;
+
+    /**
+     * Counting the work without measuring the allocated memory.
+     */
+    public SearchStats() {
+        this(false);
+    }
+
+    /**
+     *
+     * @param allocations True if the memory allocated by the searches is
+     * measured, see getAllocatedBytes
+     */
+    public SearchStats(boolean allocations) {
+        this.allocations = allocations;
+        this.allocatedBytes = -1;
+    }
+
+    /**
+     * Resetting the counters at the start of a search.
+     */
+    public void begin() {
+        expanded = 0;
+        generated = 0;
+        inserts = 0;
+        pops = 0;
+        stalePops = 0;
+        reopenings = 0;
+        peakOpenListSize = 0;
+        allocatedBytes = -1;
+        allocationStart = allocations ? threadAllocatedBytes() : -1;
+    }
+
+    /**
+     * Measuring the memory allocated by the search at its end.
+     */
+    public void end() {
+        if (allocationStart >= 0) {
+            allocatedBytes = threadAllocatedBytes() - allocationStart;
+        }
+    }
+
+    /**
+     * Counting an expanded position.
+     */
+    public void expand() {
+        expanded++;
+    }
+
+    /**
+     * Counting the successors of an expanded position.
+     *
+     * @param count The amount of successors
+     */
+    public void generate(int count) {
+        generated += count;
+    }
+
+    /**
+     * Counting an addition to the open list.
+     *
+     * @param openListSize The size of the open list after the addition
+     */
+    public void insert(int openListSize) {
+        inserts++;
+        if (openListSize > peakOpenListSize) {
+            peakOpenListSize = openListSize;
+        }
+    }
+
+    /**
+     * Counting a removal from the open list.
+     */
+    public void pop() {
+        pops++;
+    }
+
+    /**
+     * Counting a removed position that was skipped, because it had already
+     * been expanded.
+     */
+    public void skipStale() {
+        stalePops++;
+    }
+
+    /**
+     * Counting a cheaper path to a position that has already been expanded.
+     */
+    public void reopen() {
+        reopenings++;
+    }
+
+    /**
+     *
+     * @return The amount of expanded positions
+     */
+    public long getExpanded() {
+        return expanded;
+    }
+
+    /**
+     *
+     * @return The amount of successors of the expanded positions
+     */
+    public long getGenerated() {
+        return generated;
+    }
+
+    /**
+     *
+     * @return The amount of additions to the open list
+     */
+    public long getInserts() {
+        return inserts;
+    }
+
+    /**
+     *
+     * @return The amount of removals from the open list
+     */
+    public long getPops() {
+        return pops;
+    }
+
+    /**
+     *
+     * @return The amount of removed positions that had already been expanded
+     */
+    public long getStalePops() {
+        return stalePops;
+    }
+
+    /**
+     *
+     * @return The amount of cheaper paths found to expanded positions
+     */
+    public long getReopenings() {
+        return reopenings;
+    }
+
+    /**
+     *
+     * @return The largest size of the open list
+     */
+    public int getPeakOpenListSize() {
+        return peakOpenListSize;
+    }
+
+    /**
+     *
+     * @return The bytes allocated by the thread during the search, or -1 if
+     * the allocations are not measured, or the virtual machine does not
+     * measure them
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    @Override
+    public String toString() {
+        return "expanded " + expanded + ", generated " + generated + ", inserts " + inserts
+                + ", pops " + pops + " (" + stalePops + " stale), peak open list "
+                + peakOpenListSize + ", reopenings " + reopenings + ", allocated "
+                + allocatedBytes + " bytes";
+    }
+
+    /**
+     * The bytes allocated by the current thread so far, from the HotSpot
+     * extension of ThreadMXBean.
+     */
+    private static long threadAllocatedBytes() {
+        if (THREADS instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) THREADS;
+            if (threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+                return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,344 @@
+package mj.aastaar.algorithms.contraction;
+
+import java.util.Arrays;
+import mj.aastaar.datastructures.CustomPriorityQueue;
+import mj.aastaar.map.Grid;
+import mj.aastaar.map.Node;
+
+/**
+ * Contracting the passable positions of a grid one at a time, in the order of
+ * their edge difference: the amount of shortcuts that the contraction adds,
+ * minus the amount of edges that it removes, plus the amount of neighbours
+ * that have already been contracted, which spreads the contractions evenly
+ * over the grid.
+ *
+ * Contracting a position connects each pair of its remaining neighbours with
+ * a shortcut, unless a witness search finds a path between them that is at
+ * most as expensive without the contracted position. The witness searches are
+ * limited, so some unnecessary shortcuts may be added, but never too few.
+ *
+ * @author MJ
+ */
+class ContractionBuilder {
+
+    private static final double INFINITY = 1000000000.0;
+    private static final double EPSILON = 1e-9;
+    private static final int WITNESS_LIMIT = 500;
+    private static final int SIMULATION_LIMIT = 50;
+
+    private final Grid grid;
+    private final int directions;
+    private final int rowLength;
+    private final int[] cellIndex;
+    private int nodeCount;
+    private int[] nodeX;
+    private int[] nodeY;
+    private int[][] adjTarget;
+    private double[][] adjCost;
+    private int[][] adjMiddle;
+    private int[] adjCount;
+    private boolean[] contracted;
+    private int[] deletedNeighbours;
+    private double[] priority;
+    private int[] rank;
+    private double[] witnessCost;
+    private int[] witnessStamp;
+    private int[] targetStamp;
+    private int stamp;
+    private CustomPriorityQueue witnessQueue;
+
+    /**
+     *
+     * @param grid Pathfinding grid
+     * @param directions The amount of allowed directions for valid moves
+     */
+    ContractionBuilder(Grid grid, int directions) {
+        this.grid = grid;
+        this.directions = directions;
+        this.rowLength = grid.getRowLength();
+        this.cellIndex = new int[grid.getLength() * rowLength];
+    }
+
+    /**
+     * Ordering and contracting every position, and keeping the edges that
+     * lead to positions contracted later. The priorities are updated lazily:
+     * a contraction only raises the priorities of the neighbours by one, and
+     * the edge difference is recomputed when a position reaches the top. If it
+     * has grown past the next priority, the position is put back.
+     *
+     * @return The contraction hierarchy of the grid
+     */
+    ContractionHierarchy build() {
+        initNodes();
+        initEdges();
+        contracted = new boolean[nodeCount];
+        deletedNeighbours = new int[nodeCount];
+        priority = new double[nodeCount];
+        rank = new int[nodeCount];
+        witnessCost = new double[nodeCount];
+        witnessStamp = new int[nodeCount];
+        targetStamp = new int[nodeCount];
+        witnessQueue = new CustomPriorityQueue(4096);
+
+        CustomPriorityQueue order = new CustomPriorityQueue(16 * nodeCount + 1);
+        for (int v = 0; v < nodeCount; v++) {
+            priority[v] = computePriority(v);
+            order.heapInsert(new Node(nodeX[v], nodeY[v], priority[v]));
+        }
+        int next = 0;
+        while (!order.isEmpty()) {
+            Node top = order.heapDelMin();
+            int v = cellIndex[top.getX() * rowLength + top.getY()];
+            if (contracted[v] || top.getPriority() != priority[v]) {
+                continue;
+            }
+            double current = computePriority(v);
+            if (current > priority[v] && !order.isEmpty()
+                    && current > order.heapMin().getPriority()) {
+                priority[v] = current;
+                order.heapInsert(new Node(nodeX[v], nodeY[v], current));
+                continue;
+            }
+            contract(v, true);
+            contracted[v] = true;
+            rank[v] = next++;
+            updateNeighbours(v, order);
+        }
+        return createHierarchy();
+    }
+
+    /**
+     * Indexing the passable positions in row order.
+     */
+    private void initNodes() {
+        int nx = grid.getLength();
+        int count = 0;
+        for (int x = 0; x < nx; x++) {
+            for (int y = 0; y < rowLength; y++) {
+                cellIndex[x * rowLength + y] = grid.isPassable(x, y) ? count++ : -1;
+            }
+        }
+        nodeCount = count;
+        nodeX = new int[count];
+        nodeY = new int[count];
+        for (int x = 0; x < nx; x++) {
+            for (int y = 0; y < rowLength; y++) {
+                int v = cellIndex[x * rowLength + y];
+                if (v >= 0) {
+                    nodeX[v] = x;
+                    nodeY[v] = y;
+                }
+            }
+        }
+    }
+
+    /**
+     * Connecting every position to its neighbours with the movement costs of
+     * the grid. The costs are symmetric, so each position adds its own edges.
+     */
+    private void initEdges() {
+        adjTarget = new int[nodeCount][];
+        adjCost = new double[nodeCount][];
+        adjMiddle = new int[nodeCount][];
+        adjCount = new int[nodeCount];
+        for (int v = 0; v < nodeCount; v++) {
+            adjTarget[v] = new int[directions];
+            adjCost[v] = new double[directions];
+            adjMiddle[v] = new int[directions];
+            Node current = new Node(nodeX[v], nodeY[v], 0.0);
+            for (Node next : grid.getNeighbours(nodeX[v], nodeY[v], directions)) {
+                if (next != null) {
+                    int u = cellIndex[next.getX() * rowLength + next.getY()];
+                    addEdge(v, u, grid.cost(current, next), -1);
+                }
+            }
+        }
+    }
+
+    /**
+     * The priority of a position is its edge difference, plus the amount of
+     * its neighbours that have been contracted.
+     */
+    private double computePriority(int v) {
+        return contract(v, false) - adjCount[v] + deletedNeighbours[v];
+    }
+
+    /**
+     * Finding the shortcuts that the contraction of a position requires.
+     *
+     * @param v The position that is contracted
+     * @param addShortcuts True if the shortcuts are added, false if they are
+     * only counted
+     * @return The amount of shortcuts
+     */
+    private int contract(int v, boolean addShortcuts) {
+        int limit = addShortcuts ? WITNESS_LIMIT : SIMULATION_LIMIT;
+        int shortcuts = 0;
+        int count = adjCount[v];
+        for (int i = 0; i < count - 1; i++) {
+            double maxCost = 0.0;
+            for (int j = i + 1; j < count; j++) {
+                maxCost = Math.max(maxCost, adjCost[v][i] + adjCost[v][j]);
+            }
+            witnessSearch(v, i, maxCost, limit);
+            int u = adjTarget[v][i];
+            for (int j = i + 1; j < count; j++) {
+                int w = adjTarget[v][j];
+                double viaCost = adjCost[v][i] + adjCost[v][j];
+                if (witness(w) > viaCost + EPSILON) {
+                    shortcuts++;
+                    if (addShortcuts) {
+                        addEdge(u, w, viaCost, v);
+                        addEdge(w, u, viaCost, v);
+                    }
+                }
+            }
+        }
+        return shortcuts;
+    }
+
+    /**
+     * Dijkstra's algorithm from a neighbour of the contracted position over
+     * the other remaining positions. The search stops when the neighbours after
+     * the source have been settled, when the cost exceeds the largest cost that
+     * a shortcut could have, or after settling enough positions.
+     */
+    private void witnessSearch(int v, int source, double maxCost, int limit) {
+        stamp++;
+        int targets = 0;
+        for (int j = source + 1; j < adjCount[v]; j++) {
+            targetStamp[adjTarget[v][j]] = stamp;
+            targets++;
+        }
+        int s = adjTarget[v][source];
+        setWitness(s, 0.0);
+        witnessQueue.heapInsert(new Node(nodeX[s], nodeY[s], 0.0));
+        int settled = 0;
+        while (!witnessQueue.isEmpty()) {
+            Node top = witnessQueue.heapDelMin();
+            int u = cellIndex[top.getX() * rowLength + top.getY()];
+            double cost = top.getPriority();
+            if (cost > witness(u)) {
+                continue;
+            }
+            if (cost > maxCost || ++settled > limit) {
+                break;
+            }
+            if (targetStamp[u] == stamp && --targets == 0) {
+                break;
+            }
+            for (int i = 0; i < adjCount[u]; i++) {
+                int w = adjTarget[u][i];
+                if (w == v) {
+                    continue;
+                }
+                double newCost = cost + adjCost[u][i];
+                if (newCost < witness(w)) {
+                    setWitness(w, newCost);
+                    witnessQueue.heapInsert(new Node(nodeX[w], nodeY[w], newCost));
+                }
+            }
+        }
+        witnessQueue.clear();
+    }
+
+    private double witness(int v) {
+        return (witnessStamp[v] == stamp) ? witnessCost[v] : INFINITY;
+    }
+
+    private void setWitness(int v, double cost) {
+        witnessStamp[v] = stamp;
+        witnessCost[v] = cost;
+    }
+
+    /**
+     * Removing the edges to a contracted position from its remaining
+     * neighbours, and raising their priorities, since they have one more
+     * contracted neighbour. The edges of the contracted position itself are
+     * kept, they are its upward edges.
+     */
+    private void updateNeighbours(int v, CustomPriorityQueue order) {
+        for (int i = 0; i < adjCount[v]; i++) {
+            removeEdge(adjTarget[v][i], v);
+        }
+        for (int i = 0; i < adjCount[v]; i++) {
+            int u = adjTarget[v][i];
+            deletedNeighbours[u]++;
+            priority[u]++;
+            order.heapInsert(new Node(nodeX[u], nodeY[u], priority[u]));
+        }
+    }
+
+    /**
+     * Adding an edge, or lowering the cost of an existing edge.
+     */
+    private void addEdge(int from, int to, double cost, int middle) {
+        for (int i = 0; i < adjCount[from]; i++) {
+            if (adjTarget[from][i] == to) {
+                if (cost < adjCost[from][i]) {
+                    adjCost[from][i] = cost;
+                    adjMiddle[from][i] = middle;
+                }
+                return;
+            }
+        }
+        int count = adjCount[from];
+        if (count == adjTarget[from].length) {
+            int size = Math.max(4, count * 2);
+            adjTarget[from] = Arrays.copyOf(adjTarget[from], size);
+            adjCost[from] = Arrays.copyOf(adjCost[from], size);
+            adjMiddle[from] = Arrays.copyOf(adjMiddle[from], size);
+        }
+        adjTarget[from][count] = to;
+        adjCost[from][count] = cost;
+        adjMiddle[from][count] = middle;
+        adjCount[from]++;
+    }
+
+    private void removeEdge(int from, int to) {
+        int last = --adjCount[from];
+        for (int i = 0; i <= last; i++) {
+            if (adjTarget[from][i] == to) {
+                adjTarget[from][i] = adjTarget[from][last];
+                adjCost[from][i] = adjCost[from][last];
+                adjMiddle[from][i] = adjMiddle[from][last];
+                return;
+            }
+        }
+    }
+
+    /**
+     * Keeping only the upward edges, which lead to positions with a higher
+     * rank, in one array ordered by the source position.
+     */
+    private ContractionHierarchy createHierarchy() {
+        int[] firstEdge = new int[nodeCount + 1];
+        for (int v = 0; v < nodeCount; v++) {
+            int upward = 0;
+            for (int i = 0; i < adjCount[v]; i++) {
+                if (rank[adjTarget[v][i]] > rank[v]) {
+                    upward++;
+                }
+            }
+            firstEdge[v + 1] = firstEdge[v] + upward;
+        }
+        int edgeCount = firstEdge[nodeCount];
+        int[] edgeTarget = new int[edgeCount];
+        double[] edgeCost = new double[edgeCount];
+        int[] edgeMiddle = new int[edgeCount];
+        for (int v = 0; v < nodeCount; v++) {
+            int e = firstEdge[v];
+            for (int i = 0; i < adjCount[v]; i++) {
+                if (rank[adjTarget[v][i]] > rank[v]) {
+                    edgeTarget[e] = adjTarget[v][i];
+                    edgeCost[e] = adjCost[v][i];
+                    edgeMiddle[e] = adjMiddle[v][i];
+                    e++;
+                }
+            }
+        }
+        return new ContractionHierarchy(grid.getLength(), rowLength, directions,
+                grid.terrainChecksum(), cellIndex, nodeX, nodeY, rank,
+                firstEdge, edgeTarget, edgeCost, edgeMiddle);
+    }
+}
@@ -0,0 +1,368 @@
+package mj.aastaar.algorithms.contraction;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import mj.aastaar.map.Grid;
+
+/**
+ * A contraction hierarchy of the passable positions of a grid. Every position
+ * has a rank, the order in which it was contracted, and the hierarchy keeps the
+ * upward edges from each position to its neighbours of a higher rank. An edge
+ * is either a move on the grid, or a shortcut that skips over a position of a
+ * lower rank, its middle position.
+ *
+ * The movement costs are symmetric, so the same upward edges are used by the
+ * forward and the backward search. The hierarchy depends on the passability and
+ * terrain weights of the grid and the amount of directions, and can be stored
+ * to a file.
+ *
+ * @author MJ
+ */
+public class ContractionHierarchy {
+
+    private static final int MAGIC = 0x4348472b;
+    private static final int VERSION = 1;
+
+    private final int length;
+    private final int rowLength;
+    private final int directions;
+    private final long fingerprint;
+    private final int[] cellIndex;
+    private final int[] nodeX;
+    private final int[] nodeY;
+    private final int[] rank;
+    private final int[] firstEdge;
+    private final int[] edgeTarget;
+    private final double[] edgeCost;
+    private final int[] edgeMiddle;
+
+    ContractionHierarchy(int length, int rowLength, int directions, long fingerprint,
+            int[] cellIndex, int[] nodeX, int[] nodeY, int[] rank,
+            int[] firstEdge, int[] edgeTarget, double[] edgeCost, int[] edgeMiddle) {
+        this.length = length;
+        this.rowLength = rowLength;
+        this.directions = directions;
+        this.fingerprint = fingerprint;
+        this.cellIndex = cellIndex;
+        this.nodeX = nodeX;
+        this.nodeY = nodeY;
+        this.rank = rank;
+        this.firstEdge = firstEdge;
+        this.edgeTarget = edgeTarget;
+        this.edgeCost = edgeCost;
+        this.edgeMiddle = edgeMiddle;
+    }
+
+    /**
+     * Contracting every passable position of the grid. This can take several
+     * seconds on large maps.
+     *
+     * @param grid Pathfinding grid
+     * @param directions The amount of allowed directions for valid moves
+     * @return The contraction hierarchy of the grid
+     */
+    public static ContractionHierarchy build(Grid grid, int directions) {
+        return new ContractionBuilder(grid, directions).build();
+    }
+
+    /**
+     *
+     * @return The amount of allowed directions for valid moves
+     */
+    public int getDirections() {
+        return directions;
+    }
+
+    /**
+     *
+     * @return The amount of passable positions
+     */
+    public int getNodeCount() {
+        return nodeX.length;
+    }
+
+    /**
+     *
+     * @return The amount of upward edges
+     */
+    public int getEdgeCount() {
+        return edgeTarget.length;
+    }
+
+    /**
+     *
+     * @return The amount of upward edges that are shortcuts
+     */
+    public int getShortcutCount() {
+        int shortcuts = 0;
+        for (int middle : edgeMiddle) {
+            if (middle >= 0) {
+                shortcuts++;
+            }
+        }
+        return shortcuts;
+    }
+
+    /**
+     *
+     * @param x The x-coordinate of a position
+     * @param y The y-coordinate of a position
+     * @return The index of the position, or -1 if it is not passable
+     */
+    public int nodeAt(int x, int y) {
+        return cellIndex[x * rowLength + y];
+    }
+
+    /**
+     *
+     * @param node The index of a position
+     * @return The x-coordinate of the position
+     */
+    public int getX(int node) {
+        return nodeX[node];
+    }
+
+    /**
+     *
+     * @param node The index of a position
+     * @return The y-coordinate of the position
+     */
+    public int getY(int node) {
+        return nodeY[node];
+    }
+
+    /**
+     *
+     * @param node The index of a position
+     * @return The order in which the position was contracted
+     */
+    public int getRank(int node) {
+        return rank[node];
+    }
+
+    /**
+     *
+     * @param node The index of a position
+     * @return The index of the first upward edge of the position
+     */
+    public int firstEdge(int node) {
+        return firstEdge[node];
+    }
+
+    /**
+     *
+     * @param node The index of a position
+     * @return The index after the last upward edge of the position
+     */
+    public int lastEdge(int node) {
+        return firstEdge[node + 1];
+    }
+
+    /**
+     *
+     * @param edge The index of an upward edge
+     * @return The position at the upper end of the edge
+     */
+    public int edgeTarget(int edge) {
+        return edgeTarget[edge];
+    }
+
+    /**
+     *
+     * @param edge The index of an upward edge
+     * @return The cost of the edge
+     */
+    public double edgeCost(int edge) {
+        return edgeCost[edge];
+    }
+
+    /**
+     *
+     * @param edge The index of an upward edge
+     * @return The position that the shortcut skips over, or -1 if the edge is
+     * a move on the grid
+     */
+    public int edgeMiddle(int edge) {
+        return edgeMiddle[edge];
+    }
+
+    /**
+     * Finding the upward edge between two positions.
+     *
+     * @param lower The position with the lower rank
+     * @param upper The position with the higher rank
+     * @return The index of the edge, or -1 if there is no edge
+     */
+    public int findEdge(int lower, int upper) {
+        for (int e = firstEdge[lower]; e < firstEdge[lower + 1]; e++) {
+            if (edgeTarget[e] == upper) {
+                return e;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Checking that the hierarchy was computed for a grid with the same size,
+     * passability and terrain weights.
+     *
+     * @param grid Pathfinding grid
+     * @return True if the hierarchy can be used with the grid, otherwise false
+     */
+    public boolean matches(Grid grid) {
+        return grid.getLength() == length && grid.getRowLength() == rowLength
+                && grid.terrainChecksum() == fingerprint;
+    }
+
+    /**
+     * Writing the hierarchy to a file.
+     *
+     * @param file Hierarchy file
+     * @throws IOException If the file can not be written
+     */
+    public void save(File file) throws IOException {
+        try (OutputStream os = new BufferedOutputStream(new FileOutputStream(file))) {
+            write(os);
+        }
+    }
+
+    /**
+     * Writing the hierarchy to a stream. The positions are not written, since
+     * they are indexed in row order from the grid.
+     *
+     * @param os Output stream
+     * @throws IOException If the stream can not be written
+     */
+    public void write(OutputStream os) throws IOException {
+        DataOutputStream out = new DataOutputStream(os);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(length);
+        out.writeInt(rowLength);
+        out.writeInt(directions);
+        out.writeLong(fingerprint);
+        out.writeInt(nodeX.length);
+        out.writeInt(edgeTarget.length);
+        for (int r : rank) {
+            out.writeInt(r);
+        }
+        for (int e : firstEdge) {
+            out.writeInt(e);
+        }
+        for (int e = 0; e < edgeTarget.length; e++) {
+            out.writeInt(edgeTarget[e]);
+            out.writeDouble(edgeCost[e]);
+            out.writeInt(edgeMiddle[e]);
+        }
+        out.flush();
+    }
+
+    /**
+     * Loading a stored hierarchy from a stream. The header is checked against
+     * the grid, and the ranks and edges are checked to be in range before
+     * they are used, so that a corrupt file is rejected instead of failing
+     * in a query. The edge arrays grow while they are read, so a count that
+     * is larger than the file does not allocate more than the file holds.
+     *
+     * @param is Input stream of a hierarchy file
+     * @param grid The grid that the hierarchy is used with
+     * @return The contraction hierarchy
+     * @throws IOException If the stream can not be read, the hierarchy is
+     * corrupt, or the hierarchy does not match the grid
+     */
+    public static ContractionHierarchy load(InputStream is, Grid grid) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(is));
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+            throw new IOException("Not a contraction hierarchy file.");
+        }
+        int nx = in.readInt();
+        int ny = in.readInt();
+        int directions = in.readInt();
+        long fingerprint = in.readLong();
+        if (nx != grid.getLength() || ny != grid.getRowLength()
+                || fingerprint != grid.terrainChecksum()) {
+            throw new IOException("The contraction hierarchy was computed for a different map.");
+        }
+        if (directions != 4 && directions != 8) {
+            throw new IOException("Invalid amount of directions: " + directions);
+        }
+        int[] cellIndex = new int[nx * ny];
+        int nodeCount = 0;
+        for (int x = 0; x < nx; x++) {
+            for (int y = 0; y < ny; y++) {
+                cellIndex[x * ny + y] = grid.isPassable(x, y) ? nodeCount++ : -1;
+            }
+        }
+        if (in.readInt() != nodeCount) {
+            throw new IOException("The contraction hierarchy was computed for a different map.");
+        }
+        int[] nodeX = new int[nodeCount];
+        int[] nodeY = new int[nodeCount];
+        for (int i = 0; i < cellIndex.length; i++) {
+            if (cellIndex[i] >= 0) {
+                nodeX[cellIndex[i]] = i / ny;
+                nodeY[cellIndex[i]] = i % ny;
+            }
+        }
+        int edgeCount = in.readInt();
+        if (edgeCount < 0) {
+            throw new IOException("Invalid amount of edges: " + edgeCount);
+        }
+        int[] rank = new int[nodeCount];
+        boolean[] ranked = new boolean[nodeCount];
+        for (int v = 0; v < nodeCount; v++) {
+            rank[v] = in.readInt();
+            if (rank[v] < 0 || rank[v] >= nodeCount || ranked[rank[v]]) {
+                throw new IOException("Invalid rank " + rank[v] + " of position " + v);
+            }
+            ranked[rank[v]] = true;
+        }
+        int[] firstEdge = new int[nodeCount + 1];
+        for (int v = 0; v <= nodeCount; v++) {
+            firstEdge[v] = in.readInt();
+            if (firstEdge[v] < (v == 0 ? 0 : firstEdge[v - 1]) || firstEdge[v] > edgeCount) {
+                throw new IOException("Invalid first edge " + firstEdge[v] + " of position " + v);
+            }
+        }
+        if (firstEdge[0] != 0 || firstEdge[nodeCount] != edgeCount) {
+            throw new IOException("The edges do not match the amount of edges " + edgeCount);
+        }
+        int capacity = Math.min(edgeCount, 1 << 16);
+        int[] edgeTarget = new int[capacity];
+        double[] edgeCost = new double[capacity];
+        int[] edgeMiddle = new int[capacity];
+        for (int v = 0; v < nodeCount; v++) {
+            for (int e = firstEdge[v]; e < firstEdge[v + 1]; e++) {
+                if (e == capacity) {
+                    capacity = (int) Math.min(edgeCount, 2L * capacity);
+                    edgeTarget = Arrays.copyOf(edgeTarget, capacity);
+                    edgeCost = Arrays.copyOf(edgeCost, capacity);
+                    edgeMiddle = Arrays.copyOf(edgeMiddle, capacity);
+                }
+                edgeTarget[e] = in.readInt();
+                edgeCost[e] = in.readDouble();
+                edgeMiddle[e] = in.readInt();
+                int target = edgeTarget[e];
+                if (target < 0 || target >= nodeCount || rank[target] <= rank[v]) {
+                    throw new IOException("Invalid target " + target + " of edge " + e);
+                }
+                if (edgeMiddle[e] < -1 || edgeMiddle[e] >= nodeCount) {
+                    throw new IOException("Invalid middle " + edgeMiddle[e] + " of edge " + e);
+                }
+                if (!(edgeCost[e] >= 0) || Double.isInfinite(edgeCost[e])) {
+                    throw new IOException("Invalid cost " + edgeCost[e] + " of edge " + e);
+                }
+            }
+        }
+        return new ContractionHierarchy(nx, ny, directions, fingerprint, cellIndex, nodeX, nodeY,
+                rank, firstEdge, edgeTarget, edgeCost, edgeMiddle);
+    }
+}
@@ -0,0 +1,367 @@
+package mj.aastaar.algorithms.contraction;
+
+import java.util.Arrays;
+import mj.aastaar.algorithms.PathfindingAlgorithm;
+import mj.aastaar.algorithms.path.Path;
+import mj.aastaar.algorithms.path.PathWithHashMap;
+import mj.aastaar.datastructures.CustomPriorityQueue;
+import mj.aastaar.map.Grid;
+import mj.aastaar.map.Node;
+
+/**
+ * Shortest path queries on a contraction hierarchy. The forward search from
+ * the start and the backward search from the goal only follow edges to
+ * positions of a higher rank, and the shortest path goes through the position
+ * where the sum of the two costs is the smallest. The shortcuts of the found
+ * path are then unpacked into moves on the grid.
+ *
+ * The hierarchy is computed at the first search with a new amount of
+ * directions, unless a precomputed hierarchy is given, and again when the
+ * grid has been changed so that it no longer matches. The data structures of
+ * the searches are reused between queries and are never cleared as a whole, so
+ * a query only touches the positions that it visits.
+ *
+ * @author MJ
+ */
+public class ContractionHierarchySearch implements PathfindingAlgorithm {
+
+    private static final double INFINITY = 1000000000.0;
+
+    private Grid grid;
+    private ContractionHierarchy hierarchy;
+    private PathWithHashMap path;
+    private Node goal;
+    private double pathCost;
+    private UpwardSearch forward;
+    private UpwardSearch backward;
+    private int stamp;
+    private int modifications;
+
+    /**
+     * Computing the hierarchy at the first search.
+     *
+     * @param grid Pathfinding grid
+     */
+    public ContractionHierarchySearch(Grid grid) {
+        this.grid = grid;
+    }
+
+    /**
+     * Using a precomputed hierarchy.
+     *
+     * @param grid Pathfinding grid
+     * @param hierarchy The contraction hierarchy of the grid
+     */
+    public ContractionHierarchySearch(Grid grid, ContractionHierarchy hierarchy) {
+        if (!hierarchy.matches(grid)) {
+            throw new IllegalArgumentException(
+                    "The contraction hierarchy does not match the grid.");
+        }
+        this.grid = grid;
+        setHierarchy(hierarchy);
+    }
+
+    @Override
+    public int search(Node start, Node goal, int directions) {
+        if (!grid.nodeIsValid(start) || !grid.nodeIsValid(goal)) {
+            System.out.println("Invalid positions.");
+            return -1;
+        }
+        this.goal = goal;
+        path = null;
+        pathCost = -1;
+        if (!grid.isReachable(start, goal)) {
+            return -1;
+        }
+        if (hierarchy == null || hierarchy.getDirections() != directions || isStale()) {
+            setHierarchy(ContractionHierarchy.build(grid, directions));
+        }
+        stamp++;
+        forward.start(hierarchy.nodeAt(start.getX(), start.getY()));
+        backward.start(hierarchy.nodeAt(goal.getX(), goal.getY()));
+
+        double best = INFINITY;
+        int meeting = -1;
+        if (forward.source == backward.source) {
+            best = 0.0;
+            meeting = forward.source;
+        }
+        while (true) {
+            double forwardKey = forward.minKey();
+            double backwardKey = backward.minKey();
+            if (forwardKey >= best && backwardKey >= best) {
+                break;
+            }
+            UpwardSearch direction = (forwardKey <= backwardKey) ? forward : backward;
+            UpwardSearch opposite = (direction == forward) ? backward : forward;
+            int v = direction.settleNext();
+            if (opposite.hasCost(v)) {
+                double cost = direction.cost[v] + opposite.cost[v];
+                if (cost < best) {
+                    best = cost;
+                    meeting = v;
+                }
+            }
+        }
+        forward.clearFrontier();
+        backward.clearFrontier();
+        if (meeting < 0) {
+            return -1;
+        }
+        pathCost = best;
+        return unpackPath(meeting);
+    }
+
+    @Override
+    public Path getPath() {
+        return path;
+    }
+
+    @Override
+    public double getCost(Node goal) {
+        if (this.goal == null || !this.goal.equals(goal)) {
+            return -1;
+        }
+        return pathCost;
+    }
+
+    /**
+     * The positions settled by the two upward searches of the latest query.
+     *
+     * @return Visited positions
+     */
+    @Override
+    public boolean[][] getVisited() {
+        boolean[][] visited = new boolean[grid.getLength()][grid.getRowLength()];
+        if (forward != null) {
+            forward.markSettled(visited);
+            backward.markSettled(visited);
+        }
+        return visited;
+    }
+
+    /**
+     *
+     * @return The contraction hierarchy, or null before the first search
+     */
+    public ContractionHierarchy getHierarchy() {
+        return hierarchy;
+    }
+
+    /**
+     * Checking the hierarchy against the grid again if the grid has been
+     * changed since the previous check.
+     *
+     * @return True if the hierarchy no longer matches the grid
+     */
+    private boolean isStale() {
+        if (grid.getModifications() == modifications) {
+            return false;
+        }
+        modifications = grid.getModifications();
+        return !hierarchy.matches(grid);
+    }
+
+    private void setHierarchy(ContractionHierarchy hierarchy) {
+        this.hierarchy = hierarchy;
+        this.modifications = grid.getModifications();
+        forward = new UpwardSearch(hierarchy.getNodeCount());
+        backward = new UpwardSearch(hierarchy.getNodeCount());
+        stamp = 0;
+    }
+
+    /**
+     * Joining the forward path from the start to the meeting position and the
+     * backward path from the meeting position to the goal, and unpacking the
+     * shortcuts of both.
+     *
+     * @param meeting The position with the smallest cost from both directions
+     * @return Amount of steps in the path
+     */
+    private int unpackPath(int meeting) {
+        int upEdges = 0;
+        for (int v = meeting; forward.parent[v] >= 0; v = forward.parent[v]) {
+            upEdges++;
+        }
+        int[] upward = new int[upEdges];
+        for (int v = meeting, i = upEdges - 1; i >= 0; v = forward.parent[v], i--) {
+            upward[i] = v;
+        }
+        path = new PathWithHashMap();
+        Node previous = new Node(hierarchy.getX(forward.source), hierarchy.getY(forward.source), 0);
+        int steps = 0;
+        for (int v : upward) {
+            int u = forward.parent[v];
+            steps += unpackEdge(u, v, forward.parentEdge[v], previous);
+            previous = node(v);
+        }
+        for (int v = meeting; backward.parent[v] >= 0; v = backward.parent[v]) {
+            int u = backward.parent[v];
+            steps += unpackEdge(v, u, backward.parentEdge[v], previous);
+            previous = node(u);
+        }
+        return steps;
+    }
+
+    /**
+     * Replacing a shortcut with the two edges it skips over, until only moves
+     * on the grid are left, and adding the moves to the path. The edges are
+     * unpacked with an explicit stack, from the first to the last.
+     *
+     * @param from The position where the edge starts
+     * @param to The position where the edge ends
+     * @param edge The index of the upward edge between the positions
+     * @param previous The node of the position where the edge starts
+     * @return Amount of moves
+     */
+    private int unpackEdge(int from, int to, int edge, Node previous) {
+        int[] stackFrom = new int[16];
+        int[] stackTo = new int[16];
+        int[] stackEdge = new int[16];
+        int size = 0;
+        stackFrom[size] = from;
+        stackTo[size] = to;
+        stackEdge[size] = edge;
+        size++;
+        int steps = 0;
+        while (size > 0) {
+            size--;
+            int a = stackFrom[size];
+            int b = stackTo[size];
+            int middle = hierarchy.edgeMiddle(stackEdge[size]);
+            if (middle < 0) {
+                Node next = node(b);
+                path.putCameFrom(next, previous);
+                previous = next;
+                steps++;
+                continue;
+            }
+            if (size + 2 > stackFrom.length) {
+                stackFrom = Arrays.copyOf(stackFrom, stackFrom.length * 2);
+                stackTo = Arrays.copyOf(stackTo, stackTo.length * 2);
+                stackEdge = Arrays.copyOf(stackEdge, stackEdge.length * 2);
+            }
+            stackFrom[size] = middle;
+            stackTo[size] = b;
+            stackEdge[size] = hierarchy.findEdge(middle, b);
+            size++;
+            stackFrom[size] = a;
+            stackTo[size] = middle;
+            stackEdge[size] = hierarchy.findEdge(middle, a);
+            size++;
+        }
+        return steps;
+    }
+
+    private Node node(int v) {
+        return new Node(hierarchy.getX(v), hierarchy.getY(v), 0.0);
+    }
+
+    /**
+     * The state of the search in one direction. The costs are valid only if
+     * they were set during the current query.
+     */
+    private class UpwardSearch {
+
+        private final double[] cost;
+        private final int[] parent;
+        private final int[] parentEdge;
+        private final int[] costStamp;
+        private final boolean[] settled;
+        private final CustomPriorityQueue frontier;
+        private int[] settledNodes;
+        private int settledCount;
+        private int source;
+
+        UpwardSearch(int nodeCount) {
+            cost = new double[nodeCount];
+            parent = new int[nodeCount];
+            parentEdge = new int[nodeCount];
+            costStamp = new int[nodeCount];
+            settled = new boolean[nodeCount];
+            frontier = new CustomPriorityQueue(1024);
+            settledNodes = new int[64];
+        }
+
+        void start(int source) {
+            for (int i = 0; i < settledCount; i++) {
+                settled[settledNodes[i]] = false;
+            }
+            settledCount = 0;
+            this.source = source;
+            reach(source, 0.0, -1, -1);
+        }
+
+        boolean hasCost(int v) {
+            return costStamp[v] == stamp;
+        }
+
+        void reach(int v, double c, int from, int edge) {
+            costStamp[v] = stamp;
+            cost[v] = c;
+            parent[v] = from;
+            parentEdge[v] = edge;
+            frontier.heapInsert(new Node(hierarchy.getX(v), hierarchy.getY(v), c));
+        }
+
+        /**
+         * Removing the outdated copies of settled positions from the top of
+         * the frontier.
+         *
+         * @return The smallest cost in the frontier
+         */
+        double minKey() {
+            while (!frontier.isEmpty()) {
+                Node top = frontier.heapMin();
+                if (!settled[hierarchy.nodeAt(top.getX(), top.getY())]) {
+                    return top.getPriority();
+                }
+                frontier.heapDelMin();
+            }
+            return INFINITY;
+        }
+
+        /**
+         * Settling the position with the smallest cost and relaxing its
+         * upward edges. If a position of a higher rank has already been
+         * reached with a cost that makes this position cheaper through it,
+         * this position can not be on a shortest path from the source, and its
+         * edges are not relaxed (stall-on-demand).
+         *
+         * @return The settled position
+         */
+        int settleNext() {
+            Node top = frontier.heapDelMin();
+            int v = hierarchy.nodeAt(top.getX(), top.getY());
+            settled[v] = true;
+            if (settledCount == settledNodes.length) {
+                settledNodes = Arrays.copyOf(settledNodes, settledCount * 2);
+            }
+            settledNodes[settledCount++] = v;
+            for (int e = hierarchy.firstEdge(v); e < hierarchy.lastEdge(v); e++) {
+                int w = hierarchy.edgeTarget(e);
+                if (hasCost(w) && cost[w] + hierarchy.edgeCost(e) < cost[v]) {
+                    return v;
+                }
+            }
+            for (int e = hierarchy.firstEdge(v); e < hierarchy.lastEdge(v); e++) {
+                int w = hierarchy.edgeTarget(e);
+                double newCost = cost[v] + hierarchy.edgeCost(e);
+                if (!hasCost(w) || newCost < cost[w]) {
+                    reach(w, newCost, v, e);
+                }
+            }
+            return v;
+        }
+
+        void clearFrontier() {
+            frontier.clear();
+        }
+
+        void markSettled(boolean[][] visited) {
+            for (int i = 0; i < settledCount; i++) {
+                visited[hierarchy.getX(settledNodes[i])][hierarchy.getY(settledNodes[i])] = true;
+            }
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package mj.aastaar.algorithms.cpd;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import mj.aastaar.map.Grid;
+
+/**
+ * A compressed path database (CPD) of a grid. For every passable source
+ * position the database holds the first move of a shortest path to every
+ * other position, so a path is found by following the first moves from the
+ * start to the goal without any search.
+ *
+ * The targets are ranked along a Hilbert curve, and the first moves of a
+ * source are stored as runs of targets with the same first move. A run is the
+ * rank of its first target and the index of the move, in the same order as
+ * the neighbours in Grid.getNeighbours. The first move to a target is found
+ * with a binary search over the runs of the source.
+ *
+ * The database can be stored to a file and memory-mapped, so that only the
+ * rows that the queries use are read from the disk.
+ *
+ * @author MJ
+ */
+public class CompressedPathDatabase {
+
+    /**
+     * The move to a target that can not be reached.
+     */
+    public static final int NONE = 8;
+
+    private static final int MAGIC = 0x4350442b;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+
+    private final int length;
+    private final int rowLength;
+    private final int directions;
+    private final long fingerprint;
+    private final IntBuffer rank;
+    private final IntBuffer offsets;
+    private final IntBuffer runs;
+
+    CompressedPathDatabase(int length, int rowLength, int directions, long fingerprint,
+            IntBuffer rank, IntBuffer offsets, IntBuffer runs) {
+        this.length = length;
+        this.rowLength = rowLength;
+        this.directions = directions;
+        this.fingerprint = fingerprint;
+        this.rank = rank;
+        this.offsets = offsets;
+        this.runs = runs;
+    }
+
+    /**
+     * Searching from every passable position with one thread per processor.
+     * This takes a Dijkstra search per position, so it can take minutes on
+     * large maps.
+     *
+     * @param grid Pathfinding grid
+     * @param directions The amount of allowed directions for valid moves
+     * @return The compressed path database of the grid
+     */
+    public static CompressedPathDatabase build(Grid grid, int directions) {
+        return build(grid, directions, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     *
+     * @param grid Pathfinding grid
+     * @param directions The amount of allowed directions for valid moves
+     * @param threads The amount of worker threads
+     * @return The compressed path database of the grid
+     */
+    public static CompressedPathDatabase build(Grid grid, int directions, int threads) {
+        return new CpdBuilder(grid, directions, threads).build();
+    }
+
+    /**
+     * The run that starts from a target rank.
+     *
+     * @param rankStart The rank of the first target of the run
+     * @param move The index of the move, or NONE
+     * @return The run as one value
+     */
+    static int run(int rankStart, int move) {
+        return (rankStart << 4) | move;
+    }
+
+    /**
+     * The first move of a shortest path between two positions.
+     *
+     * @param fromX The x-coordinate of the current position
+     * @param fromY The y-coordinate of the current position
+     * @param toX The x-coordinate of the goal
+     * @param toY The y-coordinate of the goal
+     * @return The index of the move, or NONE if the goal can not be reached
+     * or the positions are the same
+     */
+    public int firstMove(int fromX, int fromY, int toX, int toY) {
+        int source = fromX * rowLength + fromY;
+        int target = rank.get(toX * rowLength + toY);
+        int low = offsets.get(source);
+        int high = offsets.get(source + 1) - 1;
+        if (target < 0 || high < low || source == toX * rowLength + toY) {
+            return NONE;
+        }
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if ((runs.get(middle) >>> 4) <= target) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return runs.get(low) & 15;
+    }
+
+    /**
+     *
+     * @return The amount of allowed directions for valid moves
+     */
+    public int getDirections() {
+        return directions;
+    }
+
+    /**
+     *
+     * @return The amount of runs in the whole database
+     */
+    public int getRunCount() {
+        return runs.limit();
+    }
+
+    /**
+     *
+     * @param x The x-coordinate of a position
+     * @param y The y-coordinate of a position
+     * @return The amount of runs of the position as a source
+     */
+    public int getRunCount(int x, int y) {
+        int source = x * rowLength + y;
+        return offsets.get(source + 1) - offsets.get(source);
+    }
+
+    /**
+     *
+     * @param x The x-coordinate of a position
+     * @param y The y-coordinate of a position
+     * @return The rank of the position in the target order,
+     * or -1 if it is not passable
+     */
+    public int getRank(int x, int y) {
+        return rank.get(x * rowLength + y);
+    }
+
+    /**
+     * Checking that the database was computed for a grid with the same size,
+     * passability and terrain weights.
+     *
+     * @param grid Pathfinding grid
+     * @return True if the database can be used with the grid, otherwise false
+     */
+    public boolean matches(Grid grid) {
+        return grid.getLength() == length && grid.getRowLength() == rowLength
+                && grid.terrainChecksum() == fingerprint;
+    }
+
+    /**
+     * Writing the database to a file.
+     *
+     * @param file Database file
+     * @throws IOException If the file can not be written
+     */
+    public void save(File file) throws IOException {
+        try (OutputStream os = new BufferedOutputStream(new FileOutputStream(file))) {
+            write(os);
+        }
+    }
+
+    /**
+     * Writing the database to a stream. The values are written in big-endian
+     * order after a fixed-size header, so that the arrays can be mapped from
+     * the file as they are.
+     *
+     * @param os Output stream
+     * @throws IOException If the stream can not be written
+     */
+    public void write(OutputStream os) throws IOException {
+        DataOutputStream out = new DataOutputStream(os);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(length);
+        out.writeInt(rowLength);
+        out.writeInt(directions);
+        out.writeLong(fingerprint);
+        out.writeInt(runs.limit());
+        for (int i = 0; i < rank.limit(); i++) {
+            out.writeInt(rank.get(i));
+        }
+        for (int i = 0; i < offsets.limit(); i++) {
+            out.writeInt(offsets.get(i));
+        }
+        for (int i = 0; i < runs.limit(); i++) {
+            out.writeInt(runs.get(i));
+        }
+        out.flush();
+    }
+
+    /**
+     * Memory-mapping a stored database. The file stays mapped until the
+     * database is garbage collected.
+     *
+     * @param file Database file
+     * @param grid The grid that the database is used with
+     * @return The compressed path database
+     * @throws IOException If the file can not be read,
+     * or the database does not match the grid
+     */
+    public static CompressedPathDatabase map(File file, Grid grid) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.limit() < HEADER_BYTES || buffer.getInt(0) != MAGIC
+                || buffer.getInt(4) != VERSION) {
+            throw new IOException("Not a compressed path database file.");
+        }
+        int nx = buffer.getInt(8);
+        int ny = buffer.getInt(12);
+        int directions = buffer.getInt(16);
+        long fingerprint = buffer.getLong(20);
+        int runCount = buffer.getInt(28);
+        if (nx != grid.getLength() || ny != grid.getRowLength()
+                || fingerprint != grid.terrainChecksum()) {
+            throw new IOException("The path database was computed for a different map.");
+        }
+        int cellCount = nx * ny;
+        long expected = HEADER_BYTES + 4L * (2L * cellCount + 1 + runCount);
+        if (buffer.limit() != expected) {
+            throw new IOException("The path database file has a wrong size.");
+        }
+        IntBuffer rank = slice(buffer, HEADER_BYTES, cellCount);
+        IntBuffer offsets = slice(buffer, HEADER_BYTES + 4 * cellCount, cellCount + 1);
+        IntBuffer runs = slice(buffer, HEADER_BYTES + 4 * (2 * cellCount + 1), runCount);
+        return new CompressedPathDatabase(nx, ny, directions, fingerprint, rank, offsets, runs);
+    }
+
+    private static IntBuffer slice(ByteBuffer buffer, int position, int count) {
+        ByteBuffer bytes = buffer.duplicate();
+        bytes.position(position);
+        bytes.limit(position + 4 * count);
+        return bytes.slice().asIntBuffer();
+    }
+}
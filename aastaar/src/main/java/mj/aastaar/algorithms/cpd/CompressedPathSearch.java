@@ -0,0 +1,170 @@
+package mj.aastaar.algorithms.cpd;
+
+import java.util.Arrays;
+import mj.aastaar.algorithms.JumpPointTable;
+import mj.aastaar.algorithms.PathfindingAlgorithm;
+import mj.aastaar.algorithms.path.Path;
+import mj.aastaar.algorithms.path.PathWithHashMap;
+import mj.aastaar.map.Grid;
+import mj.aastaar.map.Node;
+
+/**
+ * Shortest path queries on a compressed path database. The path is found by
+ * looking up the first move from the current position to the goal and taking
+ * it, until the goal is reached, so a query takes one lookup per step and
+ * never visits positions off the path.
+ *
+ * The database is computed at the first search with a new amount of
+ * directions, unless a precomputed database is given, and again when the
+ * grid has been changed so that it no longer matches.
+ *
+ * @author MJ
+ */
+public class CompressedPathSearch implements PathfindingAlgorithm {
+
+    private Grid grid;
+    private CompressedPathDatabase database;
+    private PathWithHashMap path;
+    private Node start;
+    private Node goal;
+    private double pathCost;
+    private int[] moves;
+    private int steps;
+    private int modifications;
+
+    /**
+     * Computing the database at the first search.
+     *
+     * @param grid Pathfinding grid
+     */
+    public CompressedPathSearch(Grid grid) {
+        this.grid = grid;
+        this.moves = new int[64];
+    }
+
+    /**
+     * Using a precomputed or memory-mapped database.
+     *
+     * @param grid Pathfinding grid
+     * @param database The compressed path database of the grid
+     */
+    public CompressedPathSearch(Grid grid, CompressedPathDatabase database) {
+        if (!database.matches(grid)) {
+            throw new IllegalArgumentException(
+                    "The path database does not match the grid.");
+        }
+        this.grid = grid;
+        this.database = database;
+        this.modifications = grid.getModifications();
+        this.moves = new int[64];
+    }
+
+    @Override
+    public int search(Node start, Node goal, int directions) {
+        if (!grid.nodeIsValid(start) || !grid.nodeIsValid(goal)) {
+            System.out.println("Invalid positions.");
+            return -1;
+        }
+        this.start = start;
+        this.goal = goal;
+        path = null;
+        pathCost = -1;
+        steps = 0;
+        if (!grid.isReachable(start, goal)) {
+            return -1;
+        }
+        if (database == null || database.getDirections() != directions || isStale()) {
+            modifications = grid.getModifications();
+            database = CompressedPathDatabase.build(grid, directions);
+        }
+        int maxSteps = grid.getLength() * grid.getRowLength();
+        int x = start.getX();
+        int y = start.getY();
+        double cost = 0.0;
+        while (x != goal.getX() || y != goal.getY()) {
+            int move = database.firstMove(x, y, goal.getX(), goal.getY());
+            if (move == CompressedPathDatabase.NONE || steps == maxSteps) {
+                steps = 0;
+                return -1;
+            }
+            int nextX = x + JumpPointTable.DX[move];
+            int nextY = y + JumpPointTable.DY[move];
+            cost += grid.cost(x, y, nextX, nextY);
+            if (steps == moves.length) {
+                moves = Arrays.copyOf(moves, steps * 2);
+            }
+            moves[steps++] = move;
+            x = nextX;
+            y = nextY;
+        }
+        pathCost = cost;
+        path = new PathWithHashMap(steps);
+        x = start.getX();
+        y = start.getY();
+        for (int i = 0; i < steps; i++) {
+            long previous = Node.key(x, y);
+            x += JumpPointTable.DX[moves[i]];
+            y += JumpPointTable.DY[moves[i]];
+            path.putCameFrom(Node.key(x, y), previous);
+        }
+        return steps;
+    }
+
+    @Override
+    public Path getPath() {
+        return path;
+    }
+
+    @Override
+    public double getCost(Node goal) {
+        if (this.goal == null || !this.goal.equals(goal)) {
+            return -1;
+        }
+        return pathCost;
+    }
+
+    /**
+     * The positions on the path of the latest search, the only positions that
+     * a query looks at.
+     *
+     * @return Visited positions
+     */
+    @Override
+    public boolean[][] getVisited() {
+        boolean[][] visited = new boolean[grid.getLength()][grid.getRowLength()];
+        if (path == null) {
+            return visited;
+        }
+        int x = start.getX();
+        int y = start.getY();
+        visited[x][y] = true;
+        for (int i = 0; i < steps; i++) {
+            x += JumpPointTable.DX[moves[i]];
+            y += JumpPointTable.DY[moves[i]];
+            visited[x][y] = true;
+        }
+        return visited;
+    }
+
+    /**
+     * Checking the database against the grid again if the grid has been
+     * changed since the previous check.
+     *
+     * @return True if the database no longer matches the grid
+     */
+    private boolean isStale() {
+        if (grid.getModifications() == modifications) {
+            return false;
+        }
+        modifications = grid.getModifications();
+        return !database.matches(grid);
+    }
+
+    /**
+     *
+     * @return The compressed path database, or null before the first search
+     */
+    public CompressedPathDatabase getDatabase() {
+        return database;
+    }
+}
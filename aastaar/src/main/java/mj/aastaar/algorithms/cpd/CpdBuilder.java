@@ -0,0 +1,287 @@
+package mj.aastaar.algorithms.cpd;
+
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import mj.aastaar.datastructures.IndexedMinHeap;
+import mj.aastaar.map.Grid;
+import mj.aastaar.map.Node;
+
+/**
+ * Building a compressed path database with one Dijkstra search from every
+ * passable position. The searches are independent, so they are divided
+ * between worker threads, which take the next source position from a shared
+ * counter. Every thread has its own search arrays, which are reused between
+ * the sources.
+ *
+ * The first move of a target is inherited from the position it was reached
+ * from, so one search gives the first moves to all targets at once. The first
+ * moves of a source are then stored as runs in the order of the target ranks.
+ *
+ * @author MJ
+ */
+class CpdBuilder {
+
+    private final Grid grid;
+    private final int directions;
+    private final int length;
+    private final int rowLength;
+    private final int threads;
+    private int[] rank;
+    private int[] order;
+    private int[] adjFirst;
+    private int[] adjTarget;
+    private double[] adjCost;
+    private int[] adjMove;
+
+    /**
+     *
+     * @param grid Pathfinding grid
+     * @param directions The amount of allowed directions for valid moves
+     * @param threads The amount of worker threads
+     */
+    CpdBuilder(Grid grid, int directions, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("The amount of threads has to be positive.");
+        }
+        this.grid = grid;
+        this.directions = directions;
+        this.length = grid.getLength();
+        this.rowLength = grid.getRowLength();
+        this.threads = threads;
+    }
+
+    /**
+     * Searching from every source position and joining the compressed rows
+     * into one array.
+     *
+     * @return The compressed path database of the grid
+     */
+    CompressedPathDatabase build() {
+        initRanks();
+        initEdges();
+        int cellCount = length * rowLength;
+        final int[][] rows = new int[cellCount][];
+        final AtomicInteger next = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(pool.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() {
+                        SourceSearch search = new SourceSearch();
+                        int source;
+                        while ((source = next.getAndIncrement()) < rows.length) {
+                            rows[source] = search.compressedRow(source);
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Building the path database was interrupted.", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Building the path database failed.", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+
+        int[] offsets = new int[cellCount + 1];
+        for (int cell = 0; cell < cellCount; cell++) {
+            offsets[cell + 1] = offsets[cell] + rows[cell].length;
+        }
+        int[] runs = new int[offsets[cellCount]];
+        for (int cell = 0; cell < cellCount; cell++) {
+            System.arraycopy(rows[cell], 0, runs, offsets[cell], rows[cell].length);
+            rows[cell] = null;
+        }
+        return new CompressedPathDatabase(length, rowLength, directions, grid.terrainChecksum(),
+                IntBuffer.wrap(rank), IntBuffer.wrap(offsets), IntBuffer.wrap(runs));
+    }
+
+    /**
+     * Ranking the passable positions along a Hilbert curve, which keeps
+     * nearby positions close to each other in the order. The first moves to
+     * nearby targets are usually the same, so the runs become long.
+     */
+    private void initRanks() {
+        int side = 1;
+        while (side < length || side < rowLength) {
+            side *= 2;
+        }
+        long[] keys = new long[length * rowLength];
+        int count = 0;
+        for (int x = 0; x < length; x++) {
+            for (int y = 0; y < rowLength; y++) {
+                if (grid.isPassable(x, y)) {
+                    keys[count++] = (hilbertIndex(side, x, y) << 32) | (x * rowLength + y);
+                }
+            }
+        }
+        Arrays.sort(keys, 0, count);
+        rank = new int[length * rowLength];
+        Arrays.fill(rank, -1);
+        order = new int[count];
+        for (int r = 0; r < count; r++) {
+            int cell = (int) keys[r];
+            order[r] = cell;
+            rank[cell] = r;
+        }
+    }
+
+    /**
+     * The distance of a position along a Hilbert curve that fills a square.
+     *
+     * @param side The side of the square, a power of two
+     * @param x The x-coordinate of the position
+     * @param y The y-coordinate of the position
+     * @return Index on the curve
+     */
+    static long hilbertIndex(int side, int x, int y) {
+        long d = 0;
+        for (int s = side / 2; s > 0; s /= 2) {
+            int rx = ((x & s) > 0) ? 1 : 0;
+            int ry = ((y & s) > 0) ? 1 : 0;
+            d += (long) s * s * ((3 * rx) ^ ry);
+            if (ry == 0) {
+                if (rx == 1) {
+                    x = s - 1 - x;
+                    y = s - 1 - y;
+                }
+                int t = x;
+                x = y;
+                y = t;
+            }
+        }
+        return d;
+    }
+
+    /**
+     * Storing the moves of every position in one array, with the index of
+     * the direction of each move.
+     */
+    private void initEdges() {
+        int cellCount = length * rowLength;
+        adjFirst = new int[cellCount + 1];
+        adjTarget = new int[cellCount * directions];
+        adjCost = new double[cellCount * directions];
+        adjMove = new int[cellCount * directions];
+        int e = 0;
+        for (int x = 0; x < length; x++) {
+            for (int y = 0; y < rowLength; y++) {
+                int cell = x * rowLength + y;
+                adjFirst[cell] = e;
+                if (!grid.isPassable(x, y)) {
+                    continue;
+                }
+                Node[] neighbours = grid.getNeighbours(x, y, directions);
+                for (int i = 0; i < neighbours.length; i++) {
+                    Node next = neighbours[i];
+                    if (next != null) {
+                        adjTarget[e] = next.getX() * rowLength + next.getY();
+                        adjCost[e] = grid.cost(x, y, next.getX(), next.getY());
+                        adjMove[e] = i;
+                        e++;
+                    }
+                }
+            }
+        }
+        adjFirst[cellCount] = e;
+    }
+
+    /**
+     * The search arrays of one worker thread. The costs are valid only if
+     * they were set during the search from the current source.
+     */
+    private class SourceSearch {
+
+        private final double[] cost;
+        private final int[] firstMove;
+        private final int[] costStamp;
+        private final IndexedMinHeap frontier;
+        private int[] row;
+        private int stamp;
+
+        SourceSearch() {
+            int cellCount = length * rowLength;
+            cost = new double[cellCount];
+            firstMove = new int[cellCount];
+            costStamp = new int[cellCount];
+            frontier = new IndexedMinHeap(cellCount);
+            row = new int[64];
+        }
+
+        /**
+         * Dijkstra's algorithm from a source position to every position.
+         *
+         * @param source The cell index of the source position
+         * @return The runs of first moves of the source, in the target order
+         */
+        int[] compressedRow(int source) {
+            if (rank[source] < 0) {
+                return new int[0];
+            }
+            stamp++;
+            costStamp[source] = stamp;
+            cost[source] = 0.0;
+            frontier.insert(source, 0.0);
+            while (!frontier.isEmpty()) {
+                int u = frontier.poll();
+                double c = cost[u];
+                for (int e = adjFirst[u]; e < adjFirst[u + 1]; e++) {
+                    int w = adjTarget[e];
+                    double newCost = c + adjCost[e];
+                    if (costStamp[w] != stamp || newCost < cost[w]) {
+                        costStamp[w] = stamp;
+                        cost[w] = newCost;
+                        firstMove[w] = (u == source) ? adjMove[e] : firstMove[u];
+                        frontier.add(w, newCost);
+                    }
+                }
+            }
+            return compress(source);
+        }
+
+        /**
+         * Joining the targets with the same first move into runs. The source
+         * itself has no first move, so it continues any run.
+         */
+        private int[] compress(int source) {
+            int count = 0;
+            int current = -1;
+            for (int r = 0; r < order.length; r++) {
+                int target = order[r];
+                if (target == source) {
+                    continue;
+                }
+                int move = (costStamp[target] == stamp)
+                        ? firstMove[target] : CompressedPathDatabase.NONE;
+                if (move == current) {
+                    continue;
+                }
+                if (count == row.length) {
+                    row = Arrays.copyOf(row, count * 2);
+                }
+                int start = (count == 0) ? 0 : r;
+                row[count++] = CompressedPathDatabase.run(start, move);
+                current = move;
+            }
+            if (count == 0) {
+                return new int[]{CompressedPathDatabase.run(0, CompressedPathDatabase.NONE)};
+            }
+            return Arrays.copyOf(row, count);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package mj.aastaar.algorithms.heuristic;
+
+import mj.aastaar.map.Grid;
+import mj.aastaar.map.Node;
+
+/**
+ * The distance heuristic of the grid: Manhattan distance for movement in four
+ * directions and octile distance when diagonal movement is allowed.
+ *
+ * @author MJ
+ */
+public class GridHeuristic implements Heuristic {
+
+    private final Grid grid;
+
+    /**
+     *
+     * @param grid Pathfinding grid
+     */
+    public GridHeuristic(Grid grid) {
+        this.grid = grid;
+    }
+
+    @Override
+    public double estimate(Node node, Node goal, int directions) {
+        return grid.heuristic(node, goal, directions);
+    }
+}
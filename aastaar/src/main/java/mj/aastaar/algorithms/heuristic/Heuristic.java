@@ -0,0 +1,24 @@
+package mj.aastaar.algorithms.heuristic;
+
+import mj.aastaar.map.Node;
+
+/**
+ * Interface for the heuristics of A*, which estimate the cost of the
+ * shortest path from a position to the goal.
+ *
+ * @author MJ
+ */
+public interface Heuristic {
+
+    /**
+     * Estimating the cost of the shortest path between two positions. The
+     * estimate has to be at most the actual cost, so that A* finds the
+     * shortest path.
+     *
+     * @param node The position where the path starts
+     * @param goal The position where the path ends
+     * @param directions The amount of allowed directions for valid moves
+     * @return The estimated cost
+     */
+    public double estimate(Node node, Node goal, int directions);
+}
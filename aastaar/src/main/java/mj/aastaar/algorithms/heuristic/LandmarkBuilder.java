@@ -0,0 +1,389 @@
+package mj.aastaar.algorithms.heuristic;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import mj.aastaar.datastructures.IndexedMinHeap;
+import mj.aastaar.map.Grid;
+import mj.aastaar.map.Node;
+
+/**
+ * Choosing the landmarks of a grid and computing their costs to every
+ * position with Dijkstra's algorithm.
+ *
+ * The farthest strategy chooses every landmark at the position farthest from
+ * the earlier landmarks. The distances to the nearest landmark are updated
+ * with a search that only covers the positions where the new landmark is the
+ * nearest, so the landmarks are chosen quickly, and the full costs of all
+ * landmarks are then computed in parallel.
+ *
+ * The avoid strategy grows a shortest path tree from a random root, weighs
+ * every position by how much the earlier landmarks underestimate its cost
+ * from the root, and chooses a leaf of the heaviest subtree that does not
+ * contain a landmark. Each choice needs the costs of the earlier landmarks, so
+ * the costs of the latest landmark are computed in parallel with the tree of
+ * the next root.
+ *
+ * @author MJ
+ */
+class LandmarkBuilder {
+
+    private static final double INFINITY = 1000000000.0;
+    private static final int AREA_TRIES = 8;
+
+    private final Grid grid;
+    private final int directions;
+    private final int landmarkCount;
+    private final int selection;
+    private final int threads;
+    private final int length;
+    private final int rowLength;
+    private final Random random;
+    private int[] adjFirst;
+    private int[] adjTarget;
+    private double[] adjCost;
+    private int[] area;
+
+    /**
+     *
+     * @param grid Pathfinding grid
+     * @param directions The amount of allowed directions for valid moves
+     * @param landmarkCount The amount of landmarks
+     * @param selection LandmarkTable.FARTHEST or LandmarkTable.AVOID
+     * @param threads The amount of threads computing the costs
+     */
+    LandmarkBuilder(Grid grid, int directions, int landmarkCount, int selection, int threads) {
+        if (landmarkCount < 1 || threads < 1) {
+            throw new IllegalArgumentException(
+                    "The amount of landmarks and threads has to be positive.");
+        }
+        if (selection != LandmarkTable.FARTHEST && selection != LandmarkTable.AVOID) {
+            throw new IllegalArgumentException("Unknown landmark selection.");
+        }
+        this.grid = grid;
+        this.directions = directions;
+        this.landmarkCount = landmarkCount;
+        this.selection = selection;
+        this.threads = threads;
+        this.length = grid.getLength();
+        this.rowLength = grid.getRowLength();
+        this.random = new Random(length * 31L + rowLength);
+    }
+
+    /**
+     * Choosing the landmarks and storing their costs position by position.
+     *
+     * @return The landmark table of the grid
+     */
+    LandmarkTable build() {
+        initEdges();
+        int count = Math.min(landmarkCount, area.length);
+        int[] landmarks = new int[count];
+        double[][] landmarkCosts = new double[count][];
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            if (selection == LandmarkTable.FARTHEST) {
+                chooseFarthest(landmarks);
+                List<Future<double[]>> futures = new ArrayList<>();
+                for (int landmark : landmarks) {
+                    futures.add(pool.submit(new CostSearch(landmark)));
+                }
+                for (int i = 0; i < count; i++) {
+                    landmarkCosts[i] = futures.get(i).get();
+                }
+            } else {
+                chooseAvoiding(landmarks, landmarkCosts, pool);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Building the landmark table was interrupted.", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Building the landmark table failed.", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+
+        float[] costs = new float[length * rowLength * count];
+        Arrays.fill(costs, Float.POSITIVE_INFINITY);
+        for (int i = 0; i < count; i++) {
+            for (int cell = 0; cell < length * rowLength; cell++) {
+                if (landmarkCosts[i][cell] < INFINITY) {
+                    costs[cell * count + i] = (float) landmarkCosts[i][cell];
+                }
+            }
+        }
+        return new LandmarkTable(length, rowLength, directions, grid.terrainChecksum(),
+                landmarks, costs);
+    }
+
+    /**
+     * Starting from the position farthest from a random position, and then
+     * always choosing the position farthest from its nearest landmark.
+     */
+    private void chooseFarthest(int[] landmarks) {
+        double[] nearest = new double[length * rowLength];
+        Arrays.fill(nearest, INFINITY);
+        double[] fromRandom = new CostSearch(area[random.nextInt(area.length)]).call();
+        int next = farthest(fromRandom);
+        for (int i = 0; i < landmarks.length; i++) {
+            landmarks[i] = next;
+            search(next, nearest, null, null);
+            next = farthest(nearest);
+        }
+    }
+
+    /**
+     *
+     * @param costs The costs of the positions
+     * @return The position of the area with the largest cost
+     */
+    private int farthest(double[] costs) {
+        int farthest = area[0];
+        for (int cell : area) {
+            if (costs[cell] > costs[farthest]) {
+                farthest = cell;
+            }
+        }
+        return farthest;
+    }
+
+    /**
+     * Choosing every landmark from the tree of a new random root. The tree of
+     * the next root is grown while the costs of the latest landmark are
+     * computed.
+     */
+    private void chooseAvoiding(int[] landmarks, double[][] landmarkCosts, ExecutorService pool)
+            throws InterruptedException, ExecutionException {
+        boolean[] isLandmark = new boolean[length * rowLength];
+        Future<RootTree> nextTree = pool.submit(new RootTree(randomRoot(isLandmark)));
+        for (int i = 0; i < landmarks.length; i++) {
+            RootTree tree = nextTree.get();
+            landmarks[i] = tree.chooseLandmark(landmarks, landmarkCosts, i, isLandmark);
+            isLandmark[landmarks[i]] = true;
+            Future<double[]> costs = pool.submit(new CostSearch(landmarks[i]));
+            if (i + 1 < landmarks.length) {
+                nextTree = pool.submit(new RootTree(randomRoot(isLandmark)));
+            }
+            landmarkCosts[i] = costs.get();
+        }
+    }
+
+    private int randomRoot(boolean[] isLandmark) {
+        int root = area[random.nextInt(area.length)];
+        for (int tries = 0; isLandmark[root] && tries < area.length; tries++) {
+            root = area[random.nextInt(area.length)];
+        }
+        return root;
+    }
+
+    /**
+     * Storing the moves of every position in one array, and finding the area
+     * where the landmarks are chosen: the largest of the connected areas of a
+     * few random positions. Small enclosed areas would waste landmarks.
+     */
+    private void initEdges() {
+        int cellCount = length * rowLength;
+        adjFirst = new int[cellCount + 1];
+        adjTarget = new int[cellCount * directions];
+        adjCost = new double[cellCount * directions];
+        int[] cells = new int[cellCount];
+        int passableCount = 0;
+        int e = 0;
+        for (int x = 0; x < length; x++) {
+            for (int y = 0; y < rowLength; y++) {
+                int cell = x * rowLength + y;
+                adjFirst[cell] = e;
+                if (!grid.isPassable(x, y)) {
+                    continue;
+                }
+                cells[passableCount++] = cell;
+                for (Node next : grid.getNeighbours(x, y, directions)) {
+                    if (next != null) {
+                        adjTarget[e] = next.getX() * rowLength + next.getY();
+                        adjCost[e] = grid.cost(x, y, next.getX(), next.getY());
+                        e++;
+                    }
+                }
+            }
+        }
+        adjFirst[cellCount] = e;
+        if (passableCount == 0) {
+            throw new IllegalArgumentException("The grid has no passable positions.");
+        }
+        int[] passable = Arrays.copyOf(cells, passableCount);
+        area = new int[0];
+        for (int tries = 0; tries < AREA_TRIES && area.length < passableCount / 2; tries++) {
+            double[] cost = new CostSearch(passable[random.nextInt(passableCount)]).call();
+            int reached = 0;
+            for (int cell : passable) {
+                if (cost[cell] < INFINITY) {
+                    cells[reached++] = cell;
+                }
+            }
+            if (reached > area.length) {
+                area = Arrays.copyOf(cells, reached);
+            }
+        }
+    }
+
+    /**
+     * Dijkstra's algorithm from a source position.
+     *
+     * @param source The cell index of the source
+     * @param cost The costs, which have to be infinite or upper bounds for
+     * the positions that the search may reach. Positions that already have a
+     * lower cost are not searched through.
+     * @param parent The parent of every reached position, or null
+     * @param settledOrder The positions in the order they were settled, or null
+     * @return The amount of settled positions
+     */
+    private int search(int source, double[] cost, int[] parent, int[] settledOrder) {
+        IndexedMinHeap frontier = new IndexedMinHeap(length * rowLength);
+        boolean[] settled = new boolean[length * rowLength];
+        cost[source] = 0.0;
+        if (parent != null) {
+            parent[source] = -1;
+        }
+        frontier.insert(source, 0.0);
+        int settledCount = 0;
+        while (!frontier.isEmpty()) {
+            int u = frontier.poll();
+            if (settled[u]) {
+                continue;
+            }
+            settled[u] = true;
+            if (settledOrder != null) {
+                settledOrder[settledCount] = u;
+            }
+            settledCount++;
+            for (int e = adjFirst[u]; e < adjFirst[u + 1]; e++) {
+                int w = adjTarget[e];
+                double newCost = cost[u] + adjCost[e];
+                if (newCost < cost[w]) {
+                    cost[w] = newCost;
+                    if (parent != null) {
+                        parent[w] = u;
+                    }
+                    frontier.add(w, newCost);
+                }
+            }
+        }
+        return settledCount;
+    }
+
+    /**
+     * The costs from one landmark to every position.
+     */
+    private class CostSearch implements Callable<double[]> {
+
+        private final int source;
+
+        CostSearch(int source) {
+            this.source = source;
+        }
+
+        @Override
+        public double[] call() {
+            double[] cost = new double[length * rowLength];
+            Arrays.fill(cost, INFINITY);
+            search(source, cost, null, null);
+            return cost;
+        }
+    }
+
+    /**
+     * The shortest path tree of a root position, for the avoid strategy.
+     */
+    private class RootTree implements Callable<RootTree> {
+
+        private final int root;
+        private double[] cost;
+        private int[] parent;
+        private int[] settledOrder;
+        private int settledCount;
+
+        RootTree(int root) {
+            this.root = root;
+        }
+
+        @Override
+        public RootTree call() {
+            int cellCount = length * rowLength;
+            cost = new double[cellCount];
+            parent = new int[cellCount];
+            settledOrder = new int[cellCount];
+            Arrays.fill(cost, INFINITY);
+            settledCount = search(root, cost, parent, settledOrder);
+            return this;
+        }
+
+        /**
+         * The weight of a position is its cost from the root minus the best
+         * lower bound of the earlier landmarks. The subtrees are summed from
+         * the leaves up, in the reverse of the settling order, and the
+         * subtrees with a landmark are left out. The landmark is the leaf at
+         * the end of the heaviest branch of the heaviest subtree.
+         */
+        int chooseLandmark(int[] landmarks, double[][] landmarkCosts, int chosen,
+                boolean[] isLandmark) {
+            int cellCount = length * rowLength;
+            double[] size = new double[cellCount];
+            boolean[] hasLandmark = new boolean[cellCount];
+            int[] heaviestChild = new int[cellCount];
+            Arrays.fill(heaviestChild, -1);
+            Node rootNode = new Node(root / rowLength, root % rowLength, 0.0);
+            for (int i = settledCount - 1; i >= 0; i--) {
+                int v = settledOrder[i];
+                hasLandmark[v] = hasLandmark[v] || isLandmark[v];
+                double bound = grid.heuristic(rootNode,
+                        new Node(v / rowLength, v % rowLength, 0.0), directions);
+                for (int l = 0; l < chosen; l++) {
+                    double a = landmarkCosts[l][root];
+                    double b = landmarkCosts[l][v];
+                    if (a < INFINITY && b < INFINITY) {
+                        bound = Math.max(bound, Math.abs(a - b));
+                    }
+                }
+                size[v] = hasLandmark[v] ? 0.0 : size[v] + cost[v] - bound;
+                int p = parent[v];
+                if (p < 0) {
+                    continue;
+                }
+                hasLandmark[p] = hasLandmark[p] || hasLandmark[v];
+                size[p] += size[v];
+                if (heaviestChild[p] < 0 || size[v] > size[heaviestChild[p]]) {
+                    heaviestChild[p] = v;
+                }
+            }
+            int heaviest = -1;
+            for (int i = 0; i < settledCount; i++) {
+                int v = settledOrder[i];
+                if (!hasLandmark[v] && (heaviest < 0 || size[v] > size[heaviest])) {
+                    heaviest = v;
+                }
+            }
+            if (heaviest < 0) {
+                return unusedPosition(isLandmark);
+            }
+            while (heaviestChild[heaviest] >= 0) {
+                heaviest = heaviestChild[heaviest];
+            }
+            return heaviest;
+        }
+
+        private int unusedPosition(boolean[] isLandmark) {
+            for (int cell : area) {
+                if (!isLandmark[cell]) {
+                    return cell;
+                }
+            }
+            return area[0];
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package mj.aastaar.algorithms.heuristic;
+
+import mj.aastaar.map.Grid;
+import mj.aastaar.map.Node;
+
+/**
+ * The ALT heuristic (A*, landmarks and the triangle inequality). The cost
+ * from a position to the goal is at least the difference of their costs to
+ * any landmark, so the estimate is the largest difference over the landmarks,
+ * or the distance heuristic of the grid if it is larger. Walls and heavier
+ * terrain are included in the landmark costs, so the estimates are much
+ * closer to the actual costs than the distances.
+ *
+ * For a different amount of directions than the table was computed for, the
+ * distance heuristic of the grid is used. So it is after the grid has been
+ * changed so that the table no longer matches it, as the old landmark costs
+ * could then overestimate.
+ *
+ * @author MJ
+ */
+public class LandmarkHeuristic implements Heuristic {
+
+    private final Grid grid;
+    private final LandmarkTable table;
+    private int modifications;
+    private boolean current;
+
+    /**
+     *
+     * @param grid Pathfinding grid
+     * @param table The landmark costs of the grid
+     */
+    public LandmarkHeuristic(Grid grid, LandmarkTable table) {
+        if (!table.matches(grid)) {
+            throw new IllegalArgumentException("The landmark table does not match the grid.");
+        }
+        this.grid = grid;
+        this.table = table;
+        this.modifications = grid.getModifications();
+        this.current = true;
+    }
+
+    @Override
+    public double estimate(Node node, Node goal, int directions) {
+        double distance = grid.heuristic(node, goal, directions);
+        if (directions != table.getDirections() || !isCurrent()) {
+            return distance;
+        }
+        double bound = table.lowerBound(node.getX(), node.getY(), goal.getX(), goal.getY());
+        return (bound > distance) ? bound : distance;
+    }
+
+    /**
+     * Checking the table against the grid again if the grid has been changed
+     * since the previous check.
+     *
+     * @return True if the table matches the grid, otherwise false
+     */
+    private boolean isCurrent() {
+        if (grid.getModifications() != modifications) {
+            modifications = grid.getModifications();
+            current = table.matches(grid);
+        }
+        return current;
+    }
+
+    /**
+     *
+     * @return The landmark costs of the grid
+     */
+    public LandmarkTable getTable() {
+        return table;
+    }
+}
@@ -0,0 +1,335 @@
+package mj.aastaar.algorithms.heuristic;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import mj.aastaar.map.Grid;
+import mj.aastaar.utils.TableStore;
+
+/**
+ * The costs of the shortest paths from a few landmark positions to every
+ * position of a grid. The costs of one position to all landmarks are stored
+ * next to each other, so an estimate reads two short blocks of the table.
+ * The costs are stored as floats, and positions that a landmark can not reach
+ * have an infinite cost.
+ *
+ * The table depends on the passability and terrain weights of the grid and the
+ * amount of directions, and can be stored next to the map file.
+ *
+ * @author MJ
+ */
+public class LandmarkTable {
+
+    /**
+     * Choosing every landmark as far as possible from the earlier landmarks.
+     */
+    public static final int FARTHEST = 0;
+
+    /**
+     * Choosing every landmark from the part of the grid where the earlier
+     * landmarks give the worst estimates.
+     */
+    public static final int AVOID = 1;
+
+    /**
+     * The default amount of landmarks.
+     */
+    public static final int DEFAULT_LANDMARKS = 16;
+
+    private static final int MAGIC = 0x414c542b;
+    private static final int VERSION = 1;
+    private static final String FILE_EXTENSION = ".alt";
+
+    private final int length;
+    private final int rowLength;
+    private final int directions;
+    private final long fingerprint;
+    private final int[] landmarks;
+    private final float[] costs;
+    private final double slack;
+
+    LandmarkTable(int length, int rowLength, int directions, long fingerprint,
+            int[] landmarks, float[] costs) {
+        this.length = length;
+        this.rowLength = rowLength;
+        this.directions = directions;
+        this.fingerprint = fingerprint;
+        this.landmarks = landmarks;
+        this.costs = costs;
+        float largest = 0.0f;
+        for (float cost : costs) {
+            if (cost != Float.POSITIVE_INFINITY && cost > largest) {
+                largest = cost;
+            }
+        }
+        this.slack = 2.0 * Math.ulp(largest);
+    }
+
+    /**
+     * Choosing the default amount of landmarks with the avoid strategy, and
+     * computing their costs with one thread per processor.
+     *
+     * @param grid Pathfinding grid
+     * @param directions The amount of allowed directions for valid moves
+     * @return The landmark table of the grid
+     */
+    public static LandmarkTable build(Grid grid, int directions) {
+        return build(grid, directions, DEFAULT_LANDMARKS, AVOID,
+                Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     *
+     * @param grid Pathfinding grid
+     * @param directions The amount of allowed directions for valid moves
+     * @param landmarkCount The amount of landmarks
+     * @param selection FARTHEST or AVOID
+     * @param threads The amount of threads computing the costs
+     * @return The landmark table of the grid
+     */
+    public static LandmarkTable build(Grid grid, int directions, int landmarkCount,
+            int selection, int threads) {
+        return new LandmarkBuilder(grid, directions, landmarkCount, selection, threads).build();
+    }
+
+    /**
+     * The largest difference of the costs of two positions to a landmark,
+     * which is at most the cost of the shortest path between them. The
+     * estimate is lowered by the largest rounding error of the stored costs
+     * and of the float subtraction.
+     *
+     * @param x The x-coordinate of the first position
+     * @param y The y-coordinate of the first position
+     * @param goalX The x-coordinate of the second position
+     * @param goalY The y-coordinate of the second position
+     * @return The lower bound, or zero if no landmark reaches both positions
+     */
+    public double lowerBound(int x, int y, int goalX, int goalY) {
+        int count = landmarks.length;
+        int a = (x * rowLength + y) * count;
+        int b = (goalX * rowLength + goalY) * count;
+        float best = 0.0f;
+        for (int i = 0; i < count; i++) {
+            float from = costs[a + i];
+            float to = costs[b + i];
+            if (from == Float.POSITIVE_INFINITY || to == Float.POSITIVE_INFINITY) {
+                continue;
+            }
+            float difference = (from > to) ? from - to : to - from;
+            if (difference > best) {
+                best = difference;
+            }
+        }
+        return (best > slack) ? best - slack : 0.0;
+    }
+
+    /**
+     *
+     * @param landmark The index of a landmark
+     * @param x The x-coordinate of a position
+     * @param y The y-coordinate of a position
+     * @return The cost from the landmark to the position, or infinity if the
+     * position can not be reached
+     */
+    public float cost(int landmark, int x, int y) {
+        return costs[(x * rowLength + y) * landmarks.length + landmark];
+    }
+
+    /**
+     *
+     * @return The amount of landmarks
+     */
+    public int getLandmarkCount() {
+        return landmarks.length;
+    }
+
+    /**
+     *
+     * @param landmark The index of a landmark
+     * @return The x-coordinate of the landmark
+     */
+    public int getLandmarkX(int landmark) {
+        return landmarks[landmark] / rowLength;
+    }
+
+    /**
+     *
+     * @param landmark The index of a landmark
+     * @return The y-coordinate of the landmark
+     */
+    public int getLandmarkY(int landmark) {
+        return landmarks[landmark] % rowLength;
+    }
+
+    /**
+     *
+     * @return The amount of allowed directions for valid moves
+     */
+    public int getDirections() {
+        return directions;
+    }
+
+    /**
+     * Checking that the table was computed for a grid with the same size,
+     * passability and terrain weights.
+     *
+     * @param grid Pathfinding grid
+     * @return True if the table can be used with the grid, otherwise false
+     */
+    public boolean matches(Grid grid) {
+        return grid.getLength() == length && grid.getRowLength() == rowLength
+                && grid.terrainChecksum() == fingerprint;
+    }
+
+    /**
+     * Writing the table to a file.
+     *
+     * @param file Table file
+     * @throws IOException If the file can not be written
+     */
+    public void save(File file) throws IOException {
+        try (OutputStream os = new BufferedOutputStream(new FileOutputStream(file))) {
+            write(os);
+        }
+    }
+
+    /**
+     * Writing the table to a stream.
+     *
+     * @param os Output stream
+     * @throws IOException If the stream can not be written
+     */
+    public void write(OutputStream os) throws IOException {
+        DataOutputStream out = new DataOutputStream(os);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(length);
+        out.writeInt(rowLength);
+        out.writeInt(directions);
+        out.writeLong(fingerprint);
+        out.writeInt(landmarks.length);
+        for (int landmark : landmarks) {
+            out.writeInt(landmark);
+        }
+        for (float cost : costs) {
+            out.writeFloat(cost);
+        }
+        out.flush();
+    }
+
+    /**
+     * Loading a stored table from a stream. The header and the landmarks are
+     * checked against the grid before the costs are read.
+     *
+     * @param is Input stream of a table file
+     * @param grid The grid that the table is used with
+     * @return The landmark table
+     * @throws IOException If the stream can not be read, the table is
+     * corrupt, or the table does not match the grid
+     */
+    public static LandmarkTable load(InputStream is, Grid grid) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(is));
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+            throw new IOException("Not a landmark table file.");
+        }
+        int nx = in.readInt();
+        int ny = in.readInt();
+        int directions = in.readInt();
+        long fingerprint = in.readLong();
+        if (nx != grid.getLength() || ny != grid.getRowLength()
+                || fingerprint != grid.terrainChecksum()) {
+            throw new IOException("The landmark table was computed for a different map.");
+        }
+        if (directions != 4 && directions != 8) {
+            throw new IOException("Invalid amount of directions: " + directions);
+        }
+        int count = in.readInt();
+        long size = (long) nx * ny * count;
+        if (count < 1 || count > nx * ny || size > Integer.MAX_VALUE) {
+            throw new IOException("Invalid amount of landmarks: " + count);
+        }
+        int[] landmarks = new int[count];
+        for (int i = 0; i < count; i++) {
+            landmarks[i] = in.readInt();
+            if (landmarks[i] < 0 || landmarks[i] >= nx * ny
+                    || !grid.isPassable(landmarks[i] / ny, landmarks[i] % ny)) {
+                throw new IOException("Invalid landmark position " + landmarks[i]);
+            }
+        }
+        float[] costs = new float[(int) size];
+        for (int i = 0; i < costs.length; i++) {
+            costs[i] = in.readFloat();
+            if (!(costs[i] >= 0.0f)) {
+                throw new IOException("Invalid landmark cost " + costs[i]);
+            }
+        }
+        return new LandmarkTable(nx, ny, directions, fingerprint, landmarks, costs);
+    }
+
+    /**
+     * Loading the table of a map resource from the table directory, or the
+     * table stored next to the map on the class path, or computing the table
+     * and storing it in the table directory.
+     *
+     * @param mapPath Map resource path
+     * @param grid Pathfinding grid created from the map
+     * @param directions The amount of allowed directions for valid moves
+     * @param directory Table directory, or null if a computed table is not
+     * stored
+     * @return The landmark table
+     */
+    public static LandmarkTable loadOrBuild(String mapPath, Grid grid, int directions,
+            File directory) {
+        String tablePath = tablePath(mapPath, directions);
+        File file = (directory != null) ? new File(directory, tablePath) : null;
+        return TableStore.loadOrBuild("landmark table", file, tablePath,
+                is -> load(is, grid, directions), () -> build(grid, directions),
+                LandmarkTable::save);
+    }
+
+    /**
+     * Loading the table stored next to a map file on the file system, or
+     * computing the table and storing it next to the map.
+     *
+     * @param mapFile Map or grid file
+     * @param grid Pathfinding grid loaded from the file
+     * @param directions The amount of allowed directions for valid moves
+     * @return The landmark table
+     */
+    public static LandmarkTable loadOrBuild(Path mapFile, Grid grid, int directions) {
+        Path tableFile = mapFile.resolveSibling(
+                tablePath(mapFile.getFileName().toString(), directions));
+        return TableStore.loadOrBuild("landmark table", tableFile.toFile(), null,
+                is -> load(is, grid, directions), () -> build(grid, directions),
+                LandmarkTable::save);
+    }
+
+    private static LandmarkTable load(InputStream is, Grid grid, int directions)
+            throws IOException {
+        LandmarkTable table = load(is, grid);
+        if (table.getDirections() != directions) {
+            throw new IOException("The landmark table was computed for "
+                    + table.getDirections() + " directions.");
+        }
+        return table;
+    }
+
+    /**
+     *
+     * @param mapPath Map file path
+     * @param directions The amount of allowed directions for valid moves
+     * @return The path of the table file stored next to the map
+     */
+    public static String tablePath(String mapPath, int directions) {
+        String name = mapPath.endsWith(".map")
+                ? mapPath.substring(0, mapPath.length() - ".map".length()) : mapPath;
+        return name + "-" + directions + FILE_EXTENSION;
+    }
+}
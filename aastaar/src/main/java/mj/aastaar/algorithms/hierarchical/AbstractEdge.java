@@ -0,0 +1,40 @@
+package mj.aastaar.algorithms.hierarchical;
+
+/**
+ * A directed edge of the abstract graph. The cost of the edge is the cost
+ * of the shortest path between the two positions, either a single step
+ * across a cluster border, or a path inside a cluster.
+ *
+ * @author MJ
+ */
+public class AbstractEdge {
+
+    private final int target;
+    private final double cost;
+
+    /**
+     *
+     * @param target The index of the abstract node at the end of the edge
+     * @param cost The cost of the shortest path along the edge
+     */
+    public AbstractEdge(int target, double cost) {
+        this.target = target;
+        this.cost = cost;
+    }
+
+    /**
+     *
+     * @return The index of the abstract node at the end of the edge
+     */
+    public int getTarget() {
+        return target;
+    }
+
+    /**
+     *
+     * @return The cost of the shortest path along the edge
+     */
+    public double getCost() {
+        return cost;
+    }
+}
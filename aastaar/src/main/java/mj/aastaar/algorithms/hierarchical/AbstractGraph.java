@@ -0,0 +1,362 @@
+package mj.aastaar.algorithms.hierarchical;
+
+import java.util.Arrays;
+import mj.aastaar.datastructures.CustomHashMap;
+import mj.aastaar.map.Grid;
+import mj.aastaar.map.Node;
+
+/**
+ * The abstraction of a grid for hierarchical pathfinding (HPA*). The grid is
+ * cut into square clusters, and the passable runs along the border of two
+ * neighbouring clusters are entrances. Each entrance has one or two
+ * transitions, which are pairs of positions on the two sides of the border.
+ * The positions of the transitions are the nodes of the abstract graph.
+ *
+ * The two nodes of a transition are connected by the cost of the step
+ * across the border, and the nodes inside a cluster are connected by the
+ * costs of the shortest paths between them that stay inside the cluster.
+ * The abstraction depends only on the grid and the amount of directions,
+ * so the same abstraction can be used for every query on the grid until the
+ * grid is changed, see isCurrent.
+ *
+ * @author MJ
+ */
+public class AbstractGraph {
+
+    /**
+     * Entrances at least this long get a transition at both ends,
+     * shorter ones a single transition in the middle.
+     */
+    private static final int LONG_ENTRANCE = 6;
+
+    private final Grid grid;
+    private final int clusterSize;
+    private final int directions;
+    private final int modifications;
+    private final int clustersX;
+    private final int clustersY;
+    private final CustomHashMap<Node, Integer> nodeIds;
+    private int nodeCount;
+    private int[] nodeX;
+    private int[] nodeY;
+    private AbstractEdge[][] edges;
+    private int[] edgeCounts;
+    private int[][] clusterNodes;
+    private int[] clusterNodeCounts;
+
+    /**
+     * Building the abstract graph: finding the transitions on the cluster
+     * borders, and computing the costs between the transitions of each
+     * cluster.
+     *
+     * @param grid Pathfinding grid
+     * @param clusterSize The width and height of a cluster
+     * @param directions The amount of allowed directions for valid moves
+     */
+    public AbstractGraph(Grid grid, int clusterSize, int directions) {
+        if (clusterSize < 1) {
+            throw new IllegalArgumentException("The cluster size has to be positive.");
+        }
+        this.grid = grid;
+        this.clusterSize = clusterSize;
+        this.directions = directions;
+        this.modifications = grid.getModifications();
+        clustersX = (grid.getLength() + clusterSize - 1) / clusterSize;
+        clustersY = (grid.getRowLength() + clusterSize - 1) / clusterSize;
+        nodeIds = new CustomHashMap<>();
+        nodeX = new int[16];
+        nodeY = new int[16];
+        edges = new AbstractEdge[16][];
+        edgeCounts = new int[16];
+        clusterNodes = new int[clustersX * clustersY][];
+        clusterNodeCounts = new int[clustersX * clustersY];
+        findTransitions();
+        connectClusters();
+    }
+
+    /**
+     *
+     * @return Pathfinding grid
+     */
+    public Grid getGrid() {
+        return grid;
+    }
+
+    /**
+     *
+     * @return The width and height of a cluster
+     */
+    public int getClusterSize() {
+        return clusterSize;
+    }
+
+    /**
+     *
+     * @return The amount of allowed directions for valid moves
+     */
+    public int getDirections() {
+        return directions;
+    }
+
+    /**
+     *
+     * @return True if the grid has not been changed since the abstraction
+     * was built, otherwise false
+     */
+    public boolean isCurrent() {
+        return grid.getModifications() == modifications;
+    }
+
+    /**
+     *
+     * @return The amount of clusters
+     */
+    public int getClusterCount() {
+        return clustersX * clustersY;
+    }
+
+    /**
+     *
+     * @return The amount of abstract nodes
+     */
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     *
+     * @param id The index of an abstract node
+     * @return The position of the abstract node
+     */
+    public Node getNode(int id) {
+        return new Node(nodeX[id], nodeY[id], 0.0);
+    }
+
+    /**
+     *
+     * @param x The x-coordinate of a position
+     * @param y The y-coordinate of a position
+     * @return The index of the abstract node in the position, or -1 if the
+     * position is not an abstract node
+     */
+    public int nodeAt(int x, int y) {
+        Node key = new Node(x, y, 0.0);
+        if (!nodeIds.containsKey(key)) {
+            return -1;
+        }
+        return nodeIds.get(key);
+    }
+
+    /**
+     *
+     * @param id The index of an abstract node
+     * @return The edges from the abstract node
+     */
+    public AbstractEdge[] getEdges(int id) {
+        AbstractEdge[] copy = new AbstractEdge[edgeCounts[id]];
+        System.arraycopy(edges[id], 0, copy, 0, copy.length);
+        return copy;
+    }
+
+    /**
+     *
+     * @param id The index of an abstract node
+     * @return The amount of edges from the abstract node
+     */
+    public int getEdgeCount(int id) {
+        return edgeCounts[id];
+    }
+
+    /**
+     *
+     * @param id The index of an abstract node
+     * @param i The index of the edge
+     * @return The edge from the abstract node
+     */
+    public AbstractEdge getEdge(int id, int i) {
+        return edges[id][i];
+    }
+
+    /**
+     *
+     * @param x The x-coordinate of a position
+     * @param y The y-coordinate of a position
+     * @return The index of the cluster that contains the position
+     */
+    public int clusterOf(int x, int y) {
+        return (x / clusterSize) * clustersY + (y / clusterSize);
+    }
+
+    /**
+     *
+     * @param cluster The index of a cluster
+     * @return The indexes of the abstract nodes in the cluster
+     */
+    public int[] getClusterNodes(int cluster) {
+        int[] copy = new int[clusterNodeCounts[cluster]];
+        if (copy.length > 0) {
+            System.arraycopy(clusterNodes[cluster], 0, copy, 0, copy.length);
+        }
+        return copy;
+    }
+
+    /**
+     *
+     * @param cluster The index of a cluster
+     * @return The smallest x-coordinate in the cluster
+     */
+    public int minX(int cluster) {
+        return (cluster / clustersY) * clusterSize;
+    }
+
+    /**
+     *
+     * @param cluster The index of a cluster
+     * @return The smallest y-coordinate in the cluster
+     */
+    public int minY(int cluster) {
+        return (cluster % clustersY) * clusterSize;
+    }
+
+    /**
+     *
+     * @param cluster The index of a cluster
+     * @return The x-coordinate after the last row of the cluster
+     */
+    public int maxX(int cluster) {
+        return Math.min(minX(cluster) + clusterSize, grid.getLength());
+    }
+
+    /**
+     *
+     * @param cluster The index of a cluster
+     * @return The y-coordinate after the last column of the cluster
+     */
+    public int maxY(int cluster) {
+        return Math.min(minY(cluster) + clusterSize, grid.getRowLength());
+    }
+
+    /**
+     * Scanning the borders between every cluster and the clusters after it
+     * in both axes.
+     */
+    private void findTransitions() {
+        for (int i = 0; i < clustersX; i++) {
+            for (int j = 0; j < clustersY; j++) {
+                int cluster = i * clustersY + j;
+                int x0 = minX(cluster);
+                int y0 = minY(cluster);
+                int x1 = maxX(cluster);
+                int y1 = maxY(cluster);
+                if (i + 1 < clustersX) {
+                    scanBorder(x1 - 1, y0, 1, 0, y1 - y0);
+                }
+                if (j + 1 < clustersY) {
+                    scanBorder(x0, y1 - 1, 0, 1, x1 - x0);
+                }
+            }
+        }
+    }
+
+    /**
+     * Finding the entrances on one border, the maximal runs of positions that
+     * are passable on both sides of the border.
+     *
+     * @param x The x-coordinate of the first position on the near side
+     * @param y The y-coordinate of the first position on the near side
+     * @param dx The x-component of the step across the border
+     * @param dy The y-component of the step across the border
+     * @param length The length of the border
+     */
+    private void scanBorder(int x, int y, int dx, int dy, int length) {
+        int start = -1;
+        for (int i = 0; i <= length; i++) {
+            int nearX = x + i * dy;
+            int nearY = y + i * dx;
+            boolean open = i < length && grid.isPassable(nearX, nearY)
+                    && grid.isPassable(nearX + dx, nearY + dy);
+            if (open && start < 0) {
+                start = i;
+            } else if (!open && start >= 0) {
+                int end = i - 1;
+                if (end - start + 1 >= LONG_ENTRANCE) {
+                    addTransition(x + start * dy, y + start * dx, dx, dy);
+                    addTransition(x + end * dy, y + end * dx, dx, dy);
+                } else {
+                    int middle = (start + end) / 2;
+                    addTransition(x + middle * dy, y + middle * dx, dx, dy);
+                }
+                start = -1;
+            }
+        }
+    }
+
+    private void addTransition(int x, int y, int dx, int dy) {
+        int near = addNode(x, y);
+        int far = addNode(x + dx, y + dy);
+        double cost = grid.cost(x, y, x + dx, y + dy);
+        addEdge(near, far, cost);
+        addEdge(far, near, cost);
+    }
+
+    /**
+     * Connecting the abstract nodes of every cluster with the costs of the
+     * shortest paths inside the cluster.
+     */
+    private void connectClusters() {
+        ClusterSearch search = new ClusterSearch(grid, directions);
+        for (int cluster = 0; cluster < getClusterCount(); cluster++) {
+            int count = clusterNodeCounts[cluster];
+            Node[] targets = new Node[count];
+            for (int i = 0; i < count; i++) {
+                targets[i] = getNode(clusterNodes[cluster][i]);
+            }
+            for (int i = 0; i < count; i++) {
+                double[] costs = search.costsTo(targets[i], targets,
+                        minX(cluster), minY(cluster), maxX(cluster), maxY(cluster));
+                for (int j = 0; j < count; j++) {
+                    if (i != j && costs[j] >= 0) {
+                        addEdge(clusterNodes[cluster][i], clusterNodes[cluster][j], costs[j]);
+                    }
+                }
+            }
+        }
+    }
+
+    private int addNode(int x, int y) {
+        int existing = nodeAt(x, y);
+        if (existing >= 0) {
+            return existing;
+        }
+        if (nodeCount == nodeX.length) {
+            int size = nodeCount * 2;
+            nodeX = Arrays.copyOf(nodeX, size);
+            nodeY = Arrays.copyOf(nodeY, size);
+            edges = Arrays.copyOf(edges, size);
+            edgeCounts = Arrays.copyOf(edgeCounts, size);
+        }
+        int id = nodeCount++;
+        nodeX[id] = x;
+        nodeY[id] = y;
+        edges[id] = new AbstractEdge[4];
+        nodeIds.put(new Node(x, y, 0.0), id);
+
+        int cluster = clusterOf(x, y);
+        int[] nodes = clusterNodes[cluster];
+        if (nodes == null) {
+            nodes = new int[4];
+        } else if (clusterNodeCounts[cluster] == nodes.length) {
+            nodes = Arrays.copyOf(nodes, nodes.length * 2);
+        }
+        nodes[clusterNodeCounts[cluster]++] = id;
+        clusterNodes[cluster] = nodes;
+        return id;
+    }
+
+    private void addEdge(int from, int to, double cost) {
+        if (edgeCounts[from] == edges[from].length) {
+            edges[from] = Arrays.copyOf(edges[from], edgeCounts[from] * 2);
+        }
+        edges[from][edgeCounts[from]++] = new AbstractEdge(to, cost);
+    }
+}
@@ -0,0 +1,216 @@
+package mj.aastaar.algorithms.hierarchical;
+
+import mj.aastaar.datastructures.IndexedMinHeap;
+import mj.aastaar.map.Grid;
+import mj.aastaar.map.Node;
+
+/**
+ * Searches that are restricted to a rectangular area of the grid, such as a
+ * single cluster. The data structures are sized by the area, so the searches
+ * stay cheap on large grids.
+ *
+ * The arrays are kept between the searches and only grow when a larger area
+ * is searched, so a ClusterSearch that is reused for the queries of one grid
+ * stops allocating once it has seen its largest area.
+ *
+ * @author MJ
+ */
+class ClusterSearch {
+
+    private static final double INFINITY = 1000000000.0;
+
+    private final Grid grid;
+    private final int directions;
+    private final int[] neighbours = new int[8];
+    private final double[] moveCosts = new double[8];
+    private final Node position = new Node(0, 0, 0);
+    private int minX;
+    private int minY;
+    private int width;
+    private int height;
+    private double[] cost;
+    private int[] cameFrom;
+    private boolean[] visited;
+    private boolean[] target;
+    private IndexedMinHeap frontier;
+
+    /**
+     *
+     * @param grid Pathfinding grid
+     * @param directions The amount of allowed directions for valid moves
+     */
+    ClusterSearch(Grid grid, int directions) {
+        this.grid = grid;
+        this.directions = directions;
+    }
+
+    /**
+     *
+     * @return The amount of allowed directions for valid moves
+     */
+    int getDirections() {
+        return directions;
+    }
+
+    /**
+     * Running Dijkstra's algorithm from a position until every target has
+     * been reached or the area has been explored.
+     *
+     * @param source The position where the search starts
+     * @param targets The positions whose costs are requested
+     * @param x0 The smallest x-coordinate of the area
+     * @param y0 The smallest y-coordinate of the area
+     * @param x1 The x-coordinate after the last row of the area
+     * @param y1 The y-coordinate after the last column of the area
+     * @return The costs to the targets, or -1 for unreachable targets
+     */
+    double[] costsTo(Node source, Node[] targets, int x0, int y0, int x1, int y1) {
+        search(source, null, targets, x0, y0, x1, y1);
+        double[] costs = new double[targets.length];
+        for (int i = 0; i < targets.length; i++) {
+            double c = cost[local(targets[i].getX(), targets[i].getY())];
+            costs[i] = (c == INFINITY) ? -1 : c;
+        }
+        return costs;
+    }
+
+    /**
+     * Finding the shortest path between two positions inside the area with A*.
+     *
+     * @param from The position where the path starts
+     * @param to The position where the path ends
+     * @param x0 The smallest x-coordinate of the area
+     * @param y0 The smallest y-coordinate of the area
+     * @param x1 The x-coordinate after the last row of the area
+     * @param y1 The y-coordinate after the last column of the area
+     * @return The steps of the path after the first position,
+     * or null if there is no path inside the area
+     */
+    Node[] pathBetween(Node from, Node to, int x0, int y0, int x1, int y1) {
+        search(from, to, null, x0, y0, x1, y1);
+        int goal = local(to.getX(), to.getY());
+        if (cost[goal] == INFINITY) {
+            return null;
+        }
+        int source = local(from.getX(), from.getY());
+        int length = 0;
+        for (int current = goal; current != source; current = cameFrom[current]) {
+            length++;
+        }
+        Node[] steps = new Node[length];
+        int current = goal;
+        for (int i = length - 1; i >= 0; i--) {
+            steps[i] = new Node(minX + current / width, minY + current % width, 0.0);
+            current = cameFrom[current];
+        }
+        return steps;
+    }
+
+    /**
+     *
+     * @param to A position in the area of the latest search
+     * @return The cost of the position in the latest search
+     */
+    double getCost(Node to) {
+        return cost[local(to.getX(), to.getY())];
+    }
+
+    /**
+     * Uniform cost search inside the area, with the heuristic towards the goal
+     * if there is one. The search stops when the goal has been expanded, or
+     * when all of the targets have been expanded, as their costs are final
+     * then.
+     */
+    private void search(Node source, Node goal, Node[] targets, int x0, int y0, int x1, int y1) {
+        initDataStructures(x0, y0, x1, y1);
+        int remaining = markTargets(targets);
+        int sourceIndex = local(source.getX(), source.getY());
+        int goalIndex = (goal == null) ? -1 : local(goal.getX(), goal.getY());
+        cost[sourceIndex] = 0.0;
+        frontier.add(sourceIndex, 0.0);
+
+        while (!frontier.isEmpty()) {
+            int current = frontier.poll();
+            visited[current] = true;
+            if (current == goalIndex) {
+                return;
+            }
+            if (target[current] && --remaining == 0) {
+                return;
+            }
+            int cell = grid.getIndex(minX + current / width, minY + current % width);
+            int count = grid.getNeighbours(cell, directions, neighbours, moveCosts);
+            for (int i = 0; i < count; i++) {
+                int x = grid.getX(neighbours[i]);
+                int y = grid.getY(neighbours[i]);
+                if (!inArea(x, y)) {
+                    continue;
+                }
+                int next = local(x, y);
+                double newCost = cost[current] + moveCosts[i];
+                if (newCost < cost[next] && !visited[next]) {
+                    cost[next] = newCost;
+                    cameFrom[next] = current;
+                    double h = 0.0;
+                    if (goal != null) {
+                        position.setX(x);
+                        position.setY(y);
+                        h = grid.heuristic(position, goal, directions);
+                    }
+                    frontier.add(next, newCost + h);
+                }
+            }
+        }
+    }
+
+    /**
+     *
+     * @return The amount of different targets in the area
+     */
+    private int markTargets(Node[] targets) {
+        int count = 0;
+        if (targets == null) {
+            return count;
+        }
+        for (Node node : targets) {
+            if (inArea(node.getX(), node.getY()) && !target[local(node.getX(), node.getY())]) {
+                target[local(node.getX(), node.getY())] = true;
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private boolean inArea(int x, int y) {
+        return x >= minX && x < minX + height && y >= minY && y < minY + width;
+    }
+
+    private int local(int x, int y) {
+        return (x - minX) * width + (y - minY);
+    }
+
+    /**
+     * Resetting the part of the arrays that the area uses, and growing the
+     * arrays first if the area does not fit in them.
+     */
+    private void initDataStructures(int x0, int y0, int x1, int y1) {
+        minX = x0;
+        minY = y0;
+        height = x1 - x0;
+        width = y1 - y0;
+        int area = height * width;
+        if (cost == null || cost.length < area) {
+            cost = new double[area];
+            cameFrom = new int[area];
+            visited = new boolean[area];
+            target = new boolean[area];
+            frontier = new IndexedMinHeap(area);
+        }
+        frontier.clear();
+        for (int i = 0; i < area; i++) {
+            cost[i] = INFINITY;
+            visited[i] = false;
+            target[i] = false;
+        }
+    }
+}
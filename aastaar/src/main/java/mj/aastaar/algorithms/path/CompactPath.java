@@ -0,0 +1,253 @@
+package mj.aastaar.algorithms.path;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import mj.aastaar.algorithms.JumpPointTable;
+import mj.aastaar.map.Node;
+
+/**
+ * A found path as an array of cell indices, see Grid.getIndex, from the start
+ * to the goal. Every position is a neighbour of the previous one. Takes four
+ * bytes per step instead of a node object and a reference, and nodes are
+ * only created when the steps are iterated or converted.
+ *
+ * The path can also be encoded as runs of moves in the same direction, or
+ * as the waypoints where the direction changes, which are much shorter for
+ * the long straight stretches of most paths.
+ *
+ * @author MJ
+ */
+public class CompactPath implements Iterable<Node> {
+
+    private final int[] cells;
+    private final int rowLength;
+
+    /**
+     *
+     * @param cells The indices of the positions from the start to the goal
+     * @param rowLength The row length of the grid of the indices
+     */
+    public CompactPath(int[] cells, int rowLength) {
+        for (int i = 1; i < cells.length; i++) {
+            direction(cells[i - 1], cells[i], rowLength);
+        }
+        this.cells = cells;
+        this.rowLength = rowLength;
+    }
+
+    /**
+     * The path of the nodes of Path.shortestPath. Straight and diagonal gaps
+     * between the nodes, such as between jump points, are filled in.
+     *
+     * @param start The start node
+     * @param steps The nodes after the start, ending with the goal
+     * @param rowLength The row length of the grid
+     * @return The path from the start to the goal
+     */
+    public static CompactPath of(Node start, Node[] steps, int rowLength) {
+        int[] waypoints = new int[steps.length + 1];
+        waypoints[0] = start.getX() * rowLength + start.getY();
+        for (int i = 0; i < steps.length; i++) {
+            waypoints[i + 1] = steps[i].getX() * rowLength + steps[i].getY();
+        }
+        return fromWaypoints(waypoints, rowLength);
+    }
+
+    /**
+     * Decoding the runs of moves of runLengths.
+     *
+     * @param start The index of the start position
+     * @param runs The runs of moves, see runLengths
+     * @param rowLength The row length of the grid
+     * @return The path from the start
+     */
+    public static CompactPath fromRunLengths(int start, int[] runs, int rowLength) {
+        int length = 0;
+        for (int run : runs) {
+            length += run >>> 3;
+        }
+        int[] cells = new int[length + 1];
+        cells[0] = start;
+        int i = 0;
+        for (int run : runs) {
+            int direction = run & 7;
+            int offset = JumpPointTable.DX[direction] * rowLength + JumpPointTable.DY[direction];
+            for (int step = run >>> 3; step > 0; step--) {
+                cells[i + 1] = cells[i] + offset;
+                i++;
+            }
+        }
+        return new CompactPath(cells, rowLength);
+    }
+
+    /**
+     * Filling in the straight and diagonal lines between waypoints.
+     *
+     * @param waypoints The indices of the positions where the path turns,
+     * from the start to the goal
+     * @param rowLength The row length of the grid
+     * @return The path through the waypoints
+     */
+    public static CompactPath fromWaypoints(int[] waypoints, int rowLength) {
+        int length = 0;
+        for (int i = 1; i < waypoints.length; i++) {
+            length += distance(waypoints[i - 1], waypoints[i], rowLength);
+        }
+        int[] cells = new int[length + 1];
+        cells[0] = waypoints[0];
+        int count = 1;
+        for (int i = 1; i < waypoints.length; i++) {
+            int steps = distance(waypoints[i - 1], waypoints[i], rowLength);
+            if (steps == 0) {
+                continue;
+            }
+            int dx = (waypoints[i] / rowLength - waypoints[i - 1] / rowLength) / steps;
+            int dy = (waypoints[i] % rowLength - waypoints[i - 1] % rowLength) / steps;
+            for (int step = 0; step < steps; step++) {
+                cells[count] = cells[count - 1] + dx * rowLength + dy;
+                count++;
+            }
+        }
+        return new CompactPath(cells, rowLength);
+    }
+
+    /**
+     *
+     * @return The amount of steps, one less than the amount of positions
+     */
+    public int length() {
+        return cells.length - 1;
+    }
+
+    /**
+     *
+     * @param i The index of the position in the path, zero for the start
+     * @return The cell index of the position
+     */
+    public int getCell(int i) {
+        return cells[i];
+    }
+
+    /**
+     *
+     * @return The cell indices from the start to the goal, copied
+     */
+    public int[] getCells() {
+        return Arrays.copyOf(cells, cells.length);
+    }
+
+    /**
+     *
+     * @return The row length of the grid of the cell indices
+     */
+    public int getRowLength() {
+        return rowLength;
+    }
+
+    /**
+     * Encoding the path as runs of moves in the same direction. A run is the
+     * amount of moves shifted left by three bits, with the index of the
+     * direction in the lowest three bits, see JumpPointTable.DX and DY.
+     *
+     * @return The runs of moves from the start to the goal
+     */
+    public int[] runLengths() {
+        int[] runs = new int[length()];
+        int count = 0;
+        for (int i = 1; i < cells.length; i++) {
+            int direction = direction(cells[i - 1], cells[i], rowLength);
+            if (count > 0 && (runs[count - 1] & 7) == direction) {
+                runs[count - 1] += 1 << 3;
+            } else {
+                runs[count++] = (1 << 3) | direction;
+            }
+        }
+        return Arrays.copyOf(runs, count);
+    }
+
+    /**
+     * The start, the positions where the direction changes and the goal.
+     *
+     * @return The cell indices of the waypoints
+     */
+    public int[] waypoints() {
+        int[] waypoints = new int[cells.length];
+        int count = 0;
+        waypoints[count++] = cells[0];
+        for (int i = 1; i < cells.length - 1; i++) {
+            if (direction(cells[i - 1], cells[i], rowLength)
+                    != direction(cells[i], cells[i + 1], rowLength)) {
+                waypoints[count++] = cells[i];
+            }
+        }
+        if (cells.length > 1) {
+            waypoints[count++] = cells[cells.length - 1];
+        }
+        return Arrays.copyOf(waypoints, count);
+    }
+
+    /**
+     * The nodes of the path as returned by Path.shortestPath.
+     *
+     * @return New nodes from the first position after the start to the goal
+     */
+    public Node[] toNodes() {
+        Node[] nodes = new Node[length()];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = new Node(cells[i + 1] / rowLength, cells[i + 1] % rowLength, 0);
+        }
+        return nodes;
+    }
+
+    /**
+     * Iterating over the steps after the start, creating a node for each
+     * step when it is reached.
+     *
+     * @return Iterator of the steps
+     */
+    @Override
+    public Iterator<Node> iterator() {
+        return new Iterator<Node>() {
+            private int i = 1;
+
+            @Override
+            public boolean hasNext() {
+                return i < cells.length;
+            }
+
+            @Override
+            public Node next() {
+                if (i >= cells.length) {
+                    throw new NoSuchElementException();
+                }
+                int cell = cells[i++];
+                return new Node(cell / rowLength, cell % rowLength, 0);
+            }
+        };
+    }
+
+    /**
+     * The direction of a move between neighbouring positions.
+     */
+    private static int direction(int from, int to, int rowLength) {
+        int direction = JumpPointTable.direction(to / rowLength - from / rowLength,
+                to % rowLength - from % rowLength);
+        if (direction == -1) {
+            throw new IllegalArgumentException("The positions are not neighbours.");
+        }
+        return direction;
+    }
+
+    /**
+     * The amount of moves on a straight or diagonal line between positions.
+     */
+    private static int distance(int from, int to, int rowLength) {
+        int dx = Math.abs(to / rowLength - from / rowLength);
+        int dy = Math.abs(to % rowLength - from % rowLength);
+        if (dx != dy && dx != 0 && dy != 0) {
+            throw new IllegalArgumentException("The positions are not on a line.");
+        }
+        return Math.max(dx, dy);
+    }
+}
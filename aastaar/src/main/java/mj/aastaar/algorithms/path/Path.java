@@ -37,4 +37,22 @@ public interface Path {
      * @return The shortest path as a Node array
      */
     public Node[] shortestPath(Node goal, Node start, int pathLength);
+
+    /**
+     * The shortest path as cell indices, see CompactPath.
+     *
+     * @param goal The goal node
+     * @param start The start node
+     * @param pathLength The length of the found shortest path
+     * @param rowLength The row length of the grid
+     * @return The shortest path from the start to the goal, or null if it
+     * was not found
+     */
+    public default CompactPath compactPath(Node goal, Node start, int pathLength, int rowLength) {
+        Node[] steps = shortestPath(goal, start, pathLength);
+        if (steps == null) {
+            return null;
+        }
+        return CompactPath.of(start, steps, rowLength);
+    }
 }
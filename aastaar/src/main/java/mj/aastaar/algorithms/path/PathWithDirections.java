@@ -0,0 +1,156 @@
+package mj.aastaar.algorithms.path;
+
+import mj.aastaar.algorithms.JumpPointTable;
+import mj.aastaar.map.Node;
+
+/**
+ * Storing paths and retrieving the shortest path between two positions
+ * on a grid. Instead of a reference to the previous node, every position
+ * keeps the direction of the move into it in one byte, which takes a
+ * fraction of the memory of a reference and a node for every position. The
+ * linked positions have to be neighbours, see JumpPointTable.DX and DY.
+ *
+ * @author MJ
+ */
+public class PathWithDirections implements Path {
+
+    private final byte[] directions;
+    private final int ny;
+
+    /**
+     * Initializing the array of directions.
+     *
+     * @param nx The x in n = x * y nodes
+     * @param ny The y in n = x * y nodes
+     */
+    public PathWithDirections(int nx, int ny) {
+        this.directions = new byte[nx * ny];
+        this.ny = ny;
+    }
+
+    @Override
+    public boolean containsNode(Node node) {
+        return directions[node.getX() * ny + node.getY()] != 0;
+    }
+
+    /**
+     * Adds a link between two neighbouring nodes.
+     *
+     * @param to One of the nodes in the path
+     * @param from The node before it, next to it in one of the eight
+     * directions
+     */
+    @Override
+    public void putCameFrom(Node to, Node from) {
+        int direction = JumpPointTable.direction(to.getX() - from.getX(), to.getY() - from.getY());
+        if (direction == -1) {
+            throw new IllegalArgumentException("The nodes are not neighbours.");
+        }
+        putDirection(to.getX(), to.getY(), direction);
+    }
+
+    /**
+     * Adds a link by the direction of the move into a position.
+     *
+     * @param x The x-coordinate of the position
+     * @param y The y-coordinate of the position
+     * @param direction The index of the direction of the move, from 0 to 7
+     */
+    public void putDirection(int x, int y, int direction) {
+        directions[x * ny + y] = (byte) (direction + 1);
+    }
+
+    /**
+     *
+     * @param x The x-coordinate of the position
+     * @param y The y-coordinate of the position
+     * @return The index of the direction of the move into the position, or
+     * -1 if the position is not linked
+     */
+    public int getDirection(int x, int y) {
+        return directions[x * ny + y] - 1;
+    }
+
+    /**
+     *
+     * @param node One of the nodes in the path
+     * @return A new node at the position before it, or null if the node is
+     * not linked
+     */
+    public Node getCameFrom(Node node) {
+        int direction = getDirection(node.getX(), node.getY());
+        if (direction == -1) {
+            return null;
+        }
+        return new Node(node.getX() - JumpPointTable.DX[direction],
+                node.getY() - JumpPointTable.DY[direction], 0);
+    }
+
+    @Override
+    public Node[] shortestPath(Node goal, Node start, int length) {
+        if (!containsNode(goal) || length < 1) {
+            System.out.println("Path not found.");
+            return null;
+        }
+        Node[] path = new Node[length];
+        path[length - 1] = goal;
+        int x = goal.getX();
+        int y = goal.getY();
+        for (int i = length - 2; i >= 0; i--) {
+            int direction = directions[x * ny + y] - 1;
+            x -= JumpPointTable.DX[direction];
+            y -= JumpPointTable.DY[direction];
+            path[i] = new Node(x, y, 0);
+        }
+        return path;
+    }
+
+    /**
+     * Collecting the cell indices by stepping back along the directions,
+     * without creating any nodes.
+     *
+     * @param goal The goal node
+     * @param start The start node
+     * @param length The length of the found shortest path
+     * @param rowLength The row length of the grid, the ny of the path
+     * @return The shortest path from the start to the goal, or null if it
+     * was not found
+     */
+    @Override
+    public CompactPath compactPath(Node goal, Node start, int length, int rowLength) {
+        if (!containsNode(goal) || length < 1) {
+            System.out.println("Path not found.");
+            return null;
+        }
+        int[] cells = new int[length + 1];
+        int cell = goal.getX() * ny + goal.getY();
+        cells[length] = cell;
+        for (int i = length - 1; i >= 0; i--) {
+            int direction = directions[cell] - 1;
+            cell -= JumpPointTable.DX[direction] * ny + JumpPointTable.DY[direction];
+            cells[i] = cell;
+        }
+        return new CompactPath(cells, ny);
+    }
+
+    /**
+     * Traces the steps back from goal to start,
+     * returns the length of the shortest path.
+     *
+     * @param current The goal node
+     * @param start The start node
+     * @return Amount of steps in the shortest path
+     */
+    public int earlyExit(Node current, Node start) {
+        int x = current.getX();
+        int y = current.getY();
+        int steps = 0;
+        while (x != start.getX() || y != start.getY()) {
+            int direction = directions[x * ny + y] - 1;
+            x -= JumpPointTable.DX[direction];
+            y -= JumpPointTable.DY[direction];
+            steps++;
+        }
+        return steps;
+    }
+}
@@ -1,40 +1,52 @@
 package mj.aastaar.algorithms.path;
 
-import mj.aastaar.datastructures.CustomHashMap;
+import mj.aastaar.datastructures.LongLongHashMap;
 import mj.aastaar.map.Node;
 
 /**
  * Storing paths and retrieving the shortest path between two positions
- * on a grid.
- * 
+ * on a grid. The links are kept in a primitive hash map between packed
+ * positions, see Node.key, so only the positions that are linked take space.
+ *
  * @author MJ
  */
 public class PathWithHashMap implements Path {
 
-    private CustomHashMap<Node, Node> cameFrom;
-    private final int DEFAULT_SIZE = 11;
+    private LongLongHashMap cameFrom;
 
     /**
      * Initializing the hash map of node links with the default size.
      */
     public PathWithHashMap() {
-        cameFrom = new CustomHashMap<>(DEFAULT_SIZE);
+        cameFrom = new LongLongHashMap();
     }
     
     /**
      * Initializing the hash map of node links with a custom size.
+     *
+     * @param size The amount of links that fit without resizing
      */
     public PathWithHashMap(int size) {
-        cameFrom = new CustomHashMap<>(size);
+        cameFrom = new LongLongHashMap(size);
     }
     
     @Override
     public boolean containsNode(Node node) {
-        return cameFrom.containsKey(node);
+        return cameFrom.containsKey(node.getKey());
     }
     
     @Override
     public void putCameFrom(Node to, Node from) {
+        cameFrom.put(to.getKey(), from.getKey());
+    }
+
+    /**
+     * Adds a link between two packed positions, see Node.key.
+     *
+     * @param to One of the positions in the path
+     * @param from The position before it
+     */
+    public void putCameFrom(long to, long from) {
         cameFrom.put(to, from);
     }
 
@@ -45,12 +57,11 @@ public class PathWithHashMap implements Path {
             return null;
         }
         Node[] path = new Node[length];
-        Node current = goal;
-        int i = length - 1;
-        while (i >= 0) {
-            path[i] = current;
-            current = cameFrom.get(current);
-            i--;
+        path[length - 1] = goal;
+        long current = goal.getKey();
+        for (int i = length - 2; i >= 0; i--) {
+            current = cameFrom.get(current, current);
+            path[i] = new Node(Node.keyX(current), Node.keyY(current), 0.0);
         }
         return path;
     }
@@ -65,8 +76,10 @@ public class PathWithHashMap implements Path {
      */
     public int earlyExit(Node current, Node start) {
         int steps = 0;
-        while (!current.equals(start)) {
-            current = cameFrom.get(current);
+        long key = current.getKey();
+        long startKey = start.getKey();
+        while (key != startKey) {
+            key = cameFrom.get(key, startKey);
             steps++;
         }
         return steps;
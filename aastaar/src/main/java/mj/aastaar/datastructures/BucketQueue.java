@@ -0,0 +1,178 @@
+package mj.aastaar.datastructures;
+
+import java.util.Arrays;
+
+/**
+ * Dial's bucket queue for integer priorities that never go below the
+ * priority of the latest removed key, as in Dijkstra's algorithm with integer
+ * edge costs. There is one bucket per priority in a circular array that is
+ * wider than the largest difference between the smallest and largest
+ * priority in the queue, starting from the smallest priority added before
+ * the first removal, so adding a key and removing the smallest one take
+ * constant time apart from skipping empty buckets.
+ *
+ * The buckets are doubly linked lists threaded through arrays indexed by the
+ * key, so decreasing a priority moves the key to another bucket in place. A
+ * priority below the latest removed one is treated as equal to it.
+ *
+ * @author MJ
+ */
+public class BucketQueue implements OpenList {
+
+    private final int[] next;
+    private final int[] previous;
+    private final int[] priority;
+    private final boolean[] queued;
+    private int[] heads;
+    private int mask;
+    private int current;
+    private int maximum;
+    private boolean polled;
+    private int size;
+
+    /**
+     *
+     * @param capacity The amount of different keys, the largest key plus one
+     */
+    public BucketQueue(int capacity) {
+        next = new int[capacity];
+        previous = new int[capacity];
+        priority = new int[capacity];
+        queued = new boolean[capacity];
+        heads = new int[16];
+        Arrays.fill(heads, -1);
+        mask = heads.length - 1;
+        current = Integer.MAX_VALUE;
+        maximum = Integer.MIN_VALUE;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     *
+     * @param key A key from 0 to capacity - 1
+     * @return True if the key is in the queue, otherwise false
+     */
+    public boolean contains(int key) {
+        return queued[key];
+    }
+
+    /**
+     * Adding a key, or lowering its priority if it is in the queue.
+     *
+     * @param key The key
+     * @param priority An integer priority, which is rounded down otherwise
+     */
+    @Override
+    public void add(int key, double priority) {
+        int p = (int) priority;
+        if (p < current) {
+            if (polled) {
+                p = current;
+            } else {
+                current = p;
+            }
+        }
+        if (queued[key]) {
+            if (p >= this.priority[key]) {
+                return;
+            }
+            unlink(key);
+        }
+        if (p > maximum) {
+            maximum = p;
+        }
+        if (maximum - current >= heads.length) {
+            grow(maximum - current);
+        }
+        link(key, p);
+    }
+
+    @Override
+    public int poll() {
+        while (heads[current & mask] == -1) {
+            current++;
+        }
+        int key = heads[current & mask];
+        unlink(key);
+        polled = true;
+        if (size == 0) {
+            maximum = current;
+        }
+        return key;
+    }
+
+    @Override
+    public void clear() {
+        for (int b = 0; b < heads.length && size > 0; b++) {
+            while (heads[b] != -1) {
+                unlink(heads[b]);
+            }
+        }
+        current = Integer.MAX_VALUE;
+        maximum = Integer.MIN_VALUE;
+        polled = false;
+    }
+
+    private void link(int key, int p) {
+        int b = p & mask;
+        int head = heads[b];
+        next[key] = head;
+        previous[key] = -1;
+        if (head != -1) {
+            previous[head] = key;
+        }
+        heads[b] = key;
+        priority[key] = p;
+        queued[key] = true;
+        size++;
+    }
+
+    private void unlink(int key) {
+        int before = previous[key];
+        int after = next[key];
+        if (before == -1) {
+            heads[priority[key] & mask] = after;
+        } else {
+            next[before] = after;
+        }
+        if (after != -1) {
+            previous[after] = before;
+        }
+        queued[key] = false;
+        size--;
+    }
+
+    /**
+     * Widening the circular array so it has a bucket for every priority from
+     * the current one to the current one plus the given difference.
+     */
+    private void grow(int difference) {
+        int[] keys = new int[size];
+        int count = 0;
+        for (int b = 0; b < heads.length; b++) {
+            for (int key = heads[b]; key != -1; key = next[key]) {
+                keys[count++] = key;
+            }
+        }
+        int length = heads.length;
+        while (length <= difference) {
+            length *= 2;
+        }
+        heads = new int[length];
+        Arrays.fill(heads, -1);
+        mask = length - 1;
+        size = 0;
+        for (int i = 0; i < count; i++) {
+            link(keys[i], priority[keys[i]]);
+        }
+    }
+}
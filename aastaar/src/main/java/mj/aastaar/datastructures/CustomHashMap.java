@@ -155,7 +155,7 @@ public class CustomHashMap<K, V> {
      */
     private void rehash(CustomEntry<K, V> entry, CustomEntry<K, V>[] newBuckets) {
         CustomEntry<K, V> entryCopy = new CustomEntry<K, V>(entry.getKey(), entry.getValue());
-        int i = entryCopy.getKey().hashCode() % newBuckets.length;
+        int i = (entryCopy.getKey().hashCode() & Integer.MAX_VALUE) % newBuckets.length;
         CustomEntry<K, V> newBucketFirst = newBuckets[i];
         if (newBucketFirst != null) {
             newBucketFirst.setPrev(entryCopy);
@@ -180,6 +180,6 @@ public class CustomHashMap<K, V> {
 //        int i = ((a * key.hashCode() + b) % p) % buckets.length;
 //        i = (i > 0) ? i : 0 - i;
 //        return i;
-        return key.hashCode() % buckets.length;
+        return (key.hashCode() & Integer.MAX_VALUE) % buckets.length;
     }
 }
@@ -82,6 +82,16 @@ public class CustomPriorityQueue {
         return head;
     }
 
+    /**
+     * Removing every element from the heap, keeping its capacity.
+     */
+    public void clear() {
+        for (int i = ROOT; i <= heapSize; i++) {
+            heap[i] = null;
+        }
+        heapSize = 0;
+    }
+
     /**
      * Adding a Node to the heap calling for resize, if necessary. The heap size
      * is incremented by one, the new element is added as the last element and
@@ -162,9 +172,8 @@ public class CustomPriorityQueue {
      * Doubling the capacity of the heap.
      */
     private void resize() {
-        System.out.println("resizing");
         Node[] newHeap = new Node[heap.length * 2];
-        for (int i = 1; i < heapSize + 1; i++) {
+        for (int i = 0; i < heapSize + 1; i++) {
             newHeap[i] = heap[i];
         }
         heap = newHeap;
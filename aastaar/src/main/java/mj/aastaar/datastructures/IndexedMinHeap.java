@@ -0,0 +1,168 @@
+package mj.aastaar.datastructures;
+
+/**
+ * A binary min-heap of int keys from 0 to capacity - 1, such as the cell
+ * indices of a grid, with the priorities in a parallel array. The position of
+ * every key in the heap is stored, so the priority of a key can be lowered in
+ * place and the heap never holds more than one entry per key.
+ *
+ * The heap is sifted with loops that move a hole instead of swapping, and no
+ * objects are allocated after the constructor.
+ *
+ * @author MJ
+ */
+public class IndexedMinHeap implements OpenList {
+
+    private final int[] heap;
+    private final double[] priorities;
+    private final int[] position;
+    private int size;
+
+    /**
+     *
+     * @param capacity The amount of different keys, the largest key plus one
+     */
+    public IndexedMinHeap(int capacity) {
+        heap = new int[capacity + 1];
+        priorities = new double[capacity + 1];
+        position = new int[capacity];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     *
+     * @param key A key from 0 to capacity - 1
+     * @return True if the key is in the heap, otherwise false
+     */
+    public boolean contains(int key) {
+        return position[key] != 0;
+    }
+
+    /**
+     *
+     * @param key A key in the heap
+     * @return The priority of the key
+     */
+    public double getPriority(int key) {
+        return priorities[position[key]];
+    }
+
+    /**
+     *
+     * @return The key with the smallest priority
+     */
+    public int peek() {
+        return heap[1];
+    }
+
+    /**
+     *
+     * @return The smallest priority in the heap
+     */
+    public double peekPriority() {
+        return priorities[1];
+    }
+
+    /**
+     * Adding a key that is not in the heap.
+     *
+     * @param key The key
+     * @param priority The priority of the key
+     */
+    public void insert(int key, double priority) {
+        siftUp(++size, key, priority);
+    }
+
+    /**
+     * Lowering the priority of a key in the heap. A higher priority is
+     * ignored.
+     *
+     * @param key The key
+     * @param priority The new priority of the key
+     */
+    public void decreaseKey(int key, double priority) {
+        int i = position[key];
+        if (priority < priorities[i]) {
+            siftUp(i, key, priority);
+        }
+    }
+
+    @Override
+    public void add(int key, double priority) {
+        if (position[key] == 0) {
+            insert(key, priority);
+        } else {
+            decreaseKey(key, priority);
+        }
+    }
+
+    @Override
+    public int poll() {
+        int min = heap[1];
+        position[min] = 0;
+        int last = heap[size];
+        double lastPriority = priorities[size];
+        size--;
+        if (size > 0) {
+            siftDown(1, last, lastPriority);
+        }
+        return min;
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 1; i <= size; i++) {
+            position[heap[i]] = 0;
+        }
+        size = 0;
+    }
+
+    /**
+     * Moving a hole up from a heap position until the key fits in it.
+     */
+    private void siftUp(int hole, int key, double priority) {
+        while (hole > 1) {
+            int parent = hole >>> 1;
+            if (priorities[parent] <= priority) {
+                break;
+            }
+            place(hole, heap[parent], priorities[parent]);
+            hole = parent;
+        }
+        place(hole, key, priority);
+    }
+
+    /**
+     * Moving a hole down from a heap position until the key fits in it.
+     */
+    private void siftDown(int hole, int key, double priority) {
+        int half = size >>> 1;
+        while (hole <= half) {
+            int child = hole << 1;
+            if (child < size && priorities[child + 1] < priorities[child]) {
+                child++;
+            }
+            if (priority <= priorities[child]) {
+                break;
+            }
+            place(hole, heap[child], priorities[child]);
+            hole = child;
+        }
+        place(hole, key, priority);
+    }
+
+    private void place(int i, int key, double priority) {
+        heap[i] = key;
+        priorities[i] = priority;
+        position[key] = i;
+    }
+}
@@ -0,0 +1,181 @@
+package mj.aastaar.datastructures;
+
+import java.util.Arrays;
+
+/**
+ * A hash map from long keys, such as packed grid positions, to double values.
+ * The keys and values are kept in parallel primitive arrays and collisions are
+ * resolved with linear probing, so there are no entry objects or boxed
+ * values. The table length is a power of two, and the keys are mixed before
+ * masking, so consecutive keys spread over the whole table.
+ *
+ * @author MJ
+ */
+public class LongDoubleHashMap {
+
+    private static final int DEFAULT_SIZE = 16;
+
+    private long[] keys;
+    private double[] values;
+    private boolean[] used;
+    private int mask;
+    private int size;
+
+    /**
+     * Using the default initial capacity.
+     */
+    public LongDoubleHashMap() {
+        this(DEFAULT_SIZE);
+    }
+
+    /**
+     *
+     * @param expected The amount of keys that fit without resizing
+     */
+    public LongDoubleHashMap(int expected) {
+        int length = tableLength(expected);
+        keys = new long[length];
+        values = new double[length];
+        used = new boolean[length];
+        mask = length - 1;
+    }
+
+    /**
+     *
+     * @param key Key
+     * @return True if the key is in the map, otherwise false
+     */
+    public boolean containsKey(long key) {
+        return used[slot(key)];
+    }
+
+    /**
+     *
+     * @param key Key
+     * @param missing The value returned for a key that is not in the map
+     * @return The value of the key, or the missing value
+     */
+    public double get(long key, double missing) {
+        int i = slot(key);
+        return used[i] ? values[i] : missing;
+    }
+
+    /**
+     * Inserting a new key or updating the value of an existing one.
+     *
+     * @param key Key
+     * @param value Value
+     */
+    public void put(long key, double value) {
+        int i = slot(key);
+        if (!used[i]) {
+            if (2 * (size + 1) > keys.length) {
+                resize();
+                i = slot(key);
+            }
+            used[i] = true;
+            keys[i] = key;
+            size++;
+        }
+        values[i] = value;
+    }
+
+    /**
+     *
+     * @return The amount of keys in the map
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     *
+     * @return True if the map is empty, otherwise false
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     *
+     * @return The keys of the map in table order
+     */
+    public long[] keys() {
+        long[] result = new long[size];
+        int count = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (used[i]) {
+                result[count++] = keys[i];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Removing every key, keeping the capacity.
+     */
+    public void clear() {
+        Arrays.fill(used, false);
+        size = 0;
+    }
+
+    /**
+     * The slot of a key, or the empty slot where it would be inserted.
+     */
+    private int slot(long key) {
+        int i = mix(key) & mask;
+        while (used[i] && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    /**
+     * Doubling the table and inserting every key again.
+     */
+    private void resize() {
+        long[] oldKeys = keys;
+        double[] oldValues = values;
+        boolean[] oldUsed = used;
+        keys = new long[oldKeys.length * 2];
+        values = new double[oldKeys.length * 2];
+        used = new boolean[oldKeys.length * 2];
+        mask = keys.length - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldUsed[j]) {
+                int i = slot(oldKeys[j]);
+                used[i] = true;
+                keys[i] = oldKeys[j];
+                values[i] = oldValues[j];
+            }
+        }
+    }
+
+    /**
+     * The finalizer of the 64-bit MurmurHash3, which makes every bit of the
+     * key affect the low bits of the hash.
+     *
+     * @param key Key
+     * @return The mixed hash of the key
+     */
+    static int mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+
+    /**
+     * The smallest power of two that holds the expected amount of keys at a
+     * load factor of one half.
+     */
+    static int tableLength(int expected) {
+        int length = DEFAULT_SIZE;
+        while (length < 2 * expected && length < (1 << 30)) {
+            length *= 2;
+        }
+        return length;
+    }
+}
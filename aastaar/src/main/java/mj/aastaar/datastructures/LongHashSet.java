@@ -0,0 +1,129 @@
+package mj.aastaar.datastructures;
+
+import java.util.Arrays;
+
+/**
+ * A hash set of long keys, such as of the packed grid positions that a search
+ * has expanded. Uses the same open addressing with linear probing as
+ * LongDoubleHashMap.
+ *
+ * @author MJ
+ */
+public class LongHashSet {
+
+    private long[] keys;
+    private boolean[] used;
+    private int mask;
+    private int size;
+
+    /**
+     * Using the default initial capacity.
+     */
+    public LongHashSet() {
+        this(0);
+    }
+
+    /**
+     *
+     * @param expected The amount of keys that fit without resizing
+     */
+    public LongHashSet(int expected) {
+        int length = LongDoubleHashMap.tableLength(expected);
+        keys = new long[length];
+        used = new boolean[length];
+        mask = length - 1;
+    }
+
+    /**
+     *
+     * @param key Key
+     * @return True if the key is in the set, otherwise false
+     */
+    public boolean contains(long key) {
+        return used[slot(key)];
+    }
+
+    /**
+     * Adding a key, with the same lookup that checks if it is already in the
+     * set.
+     *
+     * @param key Key
+     * @return True if the key was added, false if it was already in the set
+     */
+    public boolean add(long key) {
+        int i = slot(key);
+        if (used[i]) {
+            return false;
+        }
+        if (2 * (size + 1) > keys.length) {
+            resize();
+            i = slot(key);
+        }
+        used[i] = true;
+        keys[i] = key;
+        size++;
+        return true;
+    }
+
+    /**
+     *
+     * @return The amount of keys in the set
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     *
+     * @return True if the set is empty, otherwise false
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     *
+     * @return The keys of the set in table order
+     */
+    public long[] keys() {
+        long[] result = new long[size];
+        int count = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (used[i]) {
+                result[count++] = keys[i];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Removing every key, keeping the capacity.
+     */
+    public void clear() {
+        Arrays.fill(used, false);
+        size = 0;
+    }
+
+    private int slot(long key) {
+        int i = LongDoubleHashMap.mix(key) & mask;
+        while (used[i] && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        boolean[] oldUsed = used;
+        keys = new long[oldKeys.length * 2];
+        used = new boolean[oldKeys.length * 2];
+        mask = keys.length - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldUsed[j]) {
+                int i = slot(oldKeys[j]);
+                used[i] = true;
+                keys[i] = oldKeys[j];
+            }
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package mj.aastaar.datastructures;
+
+import java.util.Arrays;
+
+/**
+ * A hash map from long keys to long values, such as from a packed grid
+ * position to the packed position it was reached from. Uses the same open
+ * addressing with linear probing as LongDoubleHashMap.
+ *
+ * @author MJ
+ */
+public class LongLongHashMap {
+
+    private long[] keys;
+    private long[] values;
+    private boolean[] used;
+    private int mask;
+    private int size;
+
+    /**
+     * Using the default initial capacity.
+     */
+    public LongLongHashMap() {
+        this(0);
+    }
+
+    /**
+     *
+     * @param expected The amount of keys that fit without resizing
+     */
+    public LongLongHashMap(int expected) {
+        int length = LongDoubleHashMap.tableLength(expected);
+        keys = new long[length];
+        values = new long[length];
+        used = new boolean[length];
+        mask = length - 1;
+    }
+
+    /**
+     *
+     * @param key Key
+     * @return True if the key is in the map, otherwise false
+     */
+    public boolean containsKey(long key) {
+        return used[slot(key)];
+    }
+
+    /**
+     *
+     * @param key Key
+     * @param missing The value returned for a key that is not in the map
+     * @return The value of the key, or the missing value
+     */
+    public long get(long key, long missing) {
+        int i = slot(key);
+        return used[i] ? values[i] : missing;
+    }
+
+    /**
+     * Inserting a new key or updating the value of an existing one.
+     *
+     * @param key Key
+     * @param value Value
+     */
+    public void put(long key, long value) {
+        int i = slot(key);
+        if (!used[i]) {
+            if (2 * (size + 1) > keys.length) {
+                resize();
+                i = slot(key);
+            }
+            used[i] = true;
+            keys[i] = key;
+            size++;
+        }
+        values[i] = value;
+    }
+
+    /**
+     *
+     * @return The amount of keys in the map
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     *
+     * @return True if the map is empty, otherwise false
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     *
+     * @return The keys of the map in table order
+     */
+    public long[] keys() {
+        long[] result = new long[size];
+        int count = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (used[i]) {
+                result[count++] = keys[i];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Removing every key, keeping the capacity.
+     */
+    public void clear() {
+        Arrays.fill(used, false);
+        size = 0;
+    }
+
+    private int slot(long key) {
+        int i = LongDoubleHashMap.mix(key) & mask;
+        while (used[i] && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        boolean[] oldUsed = used;
+        keys = new long[oldKeys.length * 2];
+        values = new long[oldKeys.length * 2];
+        used = new boolean[oldKeys.length * 2];
+        mask = keys.length - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldUsed[j]) {
+                int i = slot(oldKeys[j]);
+                used[i] = true;
+                keys[i] = oldKeys[j];
+                values[i] = oldValues[j];
+            }
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package mj.aastaar.datastructures;
+
+import java.util.Arrays;
+
+/**
+ * A binary min-heap of long keys, such as packed grid positions, with the
+ * priorities in a parallel array. Unlike IndexedMinHeap, the keys are not
+ * limited to a range, so a key can be added again with a lower priority
+ * instead of being moved, and the outdated entry is skipped by the user when
+ * it is polled.
+ *
+ * The arrays double in size when they are full and keep their capacity when
+ * the heap is cleared, so a reused heap does not allocate anything once it
+ * has grown to the size of the searches.
+ *
+ * @author MJ
+ */
+public class LongMinHeap {
+
+    private long[] heap;
+    private double[] priorities;
+    private int size;
+
+    /**
+     * Using the default initial capacity.
+     */
+    public LongMinHeap() {
+        this(16);
+    }
+
+    /**
+     *
+     * @param capacity The amount of entries that fit without resizing
+     */
+    public LongMinHeap(int capacity) {
+        heap = new long[Math.max(capacity, 1) + 1];
+        priorities = new double[heap.length];
+    }
+
+    /**
+     *
+     * @return The amount of entries in the heap
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     *
+     * @return True if the heap is empty, otherwise false
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     *
+     * @return The smallest priority in the heap
+     */
+    public double peekPriority() {
+        return priorities[1];
+    }
+
+    /**
+     * Adding an entry, even if the key is already in the heap.
+     *
+     * @param key Key
+     * @param priority Priority of the entry
+     */
+    public void add(long key, double priority) {
+        if (size + 1 == heap.length) {
+            heap = Arrays.copyOf(heap, heap.length * 2);
+            priorities = Arrays.copyOf(priorities, heap.length);
+        }
+        size++;
+        siftUp(size, key, priority);
+    }
+
+    /**
+     * Removing the entry with the smallest priority.
+     *
+     * @return The key of the entry
+     */
+    public long poll() {
+        long min = heap[1];
+        long last = heap[size];
+        double lastPriority = priorities[size];
+        size--;
+        if (size > 0) {
+            siftDown(1, last, lastPriority);
+        }
+        return min;
+    }
+
+    /**
+     * Removing every entry, keeping the capacity.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Moving a hole up from a heap position until the key fits in it.
+     */
+    private void siftUp(int hole, long key, double priority) {
+        while (hole > 1) {
+            int parent = hole >>> 1;
+            if (priorities[parent] <= priority) {
+                break;
+            }
+            heap[hole] = heap[parent];
+            priorities[hole] = priorities[parent];
+            hole = parent;
+        }
+        heap[hole] = key;
+        priorities[hole] = priority;
+    }
+
+    /**
+     * Moving a hole down from a heap position until the key fits in it.
+     */
+    private void siftDown(int hole, long key, double priority) {
+        int half = size >>> 1;
+        while (hole <= half) {
+            int child = hole << 1;
+            if (child < size && priorities[child + 1] < priorities[child]) {
+                child++;
+            }
+            if (priority <= priorities[child]) {
+                break;
+            }
+            heap[hole] = heap[child];
+            priorities[hole] = priorities[child];
+            hole = child;
+        }
+        heap[hole] = key;
+        priorities[hole] = priority;
+    }
+}
@@ -0,0 +1,48 @@
+package mj.aastaar.datastructures;
+
+import mj.aastaar.map.Node;
+
+/**
+ * The CustomPriorityQueue as an open list. Every addition inserts a new node
+ * holding the cell index, and the older entries of a position stay in the
+ * heap, so the search has to skip positions it has already expanded.
+ *
+ * @author MJ
+ */
+public class NodeHeapOpenList implements OpenList {
+
+    private final CustomPriorityQueue queue;
+
+    /**
+     *
+     * @param maxSize The initial capacity of the heap
+     */
+    public NodeHeapOpenList(int maxSize) {
+        queue = new CustomPriorityQueue(maxSize);
+    }
+
+    @Override
+    public void add(int cell, double priority) {
+        queue.heapInsert(new Node(cell, 0, priority));
+    }
+
+    @Override
+    public int poll() {
+        return queue.heapDelMin().getX();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return queue.isEmpty();
+    }
+
+    @Override
+    public int size() {
+        return queue.getHeapSize();
+    }
+
+    @Override
+    public void clear() {
+        queue.clear();
+    }
+}
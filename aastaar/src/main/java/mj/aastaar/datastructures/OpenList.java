@@ -0,0 +1,72 @@
+package mj.aastaar.datastructures;
+
+/**
+ * The frontier (a.k.a. open set) of a search over the positions of a grid,
+ * given as cell indices. Adding a position that is already in the list
+ * lowers its priority. The bucket queue and the radix heap also require
+ * that no priority is smaller than the priority of the latest removed
+ * position, which holds for Dijkstra's algorithm and for A* with a
+ * consistent heuristic.
+ *
+ * @author MJ
+ */
+public interface OpenList {
+
+    /**
+     * A binary heap with decrease-key, see IndexedMinHeap.
+     */
+    public static final int INDEXED_HEAP = 0;
+
+    /**
+     * The CustomPriorityQueue of nodes, which keeps the old entries of a
+     * position that is added again.
+     */
+    public static final int NODE_HEAP = 1;
+
+    /**
+     * Dial's bucket queue, see BucketQueue. A search uses the radix heap
+     * instead when the priorities are not integers.
+     */
+    public static final int BUCKET_QUEUE = 2;
+
+    /**
+     * A radix heap, see RadixHeap.
+     */
+    public static final int RADIX_HEAP = 3;
+
+    /**
+     * Adding a position, or lowering its priority if it is in the list.
+     *
+     * @param cell The index of the position
+     * @param priority The priority of the position, smallest first
+     */
+    public void add(int cell, double priority);
+
+    /**
+     * Removing the position with the smallest priority. An implementation
+     * without decrease-key may return a position more than once, after it has
+     * been removed with a smaller priority.
+     *
+     * @return The index of the position
+     */
+    public int poll();
+
+    /**
+     *
+     * @return True if the list is empty, otherwise false
+     */
+    public boolean isEmpty();
+
+    /**
+     * The amount of entries in the list, which counts the old entries of an
+     * implementation without decrease-key.
+     *
+     * @return The amount of entries
+     */
+    public int size();
+
+    /**
+     * Removing every position, keeping the capacity.
+     */
+    public void clear();
+}
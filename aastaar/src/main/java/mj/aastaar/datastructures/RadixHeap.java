@@ -0,0 +1,154 @@
+package mj.aastaar.datastructures;
+
+import java.util.Arrays;
+
+/**
+ * A radix heap for non-negative priorities that never go below the priority
+ * of the latest removed key, as in Dijkstra's algorithm. The priorities are
+ * compared as the bits of the doubles, which have the same order as the
+ * values when they are not negative. A key is kept in the bucket of the
+ * highest bit where its priority differs from the latest removed one, so
+ * there are 65 buckets, and every key moves to a lower bucket at most 64
+ * times before it is removed.
+ *
+ * The buckets are doubly linked lists threaded through arrays indexed by the
+ * key, so decreasing a priority moves the key to another bucket in place. A
+ * priority below the latest removed one is treated as equal to it.
+ *
+ * @author MJ
+ */
+public class RadixHeap implements OpenList {
+
+    private static final int BUCKETS = 65;
+
+    private final int[] next;
+    private final int[] previous;
+    private final long[] bits;
+    private final int[] bucket;
+    private final int[] heads;
+    private long last;
+    private int size;
+
+    /**
+     *
+     * @param capacity The amount of different keys, the largest key plus one
+     */
+    public RadixHeap(int capacity) {
+        next = new int[capacity];
+        previous = new int[capacity];
+        bits = new long[capacity];
+        bucket = new int[capacity];
+        Arrays.fill(bucket, -1);
+        heads = new int[BUCKETS];
+        Arrays.fill(heads, -1);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     *
+     * @param key A key from 0 to capacity - 1
+     * @return True if the key is in the heap, otherwise false
+     */
+    public boolean contains(int key) {
+        return bucket[key] != -1;
+    }
+
+    /**
+     * Adding a key, or lowering its priority if it is in the heap.
+     *
+     * @param key The key
+     * @param priority A priority that is not negative
+     */
+    @Override
+    public void add(int key, double priority) {
+        long b = Double.doubleToLongBits(priority + 0.0);
+        if (b < last) {
+            b = last;
+        }
+        if (bucket[key] != -1) {
+            if (b >= bits[key]) {
+                return;
+            }
+            unlink(key);
+        }
+        bits[key] = b;
+        link(key, bucketOf(b));
+    }
+
+    @Override
+    public int poll() {
+        if (heads[0] == -1) {
+            int i = 1;
+            while (heads[i] == -1) {
+                i++;
+            }
+            long min = bits[heads[i]];
+            for (int key = next[heads[i]]; key != -1; key = next[key]) {
+                if (bits[key] < min) {
+                    min = bits[key];
+                }
+            }
+            last = min;
+            int key = heads[i];
+            while (key != -1) {
+                int following = next[key];
+                unlink(key);
+                link(key, bucketOf(bits[key]));
+                key = following;
+            }
+        }
+        int key = heads[0];
+        unlink(key);
+        return key;
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < BUCKETS && size > 0; i++) {
+            while (heads[i] != -1) {
+                unlink(heads[i]);
+            }
+        }
+        last = 0L;
+    }
+
+    private int bucketOf(long b) {
+        return b == last ? 0 : 64 - Long.numberOfLeadingZeros(b ^ last);
+    }
+
+    private void link(int key, int i) {
+        int head = heads[i];
+        next[key] = head;
+        previous[key] = -1;
+        if (head != -1) {
+            previous[head] = key;
+        }
+        heads[i] = key;
+        bucket[key] = i;
+        size++;
+    }
+
+    private void unlink(int key) {
+        int before = previous[key];
+        int after = next[key];
+        if (before == -1) {
+            heads[bucket[key]] = after;
+        } else {
+            next[before] = after;
+        }
+        if (after != -1) {
+            previous[after] = before;
+        }
+        bucket[key] = -1;
+        size--;
+    }
+}
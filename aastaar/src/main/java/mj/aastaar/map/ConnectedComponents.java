@@ -0,0 +1,125 @@
+package mj.aastaar.map;
+
+import java.util.Arrays;
+
+/**
+ * The connected areas of the passable positions of a grid. Every passable
+ * position is labelled with the index of its area, so checking whether a path
+ * exists between two positions takes two array reads.
+ *
+ * The areas are connected with horizontal and vertical moves. A diagonal move
+ * is only allowed when both of the positions next to the diagonal are
+ * passable, so diagonal moves never connect areas, and the same labels are
+ * valid for any amount of directions.
+ *
+ * @author MJ
+ */
+public class ConnectedComponents {
+
+    private final int rowLength;
+    private final int[] labels;
+    private final int[] sizes;
+
+    /**
+     * Labelling the areas with one flood fill per area.
+     *
+     * @param grid Pathfinding grid
+     */
+    public ConnectedComponents(Grid grid) {
+        int nx = grid.getLength();
+        int ny = grid.getRowLength();
+        this.rowLength = ny;
+        this.labels = new int[nx * ny];
+        Arrays.fill(labels, -1);
+        int[] stack = new int[nx * ny];
+        int[] areaSizes = new int[16];
+        int count = 0;
+        for (int x = 0; x < nx; x++) {
+            for (int y = 0; y < ny; y++) {
+                if (labels[x * ny + y] >= 0 || !grid.isPassable(x, y)) {
+                    continue;
+                }
+                if (count == areaSizes.length) {
+                    areaSizes = Arrays.copyOf(areaSizes, count * 2);
+                }
+                areaSizes[count] = fill(grid, x, y, count, stack);
+                count++;
+            }
+        }
+        this.sizes = Arrays.copyOf(areaSizes, count);
+    }
+
+    /**
+     * Labelling every position reachable from a position, with an explicit
+     * stack instead of recursion.
+     *
+     * @return The amount of labelled positions
+     */
+    private int fill(Grid grid, int x, int y, int label, int[] stack) {
+        int size = 0;
+        int top = 0;
+        labels[x * rowLength + y] = label;
+        stack[top++] = x * rowLength + y;
+        while (top > 0) {
+            int cell = stack[--top];
+            size++;
+            int cx = cell / rowLength;
+            int cy = cell % rowLength;
+            top = push(grid, cx + 1, cy, label, stack, top);
+            top = push(grid, cx - 1, cy, label, stack, top);
+            top = push(grid, cx, cy + 1, label, stack, top);
+            top = push(grid, cx, cy - 1, label, stack, top);
+        }
+        return size;
+    }
+
+    private int push(Grid grid, int x, int y, int label, int[] stack, int top) {
+        if (grid.isPassable(x, y) && labels[x * rowLength + y] < 0) {
+            labels[x * rowLength + y] = label;
+            stack[top++] = x * rowLength + y;
+        }
+        return top;
+    }
+
+    /**
+     *
+     * @param x The x-coordinate of a position
+     * @param y The y-coordinate of a position
+     * @return The label of the area of the position,
+     * or -1 if the position is not passable
+     */
+    public int label(int x, int y) {
+        return labels[x * rowLength + y];
+    }
+
+    /**
+     * Checking if two passable positions are in the same area.
+     *
+     * @param fromX The x-coordinate of the first position
+     * @param fromY The y-coordinate of the first position
+     * @param toX The x-coordinate of the second position
+     * @param toY The y-coordinate of the second position
+     * @return True if there is a path between the positions, otherwise false
+     */
+    public boolean connected(int fromX, int fromY, int toX, int toY) {
+        int label = labels[fromX * rowLength + fromY];
+        return label >= 0 && label == labels[toX * rowLength + toY];
+    }
+
+    /**
+     *
+     * @return The amount of areas
+     */
+    public int getComponentCount() {
+        return sizes.length;
+    }
+
+    /**
+     *
+     * @param label The label of an area
+     * @return The amount of positions in the area
+     */
+    public int getSize(int label) {
+        return sizes[label];
+    }
+}
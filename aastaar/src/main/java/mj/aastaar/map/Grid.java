@@ -1,15 +1,55 @@
 package mj.aastaar.map;
 
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+
 /**
  * Pathfinding grid with characters representing terrain.
- * 
+ *
+ * The positions are kept in one byte buffer, row by row with the positions of
+ * the same x-coordinate next to each other, surrounded by a border of one
+ * impassable position on every side. Each byte is a terrain class, the index
+ * of a character of the map in a table of 256 classes that gives the
+ * passability and weight of the terrain, so checking a position is an array
+ * lookup and the neighbours of a position in bounds are never out of the
+ * buffer.
+ *
+ * The allowed moves from every position are precomputed as a bit mask, so
+ * listing the neighbours of a position does not check any passability. With
+ * the terrain classes, a position takes two bytes, as much as a character.
+ *
+ * The buffers can be a read-only memory-mapped file, see GridFile, in which
+ * case they are copied to the heap at the first change of a position.
+ *
  * @author MJ
  */
 public class Grid {
 
-    private char[][] grid;
+    private static final double SQRT2 = Math.sqrt(2.0);
+
+    /**
+     * The terrain class of the border positions, which is always impassable.
+     */
+    private static final int BORDER = 0;
+
+    private static final int[] DX = {1, -1, 0, 0, 1, 1, -1, -1};
+    private static final int[] DY = {0, 0, 1, -1, 1, -1, 1, -1};
+
+    private final int length;
+    private final int rowLength;
+    private final int stride;
+    private ByteBuffer cells;
+    private final char[] symbols;
+    private final boolean[] passable;
+    private final double[] weights;
+    private final int[] offsets;
+    private final int[] cellOffsets;
+    private ByteBuffer moves;
+    private int classes;
     private char[] impassable;
     private double heavyEdgeWeight;
+    private volatile ConnectedComponents components;
+    private volatile int modifications;
 
     /**
      *
@@ -19,16 +59,288 @@ public class Grid {
      * @param heavyEdgeWeight and the penalty for moving through heavier terrain
      */
     public Grid(char[][] grid, char[] impassable, double heavyEdgeWeight) {
-        this.grid = grid;
+        this(ByteBuffer.allocate((grid.length + 2) * (((grid.length > 0) ? grid[0].length : 0) + 2)),
+                ByteBuffer.allocate(grid.length * ((grid.length > 0) ? grid[0].length : 0)),
+                grid.length, (grid.length > 0) ? grid[0].length : 0, impassable, heavyEdgeWeight);
+        for (int x = 0; x < length; x++) {
+            for (int y = 0; y < rowLength; y++) {
+                cells.put(getPaddedIndex(x, y), (byte) terrainClass(grid[x][y]));
+            }
+        }
+        updateMoves();
+    }
+
+    /**
+     * A grid on the characters of a map read as bytes, such as by MapParser.
+     * The characters are replaced with their terrain classes in place, so the
+     * array becomes the storage of the grid without a copy.
+     *
+     * @param length The grid length
+     * @param rowLength The grid row length
+     * @param characters The characters of the map in the bordered layout of
+     * getPaddedIndex, with zeros on the border
+     * @param impassable character representations of map nodes
+     * that are marked impassable for pathfinding
+     * @param heavyEdgeWeight and the penalty for moving through heavier terrain
+     */
+    Grid(int length, int rowLength, byte[] characters, char[] impassable, double heavyEdgeWeight) {
+        this(ByteBuffer.wrap(characters), ByteBuffer.allocate(length * rowLength),
+                length, rowLength, impassable, heavyEdgeWeight);
+        int[] classOf = new int[256];
+        for (int x = 0; x < length; x++) {
+            int padded = getPaddedIndex(x, 0);
+            for (int y = 0; y < rowLength; y++, padded++) {
+                int c = cells.get(padded) & 0xff;
+                if (classOf[c] == BORDER) {
+                    classOf[c] = terrainClass((char) c);
+                }
+                cells.put(padded, (byte) classOf[c]);
+            }
+        }
+        updateMoves();
+    }
+
+    /**
+     * A grid on the buffers and terrain table of a stored grid, see GridFile.
+     *
+     * @param length The grid length
+     * @param rowLength The grid row length
+     * @param cells The terrain classes in the bordered layout of
+     * getPaddedIndex
+     * @param moves The bit masks of the allowed moves, see getMoves
+     * @param symbols The character of every terrain class
+     * @param passable The passability of every terrain class
+     * @param weights The weight of every terrain class
+     * @param classes The amount of terrain classes, including the border
+     * @param impassable character representations of map nodes
+     * that are marked impassable for pathfinding
+     * @param heavyEdgeWeight and the penalty for moving through heavier terrain
+     */
+    Grid(int length, int rowLength, ByteBuffer cells, ByteBuffer moves, char[] symbols,
+            boolean[] passable, double[] weights, int classes, char[] impassable,
+            double heavyEdgeWeight) {
+        this(cells, moves, length, rowLength, impassable, heavyEdgeWeight);
+        this.classes = classes;
+        System.arraycopy(symbols, 0, this.symbols, 0, classes);
+        System.arraycopy(passable, 0, this.passable, 0, classes);
+        System.arraycopy(weights, 0, this.weights, 0, classes);
+    }
+
+    /**
+     * Allocating the tables around the buffers of the positions, which are
+     * filled in by the other constructors.
+     */
+    private Grid(ByteBuffer cells, ByteBuffer moves, int length, int rowLength,
+            char[] impassable, double heavyEdgeWeight) {
         this.impassable = impassable;
         this.heavyEdgeWeight = heavyEdgeWeight;
+        this.length = length;
+        this.rowLength = rowLength;
+        this.stride = rowLength + 2;
+        this.cells = cells;
+        this.symbols = new char[256];
+        this.passable = new boolean[256];
+        this.weights = new double[256];
+        this.classes = BORDER + 1;
+        this.offsets = new int[DX.length];
+        this.cellOffsets = new int[DX.length];
+        for (int i = 0; i < offsets.length; i++) {
+            offsets[i] = DX[i] * stride + DY[i];
+            cellOffsets[i] = DX[i] * rowLength + DY[i];
+        }
+        this.moves = moves;
+    }
+
+    /**
+     * Changing the terrain of a position. The allowed moves of the position
+     * and its neighbours are updated, and the connected areas are labelled
+     * again at the next request. The modification count is increased, so
+     * that the algorithms with precomputed data of the old terrain can
+     * check it again, see getModifications.
+     *
+     * @param x The x-coordinate of the position
+     * @param y The y-coordinate of the position
+     * @param c Character representation of the new terrain
+     */
+    public synchronized void setCell(int x, int y, char c) {
+        if (!inBounds(x, y)) {
+            System.out.println("Position out of bounds.");
+            return;
+        }
+        if (cells.isReadOnly()) {
+            cells = copy(cells);
+            moves = copy(moves);
+        }
+        cells.put(getPaddedIndex(x, y), (byte) terrainClass(c));
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dy = -1; dy <= 1; dy++) {
+                if (inBounds(x + dx, y + dy)) {
+                    updateMoves(x + dx, y + dy);
+                }
+            }
+        }
+        components = null;
+        modifications++;
     }
 
     /**
+     * The amount of changes to the positions of the grid. Precomputed data
+     * only has to be checked against the grid again, with terrainChecksum,
+     * when the count has changed since the previous check.
+     *
+     * @return The amount of calls to setCell
+     */
+    public int getModifications() {
+        return modifications;
+    }
+
+    private static ByteBuffer copy(ByteBuffer buffer) {
+        ByteBuffer copy = ByteBuffer.allocate(buffer.capacity());
+        ByteBuffer source = buffer.duplicate();
+        source.clear();
+        copy.put(source);
+        return copy;
+    }
+
+    /**
+     *
+     * @return Character representations of the impassable terrain
+     */
+    public char[] getImpassable() {
+        return impassable;
+    }
+
+    /**
+     *
+     * @return The penalty for moving through heavier terrain
+     */
+    public double getHeavyEdgeWeight() {
+        return heavyEdgeWeight;
+    }
+
+    /**
+     *
+     * @return A read-only view of the terrain classes of the positions, in
+     * the bordered layout of getPaddedIndex
+     */
+    ByteBuffer getCells() {
+        return cells.asReadOnlyBuffer();
+    }
+
+    /**
+     *
+     * @return A read-only view of the allowed moves of the positions
+     */
+    ByteBuffer getMoveMasks() {
+        return moves.asReadOnlyBuffer();
+    }
+
+    /**
+     *
+     * @return The amount of terrain classes, including the border
+     */
+    int getTerrainClassCount() {
+        return classes;
+    }
+
+    /**
+     *
+     * @param terrain Terrain class
+     * @return The character of the terrain class
+     */
+    char getSymbol(int terrain) {
+        return symbols[terrain];
+    }
+
+    /**
+     *
+     * @param terrain Terrain class
+     * @return True if the terrain class is passable, otherwise false
+     */
+    boolean isPassableClass(int terrain) {
+        return passable[terrain];
+    }
+
+    /**
+     *
+     * @param terrain Terrain class
+     * @return The weight of the terrain class
+     */
+    double getClassWeight(int terrain) {
+        return weights[terrain];
+    }
+
+    /**
+     * The terrain class of a character, added to the table at the first
+     * occurrence.
+     *
+     * @param c Character representation of the terrain
+     * @return The terrain class
+     */
+    private int terrainClass(char c) {
+        int terrain = BORDER + 1;
+        while (terrain < classes && symbols[terrain] != c) {
+            terrain++;
+        }
+        if (terrain == classes) {
+            if (classes == symbols.length) {
+                throw new IllegalArgumentException("More than "
+                        + (symbols.length - 1) + " kinds of terrain");
+            }
+            symbols[terrain] = c;
+            passable[terrain] = isPassable(c);
+            weights[terrain] = (c == 'S') ? heavyEdgeWeight : 0.0;
+            classes++;
+        }
+        return terrain;
+    }
+
+    /**
+     * Computing the allowed moves from every position.
+     */
+    private void updateMoves() {
+        for (int x = 0; x < length; x++) {
+            for (int y = 0; y < rowLength; y++) {
+                updateMoves(x, y);
+            }
+        }
+    }
+
+    /**
+     * Computing the allowed moves from a position: a bit for every direction
+     * of getOffset with a passable neighbour, where diagonal moves also need
+     * both of the positions next to the diagonal to be passable.
+     */
+    private void updateMoves(int x, int y) {
+        int padded = getPaddedIndex(x, y);
+        int mask = 0;
+        for (int i = 0; i < 4; i++) {
+            if (isPassableAt(padded + offsets[i])) {
+                mask |= 1 << i;
+            }
+        }
+        for (int i = 4; i < 8; i++) {
+            if (isPassableAt(padded + offsets[i]) && isPassableAt(padded + DX[i] * stride)
+                    && isPassableAt(padded + DY[i])) {
+                mask |= 1 << i;
+            }
+        }
+        moves.put(getIndex(x, y), (byte) mask);
+    }
+
+    /**
+     * Built again from the terrain classes at every call, so changes to the
+     * array do not affect the grid.
      *
      * @return A 2D character array representation of the map grid
      */
     public char[][] getGrid2D() {
+        char[][] grid = new char[length][rowLength];
+        for (int x = 0; x < length; x++) {
+            for (int y = 0; y < rowLength; y++) {
+                grid[x][y] = symbols[cells.get(getPaddedIndex(x, y)) & 0xff];
+            }
+        }
         return grid;
     }
 
@@ -37,7 +349,7 @@ public class Grid {
      * @return The grid length
      */
     public int getLength() {
-        return grid.length;
+        return length;
     }
     
 
@@ -47,7 +359,121 @@ public class Grid {
      * @return The length of the first row in the grid array
      */
     public int getRowLength() {
-        return grid[0].length;
+        return rowLength;
+    }
+
+    /**
+     *
+     * @return The amount of positions in the grid
+     */
+    public int getCellCount() {
+        return length * rowLength;
+    }
+
+    /**
+     * The index of a position in flat arrays of the size of the grid, with
+     * the positions of the same x-coordinate next to each other.
+     *
+     * @param x The x-coordinate of the position
+     * @param y The y-coordinate of the position
+     * @return The index of the position
+     */
+    public int getIndex(int x, int y) {
+        return x * rowLength + y;
+    }
+
+    /**
+     *
+     * @param index The index of a position, see getIndex
+     * @return The x-coordinate of the position
+     */
+    public int getX(int index) {
+        return index / rowLength;
+    }
+
+    /**
+     *
+     * @param index The index of a position, see getIndex
+     * @return The y-coordinate of the position
+     */
+    public int getY(int index) {
+        return index % rowLength;
+    }
+
+    /**
+     * The index of a position in the bordered array of the grid, where the
+     * neighbours of every position in bounds have an index as well.
+     *
+     * @param x The x-coordinate of the position, from -1 to the length
+     * @param y The y-coordinate of the position, from -1 to the row length
+     * @return The padded index of the position
+     */
+    public int getPaddedIndex(int x, int y) {
+        return (x + 1) * stride + y + 1;
+    }
+
+    /**
+     *
+     * @param index The index of a position, see getIndex
+     * @return The padded index of the position, see getPaddedIndex
+     */
+    public int pad(int index) {
+        return index + stride + 1 + 2 * (index / rowLength);
+    }
+
+    /**
+     *
+     * @param padded The padded index of a position in bounds
+     * @return The index of the position, see getIndex
+     */
+    public int unpad(int padded) {
+        return padded - stride - 1 - 2 * (padded / stride - 1);
+    }
+
+    /**
+     * The difference of the padded indices of a position and its neighbour,
+     * in the same order of directions as the neighbours of getNeighbours.
+     *
+     * @param direction The direction, from 0 to 7
+     * @return The offset of the neighbour in the direction
+     */
+    public int getOffset(int direction) {
+        return offsets[direction];
+    }
+
+    /**
+     * Checking a position by its padded index, without a bounds check.
+     *
+     * @param padded The padded index of a position in bounds or on the border
+     * @return True if the position is passable, otherwise false
+     */
+    public boolean isPassableAt(int padded) {
+        return passable[cells.get(padded) & 0xff];
+    }
+
+    /**
+     *
+     * @param padded The padded index of a position in bounds or on the border
+     * @return The terrain weight of the position, see terrainWeight
+     */
+    public double terrainWeightAt(int padded) {
+        return weights[cells.get(padded) & 0xff];
+    }
+
+    /**
+     * The cost of a move between padded indices, see cost.
+     *
+     * @param from The padded index of the position the move is from
+     * @param to The padded index of the position the move is heading to
+     * @param direction The direction of the move, diagonal from 4 to 7
+     * @return The cost of the movement
+     */
+    public double cost(int from, int to, int direction) {
+        double cost = 1.0 + weights[cells.get(from) & 0xff] + weights[cells.get(to) & 0xff];
+        if (direction > 3) {
+            cost *= SQRT2;
+        }
+        return cost;
     }
 
     /**
@@ -66,33 +492,151 @@ public class Grid {
         return x + y;
     }
 
+    /**
+     * Octile distance on a square grid, which is the exact distance between
+     * two positions on an open grid that allows diagonal movement.
+     *
+     * @param a One of the nodes involved in the calculation
+     * @param b The other node involved in the calculation
+     * @return The octile distance
+     */
+    public double octileHeuristic(Node a, Node b) {
+        double x = a.getX() - b.getX();
+        double y = a.getY() - b.getY();
+        x = (x > 0) ? x : 0 - x;
+        y = (y > 0) ? y : 0 - y;
+        return (x > y) ? x + (SQRT2 - 1) * y : y + (SQRT2 - 1) * x;
+    }
+
+    /**
+     * Choosing the heuristic that is admissible for the allowed directions:
+     * Manhattan distance for movement in four directions,
+     * octile distance when diagonal movement is allowed.
+     *
+     * @param a One of the nodes involved in the calculation
+     * @param b The other node involved in the calculation
+     * @param directions The amount of allowed directions for valid moves
+     * @return The heuristic distance
+     */
+    public double heuristic(Node a, Node b, int directions) {
+        if (directions > 4) {
+            return octileHeuristic(a, b);
+        }
+        return heuristic(a, b);
+    }
+
     /**
      * Different cost for shallow water than normal ground.
      * Should only be called for nodes that have already been checked
      * as passable and in bounds.
      * Different edge weights yield different paths.
+     * Diagonal movement costs the square root of two times the straight cost.
      *
      * @param from The position from which the movement is occurring.
      * @param to The position to which the movement is heading.
      * @return The cost of the movement.
      */
     public double cost(Node from, Node to) {
-        double cost = 1.0;
-        char current = grid[from.getX()][from.getY()];
-        char next = grid[to.getX()][to.getY()];
-        if (current == 'S') {
-            cost += heavyEdgeWeight;
-        }
-        if (next == 'S') {
-            cost += heavyEdgeWeight;
+        return cost(from.getX(), from.getY(), to.getX(), to.getY());
+    }
+
+    /**
+     * Different cost for shallow water than normal ground,
+     * without requiring Node objects for the positions.
+     *
+     * @param fromX The x-coordinate of the position the movement is from
+     * @param fromY The y-coordinate of the position the movement is from
+     * @param toX The x-coordinate of the position the movement is heading to
+     * @param toY The y-coordinate of the position the movement is heading to
+     * @return The cost of the movement.
+     */
+    public double cost(int fromX, int fromY, int toX, int toY) {
+        double cost = 1.0 + terrainWeight(fromX, fromY) + terrainWeight(toX, toY);
+        if (fromX != toX && fromY != toY) {
+            cost *= SQRT2;
         }
         return cost;
     }
 
+    /**
+     * Checking if every move costs a whole number, which is the case for
+     * horizontal and vertical moves when the weight of heavy terrain is an
+     * integer.
+     *
+     * @param directions The amount of allowed directions for valid moves
+     * @return True if the move costs are integers, otherwise false
+     */
+    public boolean hasIntegralCosts(int directions) {
+        return directions <= 4 && heavyEdgeWeight == Math.rint(heavyEdgeWeight)
+                && heavyEdgeWeight < Integer.MAX_VALUE / 4;
+    }
+
+    /**
+     * The additional weight of a position, which is added to the cost
+     * of moving into and out of it.
+     *
+     * @param x The x-coordinate of the position
+     * @param y The y-coordinate of the position
+     * @return The penalty for heavier terrain, or zero for normal ground
+     */
+    public double terrainWeight(int x, int y) {
+        return weights[cells.get(getPaddedIndex(x, y)) & 0xff];
+    }
+
+    /**
+     * Checking if a passable position has a passable neighbour in any of the
+     * eight directions with a different terrain weight.
+     *
+     * @param x The x-coordinate of the position
+     * @param y The y-coordinate of the position
+     * @return True if the position is on a border of different terrain,
+     * otherwise false
+     */
+    public boolean bordersDifferentTerrain(int x, int y) {
+        if (!isPassable(x, y)) {
+            return false;
+        }
+        double weight = terrainWeight(x, y);
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dy = -1; dy <= 1; dy++) {
+                if (isPassable(x + dx, y + dy) && terrainWeight(x + dx, y + dy) != weight) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A checksum of the passability and terrain weights of every position,
+     * for checking that precomputed data belongs to the grid.
+     *
+     * @return Checksum
+     */
+    public long terrainChecksum() {
+        CRC32 crc = new CRC32();
+        for (int x = 0; x < getLength(); x++) {
+            for (int y = 0; y < getRowLength(); y++) {
+                if (!isPassable(x, y)) {
+                    crc.update(0);
+                } else {
+                    long bits = Double.doubleToLongBits(terrainWeight(x, y));
+                    crc.update(1);
+                    for (int i = 0; i < 8; i++) {
+                        crc.update((int) (bits >>> (8 * i)));
+                    }
+                }
+            }
+        }
+        return crc.getValue();
+    }
+
     /**
      * Checking and retrieving the adjacent nodes in the grid,
      * which are in bounds and passable.
-     * Currently only allows movement in four directions.
+     * The first four neighbours are horizontal and vertical, with eight
+     * directions the last four are diagonal. Diagonal moves are not allowed
+     * to cut the corners of impassable positions.
      *
      * @param x X-coordinate of the position of which neighbours are requested
      * @param y Y-coordinate of the position of which neighbours are requested
@@ -102,23 +646,84 @@ public class Grid {
      */
     public Node[] getNeighbours(int x, int y, int directions) {
         Node[] neighbours = new Node[directions];
-        if (x < (grid.length - 1) && isPassable(grid[x + 1][y]) && directions > 0) {
-            neighbours[0] = new Node(x + 1, y, 0);
-        }
-        if (x > 0 && isPassable(grid[x - 1][y]) && directions > 1) {
-            neighbours[1] = new Node(x - 1, y, 0);
+        int mask = getMoves(getIndex(x, y), directions);
+        while (mask != 0) {
+            int i = Integer.numberOfTrailingZeros(mask);
+            mask &= mask - 1;
+            neighbours[i] = new Node(x + DX[i], y + DY[i], 0);
         }
-        if (y < (grid[0].length - 1) && isPassable(grid[x][y + 1]) && directions > 2) {
-            neighbours[2] = new Node(x, y + 1, 0);
+        return neighbours;
+    }
+
+    /**
+     * Writing the passable neighbours of a position into buffers of the
+     * caller, in the same order as getNeighbours, so that a search does not
+     * allocate anything for an expansion.
+     *
+     * @param cell The index of the position, see getIndex
+     * @param directions In how many directions are neighbours requested
+     * @param neighbours A buffer of at least eight positions for the indices
+     * of the neighbours
+     * @param costs A buffer of the same length for the costs of the moves
+     * @return The amount of neighbours written to the buffers
+     */
+    public int getNeighbours(int cell, int directions, int[] neighbours, double[] costs) {
+        int mask = moves.get(cell) & directionMask(directions);
+        int padded = pad(cell);
+        int count = 0;
+        while (mask != 0) {
+            int i = Integer.numberOfTrailingZeros(mask);
+            mask &= mask - 1;
+            neighbours[count] = cell + cellOffsets[i];
+            costs[count++] = cost(padded, padded + offsets[i], i);
         }
-        if (y > 0 && isPassable(grid[x][y - 1]) && directions > 3) {
-            neighbours[3] = new Node(x, y - 1, 0);
+        return count;
+    }
+
+    /**
+     * The allowed moves from a position as a bit mask, with the bit of a
+     * direction of getOffset set when the move is allowed.
+     *
+     * @param cell The index of the position, see getIndex
+     * @param directions The amount of allowed directions for valid moves
+     * @return The bit mask of the allowed moves
+     */
+    public int getMoves(int cell, int directions) {
+        return moves.get(cell) & directionMask(directions);
+    }
+
+    /**
+     * The bits of the directions that are allowed with an amount of
+     * directions. As in getNeighbours, the diagonals need all eight.
+     */
+    private static int directionMask(int directions) {
+        if (directions > 7) {
+            return 0xff;
+        } else if (directions < 1) {
+            return 0;
         }
-        return neighbours;
+        return (1 << Math.min(directions, 4)) - 1;
+    }
+
+    /**
+     * Checking if a diagonal move is allowed from a position.
+     * Both of the positions next to the diagonal have to be passable,
+     * so that the move does not cut corners.
+     *
+     * @param x X-coordinate of the position where the move starts
+     * @param y Y-coordinate of the position where the move starts
+     * @param dx The x-component of the move, 1 or -1
+     * @param dy The y-component of the move, 1 or -1
+     * @return True if the diagonal move is allowed, otherwise false
+     */
+    public boolean canMoveDiagonally(int x, int y, int dx, int dy) {
+        return isPassable(x + dx, y + dy) && isPassable(x + dx, y)
+                && isPassable(x, y + dy);
     }
 
     /**
-     * Checking if a position on the map is passable.
+     * Checking if a character of a map is passable terrain. The positions
+     * of the grid are checked with the terrain table instead.
      * 
      * @param c Character representation of the map position.
      * @return True if the position is passable, otherwise false
@@ -131,6 +736,17 @@ public class Grid {
         }
         return true;
     }
+
+    /**
+     * Checking if a position on the map is in bounds and passable.
+     *
+     * @param x The x-coordinate of the position that is checked
+     * @param y The y-coordinate of the position that is checked
+     * @return True if the position is in bounds and passable, otherwise false
+     */
+    public boolean isPassable(int x, int y) {
+        return inBounds(x, y) && isPassableAt(getPaddedIndex(x, y));
+    }
     
     /**
      * Checking if a position on the map is within the grid bounds.
@@ -140,7 +756,7 @@ public class Grid {
      * @return True if the position is in grid bounds, otherwise false
      */
     public boolean inBounds(int x, int y) {
-        if (x < grid.length && x >= 0 && y < grid[0].length && y >= 0) {
+        if (x < length && x >= 0 && y < rowLength && y >= 0) {
             return true;
         }
         return false;
@@ -155,9 +771,40 @@ public class Grid {
     public boolean nodeIsValid(Node node) {
         int x = node.getX();
         int y = node.getY();
-        if (inBounds(x, y) && isPassable(grid[x][y])) {
-            return true;
+        return isPassable(x, y);
+    }
+
+    /**
+     * The connected areas of the grid, labelled at the first call. Only the
+     * labelling takes the lock, so the searches of several threads read the
+     * labels without waiting for each other.
+     *
+     * @return The connected areas of the passable positions
+     */
+    public ConnectedComponents getComponents() {
+        ConnectedComponents labels = components;
+        if (labels == null) {
+            synchronized (this) {
+                labels = components;
+                if (labels == null) {
+                    labels = new ConnectedComponents(this);
+                    components = labels;
+                }
+            }
         }
-        return false;
+        return labels;
+    }
+
+    /**
+     * Checking if there is a path between two positions, without a search.
+     *
+     * @param a The start node
+     * @param b The goal node
+     * @return True if both positions are valid and in the same connected
+     * area, otherwise false
+     */
+    public boolean isReachable(Node a, Node b) {
+        return nodeIsValid(a) && nodeIsValid(b)
+                && getComponents().connected(a.getX(), a.getY(), b.getX(), b.getY());
     }
 }
@@ -0,0 +1,249 @@
+package mj.aastaar.map;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * A binary file format for grids, which is memory-mapped instead of parsed.
+ * After a header with the dimensions, the terrain settings, the terrain class
+ * table and a checksum of the rest of the file, the body holds the terrain
+ * classes and the allowed moves of the positions in the layout of Grid, so a
+ * mapped grid reads its positions straight from the page cache and several
+ * processes that map the same file share one copy of it.
+ *
+ * The impassable characters and the heavy edge weight are fixed when the map
+ * is converted, as the allowed moves depend on them. A grid file mapped with
+ * expected settings that differ from those of the file is rejected instead of
+ * silently using the settings of the file.
+ *
+ * @author MJ
+ */
+public class GridFile {
+
+    /**
+     * The extension of grid files.
+     */
+    public static final String FILE_EXTENSION = ".grid";
+
+    private static final int MAGIC = 0x47524944;
+    private static final int VERSION = 2;
+    private static final int HEADER_BYTES = 40;
+    private static final int CLASS_BYTES = 12;
+    private static final int CHECKSUM_OFFSET = 24;
+
+    /**
+     * Converting a Moving AI Lab map file to a grid file.
+     *
+     * @param mapFile Map file path
+     * @param gridFile Grid file
+     * @param impassable character representations of map nodes
+     * that are marked impassable for pathfinding
+     * @param heavyEdgeWeight and the penalty for moving through heavier terrain
+     * @throws IOException If the map can not be read or the file written
+     */
+    public static void convert(Path mapFile, File gridFile, char[] impassable,
+            double heavyEdgeWeight) throws IOException {
+        save(new MapParser(impassable, heavyEdgeWeight).parse(mapFile), gridFile);
+    }
+
+    /**
+     * Writing a grid to a file. The values are written in big-endian order,
+     * so that they can be read from the mapped file as they are.
+     *
+     * @param grid Pathfinding grid
+     * @param file Grid file
+     * @throws IOException If the file can not be written
+     */
+    public static void save(Grid grid, File file) throws IOException {
+        byte[] cells = bytes(grid.getCells());
+        byte[] moves = bytes(grid.getMoveMasks());
+        char[] impassable = grid.getImpassable();
+        int classes = grid.getTerrainClassCount();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES + 2 * impassable.length
+                + CLASS_BYTES * classes);
+        header.putInt(MAGIC);
+        header.putInt(VERSION);
+        header.putInt(grid.getLength());
+        header.putInt(grid.getRowLength());
+        header.putDouble(grid.getHeavyEdgeWeight());
+        header.putLong(0);
+        header.putInt(impassable.length);
+        header.putInt(classes);
+        for (char c : impassable) {
+            header.putChar(c);
+        }
+        for (int terrain = 0; terrain < classes; terrain++) {
+            header.putChar(grid.getSymbol(terrain));
+            header.put((byte) (grid.isPassableClass(terrain) ? 1 : 0));
+            header.put((byte) 0);
+            header.putDouble(grid.getClassWeight(terrain));
+        }
+        header.flip();
+        CRC32 crc = new CRC32();
+        updateChecksum(crc, header);
+        crc.update(cells);
+        crc.update(moves);
+        header.putLong(CHECKSUM_OFFSET, crc.getValue());
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file))) {
+            out.write(header.array());
+            out.write(cells);
+            out.write(moves);
+        }
+    }
+
+    /**
+     * Memory-mapping a stored grid and checking that it was converted with
+     * the given terrain settings.
+     *
+     * @param file Grid file
+     * @param impassable The expected impassable characters, in any order
+     * @param heavyEdgeWeight The expected penalty for heavier terrain
+     * @return The grid on the mapped file
+     * @throws IOException If the file can not be read, is not a valid grid
+     * file or has other terrain settings
+     */
+    public static Grid map(File file, char[] impassable, double heavyEdgeWeight)
+            throws IOException {
+        Grid grid = map(file);
+        if (Double.compare(grid.getHeavyEdgeWeight(), heavyEdgeWeight) != 0
+                || !sameCharacters(grid.getImpassable(), impassable)) {
+            throw new IOException("The grid file was converted with the impassable characters "
+                    + new String(grid.getImpassable()) + " and the heavy edge weight "
+                    + grid.getHeavyEdgeWeight() + ", not " + new String(impassable)
+                    + " and " + heavyEdgeWeight + ".");
+        }
+        return grid;
+    }
+
+    /**
+     * Memory-mapping a stored grid read-only. The checksum of the header,
+     * the terrain class table and the body is checked, which reads the file
+     * once. The file stays mapped until the grid is garbage collected. The
+     * terrain settings of the grid are the ones stored in the file.
+     *
+     * @param file Grid file
+     * @return The grid on the mapped file
+     * @throws IOException If the file can not be read or is not a valid grid
+     * file
+     */
+    public static Grid map(File file) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.limit() < HEADER_BYTES || buffer.getInt(0) != MAGIC
+                || buffer.getInt(4) != VERSION) {
+            throw new IOException("Not a grid file.");
+        }
+        int length = buffer.getInt(8);
+        int rowLength = buffer.getInt(12);
+        double heavyEdgeWeight = buffer.getDouble(16);
+        long checksum = buffer.getLong(CHECKSUM_OFFSET);
+        int impassableCount = buffer.getInt(32);
+        int classes = buffer.getInt(36);
+        if (length < 0 || rowLength < 0 || impassableCount < 0 || classes < 1 || classes > 256) {
+            throw new IOException("The grid file has a wrong header.");
+        }
+        if (buffer.limit() < HEADER_BYTES + 2L * impassableCount + (long) CLASS_BYTES * classes) {
+            throw new IOException("The grid file has a wrong size.");
+        }
+        CRC32 crc = new CRC32();
+        updateChecksum(crc, buffer);
+        if (crc.getValue() != checksum) {
+            throw new IOException("The grid file is corrupted.");
+        }
+        int position = HEADER_BYTES;
+        char[] impassable = new char[impassableCount];
+        for (int i = 0; i < impassableCount; i++, position += 2) {
+            impassable[i] = buffer.getChar(position);
+        }
+        char[] symbols = new char[classes];
+        boolean[] passable = new boolean[classes];
+        double[] weights = new double[classes];
+        for (int terrain = 0; terrain < classes; terrain++, position += CLASS_BYTES) {
+            symbols[terrain] = buffer.getChar(position);
+            passable[terrain] = buffer.get(position + 2) != 0;
+            weights[terrain] = buffer.getDouble(position + 4);
+        }
+        long cellBytes = (length + 2L) * (rowLength + 2L);
+        long moveBytes = (long) length * rowLength;
+        if (buffer.limit() != position + cellBytes + moveBytes) {
+            throw new IOException("The grid file has a wrong size.");
+        }
+        ByteBuffer cells = slice(buffer, position, (int) cellBytes);
+        ByteBuffer moves = slice(buffer, position + (int) cellBytes, (int) moveBytes);
+        return new Grid(length, rowLength, cells, moves, symbols, passable, weights, classes,
+                impassable, heavyEdgeWeight);
+    }
+
+    /**
+     *
+     * @param mapPath Map file path
+     * @return The path of the grid file stored next to the map
+     */
+    public static String gridPath(String mapPath) {
+        if (mapPath.endsWith(".map")) {
+            return mapPath.substring(0, mapPath.length() - ".map".length()) + FILE_EXTENSION;
+        }
+        return mapPath + FILE_EXTENSION;
+    }
+
+    /**
+     *
+     * @return True if the arrays contain the same characters, in any order
+     */
+    private static boolean sameCharacters(char[] a, char[] b) {
+        String first = new String(a);
+        String second = new String(b);
+        for (char c : a) {
+            if (second.indexOf(c) < 0) {
+                return false;
+            }
+        }
+        for (char c : b) {
+            if (first.indexOf(c) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte[] bytes(ByteBuffer buffer) {
+        ByteBuffer source = buffer.duplicate();
+        source.clear();
+        byte[] bytes = new byte[source.remaining()];
+        source.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * Adding the bytes of a file in a buffer to a checksum, except for the
+     * checksum itself.
+     */
+    private static void updateChecksum(CRC32 crc, ByteBuffer file) {
+        ByteBuffer before = file.duplicate();
+        before.clear();
+        before.limit(CHECKSUM_OFFSET);
+        crc.update(before);
+        ByteBuffer after = file.duplicate();
+        after.clear();
+        after.position(CHECKSUM_OFFSET + 8);
+        crc.update(after);
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, int position, int count) {
+        ByteBuffer bytes = buffer.duplicate();
+        bytes.position(position);
+        bytes.limit(position + count);
+        return bytes.slice();
+    }
+}
@@ -0,0 +1,213 @@
+package mj.aastaar.map;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ * Loading map files from the file system on a fixed amount of worker
+ * threads, so that many maps load in about the time of the slowest one. Text
+ * maps are read with MapParser and grid files are memory-mapped with
+ * GridFile. Every map is loaded and timed on its own, so a map that can not be
+ * read only fails its own result. A grid file that was converted with other
+ * terrain settings than the ones of the loader fails as well, so the grids of
+ * one loader always share the settings.
+ *
+ * @author MJ
+ */
+public class MapLoader {
+
+    /**
+     * The outcome of loading one map file.
+     */
+    public static class Result {
+
+        private final Path path;
+        private final Grid grid;
+        private final Exception error;
+        private final long nanos;
+
+        Result(Path path, Grid grid, Exception error, long nanos) {
+            this.path = path;
+            this.grid = grid;
+            this.error = error;
+            this.nanos = nanos;
+        }
+
+        /**
+         *
+         * @return Map file path
+         */
+        public Path getPath() {
+            return path;
+        }
+
+        /**
+         *
+         * @return The grid of the map, or null if it could not be loaded
+         */
+        public Grid getGrid() {
+            return grid;
+        }
+
+        /**
+         *
+         * @return The reason the map could not be loaded, or null
+         */
+        public Exception getError() {
+            return error;
+        }
+
+        /**
+         *
+         * @return True if the map was loaded, otherwise false
+         */
+        public boolean isLoaded() {
+            return grid != null;
+        }
+
+        /**
+         *
+         * @return The time of loading the map in nanoseconds
+         */
+        public long getNanos() {
+            return nanos;
+        }
+
+        @Override
+        public String toString() {
+            String time = String.format("%.1f ms", nanos / 1000000.0);
+            if (grid == null) {
+                return path + ": failed after " + time + ": " + error;
+            }
+            return path + ": " + grid.getLength() + "x" + grid.getRowLength() + " in " + time;
+        }
+    }
+
+    private final char[] impassable;
+    private final double heavyEdgeWeight;
+    private final int threads;
+
+    /**
+     * Using one thread per processor.
+     *
+     * @param impassable character representations of map nodes
+     * that are marked impassable for pathfinding
+     * @param heavyEdgeWeight and the penalty for moving through heavier terrain
+     */
+    public MapLoader(char[] impassable, double heavyEdgeWeight) {
+        this(impassable, heavyEdgeWeight, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     *
+     * @param impassable character representations of map nodes
+     * that are marked impassable for pathfinding
+     * @param heavyEdgeWeight and the penalty for moving through heavier terrain
+     * @param threads The largest amount of worker threads
+     */
+    public MapLoader(char[] impassable, double heavyEdgeWeight, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("At least one thread is needed.");
+        }
+        this.impassable = impassable;
+        this.heavyEdgeWeight = heavyEdgeWeight;
+        this.threads = threads;
+    }
+
+    /**
+     * The map and grid files of the given paths, where a directory stands for
+     * the map and grid files anywhere under it, in sorted order.
+     *
+     * @param paths Files and directories
+     * @return Map and grid file paths
+     * @throws IOException If a directory can not be listed
+     */
+    public static List<Path> mapFiles(List<Path> paths) throws IOException {
+        List<Path> files = new ArrayList<>();
+        for (Path path : paths) {
+            if (Files.isDirectory(path)) {
+                List<Path> found = new ArrayList<>();
+                try (Stream<Path> walk = Files.walk(path)) {
+                    walk.filter(p -> Files.isRegularFile(p) && isMapFile(p)).forEach(found::add);
+                }
+                Collections.sort(found);
+                files.addAll(found);
+            } else {
+                files.add(path);
+            }
+        }
+        return files;
+    }
+
+    /**
+     * Loading every file on the worker threads.
+     *
+     * @param files Map and grid file paths
+     * @return The results in the same order as the files
+     */
+    public List<Result> load(List<Path> files) {
+        List<Result> results = new ArrayList<>();
+        if (files.isEmpty()) {
+            return results;
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads, files.size()));
+        try {
+            List<Future<Result>> futures = new ArrayList<>();
+            for (final Path file : files) {
+                futures.add(pool.submit(new Callable<Result>() {
+                    @Override
+                    public Result call() {
+                        return load(file);
+                    }
+                }));
+            }
+            for (Future<Result> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Loading the maps was interrupted.", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Loading the maps failed.", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        return results;
+    }
+
+    /**
+     * Loading one file on the current thread.
+     *
+     * @param file Map or grid file path
+     * @return The grid or the error, and the time it took
+     */
+    public Result load(Path file) {
+        long start = System.nanoTime();
+        try {
+            Grid grid;
+            if (file.toString().endsWith(GridFile.FILE_EXTENSION)) {
+                grid = GridFile.map(file.toFile(), impassable, heavyEdgeWeight);
+            } else {
+                grid = new MapParser(impassable, heavyEdgeWeight).parse(file);
+            }
+            return new Result(file, grid, null, System.nanoTime() - start);
+        } catch (IOException | RuntimeException e) {
+            return new Result(file, null, e, System.nanoTime() - start);
+        }
+    }
+
+    private static boolean isMapFile(Path path) {
+        String name = path.toString();
+        return name.endsWith(".map") || name.endsWith(GridFile.FILE_EXTENSION);
+    }
+}
@@ -0,0 +1,228 @@
+package mj.aastaar.map;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reading Moving AI Lab map files (see MapCreator) straight into the storage
+ * of a Grid. The file is read through a channel into a reused buffer and the
+ * characters of every row are written into the bordered byte array of the
+ * grid, so there are no strings or character arrays for the lines. The
+ * height and width of the header are checked against the rows of the map.
+ *
+ * @author MJ
+ */
+public class MapParser {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final char[] impassable;
+    private final double heavyEdgeWeight;
+    private final ByteBuffer buffer;
+    private ReadableByteChannel channel;
+    private int line;
+
+    /**
+     *
+     * @param impassable character representations of map nodes
+     * that are marked impassable for pathfinding
+     * @param heavyEdgeWeight and the penalty for moving through heavier terrain
+     */
+    public MapParser(char[] impassable, double heavyEdgeWeight) {
+        this.impassable = impassable;
+        this.heavyEdgeWeight = heavyEdgeWeight;
+        this.buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    }
+
+    /**
+     * Reading a map file from the file system.
+     *
+     * @param file Map file path
+     * @return The grid of the map
+     * @throws IOException If the file can not be read or is not a valid map
+     */
+    public Grid parse(Path file) throws IOException {
+        try (FileChannel fileChannel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return parse(fileChannel);
+        }
+    }
+
+    /**
+     * Reading a map file from the class path, like CustomFileReader.
+     *
+     * @param resourcePath Map file path in the class path
+     * @return The grid of the map
+     * @throws IOException If the file is missing or is not a valid map
+     */
+    public Grid parseResource(String resourcePath) throws IOException {
+        ClassLoader cl = Thread.currentThread().getContextClassLoader();
+        InputStream is = cl.getResourceAsStream(resourcePath);
+        if (is == null) {
+            throw new IOException("Map file not found: " + resourcePath);
+        }
+        try (ReadableByteChannel resourceChannel = Channels.newChannel(is)) {
+            return parse(resourceChannel);
+        }
+    }
+
+    /**
+     * Reading a map from a channel, which is not closed.
+     *
+     * @param channel The channel of the map data
+     * @return The grid of the map
+     * @throws IOException If the data can not be read or is not a valid map
+     */
+    public Grid parse(ReadableByteChannel channel) throws IOException {
+        this.channel = channel;
+        buffer.clear().flip();
+        line = 1;
+        int height = -1;
+        int width = -1;
+        while (true) {
+            String key = readWord();
+            if (key.equals("map")) {
+                skipLine();
+                break;
+            } else if (key.equals("type")) {
+                String type = readWord();
+                if (!type.equals("octile")) {
+                    throw error("Unknown map type " + type);
+                }
+            } else if (key.equals("height")) {
+                height = readNumber();
+            } else if (key.equals("width")) {
+                width = readNumber();
+            } else if (key.isEmpty()) {
+                throw error("The map data ended before the map");
+            } else {
+                throw error("Unknown header " + key);
+            }
+            skipLine();
+        }
+        if (height < 1 || width < 1) {
+            throw error("Error reading map dimensions");
+        }
+        long size = (height + 2L) * (width + 2L);
+        if (size > Integer.MAX_VALUE) {
+            throw error("The map of " + height + "x" + width + " positions is too large");
+        }
+        int stride = width + 2;
+        byte[] cells = new byte[(int) size];
+        for (int x = 0; x < height; x++) {
+            readRow(cells, (x + 1) * stride + 1, width, x);
+        }
+        int b;
+        while ((b = read()) != -1) {
+            if (!isSpace(b)) {
+                throw error("More rows than the height " + height);
+            }
+        }
+        return new Grid(height, width, cells, impassable, heavyEdgeWeight);
+    }
+
+    /**
+     * Copying the characters of one row and the end of the line.
+     */
+    private void readRow(byte[] cells, int offset, int width, int row) throws IOException {
+        int y = 0;
+        while (y < width) {
+            if (!buffer.hasRemaining() && !fill()) {
+                throw error("Expected " + (row + 1) + " or more rows, found " + row);
+            }
+            int count = Math.min(buffer.remaining(), width - y);
+            buffer.get(cells, offset + y, count);
+            for (int i = offset + y; i < offset + y + count; i++) {
+                if (cells[i] == '\n' || cells[i] == '\r') {
+                    throw error("Row " + row + " has " + (i - offset) + " columns, expected " + width);
+                }
+            }
+            y += count;
+        }
+        int b = read();
+        if (b == '\r') {
+            b = read();
+        }
+        if (b != '\n' && b != -1) {
+            throw error("Row " + row + " has more than " + width + " columns");
+        }
+        line++;
+    }
+
+    /**
+     * The next word of a header line, or an empty string at the end of the
+     * data. Header words are short, so they are the only strings created.
+     */
+    private String readWord() throws IOException {
+        int b = read();
+        while (b == ' ' || b == '\t') {
+            b = read();
+        }
+        StringBuilder word = new StringBuilder();
+        while (b != -1 && !isSpace(b)) {
+            word.append((char) b);
+            b = read();
+        }
+        if (b != -1) {
+            buffer.position(buffer.position() - 1);
+        }
+        return word.toString();
+    }
+
+    private int readNumber() throws IOException {
+        String word = readWord();
+        try {
+            return Integer.parseInt(word);
+        } catch (NumberFormatException e) {
+            throw error("Not a number: " + word);
+        }
+    }
+
+    private void skipLine() throws IOException {
+        int b;
+        while ((b = read()) != -1 && b != '\n') {
+            if (!isSpace(b)) {
+                throw error("Unexpected characters at the end of the line");
+            }
+        }
+        line++;
+    }
+
+    /**
+     * The next byte of the data, or -1 at the end.
+     */
+    private int read() throws IOException {
+        if (!buffer.hasRemaining() && !fill()) {
+            return -1;
+        }
+        return buffer.get() & 0xff;
+    }
+
+    /**
+     * Reading the next block of data into the empty buffer.
+     *
+     * @return False at the end of the data, otherwise true
+     */
+    private boolean fill() throws IOException {
+        buffer.clear();
+        int count;
+        do {
+            count = channel.read(buffer);
+        } while (count == 0);
+        buffer.flip();
+        return count != -1;
+    }
+
+    private static boolean isSpace(int b) {
+        return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+    }
+
+    private IOException error(String message) {
+        return new IOException(message + " (line " + line + ")");
+    }
+}
@@ -70,6 +70,45 @@ public class Node {
         return y;
     }
 
+    /**
+     *
+     * @return The coordinates packed into one number, see key(int, int)
+     */
+    public long getKey() {
+        return key(x, y);
+    }
+
+    /**
+     * Packing the coordinates of a position into one number, with the
+     * x-coordinate in the high 32 bits, so that every position of any grid
+     * has a different key.
+     *
+     * @param x The x-coordinate
+     * @param y The y-coordinate
+     * @return The packed coordinates
+     */
+    public static long key(int x, int y) {
+        return ((long) x << 32) | (y & 0xffffffffL);
+    }
+
+    /**
+     *
+     * @param key Packed coordinates
+     * @return The x-coordinate
+     */
+    public static int keyX(long key) {
+        return (int) (key >> 32);
+    }
+
+    /**
+     *
+     * @param key Packed coordinates
+     * @return The y-coordinate
+     */
+    public static int keyY(long key) {
+        return (int) key;
+    }
+
     @Override
     public int hashCode() {
         int temp = (y + ((x + 1) / 2));
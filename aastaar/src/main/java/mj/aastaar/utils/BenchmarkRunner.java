@@ -0,0 +1,724 @@
+package mj.aastaar.utils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import mj.aastaar.Scenario;
+import mj.aastaar.algorithms.AStarWithArray;
+import mj.aastaar.algorithms.AStarWithHashMap;
+import mj.aastaar.algorithms.BidirectionalAStar;
+import mj.aastaar.algorithms.BidirectionalDijkstra;
+import mj.aastaar.algorithms.DijkstraWithArray;
+import mj.aastaar.algorithms.DijkstraWithHashMap;
+import mj.aastaar.algorithms.JumpPointSearch;
+import mj.aastaar.algorithms.JumpPointSearchPlus;
+import mj.aastaar.algorithms.PathfindingAlgorithm;
+import mj.aastaar.algorithms.SearchStats;
+import mj.aastaar.algorithms.contraction.ContractionHierarchySearch;
+import mj.aastaar.algorithms.cpd.CompressedPathSearch;
+import mj.aastaar.algorithms.heuristic.LandmarkHeuristic;
+import mj.aastaar.algorithms.hierarchical.HierarchicalPathfinding;
+import mj.aastaar.map.Grid;
+import mj.aastaar.map.MapLoader;
+import mj.aastaar.map.Node;
+
+/**
+ * A command-line benchmark of the pathfinding algorithms that does not need a
+ * display. The maps are loaded with Scenario.initGrids, and every chosen
+ * algorithm searches the same queries on every map: either queries drawn with
+ * a seeded random number generator, or the queries of a Moving AI scenario
+ * file. The time, the amount of expanded positions, the path length and the
+ * cost of every single search are written to a CSV or JSON file, and the
+ * latency percentiles of every algorithm are printed.
+ *
+ * Each algorithm first runs a warmup phase of unmeasured searches on the
+ * queries, which also builds the preprocessed data of the algorithms that
+ * build it at their first search. The searches are timed without a
+ * SearchStats object attached, and the expanded positions are counted in a
+ * second pass over the same queries, so that the engines that count do not
+ * pay for it in their times; the algorithms that do not count report -1
+ * expanded positions.
+ *
+ * Run with "gradle benchmark -PbenchmarkArgs=..." or directly, for example
+ * <code>java -cp aastaar.jar mj.aastaar.utils.BenchmarkRunner --algorithms
+ * AStarWithArray,JumpPointSearch --queries 500 --seed 7 --output
+ * results.json maps/</code>.
+ *
+ * @author MJ
+ */
+public class BenchmarkRunner {
+
+    /**
+     * The names of the algorithms that can be benchmarked.
+     */
+    public static final String[] ALGORITHMS = {"DijkstraWithArray", "DijkstraWithHashMap",
+        "AStarWithArray", "AStarWithHashMap", "BidirectionalDijkstra", "BidirectionalAStar",
+        "JumpPointSearch", "JumpPointSearchPlus", "HierarchicalPathfinding",
+        "ContractionHierarchySearch", "CompressedPathSearch", "AStarWithLandmarks"};
+
+    /**
+     * The characters of impassable terrain on the bundled maps, as in Main.
+     */
+    public static final char[] IMPASSABLE = {'T', 'W', '@'};
+
+    /**
+     * The edge weight of heavier terrain on the bundled maps, as in Main.
+     */
+    public static final double HEAVY_EDGE_WEIGHT = 2.0;
+
+    /**
+     * The amount of seeded random queries per map by default.
+     */
+    public static final int DEFAULT_QUERIES = 100;
+
+    /**
+     * The amount of unmeasured searches of each algorithm by default.
+     */
+    public static final int DEFAULT_WARMUP = 100;
+
+    private static final int ATTEMPTS_PER_QUERY = 100;
+    private static final String HEADER = "map,algorithm,query,start_x,start_y,goal_x,goal_y,"
+            + "time_ns,expanded,length,cost";
+    private static final String USAGE = "Usage: BenchmarkRunner [options] <map files or directories>\n"
+            + "  --algorithms <names>  Comma-separated algorithms, default AStarWithArray\n"
+            + "  --directions <4|8>    Allowed directions of movement, default 8\n"
+            + "  --queries <n>         Seeded random queries per map, default " + DEFAULT_QUERIES + "\n"
+            + "  --seed <n>            Seed of the random queries, default 1\n"
+            + "  --scenario <file>     Queries from a Moving AI scenario file instead\n"
+            + "  --warmup <n>          Unmeasured searches per algorithm, default " + DEFAULT_WARMUP + "\n"
+            + "  --threads <n>         Maps loaded at the same time, default one per processor\n"
+            + "  --output <file>       Result file, .json for JSON, default benchmark.csv,\n"
+            + "                        the last one counts\n"
+            + "Algorithms: " + String.join(", ", ALGORITHMS);
+
+    /**
+     * The measurements of one search.
+     */
+    public static class Result {
+
+        private final String map;
+        private final String algorithm;
+        private final int query;
+        private final Node start;
+        private final Node goal;
+        private final long nanos;
+        private final long expanded;
+        private final int length;
+        private final double cost;
+
+        Result(String map, String algorithm, int query, Node start, Node goal, long nanos,
+                long expanded, int length, double cost) {
+            this.map = map;
+            this.algorithm = algorithm;
+            this.query = query;
+            this.start = start;
+            this.goal = goal;
+            this.nanos = nanos;
+            this.expanded = expanded;
+            this.length = length;
+            this.cost = cost;
+        }
+
+        /**
+         *
+         * @return The file name of the map
+         */
+        public String getMap() {
+            return map;
+        }
+
+        /**
+         *
+         * @return The name of the algorithm
+         */
+        public String getAlgorithm() {
+            return algorithm;
+        }
+
+        /**
+         *
+         * @return The index of the query on its map
+         */
+        public int getQuery() {
+            return query;
+        }
+
+        /**
+         *
+         * @return The start node
+         */
+        public Node getStart() {
+            return start;
+        }
+
+        /**
+         *
+         * @return The goal node
+         */
+        public Node getGoal() {
+            return goal;
+        }
+
+        /**
+         *
+         * @return The time of the search in nanoseconds
+         */
+        public long getNanos() {
+            return nanos;
+        }
+
+        /**
+         *
+         * @return The amount of expanded positions, or -1 if the algorithm
+         * does not count them
+         */
+        public long getExpanded() {
+            return expanded;
+        }
+
+        /**
+         *
+         * @return The amount of steps in the path, or -1 if none was found
+         */
+        public int getLength() {
+            return length;
+        }
+
+        /**
+         *
+         * @return The cost of the path, or -1 if none was found
+         */
+        public double getCost() {
+            return cost;
+        }
+
+        /**
+         *
+         * @return The result as a CSV line without the line break
+         */
+        public String toCsv() {
+            return map + "," + algorithm + "," + query + "," + start.getX() + "," + start.getY()
+                    + "," + goal.getX() + "," + goal.getY() + "," + nanos + "," + expanded
+                    + "," + length + "," + formatCost();
+        }
+
+        /**
+         *
+         * @return The result as a JSON object
+         */
+        public String toJson() {
+            return "{\"map\": \"" + escape(map) + "\", \"algorithm\": \"" + algorithm
+                    + "\", \"query\": " + query + ", \"start\": [" + start.getX() + ", "
+                    + start.getY() + "], \"goal\": [" + goal.getX() + ", " + goal.getY()
+                    + "], \"time_ns\": " + nanos + ", \"expanded\": " + expanded
+                    + ", \"length\": " + length + ", \"cost\": " + formatCost() + "}";
+        }
+
+        private String formatCost() {
+            return String.format(Locale.ROOT, "%.6f", cost);
+        }
+    }
+
+    private final List<Path> maps;
+    private String[] algorithms;
+    private int directions;
+    private int queries;
+    private long seed;
+    private Path scenarioFile;
+    private int warmup;
+    private int threads;
+
+    /**
+     * A benchmark of A* with 8 directions on the default amount of seeded
+     * random queries.
+     *
+     * @param maps Map and grid files, and directories containing them
+     */
+    public BenchmarkRunner(List<Path> maps) {
+        this.maps = maps;
+        this.algorithms = new String[]{"AStarWithArray"};
+        this.directions = 8;
+        this.queries = DEFAULT_QUERIES;
+        this.seed = 1;
+        this.warmup = DEFAULT_WARMUP;
+        this.threads = Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * The command-line program. Exits with status 1 if the arguments are
+     * invalid or nothing could be measured.
+     *
+     * @param args Command-line arguments, see the usage
+     */
+    public static void main(String[] args) {
+        BenchmarkRunner runner;
+        Path output;
+        try {
+            output = outputFile(args);
+            runner = parse(args);
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage() + "\n" + USAGE);
+            System.exit(1);
+            return;
+        }
+        List<Result> results = runner.run();
+        if (results.isEmpty()) {
+            System.out.println("Nothing was measured.");
+            System.exit(1);
+        }
+        try {
+            Path parent = output.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            try (Writer writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+                if (output.toString().endsWith(".json")) {
+                    writeJson(results, writer);
+                } else {
+                    writeCsv(results, writer);
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("Writing the results failed: " + e.getMessage());
+            System.exit(1);
+        }
+        System.out.println(summary(results));
+        System.out.println("Wrote " + results.size() + " results to " + output + ".");
+    }
+
+    /**
+     * Reading the options and the maps of the command line.
+     *
+     * @param args Command-line arguments, see the usage
+     * @return The configured benchmark
+     * @throws IllegalArgumentException If an option is unknown or invalid
+     */
+    public static BenchmarkRunner parse(String[] args) {
+        List<Path> maps = new ArrayList<>();
+        BenchmarkRunner runner = new BenchmarkRunner(maps);
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (!arg.startsWith("--")) {
+                maps.add(Paths.get(arg));
+                continue;
+            }
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value of " + arg);
+            }
+            String value = args[++i];
+            switch (arg) {
+                case "--algorithms":
+                    runner.setAlgorithms(value.split(","));
+                    break;
+                case "--directions":
+                    runner.setDirections(parseInt(arg, value));
+                    break;
+                case "--queries":
+                    runner.setQueries(parseInt(arg, value), runner.seed);
+                    break;
+                case "--seed":
+                    runner.setQueries(runner.queries, parseLong(arg, value));
+                    break;
+                case "--scenario":
+                    runner.setScenarioFile(Paths.get(value));
+                    break;
+                case "--warmup":
+                    runner.setWarmup(parseInt(arg, value));
+                    break;
+                case "--threads":
+                    runner.setThreads(parseInt(arg, value));
+                    break;
+                case "--output":
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + arg);
+            }
+        }
+        if (maps.isEmpty()) {
+            throw new IllegalArgumentException("No maps given.");
+        }
+        return runner;
+    }
+
+    /**
+     *
+     * @param algorithms The names of the algorithms, see ALGORITHMS
+     * @throws IllegalArgumentException If a name is unknown
+     */
+    public void setAlgorithms(String[] algorithms) {
+        for (String algorithm : algorithms) {
+            if (!Arrays.asList(ALGORITHMS).contains(algorithm)) {
+                throw new IllegalArgumentException("Unknown algorithm " + algorithm);
+            }
+        }
+        this.algorithms = algorithms.clone();
+    }
+
+    /**
+     *
+     * @param directions The allowed directions of movement, 4 or 8
+     * @throws IllegalArgumentException If the directions are not 4 or 8
+     */
+    public void setDirections(int directions) {
+        if (directions != 4 && directions != 8) {
+            throw new IllegalArgumentException("Directions must be 4 or 8.");
+        }
+        this.directions = directions;
+    }
+
+    /**
+     * Using seeded random queries. The same seed gives the same queries on
+     * the same map.
+     *
+     * @param queries The amount of queries per map
+     * @param seed The seed of the random number generator
+     * @throws IllegalArgumentException If the amount is less than one
+     */
+    public void setQueries(int queries, long seed) {
+        if (queries < 1) {
+            throw new IllegalArgumentException("At least one query is needed.");
+        }
+        this.queries = queries;
+        this.seed = seed;
+    }
+
+    /**
+     * Using the queries of a Moving AI scenario file instead of random ones.
+     * A query is used on the map that has the file name given in the query.
+     *
+     * @param scenarioFile The scenario file, or null for random queries
+     */
+    public void setScenarioFile(Path scenarioFile) {
+        this.scenarioFile = scenarioFile;
+    }
+
+    /**
+     *
+     * @param warmup The amount of unmeasured searches per algorithm and map
+     * @throws IllegalArgumentException If the amount is negative
+     */
+    public void setWarmup(int warmup) {
+        if (warmup < 0) {
+            throw new IllegalArgumentException("Negative warmup: " + warmup);
+        }
+        this.warmup = warmup;
+    }
+
+    /**
+     *
+     * @param threads The largest amount of maps loaded at the same time
+     * @throws IllegalArgumentException If the amount is less than one
+     */
+    public void setThreads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("At least one thread is needed.");
+        }
+        this.threads = threads;
+    }
+
+    /**
+     * Loading the maps and measuring every algorithm on every query of every
+     * map. The maps that fail to load are skipped.
+     *
+     * @return The results in the order of the maps, algorithms and queries
+     */
+    public List<Result> run() {
+        List<Result> results = new ArrayList<>();
+        Scenario scenario = new Scenario();
+        List<MapLoader.Result> loaded = scenario.initGrids(maps, IMPASSABLE,
+                HEAVY_EDGE_WEIGHT, threads);
+        List<String[]> scenarioLines = null;
+        if (scenarioFile != null) {
+            try {
+                scenarioLines = readScenario(scenarioFile);
+            } catch (IOException e) {
+                System.out.println("Error reading the scenario file:\n" + e);
+                return results;
+            }
+        }
+        int index = 0;
+        for (MapLoader.Result map : loaded) {
+            if (!map.isLoaded()) {
+                continue;
+            }
+            String name = map.getPath().getFileName().toString();
+            Grid grid = map.getGrid();
+            scenario.setGridIndex(index++);
+            scenario.setGrid(grid);
+            Node[][] mapQueries = scenarioLines == null
+                    ? randomQueries(grid, queries, seed)
+                    : scenarioQueries(scenarioLines, name, grid);
+            if (mapQueries[0].length == 0) {
+                System.out.println(name + ": no queries.");
+                continue;
+            }
+            for (String algorithm : algorithms) {
+                if (directions != 8 && algorithm.startsWith("JumpPointSearch")) {
+                    System.out.println(algorithm + " requires 8 directions, skipped.");
+                    continue;
+                }
+                measure(name, algorithm, create(algorithm, scenario, directions), mapQueries,
+                        results);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Creating an algorithm by its name for the current grid of a scenario.
+     * JPS+ uses the jump point table and A* with landmarks the ALT landmark
+     * table of the scenario, which are stored next to the map file instead of
+     * being computed again.
+     *
+     * @param name The name of the algorithm, see ALGORITHMS
+     * @param scenario Scenario with the grid of the algorithm
+     * @param directions The amount of allowed directions of the searches
+     * @return The algorithm
+     * @throws IllegalArgumentException If the name is unknown
+     */
+    public static PathfindingAlgorithm create(String name, Scenario scenario, int directions) {
+        Grid grid = scenario.getGrid();
+        switch (name) {
+            case "DijkstraWithArray":
+                return new DijkstraWithArray(grid);
+            case "DijkstraWithHashMap":
+                return new DijkstraWithHashMap(grid);
+            case "AStarWithArray":
+                return new AStarWithArray(grid);
+            case "AStarWithHashMap":
+                return new AStarWithHashMap(grid);
+            case "BidirectionalDijkstra":
+                return new BidirectionalDijkstra(grid);
+            case "BidirectionalAStar":
+                return new BidirectionalAStar(grid);
+            case "JumpPointSearch":
+                return new JumpPointSearch(grid);
+            case "JumpPointSearchPlus":
+                return new JumpPointSearchPlus(grid, scenario.getJumpTable());
+            case "HierarchicalPathfinding":
+                return new HierarchicalPathfinding(grid);
+            case "ContractionHierarchySearch":
+                return new ContractionHierarchySearch(grid);
+            case "CompressedPathSearch":
+                return new CompressedPathSearch(grid);
+            case "AStarWithLandmarks":
+                return new AStarWithArray(grid,
+                        new LandmarkHeuristic(grid, scenario.getLandmarkTable(directions)));
+            default:
+                throw new IllegalArgumentException("Unknown algorithm " + name);
+        }
+    }
+
+    /**
+     * Drawing pairs of valid positions that are connected to each other.
+     *
+     * @param grid Pathfinding grid
+     * @param count The amount of queries
+     * @param seed The seed of the random number generator
+     * @return The start nodes and the goal nodes of the queries, fewer than
+     * the given amount if not enough connected pairs were found
+     */
+    static Node[][] randomQueries(Grid grid, int count, long seed) {
+        Random random = new Random(seed);
+        List<Node> starts = new ArrayList<>();
+        List<Node> goals = new ArrayList<>();
+        long attempts = (long) count * ATTEMPTS_PER_QUERY;
+        for (long i = 0; i < attempts && starts.size() < count; i++) {
+            Node start = new Node(random.nextInt(grid.getLength()), random.nextInt(grid.getRowLength()), 0.0);
+            Node goal = new Node(random.nextInt(grid.getLength()), random.nextInt(grid.getRowLength()), 0.0);
+            if (grid.nodeIsValid(start) && grid.nodeIsValid(goal) && grid.isReachable(start, goal)) {
+                starts.add(start);
+                goals.add(goal);
+            }
+        }
+        return new Node[][]{starts.toArray(new Node[0]), goals.toArray(new Node[0])};
+    }
+
+    /**
+     * The queries of a scenario file on one map. Moving AI scenarios give the
+     * x-coordinate as the column, so the coordinates are swapped to the rows
+     * and columns of the grid. Queries with invalid positions are skipped.
+     *
+     * @param lines The fields of the query lines of the scenario file
+     * @param map The file name of the map
+     * @param grid Pathfinding grid
+     * @return The start nodes and the goal nodes of the queries
+     */
+    static Node[][] scenarioQueries(List<String[]> lines, String map, Grid grid) {
+        List<Node> starts = new ArrayList<>();
+        List<Node> goals = new ArrayList<>();
+        for (String[] fields : lines) {
+            if (!Paths.get(fields[1]).getFileName().toString().equals(map)) {
+                continue;
+            }
+            Node start = new Node(Integer.parseInt(fields[5]), Integer.parseInt(fields[4]), 0.0);
+            Node goal = new Node(Integer.parseInt(fields[7]), Integer.parseInt(fields[6]), 0.0);
+            if (grid.nodeIsValid(start) && grid.nodeIsValid(goal)) {
+                starts.add(start);
+                goals.add(goal);
+            }
+        }
+        return new Node[][]{starts.toArray(new Node[0]), goals.toArray(new Node[0])};
+    }
+
+    /**
+     * Reading the query lines of a Moving AI scenario file: bucket, map,
+     * map width, map height, start x, start y, goal x, goal y and the
+     * optimal length, separated by tabs.
+     *
+     * @param file The scenario file
+     * @return The fields of every query line
+     * @throws IOException If the file can not be read or a line is invalid
+     */
+    static List<String[]> readScenario(Path file) throws IOException {
+        List<String[]> lines = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.trim().isEmpty() || line.startsWith("version")) {
+                    continue;
+                }
+                String[] fields = line.trim().split("\t");
+                if (fields.length < 8 || !isNumbers(fields, 4, 8)) {
+                    throw new IOException("Invalid scenario line: " + line);
+                }
+                lines.add(fields);
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Writing the results as CSV with a header line.
+     *
+     * @param results The results
+     * @param writer The writer, which is not closed
+     * @throws IOException If the writing fails
+     */
+    public static void writeCsv(List<Result> results, Writer writer) throws IOException {
+        writer.write(HEADER + "\n");
+        for (Result result : results) {
+            writer.write(result.toCsv() + "\n");
+        }
+    }
+
+    /**
+     * Writing the results as a JSON array with one object per line.
+     *
+     * @param results The results
+     * @param writer The writer, which is not closed
+     * @throws IOException If the writing fails
+     */
+    public static void writeJson(List<Result> results, Writer writer) throws IOException {
+        writer.write("[");
+        for (int i = 0; i < results.size(); i++) {
+            writer.write(i == 0 ? "\n  " : ",\n  ");
+            writer.write(results.get(i).toJson());
+        }
+        writer.write("\n]\n");
+    }
+
+    /**
+     * The latency percentiles of every algorithm on every map.
+     *
+     * @param results The results
+     * @return One line per map and algorithm
+     */
+    public static String summary(List<Result> results) {
+        String lines = "";
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < results.size(); i++) {
+            Result result = results.get(i);
+            histogram.record(result.getNanos());
+            if (i + 1 == results.size() || !results.get(i + 1).getMap().equals(result.getMap())
+                    || !results.get(i + 1).getAlgorithm().equals(result.getAlgorithm())) {
+                lines += result.getMap() + " " + result.getAlgorithm() + ": " + histogram + "\n";
+                histogram.reset();
+            }
+        }
+        return lines.trim();
+    }
+
+    /**
+     * Running the warmup, timing every query with one algorithm, and then
+     * searching the queries again with the counters on.
+     */
+    private void measure(String map, String name, PathfindingAlgorithm algorithm,
+            Node[][] mapQueries, List<Result> results) {
+        Node[] starts = mapQueries[0];
+        Node[] goals = mapQueries[1];
+        for (int i = 0; i < warmup; i++) {
+            algorithm.search(starts[i % starts.length], goals[i % goals.length], directions);
+        }
+        algorithm.setStats(null);
+        long[] nanos = new long[starts.length];
+        int[] lengths = new int[starts.length];
+        double[] costs = new double[starts.length];
+        for (int i = 0; i < starts.length; i++) {
+            long t = System.nanoTime();
+            lengths[i] = algorithm.search(starts[i], goals[i], directions);
+            nanos[i] = System.nanoTime() - t;
+            costs[i] = lengths[i] < 0 ? -1 : algorithm.getCost(goals[i]);
+        }
+        algorithm.setStats(new SearchStats());
+        SearchStats stats = algorithm.getStats();
+        for (int i = 0; i < starts.length; i++) {
+            long expanded = -1;
+            if (stats != null) {
+                algorithm.search(starts[i], goals[i], directions);
+                expanded = stats.getExpanded();
+            }
+            results.add(new Result(map, name, i, starts[i], goals[i], nanos[i], expanded,
+                    lengths[i], costs[i]));
+        }
+        algorithm.setStats(null);
+    }
+
+    private static Path outputFile(String[] args) {
+        Path output = Paths.get("benchmark.csv");
+        for (int i = 0; i + 1 < args.length; i++) {
+            if (args[i].equals("--output")) {
+                output = Paths.get(args[++i]);
+            }
+        }
+        return output;
+    }
+
+    private static int parseInt(String option, String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid value of " + option + ": " + value);
+        }
+    }
+
+    private static long parseLong(String option, String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid value of " + option + ": " + value);
+        }
+    }
+
+    private static boolean isNumbers(String[] fields, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (!fields[i].matches("-?\\d+")) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String escape(String s) {
+        return s.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+}
@@ -0,0 +1,248 @@
+package mj.aastaar.utils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.Locale;
+
+/**
+ * A histogram of latencies in nanoseconds with logarithmic buckets, in the
+ * manner of HdrHistogram. Values below 128 have a bucket each, and every
+ * larger power of two is split into 64 buckets of equal width, so a bucket
+ * is at most about 1.6 % wide relative to its values. Recording a value
+ * only increments a counter, so every single search can be recorded, and
+ * the histogram takes the same 30 kB of memory for any amount of values.
+ *
+ * Histograms can be merged, and written to and read from CSV files with
+ * one line per non-empty bucket, so that the runs can be compared later.
+ *
+ * @author MJ
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BITS = 7;
+    private static final int HALF = 1 << (SUB_BITS - 1);
+    private static final int BUCKETS = 2 * HALF + (63 - SUB_BITS) * HALF;
+    private static final String HEADER = "low_ns,high_ns,count,percentile";
+
+    private final long[] counts;
+    private long count;
+    private long min;
+    private long max;
+    private double sum;
+
+    /**
+     * An empty histogram.
+     */
+    public LatencyHistogram() {
+        counts = new long[BUCKETS];
+        min = Long.MAX_VALUE;
+        max = 0;
+    }
+
+    /**
+     * Recording one value. Negative values are recorded as zero.
+     *
+     * @param nanos The latency in nanoseconds
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts[index(value)]++;
+        count++;
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Adding the values of another histogram.
+     *
+     * @param other The histogram whose values are added
+     */
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] += other.counts[i];
+        }
+        count += other.count;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * Removing every value.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = 0;
+        }
+        count = 0;
+        sum = 0;
+        min = Long.MAX_VALUE;
+        max = 0;
+    }
+
+    /**
+     *
+     * @return The amount of recorded values
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     *
+     * @return The smallest recorded value, or 0 if the histogram is empty
+     */
+    public long getMin() {
+        return count == 0 ? 0 : min;
+    }
+
+    /**
+     *
+     * @return The largest recorded value, or 0 if the histogram is empty
+     */
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     *
+     * @return The exact mean of the recorded values, or 0 if the histogram
+     * is empty
+     */
+    public double getMean() {
+        return count == 0 ? 0 : sum / count;
+    }
+
+    /**
+     * The value below or at which the given percentage of the values are,
+     * given as the largest value of its bucket but at most the largest
+     * recorded value.
+     *
+     * @param percentile The percentage, from 0 to 100
+     * @return The value at the percentile, or 0 if the histogram is empty
+     */
+    public long getPercentile(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        double p = Math.min(Math.max(percentile, 0), 100);
+        long rank = Math.max(1, (long) Math.ceil(p / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.max(Math.min(high(i), max), getMin());
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Writing the non-empty buckets as CSV lines of the lowest and highest
+     * value of the bucket, its count and the percentage of values at or
+     * below the bucket.
+     *
+     * @param writer The writer of the CSV data, which is not closed
+     * @throws IOException If the writing fails
+     */
+    public void write(Writer writer) throws IOException {
+        writer.write(HEADER + "\n");
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            if (counts[i] > 0) {
+                seen += counts[i];
+                writer.write(low(i) + "," + high(i) + "," + counts[i] + ","
+                        + String.format(Locale.ROOT, "%.4f", 100.0 * seen / count) + "\n");
+            }
+        }
+    }
+
+    /**
+     * Reading a histogram written with write. The values of a bucket are
+     * restored as its lowest value, so the mean, min and max are those of
+     * the buckets.
+     *
+     * @param reader The reader of the CSV data, which is not closed
+     * @return The histogram
+     * @throws IOException If the data can not be read or is not a histogram
+     */
+    public static LatencyHistogram read(Reader reader) throws IOException {
+        BufferedReader lines = new BufferedReader(reader);
+        String line = lines.readLine();
+        if (line == null || !line.equals(HEADER)) {
+            throw new IOException("Not a latency histogram.");
+        }
+        LatencyHistogram histogram = new LatencyHistogram();
+        while ((line = lines.readLine()) != null) {
+            if (line.isEmpty()) {
+                continue;
+            }
+            String[] fields = line.split(",");
+            try {
+                long low = Long.parseLong(fields[0]);
+                long n = Long.parseLong(fields[2]);
+                if (fields.length != 4 || low < 0 || n < 1) {
+                    throw new IOException("Invalid bucket: " + line);
+                }
+                histogram.counts[index(low)] += n;
+                histogram.count += n;
+                histogram.sum += (double) low * n;
+                histogram.min = Math.min(histogram.min, low);
+                histogram.max = Math.max(histogram.max, low);
+            } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                throw new IOException("Invalid bucket: " + line);
+            }
+        }
+        return histogram;
+    }
+
+    /**
+     * The mean and the usual percentiles in milliseconds.
+     *
+     * @return Summary of the histogram
+     */
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT,
+                "n %d, mean %.3f ms, p50 %.3f ms, p90 %.3f ms, p99 %.3f ms, p99.9 %.3f ms, max %.3f ms",
+                count, getMean() / 1e6, getPercentile(50) / 1e6, getPercentile(90) / 1e6,
+                getPercentile(99) / 1e6, getPercentile(99.9) / 1e6, getMax() / 1e6);
+    }
+
+    /**
+     * The bucket of a value. The values below 2 * HALF are their own
+     * buckets, and above them every power of two has HALF buckets.
+     */
+    private static int index(long value) {
+        if (value < 2 * HALF) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS + 1;
+        int sub = (int) (value >>> shift);
+        return 2 * HALF + (shift - 1) * HALF + sub - HALF;
+    }
+
+    private static long low(int index) {
+        if (index < 2 * HALF) {
+            return index;
+        }
+        int shift = (index - 2 * HALF) / HALF + 1;
+        long sub = (index - 2 * HALF) % HALF + HALF;
+        return sub << shift;
+    }
+
+    private static long high(int index) {
+        if (index < 2 * HALF) {
+            return index;
+        }
+        int shift = (index - 2 * HALF) / HALF + 1;
+        long sub = (index - 2 * HALF) % HALF + HALF;
+        if (index == BUCKETS - 1) {
+            return Long.MAX_VALUE;
+        }
+        return ((sub + 1) << shift) - 1;
+    }
+}
@@ -1,8 +1,13 @@
 package mj.aastaar.utils;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
 import java.lang.reflect.Constructor;
 import java.math.BigDecimal;
 import java.math.MathContext;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import mj.aastaar.Scenario;
 import mj.aastaar.algorithms.AlgorithmVisualization;
 import mj.aastaar.algorithms.PathfindingAlgorithm;
@@ -13,16 +18,32 @@ import mj.aastaar.map.Node;
  * Testing the performance of pathfinding algorithms. Tries to follow the
  * example from the course testing materials.
  *
+ * Before an algorithm is measured, it searches paths between random
+ * positions for a warmup phase, so that the virtual machine has compiled the
+ * search before the times are taken. Every measured search is also recorded
+ * in a latency histogram of the algorithm, which gives the percentiles of
+ * the search times on the current map, and can be written to CSV files to
+ * compare the runs.
+ *
  * @author MJ
  */
 public class PathfindingPerformanceTester {
 
+    /**
+     * The amount of searches in the warmup phase of each algorithm.
+     */
+    public static final int DEFAULT_WARMUP = 100;
+
     private Scenario scenario;
+    private int warmup;
     private int[] nums;
     private double[] initTimes;
     private double[][] times;
     private Node[][] startNodes;
     private Node[][] goalNodes;
+    private Node[] warmupStarts;
+    private Node[] warmupGoals;
+    private LatencyHistogram[] histograms;
 
     /**
      * The constructor for the PathfindingPerformanceTester class.
@@ -31,7 +52,24 @@ public class PathfindingPerformanceTester {
      * initialized grid
      */
     public PathfindingPerformanceTester(Scenario scenario) {
+        this(scenario, DEFAULT_WARMUP);
+    }
+
+    /**
+     * The constructor for the PathfindingPerformanceTester class with the
+     * amount of warmup searches.
+     *
+     * @param scenario Pathfinding scenario with helpful methods and an
+     * initialized grid
+     * @param warmup The amount of searches that are run and discarded
+     * before each algorithm is measured
+     */
+    public PathfindingPerformanceTester(Scenario scenario, int warmup) {
+        if (warmup < 0) {
+            throw new IllegalArgumentException("Negative warmup: " + warmup);
+        }
         this.scenario = scenario;
+        this.warmup = warmup;
     }
 
     /**
@@ -50,13 +88,16 @@ public class PathfindingPerformanceTester {
         this.nums = nums;
         times = new double[algoVisuals.length][nums.length];
         initTimes = new double[algoVisuals.length];
+        histograms = new LatencyHistogram[algoVisuals.length];
         double initReps = 2;
         initRandomPositions();
 
         for (int i = 0; i < algoVisuals.length; i++) {
 //            System.out.println("Testing " + algoVisuals[i].getName());
+            histograms[i] = new LatencyHistogram();
+            warmUp(algoVisuals[i].getAlgorithm());
             for (int j = 0; j < nums.length; j++) {
-                times[i][j] = testAlgorithm(algoVisuals[i].getAlgorithm(), j, nums[j]);
+                times[i][j] = testAlgorithm(algoVisuals[i].getAlgorithm(), j, nums[j], histograms[i]);
             }
             for (int j = 0; j < initReps; j++) {
                 initTimes[i] = testAlgorithmInit(algoVisuals[i].getAlgorithm(), i);
@@ -76,10 +117,82 @@ public class PathfindingPerformanceTester {
                 BigDecimal ms = new BigDecimal(times[i][j] / 1000000);
                 results += n + " positions: " + ms.round(new MathContext(4)) + " ms" + "\n";
             }
+            results += latencyResults(histograms[i]);
         }
         return results;
     }
 
+    /**
+     *
+     * @return The amount of searches in the warmup phase of each algorithm
+     */
+    public int getWarmup() {
+        return warmup;
+    }
+
+    /**
+     * The latencies of every measured search of an algorithm in the last
+     * run, without the warmup phase.
+     *
+     * @param i The index of the algorithm in the algorithm visuals of the
+     * scenario
+     * @return The latency histogram, or null if the tests have not been run
+     */
+    public LatencyHistogram getHistogram(int i) {
+        if (histograms == null || i < 0 || i >= histograms.length) {
+            return null;
+        }
+        return histograms[i];
+    }
+
+    /**
+     * Writing the latency histogram of every algorithm of the last run to
+     * a CSV file in a directory. The files are named with the prefix and the
+     * name of the algorithm, for example Rosewood-A_w_2D-array.csv for
+     * "A* w/ 2D-array" on the map Rosewood, so that the runs on different
+     * maps or versions can be kept apart.
+     *
+     * @param directory The directory of the files, created if it is missing
+     * @param prefix The beginning of the file names, such as the name of the
+     * map
+     * @return The amount of written files
+     */
+    public int exportHistograms(File directory, String prefix) {
+        if (histograms == null) {
+            System.out.println("No results to export.");
+            return 0;
+        }
+        int written = 0;
+        try {
+            Files.createDirectories(directory.toPath());
+            for (int i = 0; i < histograms.length; i++) {
+                String name = scenario.getAlgorithmVisuals()[i].getName().replaceAll("[^A-Za-z0-9-]+", "_");
+                File file = new File(directory, prefix + "-" + name + ".csv");
+                try (Writer writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+                    histograms[i].write(writer);
+                }
+                written++;
+            }
+        } catch (IOException e) {
+            System.out.println("Exporting the histograms failed: " + e.getMessage());
+        }
+        return written;
+    }
+
+    private String latencyResults(LatencyHistogram histogram) {
+        String results = "All " + histogram.getCount() + " searches:\n";
+        results += "mean " + toMs(histogram.getMean()) + " ms, max " + toMs(histogram.getMax()) + " ms\n";
+        results += "p50 " + toMs(histogram.getPercentile(50))
+                + " ms, p90 " + toMs(histogram.getPercentile(90)) + " ms\n";
+        results += "p99 " + toMs(histogram.getPercentile(99))
+                + " ms, p99.9 " + toMs(histogram.getPercentile(99.9)) + " ms\n";
+        return results;
+    }
+
+    private BigDecimal toMs(double nanos) {
+        return new BigDecimal(nanos / 1000000).round(new MathContext(4));
+    }
+
     private String initResults(int i) {
         String results = "";
         BigDecimal ms = new BigDecimal(initTimes[i] / 1000000);
@@ -115,13 +228,16 @@ public class PathfindingPerformanceTester {
      * every given starting and goal position, the path is calculated 50 times,
      * and the average of those results is added to the result times. The
      * parameter num determines how many of those results are calculated.
+     * The time of every single search is recorded in the histogram.
      *
      * @param algorithm The pathfinding algorithm
      * @param numIndex An index in the nums array that the test run was given
      * @param num The number of results generated
+     * @param histogram The latencies of the algorithm
      * @return The average runtime
      */
-    private double testAlgorithm(PathfindingAlgorithm algorithm, int numIndex, int num) {
+    private double testAlgorithm(PathfindingAlgorithm algorithm, int numIndex, int num,
+            LatencyHistogram histogram) {
         long algoTimes[] = new long[num];
         long tAcc = 0;
         int n = 50;
@@ -130,7 +246,9 @@ public class PathfindingPerformanceTester {
             for (int j = 0; j < n; j++) {
                 long t = System.nanoTime();
                 int pathLength = algorithm.search(startNodes[numIndex][i], goalNodes[numIndex][i], 4);
-                tAcc += System.nanoTime() - t;
+                long elapsed = System.nanoTime() - t;
+                tAcc += elapsed;
+                histogram.record(elapsed);
                 if (pathLength < 0) {
 //                    System.out.println("fail at (" + numIndex + ", " + i + ")");
                 }
@@ -142,6 +260,17 @@ public class PathfindingPerformanceTester {
         return getAverage(algoTimes);
     }
 
+    /**
+     * Searching paths between the warmup positions without measuring them.
+     *
+     * @param algorithm The pathfinding algorithm
+     */
+    private void warmUp(PathfindingAlgorithm algorithm) {
+        for (int i = 0; i < warmup; i++) {
+            algorithm.search(warmupStarts[i], warmupGoals[i], 4);
+        }
+    }
+
     /**
      * Calculating the average of run times.
      *
@@ -168,5 +297,12 @@ public class PathfindingPerformanceTester {
                 goalNodes[i][j] = scenario.getGoal();
             }
         }
+        warmupStarts = new Node[warmup];
+        warmupGoals = new Node[warmup];
+        for (int i = 0; i < warmup; i++) {
+            scenario.initRandomPositions();
+            warmupStarts[i] = scenario.getStart();
+            warmupGoals[i] = scenario.getGoal();
+        }
     }
 }
@@ -0,0 +1,104 @@
+package mj.aastaar.utils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Supplier;
+
+/**
+ * Loading and storing the precomputed tables of the maps, such as the JPS+
+ * jump distances and the ALT landmark costs.
+ *
+ * A table is looked up from a file, and then from a class path resource next
+ * to the map, and computed if neither matches the grid. A computed table is
+ * only stored in the file, never on the class path, where a clean build would
+ * delete it.
+ *
+ * @author MJ
+ */
+public class TableStore {
+
+    /**
+     * Reading a table from a stream.
+     *
+     * @param <T> The type of the table
+     */
+    public interface Loader<T> {
+
+        /**
+         *
+         * @param is Input stream of a table file
+         * @return The table
+         * @throws IOException If the stream can not be read, or the table
+         * does not match the grid
+         */
+        T load(InputStream is) throws IOException;
+    }
+
+    /**
+     * Writing a table to a file.
+     *
+     * @param <T> The type of the table
+     */
+    public interface Saver<T> {
+
+        /**
+         *
+         * @param table The table
+         * @param file Table file
+         * @throws IOException If the file can not be written
+         */
+        void save(T table, File file) throws IOException;
+    }
+
+    private TableStore() {
+    }
+
+    /**
+     * Loading a stored table, or computing the table and storing it in the
+     * file.
+     *
+     * @param <T> The type of the table
+     * @param name The kind of the table for the messages
+     * @param file Table file, or null if the table is not stored in a file
+     * @param resource Class path resource of the table, or null if the table
+     * is not looked up from the class path
+     * @param loader Reading the table
+     * @param builder Computing the table
+     * @param saver Writing the table
+     * @return The table
+     */
+    public static <T> T loadOrBuild(String name, File file, String resource,
+            Loader<T> loader, Supplier<T> builder, Saver<T> saver) {
+        if (file != null && file.isFile()) {
+            try (InputStream is = new FileInputStream(file)) {
+                return loader.load(is);
+            } catch (IOException e) {
+                System.out.println("Recomputing the " + name + " " + file + ":\n" + e);
+            }
+        } else if (resource != null) {
+            ClassLoader cl = Thread.currentThread().getContextClassLoader();
+            try (InputStream is = cl.getResourceAsStream(resource)) {
+                if (is != null) {
+                    return loader.load(is);
+                }
+            } catch (IOException e) {
+                System.out.println("Recomputing the " + name + " " + resource + ":\n" + e);
+            }
+        }
+        T table = builder.get();
+        if (file != null) {
+            try {
+                File directory = file.getAbsoluteFile().getParentFile();
+                if (directory != null) {
+                    directory.mkdirs();
+                }
+                saver.save(table, file);
+            } catch (IOException e) {
+                System.out.println("Error when attempting to store the " + name + ":\n" + e);
+            }
+        }
+        return table;
+    }
+}
@@ -0,0 +1,81 @@
+package aastaar;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import mj.aastaar.Scenario;
+import mj.aastaar.algorithms.JumpPointTable;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for the Scenario class.
+ *
+ * @author MJ
+ */
+public class ScenarioTest {
+
+    private static final String[] MAP_PATHS = {"testmaps/test.map"};
+    private static final char[] IMPASSABLE = {'T', 'W', '@'};
+
+    private File directory;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("tables").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        delete(directory);
+    }
+
+    @Test
+    public void jumpTableOfAClassPathMapIsStoredInTheTableDirectory() {
+        Scenario scenario = newScenario(directory);
+        assertNotNull(scenario.getJumpTable());
+        assertTrue(new File(directory, "testmaps/test.jps").isFile());
+    }
+
+    @Test
+    public void secondScenarioLoadsTheStoredJumpTable() {
+        JumpPointTable built = newScenario(directory).getJumpTable();
+        File file = new File(directory, "testmaps/test.jps");
+        assertTrue(file.setLastModified(1000));
+
+        JumpPointTable loaded = newScenario(directory).getJumpTable();
+        assertNotSame(built, loaded);
+        assertEquals(1000, file.lastModified());
+        assertTrue(loaded.matches(newScenario(null).getGrid()));
+        for (int direction = 0; direction < 8; direction++) {
+            assertEquals(built.distance(1, 1, direction), loaded.distance(1, 1, direction));
+        }
+    }
+
+    @Test
+    public void jumpTableIsNotStoredWithoutATableDirectory() {
+        assertNotNull(newScenario(null).getJumpTable());
+        assertFalse(new File(directory, "testmaps/test.jps").exists());
+    }
+
+    private Scenario newScenario(File tableDirectory) {
+        Scenario scenario = new Scenario();
+        scenario.setTableDirectory(tableDirectory);
+        scenario.initGrids(MAP_PATHS, IMPASSABLE, 2.0);
+        return scenario;
+    }
+
+    private static void delete(File file) {
+        File[] files = file.listFiles();
+        if (files != null) {
+            for (File child : files) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
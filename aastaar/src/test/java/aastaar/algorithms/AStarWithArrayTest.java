@@ -3,6 +3,9 @@ package aastaar.algorithms;
 import static org.junit.Assert.*;
 
 import mj.aastaar.algorithms.AStarWithArray;
+import mj.aastaar.algorithms.heuristic.GridHeuristic;
+import mj.aastaar.algorithms.heuristic.Heuristic;
+import mj.aastaar.datastructures.OpenList;
 import mj.aastaar.map.Grid;
 import mj.aastaar.map.Node;
 
@@ -149,4 +152,38 @@ public class AStarWithArrayTest {
         assertEquals(2.0, astar.getCost(goal), 0.0);
     }
 
+    @Test
+    public void usesTheGivenHeuristic() {
+        final int[] estimates = new int[1];
+        Heuristic zero = new Heuristic() {
+            @Override
+            public double estimate(Node node, Node goal, int directions) {
+                estimates[0]++;
+                return 0.0;
+            }
+        };
+        AStarWithArray search = new AStarWithArray(grid, zero);
+        assertEquals(4, search.search(new Node(3, 3, 0), new Node(1, 1, 0), 4));
+        assertTrue(estimates[0] > 0);
+        assertSame(zero, search.getHeuristic());
+    }
+
+    @Test
+    public void bothOpenListsFindTheSameCosts() {
+        AStarWithArray indexed = new AStarWithArray(grid, new GridHeuristic(grid), OpenList.INDEXED_HEAP);
+        AStarWithArray nodes = new AStarWithArray(grid, new GridHeuristic(grid), OpenList.NODE_HEAP);
+        Node start = new Node(2, 2, 0);
+        Node[] goals = {new Node(3, 0, 0), new Node(3, 1, 0), new Node(4, 0, 0), new Node(0, 1, 0)};
+        for (Node goal : goals) {
+            for (int directions = 4; directions <= 8; directions += 4) {
+                assertEquals(nodes.search(start, goal, directions), indexed.search(start, goal, directions));
+                assertEquals(nodes.getCost(goal), indexed.getCost(goal), 1e-9);
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownOpenListsAreRejected() {
+        new AStarWithArray(grid, new GridHeuristic(grid), -1);
+    }
 }
@@ -0,0 +1,256 @@
+package aastaar.algorithms;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+import mj.aastaar.algorithms.BidirectionalAStar;
+import mj.aastaar.algorithms.DijkstraWithArray;
+import mj.aastaar.algorithms.heuristic.LandmarkHeuristic;
+import mj.aastaar.algorithms.heuristic.LandmarkTable;
+import mj.aastaar.map.Grid;
+import mj.aastaar.map.Node;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for the bidirectional A* algorithm.
+ * 
+ * @author MJ
+ */
+public class BidirectionalAStarTest {
+
+    private BidirectionalAStar astar;
+    private Grid grid;
+
+    @Before
+    public void setUp() {
+        char[][] gridArray = {
+            {'T', '.', 'W', '@', '@'},
+            {'T', '.', 'W', 'W', '@'},
+            {'W', '.', '.', '.', 'T'},
+            {'S', 'S', '.', '.', '.'},
+            {'.', '.', '.', 'T', 'T'}
+        };
+        char[] impassable = {'T', 'W', '@'};
+        double heavyEdgeWeight = 2.0;
+        grid = new Grid(gridArray, impassable, heavyEdgeWeight);
+        astar = new BidirectionalAStar(grid);
+    }
+
+    @Test
+    public void findsTheCorrectPathLengthOfAStraightLinePath() {
+        Node start = new Node(2, 1, 0);
+        Node goal = new Node(2, 3, 0);
+        int shortestPathLength = astar.search(start, goal, 4);
+        assertEquals(2, shortestPathLength);
+    }
+
+    @Test
+    public void findsTheCorrectPathLengthOfACurvedPath() {
+        Node start = new Node(3, 3, 0);
+        Node goal = new Node(1, 1, 0);
+        int shortestPathLength = astar.search(start, goal, 4);
+        assertEquals(4, shortestPathLength);
+    }
+
+    @Test
+    public void findsTheCorrectPathLengthGoingAroundShallowWater() {
+        Node start = new Node(2, 2, 0);
+        Node goal = new Node(3, 0, 0);
+        int shortestPathLength = astar.search(start, goal, 4);
+        assertEquals(5, shortestPathLength);
+    }
+    
+    @Test
+    public void findsTheCorrectPathLengthGoingThroughShallowWater() {
+        Node start = new Node(2, 2, 0);
+        Node goal = new Node(3, 1, 0);
+        int shortestPathLength = astar.search(start, goal, 4);
+        assertEquals(2, shortestPathLength);
+    }
+    
+    @Test
+    public void findsTheCorrectPathLengthToTheLeftEdge() {
+        Node start = new Node(1, 1, 0);
+        Node goal = new Node(4, 0, 0);
+        int shortestPathLength = astar.search(start, goal, 4);
+        assertEquals(6, shortestPathLength);
+    }
+    
+    @Test
+    public void findsTheCorrectPathLengthToTheRightEdge() {
+        Node start = new Node(2, 2, 0);
+        Node goal = new Node(3, 4, 0);
+        int shortestPathLength = astar.search(start, goal, 4);
+        assertEquals(3, shortestPathLength);
+    }
+    
+    @Test
+    public void findsTheCorrectPathLengthToTheTopEdge() {
+        Node start = new Node(2, 2, 0);
+        Node goal = new Node(0, 1, 0);
+        int shortestPathLength = astar.search(start, goal, 4);
+        assertEquals(3, shortestPathLength);
+    }
+
+    @Test
+    public void findsTheCorrectPathLengthToTheBottomEdge() {
+        Node start = new Node(2, 2, 0);
+        Node goal = new Node(4, 0, 0);
+        int shortestPathLength = astar.search(start, goal, 4);
+        assertEquals(4, shortestPathLength);
+    }
+    
+    @Test
+    public void noPathForImpassableStart() {
+        Node start = new Node(0, 0, 0);
+        Node goal = new Node(2, 2, 0);
+        int shortestPathLength = astar.search(start, goal, 4);
+        assertEquals(-1, shortestPathLength);
+    }
+    
+    @Test
+    public void noPathForOutOfBoundsStart() {
+        Node start = new Node(-1, -1, 0);
+        Node goal = new Node(2, 2, 0);
+        int shortestPathLength = astar.search(start, goal, 4);
+        assertEquals(-1, shortestPathLength);
+    }
+
+    @Test
+    public void noPathForImpassableGoal() {
+        Node start = new Node(1, 1, 0);
+        Node goal = new Node(0, 4, 0);
+        int shortestPathLength = astar.search(start, goal, 4);
+        assertEquals(-1, shortestPathLength);
+    }
+    
+    @Test
+    public void noPathForOutOfBoundsGoal() {
+        Node start = new Node(1, 1, 0);
+        Node goal = new Node(-1, -1, 0);
+        int shortestPathLength = astar.search(start, goal, 4);
+        assertEquals(-1, shortestPathLength);
+    }
+        
+    @Test
+    public void costIsSetCorrectlyThroughShallowWater() {
+        Node start = new Node(2, 2, 0);
+        Node goal = new Node(3, 1, 0);
+        int shortestPathLength = astar.search(start, goal, 4);
+        assertEquals(2, shortestPathLength);
+        assertEquals(4.0, astar.getCost(goal), 0.0);
+    }
+    
+    @Test
+    public void costIsSetCorrectlyOnGround() {
+        Node start = new Node(2, 1, 0);
+        Node goal = new Node(2, 3, 0);
+        int shortestPathLength = astar.search(start, goal, 4);
+        assertEquals(2, shortestPathLength);
+        assertEquals(2.0, astar.getCost(goal), 0.0);
+    }
+
+    @Test
+    public void findsTheSameCostsOnTwoThreads() {
+        BidirectionalAStar parallel = new BidirectionalAStar(grid, true);
+        Node start = new Node(1, 1, 0);
+        Node goal = new Node(4, 0, 0);
+        assertEquals(6, parallel.search(start, goal, 4));
+        assertEquals(astar.search(start, goal, 4), parallel.search(start, goal, 4));
+        assertEquals(astar.getCost(goal), parallel.getCost(goal), 0.0);
+    }
+
+    @Test
+    public void findsTheCorrectPathWithDiagonalMoves() {
+        Node start = new Node(1, 1, 0);
+        Node goal = new Node(4, 0, 0);
+        int shortestPathLength = astar.search(start, goal, 8);
+        assertEquals(4, shortestPathLength);
+        assertEquals(2.0 + 2 * Math.sqrt(2), astar.getCost(goal), 0.000001);
+    }
+
+    @Test
+    public void joinedPathLeadsFromStartToGoal() {
+        Node start = new Node(1, 1, 0);
+        Node goal = new Node(2, 3, 0);
+        int shortestPathLength = astar.search(start, goal, 4);
+        Node[] expected = {
+            new Node(2, 1, 0),
+            new Node(2, 2, 0),
+            new Node(2, 3, 0)
+        };
+        assertArrayEquals(expected, astar.getPath().shortestPath(goal, start, shortestPathLength));
+    }
+
+    @Test
+    public void startIsAlsoTheGoal() {
+        Node start = new Node(2, 2, 0);
+        assertEquals(0, astar.search(start, new Node(2, 2, 0), 4));
+        assertEquals(0.0, astar.getCost(start), 0.0);
+    }
+
+    @Test
+    public void noPathToAnEnclosedGoal() {
+        char[][] gridArray = {
+            {'.', '.', 'T', '.'},
+            {'.', '.', 'T', '.'},
+            {'T', 'T', 'T', '.'}
+        };
+        char[] impassable = {'T'};
+        astar = new BidirectionalAStar(new Grid(gridArray, impassable, 2.0), true);
+        Node goal = new Node(0, 3, 0);
+        assertEquals(-1, astar.search(new Node(0, 0, 0), goal, 4));
+        assertEquals(-1, astar.getCost(goal), 0.0);
+    }
+
+    @Test
+    public void firstMeetingIsNotTheShortestPath() {
+        char[][] gridArray = {
+            {'.', 'S', '.'},
+            {'.', '.', '.'}
+        };
+        astar = new BidirectionalAStar(new Grid(gridArray, new char[]{'T'}, 10.0));
+        Node goal = new Node(0, 2, 0);
+        assertEquals(4, astar.search(new Node(0, 0, 0), goal, 4));
+        assertEquals(4.0, astar.getCost(goal), 0.0);
+    }
+
+    @Test
+    public void costsAreTheCostsOfDijkstraOnARandomMapWithEitherHeuristic() {
+        Grid randomGrid = randomGrid(new Random(11), 40, 30);
+        BidirectionalAStar[] searches = {new BidirectionalAStar(randomGrid),
+            new BidirectionalAStar(randomGrid, true),
+            new BidirectionalAStar(randomGrid, false,
+                    new LandmarkHeuristic(randomGrid, LandmarkTable.build(randomGrid, 8)))};
+        DijkstraWithArray reference = new DijkstraWithArray(randomGrid);
+        Random random = new Random(12);
+        for (int i = 0; i < 200; i++) {
+            Node start = new Node(random.nextInt(40), random.nextInt(30), 0);
+            Node goal = new Node(random.nextInt(40), random.nextInt(30), 0);
+            if (!randomGrid.nodeIsValid(start) || !randomGrid.nodeIsValid(goal)) {
+                continue;
+            }
+            int directions = (i % 2 == 0) ? 4 : 8;
+            int length = reference.search(start, goal, directions);
+            for (BidirectionalAStar search : searches) {
+                assertEquals(length < 0, search.search(start, goal, directions) < 0);
+                if (length >= 0) {
+                    assertEquals(reference.getCost(goal), search.getCost(goal), 0.000001);
+                }
+            }
+        }
+    }
+
+    private static Grid randomGrid(Random random, int length, int rowLength) {
+        char[][] gridArray = new char[length][rowLength];
+        for (int x = 0; x < length; x++) {
+            for (int y = 0; y < rowLength; y++) {
+                int r = random.nextInt(10);
+                gridArray[x][y] = (r < 3) ? 'T' : (r < 5) ? 'S' : '.';
+            }
+        }
+        return new Grid(gridArray, new char[]{'T'}, 2.0);
+    }
+}
@@ -3,6 +3,7 @@ package aastaar.algorithms;
 import static org.junit.Assert.*;
 
 import mj.aastaar.algorithms.DijkstraWithArray;
+import mj.aastaar.datastructures.OpenList;
 import mj.aastaar.map.Grid;
 import mj.aastaar.map.Node;
 
@@ -147,4 +148,61 @@ public class DijkstraWithArrayTest {
         assertEquals(2, shortestPathLength);
         assertEquals(2.0, ucs.getCost(goal), 0.0);
     }
+
+    @Test
+    public void unreachableGoalIsRejectedWithoutSearching() {
+        char[][] gridArray = {
+            {'.', '.', 'W', '.'},
+            {'.', '.', 'W', '.'},
+            {'W', 'W', 'W', '.'},
+            {'.', '.', '.', '.'}
+        };
+        Grid walled = new Grid(gridArray, new char[]{'W'}, 2.0);
+        DijkstraWithArray search = new DijkstraWithArray(walled);
+        Node goal = new Node(3, 3, 0);
+        assertEquals(-1, search.search(new Node(0, 0, 0), goal, 4));
+        assertEquals(-1, search.getCost(goal), 0.0);
+        for (boolean[] row : search.getVisited()) {
+            for (boolean visited : row) {
+                assertFalse(visited);
+            }
+        }
+    }
+
+    @Test
+    public void resultsStayValidAfterAnotherSearchOnTheSameThread() {
+        Node start = new Node(2, 2, 0);
+        Node goal = new Node(3, 1, 0);
+        assertEquals(2, ucs.search(start, goal, 4));
+        boolean[][] expected = ucs.getVisited();
+        DijkstraWithArray other = new DijkstraWithArray(grid);
+        assertEquals(6, other.search(new Node(1, 1, 0), new Node(4, 0, 0), 4));
+        assertEquals(4.0, ucs.getCost(goal), 0.0);
+        Node[] path = ucs.getPath().shortestPath(goal, start, 2);
+        assertEquals(new Node(3, 2, 0), path[0]);
+        assertEquals(goal, path[1]);
+        assertArrayEquals(expected, ucs.getVisited());
+    }
+
+    @Test
+    public void everyOpenListFindsTheSameCosts() {
+        Node start = new Node(2, 2, 0);
+        Node[] goals = {new Node(3, 0, 0), new Node(3, 1, 0), new Node(4, 0, 0), new Node(1, 1, 0)};
+        for (int kind = OpenList.INDEXED_HEAP; kind <= OpenList.RADIX_HEAP; kind++) {
+            DijkstraWithArray search = new DijkstraWithArray(grid, kind);
+            assertEquals(kind, search.getOpenList());
+            for (Node goal : goals) {
+                for (int directions = 4; directions <= 8; directions += 4) {
+                    assertEquals(ucs.search(start, goal, directions), search.search(start, goal, directions));
+                    assertEquals(ucs.getCost(goal), search.getCost(goal), 1e-9);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void integralPrioritiesOnlyWithoutDiagonalMoves() {
+        assertTrue(ucs.integralPriorities(4));
+        assertFalse(ucs.integralPriorities(8));
+    }
 }
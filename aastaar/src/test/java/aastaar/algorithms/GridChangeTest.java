@@ -0,0 +1,145 @@
+package aastaar.algorithms;
+
+import static org.junit.Assert.*;
+
+import mj.aastaar.algorithms.AStarWithArray;
+import mj.aastaar.algorithms.DijkstraWithArray;
+import mj.aastaar.algorithms.JumpPointSearchPlus;
+import mj.aastaar.algorithms.JumpPointTable;
+import mj.aastaar.algorithms.PathfindingAlgorithm;
+import mj.aastaar.algorithms.contraction.ContractionHierarchySearch;
+import mj.aastaar.algorithms.cpd.CompressedPathSearch;
+import mj.aastaar.algorithms.heuristic.LandmarkHeuristic;
+import mj.aastaar.algorithms.heuristic.LandmarkTable;
+import mj.aastaar.algorithms.hierarchical.HierarchicalPathfinding;
+import mj.aastaar.map.Grid;
+import mj.aastaar.map.Node;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for the algorithms with precomputed data when the grid is
+ * changed after the data was computed.
+ *
+ * @author MJ
+ */
+public class GridChangeTest {
+
+    private Grid grid;
+    private Node start;
+    private Node goal;
+
+    @Before
+    public void setUp() {
+        char[][] gridArray = new char[6][6];
+        for (int x = 0; x < 6; x++) {
+            for (int y = 0; y < 6; y++) {
+                gridArray[x][y] = '.';
+            }
+        }
+        grid = new Grid(gridArray, new char[]{'T', 'W', '@'}, 2.0);
+        start = new Node(0, 0, 0);
+        goal = new Node(5, 0, 0);
+    }
+
+    @Test
+    public void modificationsAreCounted() {
+        assertEquals(0, grid.getModifications());
+        grid.setCell(3, 3, 'T');
+        grid.setCell(3, 3, '.');
+        assertEquals(2, grid.getModifications());
+    }
+
+    @Test
+    public void searchesDoNotCrossAWallAddedAfterTheFirstSearch() {
+        PathfindingAlgorithm[] searches = {new ContractionHierarchySearch(grid),
+            new CompressedPathSearch(grid), new JumpPointSearchPlus(grid),
+            new HierarchicalPathfinding(grid, 3),
+            new AStarWithArray(grid, new LandmarkHeuristic(grid, LandmarkTable.build(grid, 8)))};
+        for (PathfindingAlgorithm search : searches) {
+            assertTrue(search.search(start, goal, 8) > 0);
+        }
+        addWall();
+        double shortest = shortestCost();
+        for (PathfindingAlgorithm search : searches) {
+            int steps = search.search(start, goal, 8);
+            assertPathIsValid(search, steps);
+            if (search instanceof HierarchicalPathfinding) {
+                assertTrue(search.getCost(goal) >= shortest - 0.0001);
+            } else {
+                assertEquals(shortest, search.getCost(goal), 0.0001);
+            }
+        }
+    }
+
+    @Test
+    public void precomputedDataOfTheOldTerrainIsRecomputed() {
+        JumpPointSearchPlus jps = new JumpPointSearchPlus(grid, JumpPointTable.build(grid));
+        JumpPointTable table = jps.getTable();
+        addWall();
+        jps.search(start, goal, 8);
+        assertNotSame(table, jps.getTable());
+        assertTrue(jps.getTable().matches(grid));
+    }
+
+    @Test
+    public void unchangedTerrainKeepsThePrecomputedData() {
+        JumpPointSearchPlus jps = new JumpPointSearchPlus(grid);
+        JumpPointTable table = jps.getTable();
+        grid.setCell(3, 3, '.');
+        jps.search(start, goal, 8);
+        assertSame(table, jps.getTable());
+    }
+
+    @Test
+    public void landmarksOfTheOldTerrainAreNotUsed() {
+        char[][] gridArray = new char[6][6];
+        for (int x = 0; x < 6; x++) {
+            for (int y = 0; y < 6; y++) {
+                gridArray[x][y] = (x == 3 && y < 5) ? 'T' : '.';
+            }
+        }
+        grid = new Grid(gridArray, new char[]{'T', 'W', '@'}, 2.0);
+        LandmarkHeuristic heuristic = new LandmarkHeuristic(grid, LandmarkTable.build(grid, 8));
+        for (int y = 0; y < 5; y++) {
+            grid.setCell(3, y, '.');
+        }
+        assertEquals(grid.heuristic(start, goal, 8), heuristic.estimate(start, goal, 8), 0.0);
+        PathfindingAlgorithm search = new AStarWithArray(grid, heuristic);
+        search.search(start, goal, 8);
+        assertEquals(shortestCost(), search.getCost(goal), 0.0001);
+    }
+
+    /**
+     * A wall along x = 3 with a gap at y = 5.
+     */
+    private void addWall() {
+        for (int y = 0; y < 5; y++) {
+            grid.setCell(3, y, 'T');
+        }
+    }
+
+    private double shortestCost() {
+        DijkstraWithArray dijkstra = new DijkstraWithArray(grid);
+        dijkstra.search(start, goal, 8);
+        return dijkstra.getCost(goal);
+    }
+
+    private void assertPathIsValid(PathfindingAlgorithm search, int steps) {
+        assertTrue(steps > 0);
+        Node[] path = search.getPath().shortestPath(goal, start, steps);
+        assertEquals(goal, path[steps - 1]);
+        Node previous = start;
+        double cost = 0.0;
+        for (Node step : path) {
+            int dx = Math.abs(step.getX() - previous.getX());
+            int dy = Math.abs(step.getY() - previous.getY());
+            assertTrue(dx <= 1 && dy <= 1 && dx + dy > 0);
+            assertTrue(grid.nodeIsValid(step));
+            cost += grid.cost(previous, step);
+            previous = step;
+        }
+        assertEquals(search.getCost(goal), cost, 0.0001);
+    }
+}
@@ -0,0 +1,134 @@
+package aastaar.algorithms;
+
+import static org.junit.Assert.*;
+
+import mj.aastaar.algorithms.JumpPointSearch;
+import mj.aastaar.map.Grid;
+import mj.aastaar.map.Node;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for the Jump Point Search algorithm.
+ * 
+ * @author MJ
+ */
+public class JumpPointSearchTest {
+
+    private Grid grid;
+    private JumpPointSearch jps;
+
+    @Before
+    public void setUp() {
+        char[][] gridArray = {
+            {'T', '.', 'W', '@', '@'},
+            {'T', '.', 'W', 'W', '@'},
+            {'W', '.', '.', '.', 'T'},
+            {'S', 'S', '.', '.', '.'},
+            {'.', '.', '.', 'T', 'T'}
+        };
+        char[] impassable = {'T', 'W', '@'};
+        double heavyEdgeWeight = 2.0;
+        grid = new Grid(gridArray, impassable, heavyEdgeWeight);
+        jps = new JumpPointSearch(grid);
+    }
+
+    @Test
+    public void findsTheCorrectPathLengthOfAStraightLinePath() {
+        Node start = new Node(2, 1, 0);
+        Node goal = new Node(2, 3, 0);
+        int shortestPathLength = jps.search(start, goal, 8);
+        assertEquals(2, shortestPathLength);
+        assertEquals(2.0, jps.getCost(goal), 0.0);
+    }
+
+    @Test
+    public void findsTheCorrectPathLengthOfADiagonalPath() {
+        Node start = new Node(3, 3, 0);
+        Node goal = new Node(1, 1, 0);
+        int shortestPathLength = jps.search(start, goal, 8);
+        assertEquals(3, shortestPathLength);
+        assertEquals(2.0 + Math.sqrt(2), jps.getCost(goal), 0.000001);
+    }
+
+    @Test
+    public void doesNotCutCorners() {
+        Node start = new Node(2, 3, 0);
+        Node goal = new Node(3, 4, 0);
+        int shortestPathLength = jps.search(start, goal, 8);
+        assertEquals(2, shortestPathLength);
+        assertEquals(2.0, jps.getCost(goal), 0.0);
+    }
+
+    @Test
+    public void prefersStraightMovesWhenTheDiagonalEntersShallowWater() {
+        Node start = new Node(2, 2, 0);
+        Node goal = new Node(3, 1, 0);
+        int shortestPathLength = jps.search(start, goal, 8);
+        assertEquals(2, shortestPathLength);
+        assertEquals(4.0, jps.getCost(goal), 0.0);
+    }
+
+    @Test
+    public void findsTheCorrectPathGoingAroundShallowWater() {
+        Node start = new Node(2, 2, 0);
+        Node goal = new Node(3, 0, 0);
+        int shortestPathLength = jps.search(start, goal, 8);
+        assertEquals(4, shortestPathLength);
+        assertEquals(5.0 + Math.sqrt(2), jps.getCost(goal), 0.000001);
+    }
+
+    @Test
+    public void shortestPathContainsEveryStepBetweenJumpPoints() {
+        Node start = new Node(1, 1, 0);
+        Node goal = new Node(4, 0, 0);
+        int shortestPathLength = jps.search(start, goal, 8);
+        Node[] expected = {
+            new Node(2, 1, 0),
+            new Node(3, 2, 0),
+            new Node(4, 1, 0),
+            new Node(4, 0, 0)
+        };
+        assertArrayEquals(expected, jps.getPath().shortestPath(goal, start, shortestPathLength));
+    }
+
+    @Test
+    public void noPathWithFourDirections() {
+        Node start = new Node(2, 1, 0);
+        Node goal = new Node(2, 3, 0);
+        int shortestPathLength = jps.search(start, goal, 4);
+        assertEquals(-1, shortestPathLength);
+    }
+
+    @Test
+    public void noPathForImpassableStart() {
+        Node start = new Node(0, 0, 0);
+        Node goal = new Node(2, 2, 0);
+        int shortestPathLength = jps.search(start, goal, 8);
+        assertEquals(-1, shortestPathLength);
+    }
+
+    @Test
+    public void noPathForOutOfBoundsGoal() {
+        Node start = new Node(1, 1, 0);
+        Node goal = new Node(-1, -1, 0);
+        int shortestPathLength = jps.search(start, goal, 8);
+        assertEquals(-1, shortestPathLength);
+    }
+
+    @Test
+    public void noPathToAnEnclosedGoal() {
+        char[][] gridArray = {
+            {'.', '.', 'T', '.'},
+            {'.', '.', 'T', '.'},
+            {'T', 'T', 'T', '.'}
+        };
+        char[] impassable = {'T'};
+        jps = new JumpPointSearch(new Grid(gridArray, impassable, 2.0));
+        Node start = new Node(0, 0, 0);
+        Node goal = new Node(0, 3, 0);
+        assertEquals(-1, jps.search(start, goal, 8));
+        assertEquals(-1, jps.getCost(goal), 0.0);
+    }
+}
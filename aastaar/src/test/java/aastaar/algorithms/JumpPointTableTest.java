@@ -0,0 +1,152 @@
+package aastaar.algorithms;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Arrays;
+import mj.aastaar.algorithms.JumpPointTable;
+import mj.aastaar.map.Grid;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for the JumpPointTable class.
+ * 
+ * @author MJ
+ */
+public class JumpPointTableTest {
+
+    private Grid grid;
+    private JumpPointTable table;
+
+    @Before
+    public void setUp() {
+        char[][] gridArray = {
+            {'.', '.', '.', '.', '.'},
+            {'.', 'T', '.', '.', '.'},
+            {'.', '.', '.', '.', 'S'}
+        };
+        char[] impassable = {'T'};
+        grid = new Grid(gridArray, impassable, 2.0);
+        table = JumpPointTable.build(grid);
+    }
+
+    @Test
+    public void distanceToAWallIsNegative() {
+        char[][] corridor = {
+            {'.', '.', '.', '.'}
+        };
+        JumpPointTable corridorTable = JumpPointTable.build(new Grid(corridor, new char[]{'T'}, 2.0));
+        int right = JumpPointTable.direction(0, 1);
+        assertEquals(-3, corridorTable.distance(0, 0, right));
+        assertEquals(0, corridorTable.distance(0, 3, right));
+    }
+
+    @Test
+    public void distanceToAForcedNeighbourIsPositive() {
+        int right = JumpPointTable.direction(0, 1);
+        // moving right past the 'T' at (1, 1) forces a turn down at (0, 2)
+        assertEquals(2, table.distance(0, 0, right));
+    }
+
+    @Test
+    public void terrainBorderIsAJumpPoint() {
+        int right = JumpPointTable.direction(0, 1);
+        // (1, 3) and (2, 3) are next to the shallow water at (2, 4)
+        assertEquals(1, table.distance(2, 2, right));
+    }
+
+    @Test
+    public void diagonalMoveCuttingACornerIsBlocked() {
+        int downRight = JumpPointTable.direction(1, 1);
+        assertEquals(0, table.distance(0, 0, downRight));
+    }
+
+    @Test
+    public void tableMatchesTheGridItWasBuiltFor() {
+        assertTrue(table.matches(grid));
+        char[][] otherArray = {
+            {'.', '.', '.', '.', '.'},
+            {'.', '.', '.', '.', '.'},
+            {'.', '.', '.', '.', 'S'}
+        };
+        assertFalse(table.matches(new Grid(otherArray, new char[]{'T'}, 2.0)));
+    }
+
+    @Test
+    public void savedTableIsLoadedWithTheSameDistances() throws IOException {
+        File file = File.createTempFile("aastaar", ".jps");
+        file.deleteOnExit();
+        table.save(file);
+        JumpPointTable loaded;
+        try (InputStream is = new FileInputStream(file)) {
+            loaded = JumpPointTable.load(is, grid);
+        }
+        for (int x = 0; x < grid.getLength(); x++) {
+            for (int y = 0; y < grid.getRowLength(); y++) {
+                for (int direction = 0; direction < 8; direction++) {
+                    assertEquals(table.distance(x, y, direction), loaded.distance(x, y, direction));
+                }
+            }
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void loadingATableForAnotherGridFails() throws IOException {
+        File file = File.createTempFile("aastaar", ".jps");
+        file.deleteOnExit();
+        table.save(file);
+        char[][] otherArray = {
+            {'.', '.'},
+            {'.', '.'}
+        };
+        try (InputStream is = new FileInputStream(file)) {
+            JumpPointTable.load(is, new Grid(otherArray, new char[]{'T'}, 2.0));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void headerWithAHugeSizeIsRejectedBeforeReadingTheDistances() throws IOException {
+        byte[] bytes = savedTable();
+        ByteBuffer.wrap(bytes).putInt(8, Integer.MAX_VALUE).putInt(12, Integer.MAX_VALUE);
+        JumpPointTable.load(new ByteArrayInputStream(bytes), grid);
+    }
+
+    @Test(expected = IOException.class)
+    public void headerWithANegativeSizeIsRejected() throws IOException {
+        byte[] bytes = savedTable();
+        ByteBuffer.wrap(bytes).putInt(8, -3);
+        JumpPointTable.load(new ByteArrayInputStream(bytes), grid);
+    }
+
+    @Test(expected = IOException.class)
+    public void truncatedTableIsRejected() throws IOException {
+        byte[] bytes = savedTable();
+        JumpPointTable.load(new ByteArrayInputStream(Arrays.copyOf(bytes, bytes.length - 5)), grid);
+    }
+
+    @Test(expected = IOException.class)
+    public void truncatedHeaderIsRejected() throws IOException {
+        JumpPointTable.load(new ByteArrayInputStream(Arrays.copyOf(savedTable(), 14)), grid);
+    }
+
+    @Test
+    public void tablePathReplacesTheMapExtension() {
+        assertEquals("mapdata/sc1-map/Rosewood.jps",
+                JumpPointTable.tablePath("mapdata/sc1-map/Rosewood.map"));
+    }
+
+    private byte[] savedTable() throws IOException {
+        File file = File.createTempFile("aastaar", ".jps");
+        file.deleteOnExit();
+        table.save(file);
+        return Files.readAllBytes(file.toPath());
+    }
+}
@@ -0,0 +1,97 @@
+package aastaar.algorithms;
+
+import static org.junit.Assert.*;
+
+import mj.aastaar.algorithms.SearchContext;
+import mj.aastaar.algorithms.SearchState;
+import mj.aastaar.datastructures.OpenList;
+import mj.aastaar.map.Grid;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for the reusable search arrays.
+ *
+ * @author MJ
+ */
+public class SearchContextTest {
+
+    private SearchContext context;
+
+    @Before
+    public void setUp() {
+        context = new SearchContext(3, 4);
+    }
+
+    @Test
+    public void reachedPositionsHaveACostAndParent() {
+        context.begin(null);
+        context.reach(5, 2.5, 4);
+        assertEquals(2.5, context.getCost(5), 0.0);
+        assertEquals(4, context.getParent(5));
+        assertEquals(SearchContext.INFINITY, context.getCost(4), 0.0);
+        assertEquals(-1, context.getParent(4));
+    }
+
+    @Test
+    public void aNewSearchForgetsThePreviousOne() {
+        context.begin(null);
+        context.reach(5, 2.5, 4);
+        context.close(5);
+        context.getOpenList(OpenList.INDEXED_HEAP).add(5, 2.5);
+        context.begin(null);
+        assertEquals(SearchContext.INFINITY, context.getCost(5), 0.0);
+        assertFalse(context.isClosed(5));
+        assertEquals(0, context.getTouchedCount());
+        assertTrue(context.getOpenList(OpenList.INDEXED_HEAP).isEmpty());
+    }
+
+    @Test
+    public void reachedPositionsAreCountedOnce() {
+        context.begin(null);
+        context.reach(7, 3.0, 6);
+        context.reach(2, 1.0, 1);
+        context.reach(7, 2.0, 3);
+        assertEquals(2, context.getTouchedCount());
+        assertEquals(7, context.getTouched(0));
+        assertEquals(2, context.getTouched(1));
+        assertEquals(3, context.getParent(7));
+    }
+
+    @Test
+    public void thePreviousOwnerIsAskedToRelease() {
+        SearchState[] released = new SearchState[1];
+        SearchContext.Owner first = c -> released[0] = c.snapshot();
+        context.begin(first);
+        context.reach(9, 4.0, 8);
+        context.close(9);
+        context.begin(first);
+        assertNull(released[0]);
+        context.reach(9, 4.0, 8);
+        context.close(9);
+        context.begin(c -> {
+        });
+        assertNotNull(released[0]);
+        assertEquals(4.0, released[0].getCost(9), 0.0);
+        assertEquals(8, released[0].getParent(9));
+        assertTrue(released[0].isClosed(9));
+        assertEquals(SearchContext.INFINITY, released[0].getCost(8), 0.0);
+    }
+
+    @Test
+    public void theThreadContextIsReusedForGridsOfTheSameSize() {
+        Grid a = new Grid(new char[3][4], new char[]{'T'}, 2.0);
+        Grid b = new Grid(new char[3][4], new char[]{'T'}, 2.0);
+        Grid c = new Grid(new char[4][3], new char[]{'T'}, 2.0);
+        SearchContext first = SearchContext.forGrid(a);
+        assertSame(first, SearchContext.forGrid(b));
+        assertTrue(SearchContext.forGrid(c).fits(c));
+        assertFalse(first == SearchContext.forGrid(c));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownOpenListsAreRejected() {
+        context.getOpenList(-1);
+    }
+}
@@ -0,0 +1,191 @@
+package aastaar.algorithms;
+
+import static org.junit.Assert.*;
+
+import mj.aastaar.algorithms.AStarWithArray;
+import mj.aastaar.algorithms.AStarWithHashMap;
+import mj.aastaar.algorithms.DijkstraWithArray;
+import mj.aastaar.algorithms.DijkstraWithHashMap;
+import mj.aastaar.algorithms.JumpPointSearch;
+import mj.aastaar.algorithms.JumpPointSearchPlus;
+import mj.aastaar.algorithms.PathfindingAlgorithm;
+import mj.aastaar.algorithms.SearchStats;
+import mj.aastaar.algorithms.contraction.ContractionHierarchySearch;
+import mj.aastaar.datastructures.OpenList;
+import mj.aastaar.map.Grid;
+import mj.aastaar.map.Node;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for the SearchStats class and the counting of the algorithms.
+ *
+ * @author MJ
+ */
+public class SearchStatsTest {
+
+    private Grid grid;
+    private Node start;
+    private Node goal;
+
+    @Before
+    public void setUp() {
+        char[][] gridArray = new char[20][20];
+        for (int x = 0; x < 20; x++) {
+            for (int y = 0; y < 20; y++) {
+                gridArray[x][y] = (y == 10 && x < 16) || (x == 5 && y > 12) ? 'T' : '.';
+            }
+        }
+        gridArray[8][3] = 'S';
+        gridArray[8][4] = 'S';
+        grid = new Grid(gridArray, new char[]{'T', 'W', '@'}, 2.0);
+        start = new Node(1, 1, 0);
+        goal = new Node(2, 18, 0);
+    }
+
+    @Test
+    public void algorithmsDoNotCountByDefault() {
+        assertNull(new DijkstraWithArray(grid).getStats());
+        assertNull(new DijkstraWithHashMap(grid).getStats());
+        assertNull(new JumpPointSearch(grid).getStats());
+    }
+
+    @Test
+    public void algorithmsWithoutCountingIgnoreTheCounters() {
+        PathfindingAlgorithm search = new ContractionHierarchySearch(grid);
+        search.setStats(new SearchStats());
+        assertNull(search.getStats());
+    }
+
+    @Test
+    public void countingDoesNotChangeTheResult() {
+        PathfindingAlgorithm[] searches = {new AStarWithArray(grid), new AStarWithHashMap(grid),
+            new JumpPointSearch(grid)};
+        for (PathfindingAlgorithm search : searches) {
+            int length = search.search(start, goal, 8);
+            double cost = search.getCost(goal);
+            search.setStats(new SearchStats());
+            assertEquals(length, search.search(start, goal, 8));
+            assertEquals(cost, search.getCost(goal), 0.0001);
+        }
+    }
+
+    @Test
+    public void everyPopIsTheGoalAStaleEntryOrAnExpansion() {
+        PathfindingAlgorithm[] searches = {new DijkstraWithArray(grid),
+            new DijkstraWithArray(grid, OpenList.NODE_HEAP), new AStarWithArray(grid),
+            new DijkstraWithHashMap(grid), new AStarWithHashMap(grid),
+            new JumpPointSearch(grid), new JumpPointSearchPlus(grid)};
+        for (PathfindingAlgorithm search : searches) {
+            SearchStats stats = new SearchStats();
+            search.setStats(stats);
+            assertTrue(search.search(start, goal, 8) > 0);
+            assertSame(stats, search.getStats());
+            assertTrue(stats.getExpanded() > 0);
+            assertEquals(stats.getExpanded() + stats.getStalePops() + 1, stats.getPops());
+            assertTrue(stats.getInserts() >= stats.getPops());
+            assertTrue(stats.getGenerated() >= stats.getInserts() - 1);
+            assertTrue(stats.getPeakOpenListSize() >= 1);
+            assertTrue(stats.getPeakOpenListSize() <= stats.getInserts());
+        }
+    }
+
+    @Test
+    public void dijkstraDoesNotReopenPositions() {
+        PathfindingAlgorithm[] searches = {new DijkstraWithArray(grid),
+            new DijkstraWithArray(grid, OpenList.NODE_HEAP), new DijkstraWithHashMap(grid)};
+        for (PathfindingAlgorithm search : searches) {
+            SearchStats stats = new SearchStats();
+            search.setStats(stats);
+            search.search(start, goal, 8);
+            assertEquals(0, stats.getReopenings());
+        }
+    }
+
+    @Test
+    public void aDecreaseKeyHeapHasNoStaleEntries() {
+        SearchStats stats = new SearchStats();
+        DijkstraWithArray search = new DijkstraWithArray(grid);
+        search.setStats(stats);
+        search.search(start, goal, 8);
+        assertEquals(0, stats.getStalePops());
+    }
+
+    @Test
+    public void aNodeHeapSkipsStaleEntries() {
+        SearchStats stats = new SearchStats();
+        DijkstraWithArray search = new DijkstraWithArray(grid, OpenList.NODE_HEAP);
+        search.setStats(stats);
+        search.search(start, goal, 8);
+        assertTrue(stats.getStalePops() > 0);
+    }
+
+    @Test
+    public void aStarExpandsFewerPositionsThanDijkstra() {
+        SearchStats dijkstra = new SearchStats();
+        SearchStats aStar = new SearchStats();
+        DijkstraWithArray ucs = new DijkstraWithArray(grid);
+        AStarWithArray astar = new AStarWithArray(grid);
+        ucs.setStats(dijkstra);
+        astar.setStats(aStar);
+        ucs.search(start, goal, 8);
+        astar.search(start, goal, 8);
+        assertTrue(aStar.getExpanded() < dijkstra.getExpanded());
+    }
+
+    @Test
+    public void theCountersAreResetForEverySearch() {
+        SearchStats stats = new SearchStats();
+        DijkstraWithHashMap search = new DijkstraWithHashMap(grid);
+        search.setStats(stats);
+        search.search(start, goal, 8);
+        long expanded = stats.getExpanded();
+        search.search(start, new Node(1, 2, 0), 8);
+        assertTrue(stats.getExpanded() < expanded);
+        assertTrue(stats.getPops() <= 9);
+    }
+
+    @Test
+    public void rejectedSearchesCountNothing() {
+        SearchStats stats = new SearchStats();
+        JumpPointSearch search = new JumpPointSearch(grid);
+        search.setStats(stats);
+        search.search(start, goal, 8);
+        assertEquals(-1, search.search(start, new Node(0, 10, 0), 8));
+        assertEquals(0, stats.getExpanded());
+        assertEquals(0, stats.getPops());
+        assertEquals(0, stats.getPeakOpenListSize());
+    }
+
+    @Test
+    public void allocatedBytesAreNotMeasuredByDefault() {
+        SearchStats stats = new SearchStats();
+        DijkstraWithHashMap search = new DijkstraWithHashMap(grid);
+        search.setStats(stats);
+        search.search(start, goal, 8);
+        assertEquals(-1, stats.getAllocatedBytes());
+    }
+
+    @Test
+    public void allocatedBytesAreMeasured() {
+        SearchStats stats = new SearchStats(true);
+        DijkstraWithHashMap search = new DijkstraWithHashMap(grid);
+        search.setStats(stats);
+        search.search(start, goal, 8);
+        assertTrue(stats.getAllocatedBytes() > 0);
+    }
+
+    @Test
+    public void settingNullStopsCounting() {
+        SearchStats stats = new SearchStats();
+        AStarWithArray search = new AStarWithArray(grid);
+        search.setStats(stats);
+        search.search(start, goal, 8);
+        long pops = stats.getPops();
+        search.setStats(null);
+        search.search(start, new Node(1, 2, 0), 8);
+        assertNull(search.getStats());
+        assertEquals(pops, stats.getPops());
+    }
+}
@@ -0,0 +1,180 @@
+package aastaar.algorithms.contraction;
+
+import static org.junit.Assert.*;
+
+import mj.aastaar.algorithms.DijkstraWithArray;
+import mj.aastaar.algorithms.contraction.ContractionHierarchy;
+import mj.aastaar.algorithms.contraction.ContractionHierarchySearch;
+import mj.aastaar.map.Grid;
+import mj.aastaar.map.Node;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for the contraction hierarchy queries.
+ *
+ * @author MJ
+ */
+public class ContractionHierarchySearchTest {
+
+    private ContractionHierarchySearch ch;
+    private Grid grid;
+
+    @Before
+    public void setUp() {
+        char[][] gridArray = {
+            {'T', '.', 'W', '@', '@'},
+            {'T', '.', 'W', 'W', '@'},
+            {'W', '.', '.', '.', 'T'},
+            {'S', 'S', '.', '.', '.'},
+            {'.', '.', '.', 'T', 'T'}
+        };
+        char[] impassable = {'T', 'W', '@'};
+        double heavyEdgeWeight = 2.0;
+        grid = new Grid(gridArray, impassable, heavyEdgeWeight);
+        ch = new ContractionHierarchySearch(grid);
+    }
+
+    @Test
+    public void findsTheCorrectPathLengthOfAStraightLinePath() {
+        Node start = new Node(2, 1, 0);
+        Node goal = new Node(2, 3, 0);
+        int shortestPathLength = ch.search(start, goal, 4);
+        assertEquals(2, shortestPathLength);
+    }
+
+    @Test
+    public void findsTheCorrectPathLengthOfACurvedPath() {
+        Node start = new Node(3, 3, 0);
+        Node goal = new Node(1, 1, 0);
+        int shortestPathLength = ch.search(start, goal, 4);
+        assertEquals(4, shortestPathLength);
+    }
+
+    @Test
+    public void findsTheCorrectPathLengthGoingAroundShallowWater() {
+        Node start = new Node(2, 2, 0);
+        Node goal = new Node(3, 0, 0);
+        int shortestPathLength = ch.search(start, goal, 4);
+        assertEquals(5, shortestPathLength);
+    }
+
+    @Test
+    public void findsTheCorrectPathLengthToTheLeftEdge() {
+        Node start = new Node(1, 1, 0);
+        Node goal = new Node(4, 0, 0);
+        int shortestPathLength = ch.search(start, goal, 4);
+        assertEquals(6, shortestPathLength);
+    }
+
+    @Test
+    public void costsAreTheShortestPathCosts() {
+        DijkstraWithArray dijkstra = new DijkstraWithArray(grid);
+        for (int directions = 4; directions <= 8; directions += 4) {
+            for (int x = 0; x < grid.getLength(); x++) {
+                for (int y = 0; y < grid.getRowLength(); y++) {
+                    Node start = new Node(3, 2, 0);
+                    Node goal = new Node(x, y, 0);
+                    if (!grid.nodeIsValid(goal) || start.equals(goal)) {
+                        continue;
+                    }
+                    dijkstra.search(start, goal, directions);
+                    int pathLength = ch.search(start, goal, directions);
+                    assertEquals(dijkstra.getCost(goal), ch.getCost(goal), 0.0001);
+                    assertPathIsValid(start, goal, pathLength);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void shortcutsAreUnpackedIntoMoves() {
+        Node start = new Node(0, 1, 0);
+        Node goal = new Node(4, 0, 0);
+        int pathLength = ch.search(start, goal, 4);
+        assertEquals(7, pathLength);
+        assertPathIsValid(start, goal, pathLength);
+    }
+
+    @Test
+    public void startIsTheGoal() {
+        Node start = new Node(2, 2, 0);
+        assertEquals(0, ch.search(start, start, 4));
+        assertEquals(0.0, ch.getCost(start), 0.0001);
+    }
+
+    @Test
+    public void returnsMinusOneIfTheGoalCanNotBeReached() {
+        char[][] gridArray = {
+            {'.', '.', 'W', '.'},
+            {'.', '.', 'W', '.'},
+            {'W', 'W', 'W', '.'},
+            {'.', '.', '.', '.'}
+        };
+        Grid walled = new Grid(gridArray, new char[]{'W'}, 2.0);
+        ContractionHierarchySearch search = new ContractionHierarchySearch(walled);
+        assertEquals(-1, search.search(new Node(0, 0, 0), new Node(3, 3, 0), 4));
+        assertEquals(-1, search.getCost(new Node(3, 3, 0)), 0.0001);
+    }
+
+    @Test
+    public void returnsMinusOneForInvalidPositions() {
+        assertEquals(-1, ch.search(new Node(0, 0, 0), new Node(2, 2, 0), 4));
+    }
+
+    @Test
+    public void usesAPrecomputedHierarchy() {
+        ContractionHierarchy hierarchy = ContractionHierarchy.build(grid, 8);
+        ContractionHierarchySearch search = new ContractionHierarchySearch(grid, hierarchy);
+        search.search(new Node(2, 1, 0), new Node(4, 2, 0), 8);
+        assertSame(hierarchy, search.getHierarchy());
+    }
+
+    @Test
+    public void rebuildsTheHierarchyForOtherDirections() {
+        ch.search(new Node(2, 1, 0), new Node(2, 3, 0), 4);
+        ContractionHierarchy hierarchy = ch.getHierarchy();
+        ch.search(new Node(2, 1, 0), new Node(2, 3, 0), 4);
+        assertSame(hierarchy, ch.getHierarchy());
+        ch.search(new Node(2, 1, 0), new Node(2, 3, 0), 8);
+        assertEquals(8, ch.getHierarchy().getDirections());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void hierarchyOfAnotherGridIsRejected() {
+        char[][] otherArray = {
+            {'.', '.'},
+            {'.', '.'}
+        };
+        ContractionHierarchy hierarchy = ContractionHierarchy.build(
+                new Grid(otherArray, new char[]{'T'}, 2.0), 4);
+        new ContractionHierarchySearch(grid, hierarchy);
+    }
+
+    @Test
+    public void visitedPositionsIncludeTheStartAndGoal() {
+        Node start = new Node(3, 3, 0);
+        Node goal = new Node(1, 1, 0);
+        ch.search(start, goal, 4);
+        boolean[][] visited = ch.getVisited();
+        assertTrue(visited[3][3]);
+        assertTrue(visited[1][1]);
+    }
+
+    private void assertPathIsValid(Node start, Node goal, int steps) {
+        Node[] path = ch.getPath().shortestPath(goal, start, steps);
+        assertEquals(goal, path[steps - 1]);
+        Node previous = start;
+        double cost = 0.0;
+        for (Node step : path) {
+            int dx = Math.abs(step.getX() - previous.getX());
+            int dy = Math.abs(step.getY() - previous.getY());
+            assertTrue(dx <= 1 && dy <= 1 && dx + dy > 0);
+            assertTrue(grid.nodeIsValid(step));
+            cost += grid.cost(previous, step);
+            previous = step;
+        }
+        assertEquals(ch.getCost(goal), cost, 0.0001);
+    }
+}
@@ -0,0 +1,235 @@
+package aastaar.algorithms.contraction;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import mj.aastaar.algorithms.contraction.ContractionHierarchy;
+import mj.aastaar.map.Grid;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for the contraction hierarchy.
+ *
+ * @author MJ
+ */
+public class ContractionHierarchyTest {
+
+    /**
+     * Offsets in a hierarchy file.
+     */
+    private static final int DIRECTIONS = 16;
+    private static final int EDGE_COUNT = 32;
+    private static final int RANKS = 36;
+
+    private Grid grid;
+    private ContractionHierarchy hierarchy;
+
+    @Before
+    public void setUp() {
+        char[][] gridArray = {
+            {'T', '.', 'W', '@', '@'},
+            {'T', '.', 'W', 'W', '@'},
+            {'W', '.', '.', '.', 'T'},
+            {'S', 'S', '.', '.', '.'},
+            {'.', '.', '.', 'T', 'T'}
+        };
+        char[] impassable = {'T', 'W', '@'};
+        grid = new Grid(gridArray, impassable, 2.0);
+        hierarchy = ContractionHierarchy.build(grid, 4);
+    }
+
+    @Test
+    public void everyPassablePositionIsANode() {
+        assertEquals(13, hierarchy.getNodeCount());
+        assertEquals(-1, hierarchy.nodeAt(0, 0));
+        int node = hierarchy.nodeAt(3, 4);
+        assertEquals(3, hierarchy.getX(node));
+        assertEquals(4, hierarchy.getY(node));
+    }
+
+    @Test
+    public void ranksAreUnique() {
+        boolean[] used = new boolean[hierarchy.getNodeCount()];
+        for (int v = 0; v < hierarchy.getNodeCount(); v++) {
+            int rank = hierarchy.getRank(v);
+            assertFalse(used[rank]);
+            used[rank] = true;
+        }
+    }
+
+    @Test
+    public void edgesLeadUpwards() {
+        for (int v = 0; v < hierarchy.getNodeCount(); v++) {
+            for (int e = hierarchy.firstEdge(v); e < hierarchy.lastEdge(v); e++) {
+                assertTrue(hierarchy.getRank(hierarchy.edgeTarget(e)) > hierarchy.getRank(v));
+            }
+        }
+    }
+
+    @Test
+    public void shortcutsSkipOverLowerRanks() {
+        for (int v = 0; v < hierarchy.getNodeCount(); v++) {
+            for (int e = hierarchy.firstEdge(v); e < hierarchy.lastEdge(v); e++) {
+                int middle = hierarchy.edgeMiddle(e);
+                if (middle >= 0) {
+                    assertTrue(hierarchy.getRank(middle) < hierarchy.getRank(v));
+                    int first = hierarchy.findEdge(middle, v);
+                    int second = hierarchy.findEdge(middle, hierarchy.edgeTarget(e));
+                    assertEquals(hierarchy.edgeCost(e),
+                            hierarchy.edgeCost(first) + hierarchy.edgeCost(second), 0.0001);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void everyMoveIsAnEdge() {
+        int moves = 0;
+        for (int e = 0; e < hierarchy.getEdgeCount(); e++) {
+            if (hierarchy.edgeMiddle(e) < 0) {
+                moves++;
+            }
+        }
+        assertEquals(16, moves);
+        assertEquals(hierarchy.getEdgeCount() - 16, hierarchy.getShortcutCount());
+    }
+
+    @Test
+    public void findEdgeReturnsMinusOneWithoutAnEdge() {
+        assertEquals(-1, hierarchy.findEdge(hierarchy.nodeAt(0, 1), hierarchy.nodeAt(4, 0)));
+    }
+
+    @Test
+    public void matchesOnlyTheSameTerrain() {
+        assertTrue(hierarchy.matches(grid));
+        char[][] otherArray = {
+            {'T', '.', 'W', '@', '@'},
+            {'T', '.', 'W', 'W', '@'},
+            {'W', '.', '.', '.', 'T'},
+            {'S', 'S', '.', '.', '.'},
+            {'.', '.', '.', 'T', 'T'}
+        };
+        Grid heavier = new Grid(otherArray, new char[]{'T', 'W', '@'}, 3.0);
+        assertFalse(hierarchy.matches(heavier));
+    }
+
+    @Test
+    public void savedHierarchyIsLoadedWithTheSameEdges() throws IOException {
+        File file = File.createTempFile("aastaar", ".ch");
+        file.deleteOnExit();
+        hierarchy.save(file);
+        ContractionHierarchy loaded;
+        try (InputStream is = new FileInputStream(file)) {
+            loaded = ContractionHierarchy.load(is, grid);
+        }
+        assertEquals(hierarchy.getDirections(), loaded.getDirections());
+        assertEquals(hierarchy.getEdgeCount(), loaded.getEdgeCount());
+        for (int v = 0; v < hierarchy.getNodeCount(); v++) {
+            assertEquals(hierarchy.getRank(v), loaded.getRank(v));
+            assertEquals(hierarchy.getX(v), loaded.getX(v));
+            assertEquals(hierarchy.getY(v), loaded.getY(v));
+            assertEquals(hierarchy.firstEdge(v), loaded.firstEdge(v));
+        }
+        for (int e = 0; e < hierarchy.getEdgeCount(); e++) {
+            assertEquals(hierarchy.edgeTarget(e), loaded.edgeTarget(e));
+            assertEquals(hierarchy.edgeCost(e), loaded.edgeCost(e), 0.0);
+            assertEquals(hierarchy.edgeMiddle(e), loaded.edgeMiddle(e));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void loadingAHierarchyForAnotherGridFails() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        hierarchy.write(bytes);
+        char[][] otherArray = {
+            {'.', '.'},
+            {'.', '.'}
+        };
+        ContractionHierarchy.load(new ByteArrayInputStream(bytes.toByteArray()),
+                new Grid(otherArray, new char[]{'T'}, 2.0));
+    }
+
+    @Test(expected = IOException.class)
+    public void loadingSomethingElseFails() throws IOException {
+        ContractionHierarchy.load(new ByteArrayInputStream(new byte[16]), grid);
+    }
+
+    @Test(expected = IOException.class)
+    public void invalidDirectionsAreRejected() throws IOException {
+        byte[] bytes = savedHierarchy();
+        ByteBuffer.wrap(bytes).putInt(DIRECTIONS, 6);
+        load(bytes);
+    }
+
+    @Test(expected = IOException.class)
+    public void negativeEdgeCountIsRejected() throws IOException {
+        byte[] bytes = savedHierarchy();
+        ByteBuffer.wrap(bytes).putInt(EDGE_COUNT, -1);
+        load(bytes);
+    }
+
+    @Test(expected = IOException.class)
+    public void hugeEdgeCountIsRejectedWithoutAllocatingIt() throws IOException {
+        byte[] bytes = savedHierarchy();
+        ByteBuffer buffer = ByteBuffer.wrap(bytes).putInt(EDGE_COUNT, Integer.MAX_VALUE);
+        buffer.putInt(firstEdgeOffset(hierarchy.getNodeCount()), Integer.MAX_VALUE);
+        load(bytes);
+    }
+
+    @Test(expected = IOException.class)
+    public void rankOutOfRangeIsRejected() throws IOException {
+        byte[] bytes = savedHierarchy();
+        ByteBuffer.wrap(bytes).putInt(RANKS, hierarchy.getNodeCount());
+        load(bytes);
+    }
+
+    @Test(expected = IOException.class)
+    public void decreasingFirstEdgesAreRejected() throws IOException {
+        byte[] bytes = savedHierarchy();
+        ByteBuffer.wrap(bytes).putInt(firstEdgeOffset(1), hierarchy.getEdgeCount());
+        load(bytes);
+    }
+
+    @Test(expected = IOException.class)
+    public void edgeTargetOutOfRangeIsRejected() throws IOException {
+        byte[] bytes = savedHierarchy();
+        ByteBuffer.wrap(bytes).putInt(firstEdgeOffset(hierarchy.getNodeCount() + 1), 1000);
+        load(bytes);
+    }
+
+    @Test(expected = IOException.class)
+    public void edgeMiddleOutOfRangeIsRejected() throws IOException {
+        byte[] bytes = savedHierarchy();
+        ByteBuffer.wrap(bytes).putInt(firstEdgeOffset(hierarchy.getNodeCount() + 1) + 12, -5);
+        load(bytes);
+    }
+
+    @Test(expected = IOException.class)
+    public void truncatedHierarchyIsRejected() throws IOException {
+        byte[] bytes = savedHierarchy();
+        load(Arrays.copyOf(bytes, bytes.length - 8));
+    }
+
+    private int firstEdgeOffset(int node) {
+        return RANKS + 4 * hierarchy.getNodeCount() + 4 * node;
+    }
+
+    private byte[] savedHierarchy() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        hierarchy.write(bytes);
+        return bytes.toByteArray();
+    }
+
+    private ContractionHierarchy load(byte[] bytes) throws IOException {
+        return ContractionHierarchy.load(new ByteArrayInputStream(bytes), grid);
+    }
+}
@@ -0,0 +1,189 @@
+package aastaar.algorithms.cpd;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import mj.aastaar.algorithms.JumpPointTable;
+import mj.aastaar.algorithms.cpd.CompressedPathDatabase;
+import mj.aastaar.map.Grid;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for the compressed path database.
+ *
+ * @author MJ
+ */
+public class CompressedPathDatabaseTest {
+
+    private Grid grid;
+    private CompressedPathDatabase database;
+
+    @Before
+    public void setUp() {
+        char[][] gridArray = {
+            {'T', '.', 'W', '@', '@'},
+            {'T', '.', 'W', 'W', '@'},
+            {'W', '.', '.', '.', 'T'},
+            {'S', 'S', '.', '.', '.'},
+            {'.', '.', '.', 'T', 'T'}
+        };
+        char[] impassable = {'T', 'W', '@'};
+        grid = new Grid(gridArray, impassable, 2.0);
+        database = CompressedPathDatabase.build(grid, 8, 2);
+    }
+
+    @Test
+    public void passablePositionsHaveUniqueRanks() {
+        boolean[] used = new boolean[13];
+        for (int x = 0; x < grid.getLength(); x++) {
+            for (int y = 0; y < grid.getRowLength(); y++) {
+                int rank = database.getRank(x, y);
+                if (!grid.isPassable(x, y)) {
+                    assertEquals(-1, rank);
+                    continue;
+                }
+                assertFalse(used[rank]);
+                used[rank] = true;
+            }
+        }
+    }
+
+    @Test
+    public void firstMovesLeadToTheGoal() {
+        for (int x = 0; x < grid.getLength(); x++) {
+            for (int y = 0; y < grid.getRowLength(); y++) {
+                if (grid.isPassable(x, y) && !(x == 4 && y == 0)) {
+                    assertTrue(stepsTo(x, y, 4, 0) > 0);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void firstMoveAvoidsShallowWater() {
+        int move = database.firstMove(2, 1, 4, 0);
+        assertEquals(1, JumpPointTable.DX[move]);
+        assertEquals(1, JumpPointTable.DY[move]);
+    }
+
+    @Test
+    public void noMoveToTheSamePosition() {
+        assertEquals(CompressedPathDatabase.NONE, database.firstMove(2, 2, 2, 2));
+    }
+
+    @Test
+    public void noMoveFromOrToImpassablePositions() {
+        assertEquals(CompressedPathDatabase.NONE, database.firstMove(0, 0, 2, 2));
+        assertEquals(CompressedPathDatabase.NONE, database.firstMove(2, 2, 0, 0));
+    }
+
+    @Test
+    public void noMoveToUnreachablePositions() {
+        char[][] gridArray = {
+            {'.', '.', 'W', '.'},
+            {'.', '.', 'W', '.'},
+            {'W', 'W', 'W', '.'},
+            {'.', '.', '.', '.'}
+        };
+        Grid walled = new Grid(gridArray, new char[]{'W'}, 2.0);
+        CompressedPathDatabase walledDatabase = CompressedPathDatabase.build(walled, 8);
+        assertEquals(CompressedPathDatabase.NONE, walledDatabase.firstMove(0, 0, 3, 3));
+        assertEquals(CompressedPathDatabase.NONE, walledDatabase.firstMove(3, 3, 1, 1));
+    }
+
+    @Test
+    public void nearbyTargetsShareRuns() {
+        char[][] gridArray = new char[16][16];
+        for (char[] row : gridArray) {
+            Arrays.fill(row, '.');
+        }
+        Grid open = new Grid(gridArray, new char[]{'T'}, 2.0);
+        CompressedPathDatabase openDatabase = CompressedPathDatabase.build(open, 8);
+        assertTrue(openDatabase.getRunCount(0, 0) < 255 / 4);
+        assertTrue(openDatabase.getRunCount() < 256 * 255 / 4);
+    }
+
+    @Test
+    public void matchesOnlyTheSameTerrain() {
+        assertTrue(database.matches(grid));
+        char[][] otherArray = {
+            {'T', '.', 'W', '@', '@'},
+            {'T', '.', 'W', 'W', '@'},
+            {'W', '.', '.', '.', 'T'},
+            {'S', 'S', '.', '.', '.'},
+            {'.', '.', '.', 'T', 'T'}
+        };
+        Grid heavier = new Grid(otherArray, new char[]{'T', 'W', '@'}, 3.0);
+        assertFalse(database.matches(heavier));
+    }
+
+    @Test
+    public void mappedDatabaseHasTheSameFirstMoves() throws IOException {
+        File file = File.createTempFile("aastaar", ".cpd");
+        file.deleteOnExit();
+        database.save(file);
+        CompressedPathDatabase mapped = CompressedPathDatabase.map(file, grid);
+        assertEquals(database.getDirections(), mapped.getDirections());
+        assertEquals(database.getRunCount(), mapped.getRunCount());
+        for (int x = 0; x < grid.getLength(); x++) {
+            for (int y = 0; y < grid.getRowLength(); y++) {
+                for (int gx = 0; gx < grid.getLength(); gx++) {
+                    for (int gy = 0; gy < grid.getRowLength(); gy++) {
+                        assertEquals(database.firstMove(x, y, gx, gy),
+                                mapped.firstMove(x, y, gx, gy));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void mappingADatabaseForAnotherGridFails() throws IOException {
+        File file = File.createTempFile("aastaar", ".cpd");
+        file.deleteOnExit();
+        database.save(file);
+        char[][] otherArray = {
+            {'.', '.'},
+            {'.', '.'}
+        };
+        CompressedPathDatabase.map(file, new Grid(otherArray, new char[]{'T'}, 2.0));
+    }
+
+    @Test(expected = IOException.class)
+    public void mappingSomethingElseFails() throws IOException {
+        File file = File.createTempFile("aastaar", ".cpd");
+        file.deleteOnExit();
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(new byte[40]);
+        }
+        CompressedPathDatabase.map(file, grid);
+    }
+
+    @Test
+    public void writtenDatabaseHasTheHeaderAndArrays() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        database.write(bytes);
+        assertEquals(32 + 4 * (2 * 25 + 1 + database.getRunCount()), bytes.size());
+    }
+
+    private int stepsTo(int x, int y, int goalX, int goalY) {
+        int steps = 0;
+        while (x != goalX || y != goalY) {
+            int move = database.firstMove(x, y, goalX, goalY);
+            if (move == CompressedPathDatabase.NONE || steps > 25) {
+                return -1;
+            }
+            x += JumpPointTable.DX[move];
+            y += JumpPointTable.DY[move];
+            assertTrue(grid.isPassable(x, y));
+            steps++;
+        }
+        return steps;
+    }
+}
@@ -0,0 +1,187 @@
+package aastaar.algorithms.cpd;
+
+import static org.junit.Assert.*;
+
+import mj.aastaar.algorithms.DijkstraWithArray;
+import mj.aastaar.algorithms.cpd.CompressedPathDatabase;
+import mj.aastaar.algorithms.cpd.CompressedPathSearch;
+import mj.aastaar.map.Grid;
+import mj.aastaar.map.Node;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for the compressed path database queries.
+ *
+ * @author MJ
+ */
+public class CompressedPathSearchTest {
+
+    private CompressedPathSearch cpd;
+    private Grid grid;
+
+    @Before
+    public void setUp() {
+        char[][] gridArray = {
+            {'T', '.', 'W', '@', '@'},
+            {'T', '.', 'W', 'W', '@'},
+            {'W', '.', '.', '.', 'T'},
+            {'S', 'S', '.', '.', '.'},
+            {'.', '.', '.', 'T', 'T'}
+        };
+        char[] impassable = {'T', 'W', '@'};
+        double heavyEdgeWeight = 2.0;
+        grid = new Grid(gridArray, impassable, heavyEdgeWeight);
+        cpd = new CompressedPathSearch(grid);
+    }
+
+    @Test
+    public void findsTheCorrectPathLengthOfAStraightLinePath() {
+        Node start = new Node(2, 1, 0);
+        Node goal = new Node(2, 3, 0);
+        int shortestPathLength = cpd.search(start, goal, 4);
+        assertEquals(2, shortestPathLength);
+    }
+
+    @Test
+    public void findsTheCorrectPathLengthOfACurvedPath() {
+        Node start = new Node(3, 3, 0);
+        Node goal = new Node(1, 1, 0);
+        int shortestPathLength = cpd.search(start, goal, 4);
+        assertEquals(4, shortestPathLength);
+    }
+
+    @Test
+    public void findsTheCorrectPathLengthGoingAroundShallowWater() {
+        Node start = new Node(2, 2, 0);
+        Node goal = new Node(3, 0, 0);
+        int shortestPathLength = cpd.search(start, goal, 4);
+        assertEquals(5, shortestPathLength);
+    }
+
+    @Test
+    public void findsTheCorrectPathLengthToTheLeftEdge() {
+        Node start = new Node(1, 1, 0);
+        Node goal = new Node(4, 0, 0);
+        int shortestPathLength = cpd.search(start, goal, 4);
+        assertEquals(6, shortestPathLength);
+    }
+
+    @Test
+    public void costsAreTheShortestPathCosts() {
+        DijkstraWithArray dijkstra = new DijkstraWithArray(grid);
+        for (int directions = 4; directions <= 8; directions += 4) {
+            for (int x = 0; x < grid.getLength(); x++) {
+                for (int y = 0; y < grid.getRowLength(); y++) {
+                    Node start = new Node(3, 2, 0);
+                    Node goal = new Node(x, y, 0);
+                    if (!grid.nodeIsValid(goal) || start.equals(goal)) {
+                        continue;
+                    }
+                    dijkstra.search(start, goal, directions);
+                    int pathLength = cpd.search(start, goal, directions);
+                    assertEquals(dijkstra.getCost(goal), cpd.getCost(goal), 0.0001);
+                    assertPathIsValid(start, goal, pathLength);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void followsTheFirstMovesToTheGoal() {
+        Node start = new Node(0, 1, 0);
+        Node goal = new Node(4, 0, 0);
+        int pathLength = cpd.search(start, goal, 4);
+        assertEquals(7, pathLength);
+        assertPathIsValid(start, goal, pathLength);
+    }
+
+    @Test
+    public void startIsTheGoal() {
+        Node start = new Node(2, 2, 0);
+        assertEquals(0, cpd.search(start, start, 4));
+        assertEquals(0.0, cpd.getCost(start), 0.0001);
+    }
+
+    @Test
+    public void returnsMinusOneIfTheGoalCanNotBeReached() {
+        char[][] gridArray = {
+            {'.', '.', 'W', '.'},
+            {'.', '.', 'W', '.'},
+            {'W', 'W', 'W', '.'},
+            {'.', '.', '.', '.'}
+        };
+        Grid walled = new Grid(gridArray, new char[]{'W'}, 2.0);
+        CompressedPathSearch search = new CompressedPathSearch(walled);
+        assertEquals(-1, search.search(new Node(0, 0, 0), new Node(3, 3, 0), 4));
+        assertEquals(-1, search.getCost(new Node(3, 3, 0)), 0.0001);
+    }
+
+    @Test
+    public void returnsMinusOneForInvalidPositions() {
+        assertEquals(-1, cpd.search(new Node(0, 0, 0), new Node(2, 2, 0), 4));
+    }
+
+    @Test
+    public void usesAPrecomputedDatabase() {
+        CompressedPathDatabase database = CompressedPathDatabase.build(grid, 8);
+        CompressedPathSearch search = new CompressedPathSearch(grid, database);
+        search.search(new Node(2, 1, 0), new Node(4, 2, 0), 8);
+        assertSame(database, search.getDatabase());
+    }
+
+    @Test
+    public void rebuildsTheDatabaseForOtherDirections() {
+        cpd.search(new Node(2, 1, 0), new Node(2, 3, 0), 4);
+        CompressedPathDatabase database = cpd.getDatabase();
+        cpd.search(new Node(2, 1, 0), new Node(2, 3, 0), 4);
+        assertSame(database, cpd.getDatabase());
+        cpd.search(new Node(2, 1, 0), new Node(2, 3, 0), 8);
+        assertEquals(8, cpd.getDatabase().getDirections());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void databaseOfAnotherGridIsRejected() {
+        char[][] otherArray = {
+            {'.', '.'},
+            {'.', '.'}
+        };
+        CompressedPathDatabase database = CompressedPathDatabase.build(
+                new Grid(otherArray, new char[]{'T'}, 2.0), 4);
+        new CompressedPathSearch(grid, database);
+    }
+
+    @Test
+    public void onlyThePathIsVisited() {
+        Node start = new Node(3, 3, 0);
+        Node goal = new Node(1, 1, 0);
+        int pathLength = cpd.search(start, goal, 4);
+        boolean[][] visited = cpd.getVisited();
+        int count = 0;
+        for (boolean[] row : visited) {
+            for (boolean v : row) {
+                count += v ? 1 : 0;
+            }
+        }
+        assertEquals(pathLength + 1, count);
+        assertTrue(visited[3][3]);
+        assertTrue(visited[1][1]);
+    }
+
+    private void assertPathIsValid(Node start, Node goal, int steps) {
+        Node[] path = cpd.getPath().shortestPath(goal, start, steps);
+        assertEquals(goal, path[steps - 1]);
+        Node previous = start;
+        double cost = 0.0;
+        for (Node step : path) {
+            int dx = Math.abs(step.getX() - previous.getX());
+            int dy = Math.abs(step.getY() - previous.getY());
+            assertTrue(dx <= 1 && dy <= 1 && dx + dy > 0);
+            assertTrue(grid.nodeIsValid(step));
+            cost += grid.cost(previous, step);
+            previous = step;
+        }
+        assertEquals(cpd.getCost(goal), cost, 0.0001);
+    }
+}
@@ -0,0 +1,88 @@
+package aastaar.algorithms.heuristic;
+
+import static org.junit.Assert.*;
+
+import mj.aastaar.algorithms.AStarWithArray;
+import mj.aastaar.algorithms.DijkstraWithArray;
+import mj.aastaar.algorithms.heuristic.LandmarkHeuristic;
+import mj.aastaar.algorithms.heuristic.LandmarkTable;
+import mj.aastaar.map.Grid;
+import mj.aastaar.map.Node;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for the ALT heuristic.
+ *
+ * @author MJ
+ */
+public class LandmarkHeuristicTest {
+
+    private Grid grid;
+    private LandmarkHeuristic heuristic;
+
+    @Before
+    public void setUp() {
+        char[][] gridArray = {
+            {'.', '.', '.', '.', '.', '.'},
+            {'.', 'W', 'W', 'W', 'W', '.'},
+            {'.', '.', '.', '.', 'W', '.'},
+            {'W', 'W', 'W', '.', 'W', '.'},
+            {'.', '.', '.', '.', 'W', '.'},
+            {'.', 'S', 'S', 'S', '.', '.'}
+        };
+        grid = new Grid(gridArray, new char[]{'W'}, 2.0);
+        heuristic = new LandmarkHeuristic(grid,
+                LandmarkTable.build(grid, 4, 4, LandmarkTable.AVOID, 2));
+    }
+
+    @Test
+    public void estimateIsAtLeastTheDistance() {
+        Node a = new Node(2, 0, 0);
+        Node b = new Node(4, 3, 0);
+        assertTrue(heuristic.estimate(a, b, 4) >= grid.heuristic(a, b, 4));
+    }
+
+    @Test
+    public void estimateIncludesTheDetourAroundWalls() {
+        Node a = new Node(2, 3, 0);
+        Node b = new Node(2, 5, 0);
+        assertTrue(heuristic.estimate(a, b, 4) > grid.heuristic(a, b, 4));
+    }
+
+    @Test
+    public void otherDirectionsUseTheDistance() {
+        Node a = new Node(2, 3, 0);
+        Node b = new Node(2, 5, 0);
+        assertEquals(grid.heuristic(a, b, 8), heuristic.estimate(a, b, 8), 0.0);
+    }
+
+    @Test
+    public void astarFindsTheShortestPaths() {
+        AStarWithArray astar = new AStarWithArray(grid, heuristic);
+        DijkstraWithArray dijkstra = new DijkstraWithArray(grid);
+        Node start = new Node(4, 0, 0);
+        for (int x = 0; x < grid.getLength(); x++) {
+            for (int y = 0; y < grid.getRowLength(); y++) {
+                Node goal = new Node(x, y, 0);
+                if (!grid.nodeIsValid(goal) || goal.equals(start)) {
+                    continue;
+                }
+                dijkstra.search(start, goal, 4);
+                astar.search(start, goal, 4);
+                assertEquals(dijkstra.getCost(goal), astar.getCost(goal), 0.0001);
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void tableOfAnotherGridIsRejected() {
+        char[][] otherArray = {
+            {'.', '.'},
+            {'.', '.'}
+        };
+        Grid other = new Grid(otherArray, new char[]{'W'}, 2.0);
+        new LandmarkHeuristic(grid, LandmarkTable.build(other, 4));
+    }
+}
@@ -0,0 +1,255 @@
+package aastaar.algorithms.heuristic;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import mj.aastaar.algorithms.DijkstraWithArray;
+import mj.aastaar.algorithms.heuristic.LandmarkTable;
+import mj.aastaar.map.Grid;
+import mj.aastaar.map.Node;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for the landmark table.
+ *
+ * @author MJ
+ */
+public class LandmarkTableTest {
+
+    /**
+     * Offsets in a table file with three landmarks.
+     */
+    private static final int DIRECTIONS = 16;
+    private static final int LANDMARK_COUNT = 28;
+    private static final int LANDMARKS = 32;
+    private static final int COSTS = 44;
+
+    private Grid grid;
+
+    @Before
+    public void setUp() {
+        char[][] gridArray = {
+            {'T', '.', 'W', '@', '@'},
+            {'T', '.', 'W', 'W', '@'},
+            {'W', '.', '.', '.', 'T'},
+            {'S', 'S', '.', '.', '.'},
+            {'.', '.', '.', 'T', 'T'}
+        };
+        char[] impassable = {'T', 'W', '@'};
+        grid = new Grid(gridArray, impassable, 2.0);
+    }
+
+    @Test
+    public void landmarkCostsAreTheShortestPathCosts() {
+        for (int selection = LandmarkTable.FARTHEST; selection <= LandmarkTable.AVOID; selection++) {
+            LandmarkTable table = LandmarkTable.build(grid, 8, 3, selection, 2);
+            assertEquals(3, table.getLandmarkCount());
+            DijkstraWithArray dijkstra = new DijkstraWithArray(grid);
+            for (int i = 0; i < table.getLandmarkCount(); i++) {
+                Node landmark = new Node(table.getLandmarkX(i), table.getLandmarkY(i), 0);
+                assertTrue(grid.nodeIsValid(landmark));
+                assertEquals(0.0, table.cost(i, landmark.getX(), landmark.getY()), 0.0);
+                Node goal = new Node(4, 0, 0);
+                if (!goal.equals(landmark)) {
+                    dijkstra.search(landmark, goal, 8);
+                    assertEquals(dijkstra.getCost(goal), table.cost(i, 4, 0), 0.0001);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void landmarksAreDifferentPositions() {
+        LandmarkTable table = LandmarkTable.build(grid, 4, 4, LandmarkTable.AVOID, 1);
+        for (int i = 0; i < table.getLandmarkCount(); i++) {
+            for (int j = i + 1; j < table.getLandmarkCount(); j++) {
+                assertFalse(table.getLandmarkX(i) == table.getLandmarkX(j)
+                        && table.getLandmarkY(i) == table.getLandmarkY(j));
+            }
+        }
+    }
+
+    @Test
+    public void farthestLandmarkIsAtTheEndOfTheMap() {
+        LandmarkTable table = LandmarkTable.build(grid, 4, 1, LandmarkTable.FARTHEST, 1);
+        int x = table.getLandmarkX(0);
+        int y = table.getLandmarkY(0);
+        assertTrue((x == 0 && y == 1) || (x == 4 && y == 0) || (x == 3 && y == 4));
+    }
+
+    @Test
+    public void lowerBoundIsAtMostTheShortestPathCost() {
+        LandmarkTable table = LandmarkTable.build(grid, 8, 4, LandmarkTable.AVOID, 2);
+        DijkstraWithArray dijkstra = new DijkstraWithArray(grid);
+        Node start = new Node(0, 1, 0);
+        for (int x = 0; x < grid.getLength(); x++) {
+            for (int y = 0; y < grid.getRowLength(); y++) {
+                Node goal = new Node(x, y, 0);
+                if (!grid.nodeIsValid(goal) || goal.equals(start)) {
+                    continue;
+                }
+                dijkstra.search(start, goal, 8);
+                assertTrue(table.lowerBound(0, 1, x, y) <= dijkstra.getCost(goal));
+            }
+        }
+    }
+
+    @Test
+    public void unreachablePositionsHaveAnInfiniteCost() {
+        char[][] gridArray = {
+            {'.', '.', 'W', '.'},
+            {'.', '.', 'W', '.'},
+            {'W', 'W', 'W', '.'},
+            {'.', '.', '.', '.'}
+        };
+        Grid walled = new Grid(gridArray, new char[]{'W'}, 2.0);
+        LandmarkTable table = LandmarkTable.build(walled, 4, 2, LandmarkTable.FARTHEST, 1);
+        for (int i = 0; i < table.getLandmarkCount(); i++) {
+            assertEquals(Float.POSITIVE_INFINITY, table.cost(i, 0, 0), 0.0);
+        }
+        assertEquals(0.0, table.lowerBound(0, 0, 3, 3), 0.0);
+    }
+
+    @Test
+    public void matchesOnlyTheSameTerrain() {
+        LandmarkTable table = LandmarkTable.build(grid, 4);
+        assertTrue(table.matches(grid));
+        char[][] otherArray = {
+            {'T', '.', 'W', '@', '@'},
+            {'T', '.', 'W', 'W', '@'},
+            {'W', '.', '.', '.', 'T'},
+            {'S', 'S', '.', '.', '.'},
+            {'.', '.', '.', 'T', 'T'}
+        };
+        assertFalse(table.matches(new Grid(otherArray, new char[]{'T', 'W', '@'}, 3.0)));
+    }
+
+    @Test
+    public void savedTableIsLoadedWithTheSameCosts() throws IOException {
+        LandmarkTable table = LandmarkTable.build(grid, 8, 3, LandmarkTable.AVOID, 1);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        table.write(bytes);
+        LandmarkTable loaded = LandmarkTable.load(
+                new ByteArrayInputStream(bytes.toByteArray()), grid);
+        assertEquals(8, loaded.getDirections());
+        assertEquals(table.getLandmarkCount(), loaded.getLandmarkCount());
+        for (int i = 0; i < table.getLandmarkCount(); i++) {
+            assertEquals(table.getLandmarkX(i), loaded.getLandmarkX(i));
+            assertEquals(table.getLandmarkY(i), loaded.getLandmarkY(i));
+            for (int x = 0; x < grid.getLength(); x++) {
+                for (int y = 0; y < grid.getRowLength(); y++) {
+                    assertEquals(table.cost(i, x, y), loaded.cost(i, x, y), 0.0);
+                }
+            }
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void loadingATableForAnotherGridFails() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        LandmarkTable.build(grid, 4).write(bytes);
+        char[][] otherArray = {
+            {'.', '.'},
+            {'.', '.'}
+        };
+        LandmarkTable.load(new ByteArrayInputStream(bytes.toByteArray()),
+                new Grid(otherArray, new char[]{'T'}, 2.0));
+    }
+
+    @Test(expected = IOException.class)
+    public void invalidDirectionsAreRejected() throws IOException {
+        byte[] bytes = savedTable();
+        ByteBuffer.wrap(bytes).putInt(DIRECTIONS, 5);
+        load(bytes);
+    }
+
+    @Test(expected = IOException.class)
+    public void hugeLandmarkCountIsRejectedBeforeReadingTheCosts() throws IOException {
+        byte[] bytes = savedTable();
+        ByteBuffer.wrap(bytes).putInt(LANDMARK_COUNT, Integer.MAX_VALUE);
+        load(bytes);
+    }
+
+    @Test(expected = IOException.class)
+    public void negativeLandmarkCountIsRejected() throws IOException {
+        byte[] bytes = savedTable();
+        ByteBuffer.wrap(bytes).putInt(LANDMARK_COUNT, -1);
+        load(bytes);
+    }
+
+    @Test(expected = IOException.class)
+    public void landmarkOutsideTheGridIsRejected() throws IOException {
+        byte[] bytes = savedTable();
+        ByteBuffer.wrap(bytes).putInt(LANDMARKS, 25);
+        load(bytes);
+    }
+
+    @Test(expected = IOException.class)
+    public void landmarkOnAWallIsRejected() throws IOException {
+        byte[] bytes = savedTable();
+        ByteBuffer.wrap(bytes).putInt(LANDMARKS, 0);
+        load(bytes);
+    }
+
+    @Test(expected = IOException.class)
+    public void invalidCostIsRejected() throws IOException {
+        byte[] bytes = savedTable();
+        ByteBuffer.wrap(bytes).putFloat(COSTS, Float.NaN);
+        load(bytes);
+    }
+
+    @Test(expected = IOException.class)
+    public void truncatedTableIsRejected() throws IOException {
+        byte[] bytes = savedTable();
+        load(Arrays.copyOf(bytes, bytes.length - 4));
+    }
+
+    @Test
+    public void tableIsStoredNextToTheMapFileAndLoadedNextTime() throws IOException {
+        Path directory = Files.createTempDirectory("maps");
+        Path mapFile = directory.resolve("arena.map");
+        File tableFile = directory.resolve("arena-8.alt").toFile();
+        try {
+            LandmarkTable built = LandmarkTable.loadOrBuild(mapFile, grid, 8);
+            assertTrue(tableFile.isFile());
+            assertTrue(tableFile.setLastModified(1000));
+            LandmarkTable loaded = LandmarkTable.loadOrBuild(mapFile, grid, 8);
+            assertEquals(1000, tableFile.lastModified());
+            assertEquals(built.getLandmarkCount(), loaded.getLandmarkCount());
+            assertEquals(built.cost(0, 4, 0), loaded.cost(0, 4, 0), 0.0);
+        } finally {
+            tableFile.delete();
+            Files.delete(directory);
+        }
+    }
+
+    @Test
+    public void tablePathReplacesTheMapExtension() {
+        assertEquals("maps/arena-8.alt", LandmarkTable.tablePath("maps/arena.map", 8));
+        assertEquals("maps/arena-4.alt", LandmarkTable.tablePath("maps/arena", 4));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownSelectionIsRejected() {
+        LandmarkTable.build(grid, 4, 2, 7, 1);
+    }
+
+    private byte[] savedTable() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        LandmarkTable.build(grid, 8, 3, LandmarkTable.AVOID, 1).write(bytes);
+        return bytes.toByteArray();
+    }
+
+    private LandmarkTable load(byte[] bytes) throws IOException {
+        return LandmarkTable.load(new ByteArrayInputStream(bytes), grid);
+    }
+}
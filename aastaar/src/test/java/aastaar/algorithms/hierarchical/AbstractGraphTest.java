@@ -0,0 +1,142 @@
+package aastaar.algorithms.hierarchical;
+
+import static org.junit.Assert.*;
+
+import mj.aastaar.algorithms.hierarchical.AbstractEdge;
+import mj.aastaar.algorithms.hierarchical.AbstractGraph;
+import mj.aastaar.map.Grid;
+import mj.aastaar.map.Node;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for the abstract graph of hierarchical pathfinding.
+ *
+ * @author MJ
+ */
+public class AbstractGraphTest {
+
+    private Grid open;
+    private char[] impassable;
+
+    @Before
+    public void setUp() {
+        char[][] gridArray = {
+            {'.', '.', '.', '.'},
+            {'.', '.', '.', '.'},
+            {'.', '.', '.', '.'},
+            {'.', '.', '.', '.'}
+        };
+        impassable = new char[]{'T', 'W', '@'};
+        open = new Grid(gridArray, impassable, 2.0);
+    }
+
+    @Test
+    public void cutsTheGridIntoClusters() {
+        AbstractGraph graph = new AbstractGraph(open, 2, 4);
+        assertEquals(4, graph.getClusterCount());
+        assertEquals(0, graph.clusterOf(1, 1));
+        assertEquals(1, graph.clusterOf(0, 2));
+        assertEquals(2, graph.clusterOf(3, 0));
+        assertEquals(3, graph.clusterOf(2, 3));
+    }
+
+    @Test
+    public void clustersAtTheEdgeAreCutToTheGrid() {
+        char[][] gridArray = new char[5][5];
+        for (char[] row : gridArray) {
+            java.util.Arrays.fill(row, '.');
+        }
+        AbstractGraph graph = new AbstractGraph(new Grid(gridArray, impassable, 2.0), 2, 4);
+        assertEquals(9, graph.getClusterCount());
+        assertEquals(4, graph.minX(8));
+        assertEquals(5, graph.maxX(8));
+        assertEquals(5, graph.maxY(8));
+    }
+
+    @Test
+    public void shortEntrancesHaveOneTransition() {
+        AbstractGraph graph = new AbstractGraph(open, 2, 4);
+        assertEquals(7, graph.getNodeCount());
+        assertTrue(graph.nodeAt(1, 0) >= 0);
+        assertTrue(graph.nodeAt(2, 0) >= 0);
+        assertEquals(-1, graph.nodeAt(1, 1));
+        assertEquals(1, graph.getClusterNodes(3).length);
+    }
+
+    @Test
+    public void longEntrancesHaveTwoTransitions() {
+        char[][] gridArray = new char[12][6];
+        for (char[] row : gridArray) {
+            java.util.Arrays.fill(row, '.');
+        }
+        AbstractGraph graph = new AbstractGraph(new Grid(gridArray, impassable, 2.0), 6, 4);
+        assertEquals(4, graph.getNodeCount());
+        assertTrue(graph.nodeAt(5, 0) >= 0);
+        assertTrue(graph.nodeAt(5, 5) >= 0);
+        assertTrue(graph.nodeAt(6, 0) >= 0);
+        assertTrue(graph.nodeAt(6, 5) >= 0);
+    }
+
+    @Test
+    public void blockedBordersHaveNoTransitions() {
+        char[][] gridArray = {
+            {'.', '.', '.', '.'},
+            {'W', 'W', 'W', 'W'},
+            {'.', '.', '.', '.'},
+            {'.', '.', '.', '.'}
+        };
+        AbstractGraph graph = new AbstractGraph(new Grid(gridArray, impassable, 2.0), 2, 4);
+        assertEquals(1, graph.getClusterNodes(0).length);
+        assertEquals(-1, graph.nodeAt(1, 0));
+        assertEquals(-1, graph.nodeAt(2, 0));
+    }
+
+    @Test
+    public void transitionsAreConnectedByOneStep() {
+        AbstractGraph graph = new AbstractGraph(open, 2, 4);
+        int near = graph.nodeAt(1, 0);
+        int far = graph.nodeAt(2, 0);
+        assertEquals(1.0, edgeCost(graph, near, far), 0.0001);
+        assertEquals(1.0, edgeCost(graph, far, near), 0.0001);
+    }
+
+    @Test
+    public void nodesInsideAClusterAreConnectedByTheShortestPathCost() {
+        AbstractGraph graph = new AbstractGraph(open, 2, 4);
+        int a = graph.nodeAt(1, 0);
+        int b = graph.nodeAt(0, 1);
+        assertEquals(2.0, edgeCost(graph, a, b), 0.0001);
+        assertEquals(2.0, edgeCost(graph, b, a), 0.0001);
+    }
+
+    @Test
+    public void diagonalMovesShortenTheEdgesInsideAClusters() {
+        AbstractGraph graph = new AbstractGraph(open, 2, 8);
+        int a = graph.nodeAt(1, 0);
+        int b = graph.nodeAt(0, 1);
+        assertEquals(Math.sqrt(2), edgeCost(graph, a, b), 0.0001);
+        assertEquals(8, graph.getDirections());
+    }
+
+    @Test
+    public void returnsTheNodePositions() {
+        AbstractGraph graph = new AbstractGraph(open, 2, 4);
+        assertEquals(new Node(2, 2, 0), graph.getNode(graph.nodeAt(2, 2)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsClustersWithoutPositions() {
+        new AbstractGraph(open, 0, 4);
+    }
+
+    private double edgeCost(AbstractGraph graph, int from, int to) {
+        for (AbstractEdge edge : graph.getEdges(from)) {
+            if (edge.getTarget() == to) {
+                return edge.getCost();
+            }
+        }
+        return -1;
+    }
+}
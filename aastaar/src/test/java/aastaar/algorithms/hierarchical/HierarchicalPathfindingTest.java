@@ -0,0 +1,214 @@
+package aastaar.algorithms.hierarchical;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+import mj.aastaar.algorithms.DijkstraWithArray;
+import mj.aastaar.algorithms.hierarchical.AbstractGraph;
+import mj.aastaar.algorithms.hierarchical.HierarchicalPathfinding;
+import mj.aastaar.map.Grid;
+import mj.aastaar.map.Node;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for hierarchical pathfinding A*.
+ *
+ * @author MJ
+ */
+public class HierarchicalPathfindingTest {
+
+    private HierarchicalPathfinding hpa;
+    private Grid grid;
+
+    @Before
+    public void setUp() {
+        char[][] gridArray = {
+            {'T', '.', 'W', '@', '@'},
+            {'T', '.', 'W', 'W', '@'},
+            {'W', '.', '.', '.', 'T'},
+            {'S', 'S', '.', '.', '.'},
+            {'.', '.', '.', 'T', 'T'}
+        };
+        char[] impassable = {'T', 'W', '@'};
+        double heavyEdgeWeight = 2.0;
+        grid = new Grid(gridArray, impassable, heavyEdgeWeight);
+        hpa = new HierarchicalPathfinding(grid, 2);
+    }
+
+    @Test
+    public void findsTheCorrectPathLengthOfAStraightLinePath() {
+        Node start = new Node(2, 1, 0);
+        Node goal = new Node(2, 3, 0);
+        int pathLength = hpa.search(start, goal, 4);
+        assertEquals(2, pathLength);
+    }
+
+    @Test
+    public void findsTheCorrectPathLengthOfACurvedPath() {
+        Node start = new Node(3, 3, 0);
+        Node goal = new Node(1, 1, 0);
+        int pathLength = hpa.search(start, goal, 4);
+        assertEquals(4, pathLength);
+    }
+
+    @Test
+    public void findsAPathToTheLeftEdge() {
+        Node start = new Node(1, 1, 0);
+        Node goal = new Node(4, 0, 0);
+        int pathLength = hpa.search(start, goal, 4);
+        assertTrue(pathLength >= 6);
+        assertPathIsValid(start, goal, pathLength);
+    }
+
+    @Test
+    public void pathsAreNeverCheaperThanTheShortestPaths() {
+        DijkstraWithArray dijkstra = new DijkstraWithArray(grid);
+        for (int directions = 4; directions <= 8; directions += 4) {
+            for (int x = 0; x < grid.getLength(); x++) {
+                for (int y = 0; y < grid.getRowLength(); y++) {
+                    Node start = new Node(2, 2, 0);
+                    Node goal = new Node(x, y, 0);
+                    if (!grid.nodeIsValid(goal) || start.equals(goal)) {
+                        continue;
+                    }
+                    dijkstra.search(start, goal, directions);
+                    int pathLength = hpa.search(start, goal, directions);
+                    assertTrue(hpa.getCost(goal) >= dijkstra.getCost(goal) - 0.0001);
+                    assertPathIsValid(start, goal, pathLength);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void findsTheShortestPathInsideACluster() {
+        Node start = new Node(4, 0, 0);
+        Node goal = new Node(4, 1, 0);
+        assertEquals(1, hpa.search(start, goal, 4));
+        assertEquals(1.0, hpa.getCost(goal), 0.0001);
+    }
+
+    @Test
+    public void costOfTheGoalIsTheCostOfThePath() {
+        Node start = new Node(2, 2, 0);
+        Node goal = new Node(3, 1, 0);
+        hpa.search(start, goal, 4);
+        assertEquals(4.0, hpa.getCost(goal), 0.0001);
+        assertEquals(-1, hpa.getCost(start), 0.0001);
+    }
+
+    @Test
+    public void findsAPathWithDiagonalMoves() {
+        Node start = new Node(2, 1, 0);
+        Node goal = new Node(4, 2, 0);
+        int pathLength = hpa.search(start, goal, 8);
+        assertTrue(pathLength > 0);
+        assertPathIsValid(start, goal, pathLength);
+    }
+
+    @Test
+    public void startIsTheGoal() {
+        Node start = new Node(2, 2, 0);
+        assertEquals(0, hpa.search(start, start, 4));
+        assertEquals(0.0, hpa.getCost(start), 0.0001);
+    }
+
+    @Test
+    public void returnsMinusOneIfTheGoalCanNotBeReached() {
+        char[][] gridArray = {
+            {'.', '.', 'W', '.'},
+            {'.', '.', 'W', '.'},
+            {'W', 'W', 'W', '.'},
+            {'.', '.', '.', '.'}
+        };
+        Grid walled = new Grid(gridArray, new char[]{'W'}, 2.0);
+        HierarchicalPathfinding search = new HierarchicalPathfinding(walled, 2);
+        assertEquals(-1, search.search(new Node(0, 0, 0), new Node(3, 3, 0), 4));
+    }
+
+    @Test
+    public void returnsMinusOneForInvalidPositions() {
+        assertEquals(-1, hpa.search(new Node(0, 0, 0), new Node(2, 2, 0), 4));
+    }
+
+    @Test
+    public void reusesTheAbstractGraphAcrossQueries() {
+        hpa.search(new Node(2, 1, 0), new Node(2, 3, 0), 4);
+        AbstractGraph graph = hpa.getAbstractGraph();
+        hpa.search(new Node(3, 3, 0), new Node(1, 1, 0), 4);
+        assertSame(graph, hpa.getAbstractGraph());
+        hpa.search(new Node(3, 3, 0), new Node(1, 1, 0), 8);
+        assertNotSame(graph, hpa.getAbstractGraph());
+    }
+
+    @Test
+    public void sharesAnAbstractGraph() {
+        AbstractGraph graph = new AbstractGraph(grid, 2, 4);
+        HierarchicalPathfinding shared = new HierarchicalPathfinding(graph);
+        assertEquals(2, shared.search(new Node(2, 1, 0), new Node(2, 3, 0), 4));
+        assertSame(graph, shared.getAbstractGraph());
+    }
+
+    @Test
+    public void visitedPositionsIncludeTheGoal() {
+        Node start = new Node(3, 3, 0);
+        Node goal = new Node(1, 1, 0);
+        hpa.search(start, goal, 4);
+        assertTrue(hpa.getVisited()[1][1]);
+    }
+
+    @Test
+    public void smoothedCostsStayCloseToTheShortestPathsOnARandomMap() {
+        grid = randomGrid(new Random(3), 64, 48);
+        hpa = new HierarchicalPathfinding(grid, 8);
+        DijkstraWithArray dijkstra = new DijkstraWithArray(grid);
+        Random random = new Random(13);
+        int queries = 0;
+        double ratios = 0.0;
+        for (int i = 0; i < 600; i++) {
+            Node start = new Node(random.nextInt(64), random.nextInt(48), 0);
+            Node goal = new Node(random.nextInt(64), random.nextInt(48), 0);
+            int directions = (i % 2 == 0) ? 4 : 8;
+            if (!grid.nodeIsValid(start) || !grid.nodeIsValid(goal)
+                    || dijkstra.search(start, goal, directions) <= 0) {
+                continue;
+            }
+            int pathLength = hpa.search(start, goal, directions);
+            assertPathIsValid(start, goal, pathLength);
+            double ratio = hpa.getCost(goal) / dijkstra.getCost(goal);
+            assertTrue(ratio >= 1.0 - 0.0001 && ratio < 1.3);
+            ratios += ratio;
+            queries++;
+        }
+        assertTrue(ratios / queries < 1.02);
+    }
+
+    private static Grid randomGrid(Random random, int length, int rowLength) {
+        char[][] gridArray = new char[length][rowLength];
+        for (int x = 0; x < length; x++) {
+            for (int y = 0; y < rowLength; y++) {
+                int r = random.nextInt(10);
+                gridArray[x][y] = (r < 3) ? 'T' : (r < 5) ? 'S' : '.';
+            }
+        }
+        return new Grid(gridArray, new char[]{'T'}, 2.0);
+    }
+
+    private void assertPathIsValid(Node start, Node goal, int steps) {
+        Node[] path = hpa.getPath().shortestPath(goal, start, steps);
+        assertEquals(goal, path[steps - 1]);
+        Node previous = start;
+        double cost = 0.0;
+        for (Node step : path) {
+            int dx = Math.abs(step.getX() - previous.getX());
+            int dy = Math.abs(step.getY() - previous.getY());
+            assertTrue(dx <= 1 && dy <= 1 && dx + dy > 0);
+            assertTrue(grid.nodeIsValid(step));
+            cost += grid.cost(previous, step);
+            previous = step;
+        }
+        assertEquals(hpa.getCost(goal), cost, 0.0001);
+    }
+}
@@ -0,0 +1,116 @@
+package aastaar.algorithms.path;
+
+import static org.junit.Assert.*;
+
+import java.util.Iterator;
+import mj.aastaar.algorithms.path.CompactPath;
+import mj.aastaar.algorithms.path.PathWithHashMap;
+import mj.aastaar.map.Node;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for the CompactPath class.
+ * 
+ * @author MJ
+ */
+public class CompactPathTest {
+
+    private static final int ROW_LENGTH = 10;
+
+    private CompactPath path;
+
+    @Before
+    public void setUp() {
+        // (0,0) -> (0,3) -> (3,6) -> (4,6)
+        int[] waypoints = {0, 3, 36, 46};
+        path = CompactPath.fromWaypoints(waypoints, ROW_LENGTH);
+    }
+
+    private static int cell(int x, int y) {
+        return x * ROW_LENGTH + y;
+    }
+
+    @Test
+    public void waypointsAreFilledInWithSteps() {
+        assertEquals(7, path.length());
+        assertArrayEquals(new int[]{0, 1, 2, 3, 14, 25, 36, 46}, path.getCells());
+        assertEquals(cell(3, 6), path.getCell(6));
+    }
+
+    @Test
+    public void waypointsAreWhereTheDirectionChanges() {
+        assertArrayEquals(new int[]{0, 3, 36, 46}, path.waypoints());
+    }
+
+    @Test
+    public void runLengthsHaveADirectionAndACount() {
+        int[] runs = path.runLengths();
+        assertEquals(3, runs.length);
+        assertEquals((3 << 3) | 2, runs[0]);
+        assertEquals((3 << 3) | 4, runs[1]);
+        assertEquals((1 << 3) | 0, runs[2]);
+    }
+
+    @Test
+    public void runLengthsDecodeToTheSamePath() {
+        CompactPath decoded = CompactPath.fromRunLengths(0, path.runLengths(), ROW_LENGTH);
+        assertArrayEquals(path.getCells(), decoded.getCells());
+    }
+
+    @Test
+    public void nodesBeginAfterTheStart() {
+        Node[] nodes = path.toNodes();
+        assertEquals(7, nodes.length);
+        assertEquals(new Node(0, 1, 0), nodes[0]);
+        assertEquals(new Node(4, 6, 0), nodes[6]);
+    }
+
+    @Test
+    public void iterationCreatesTheSameNodes() {
+        Node[] nodes = path.toNodes();
+        int i = 0;
+        for (Node node : path) {
+            assertEquals(nodes[i++], node);
+        }
+        assertEquals(nodes.length, i);
+    }
+
+    @Test(expected = java.util.NoSuchElementException.class)
+    public void iterationStopsAtTheGoal() {
+        Iterator<Node> steps = CompactPath.fromWaypoints(new int[]{0, 1}, ROW_LENGTH).iterator();
+        steps.next();
+        steps.next();
+    }
+
+    @Test
+    public void aPathOfNodesIsConverted() {
+        Node start = new Node(0, 0, 0);
+        Node[] steps = {new Node(0, 1, 0), new Node(1, 2, 0), new Node(1, 5, 0)};
+        CompactPath converted = CompactPath.of(start, steps, ROW_LENGTH);
+        assertArrayEquals(new int[]{0, 1, 12, 13, 14, 15}, converted.getCells());
+        assertArrayEquals(new int[]{0, 1, 12, 15}, converted.waypoints());
+    }
+
+    @Test
+    public void theDefaultCompactPathUsesTheNodes() {
+        PathWithHashMap links = new PathWithHashMap();
+        Node a = new Node(0, 0, 0);
+        Node b = new Node(1, 1, 0);
+        Node c = new Node(2, 1, 0);
+        links.putCameFrom(b, a);
+        links.putCameFrom(c, b);
+        assertArrayEquals(new int[]{0, 11, 21}, links.compactPath(c, a, 2, ROW_LENGTH).getCells());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void positionsThatAreNotNeighboursAreRejected() {
+        new CompactPath(new int[]{0, 2}, ROW_LENGTH);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void waypointsThatAreNotOnALineAreRejected() {
+        CompactPath.fromWaypoints(new int[]{0, 12}, ROW_LENGTH);
+    }
+}
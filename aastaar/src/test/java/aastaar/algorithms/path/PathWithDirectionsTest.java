@@ -0,0 +1,92 @@
+package aastaar.algorithms.path;
+
+import static org.junit.Assert.*;
+
+import mj.aastaar.algorithms.path.PathWithDirections;
+import mj.aastaar.map.Node;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for the PathWithDirections class.
+ * 
+ * @author MJ
+ */
+public class PathWithDirectionsTest {
+
+    private PathWithDirections path;
+    private Node nodeA;
+    private Node nodeB;
+    private Node nodeC;
+
+    @Before
+    public void setUp() {
+        path = new PathWithDirections(3, 3);
+        nodeA = new Node(0, 0, 0);
+        nodeB = new Node(0, 1, 0);
+        nodeC = new Node(1, 2, 0);
+    }
+
+    @Test
+    public void earlyExitReturnsCorrectPathLength() {
+        path.putCameFrom(nodeB, nodeA);
+        path.putCameFrom(nodeC, nodeB);
+        assertEquals(2, path.earlyExit(nodeC, nodeA));
+    }
+
+    @Test
+    public void shortestPathContainsTheCorrectNodes() {
+        path.putCameFrom(nodeB, nodeA);
+        path.putCameFrom(nodeC, nodeB);
+        Node[] shortestPath = {nodeB, nodeC};
+        assertArrayEquals(shortestPath, path.shortestPath(nodeC, nodeA, 2));
+    }
+
+    @Test
+    public void shortestPathIsNullIfNoShortestPathFound() {
+        assertNull(path.shortestPath(nodeC, nodeA, 2));
+    }
+
+    @Test
+    public void shortestPathIsNullIfAskingForInvalidLengthPath() {
+        path.putCameFrom(nodeB, nodeA);
+        path.putCameFrom(nodeC, nodeB);
+        assertNull(path.shortestPath(nodeC, nodeA, 0));
+    }
+
+    @Test
+    public void containsNodeReturnsTrueIfNodeInPath() {
+        path.putCameFrom(nodeB, nodeA);
+        assertTrue(path.containsNode(nodeB));
+        assertFalse(path.containsNode(nodeA));
+    }
+
+    @Test
+    public void theDirectionOfTheMoveIsStored() {
+        path.putCameFrom(nodeC, nodeB);
+        assertEquals(4, path.getDirection(1, 2));
+        assertEquals(-1, path.getDirection(0, 1));
+        assertEquals(nodeB, path.getCameFrom(nodeC));
+        assertNull(path.getCameFrom(nodeB));
+    }
+
+    @Test
+    public void linksByDirectionEqualLinksByNode() {
+        path.putDirection(2, 1, 0);
+        assertEquals(new Node(1, 1, 0), path.getCameFrom(new Node(2, 1, 0)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nodesThatAreNotNeighboursAreRejected() {
+        path.putCameFrom(nodeC, nodeA);
+    }
+
+    @Test
+    public void compactPathFollowsTheDirections() {
+        path.putCameFrom(nodeB, nodeA);
+        path.putCameFrom(nodeC, nodeB);
+        assertArrayEquals(new int[]{0, 1, 5}, path.compactPath(nodeC, nodeA, 2, 3).getCells());
+        assertNull(path.compactPath(nodeA, nodeC, 2, 3));
+    }
+}
@@ -0,0 +1,112 @@
+package aastaar.datastructures;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+import mj.aastaar.datastructures.IndexedMinHeap;
+import mj.aastaar.datastructures.BucketQueue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for the BucketQueue class.
+ *
+ * @author MJ
+ */
+public class BucketQueueTest {
+
+    BucketQueue queue;
+
+    @Before
+    public void setUp() {
+        queue = new BucketQueue(100);
+        queue.add(0, 5);
+        queue.add(1, 3);
+        queue.add(2, 8);
+    }
+
+    @Test
+    public void addingKeysWorks() {
+        assertEquals(3, queue.size());
+        assertTrue(queue.contains(2));
+        assertFalse(queue.contains(3));
+    }
+
+    @Test
+    public void pollingReturnsSmallest() {
+        assertEquals(1, queue.poll());
+        assertEquals(0, queue.poll());
+        assertEquals(2, queue.poll());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void decreasingAPriorityKeepsOneEntry() {
+        queue.add(2, 1);
+        queue.add(2, 9);
+        assertEquals(3, queue.size());
+        assertEquals(2, queue.poll());
+        assertEquals(1, queue.poll());
+    }
+
+    @Test
+    public void smallerPrioritiesAddedBeforePollingComeFirst() {
+        queue.add(3, 0);
+        assertEquals(3, queue.poll());
+    }
+
+    @Test
+    public void aPriorityBelowTheLatestRemovedOneComesNext() {
+        assertEquals(1, queue.poll());
+        queue.add(3, 1);
+        assertEquals(3, queue.poll());
+    }
+
+    @Test
+    public void largePrioritiesFit() {
+        queue.add(3, 100000);
+        assertEquals(1, queue.poll());
+        assertEquals(0, queue.poll());
+        assertEquals(2, queue.poll());
+        assertEquals(3, queue.poll());
+    }
+
+    @Test
+    public void clearingEmptiesTheQueue() {
+        queue.poll();
+        queue.clear();
+        assertTrue(queue.isEmpty());
+        assertFalse(queue.contains(0));
+        queue.add(4, 2);
+        queue.add(5, 1);
+        assertEquals(5, queue.poll());
+        assertEquals(4, queue.poll());
+    }
+
+    @Test
+    public void monotoneOperationsMatchABinaryHeap() {
+        Random random = new Random(1);
+        for (int t = 0; t < 200; t++) {
+            BucketQueue tested = new BucketQueue(50);
+            IndexedMinHeap expected = new IndexedMinHeap(50);
+            double last = 0;
+            for (int i = 0; i < 200; i++) {
+                if (random.nextInt(3) > 0 || expected.isEmpty()) {
+                    int key = random.nextInt(50);
+                    double priority = last + random.nextInt(20);
+                    tested.add(key, priority);
+                    expected.add(key, priority);
+                } else {
+                    last = expected.peekPriority();
+                    int key = tested.poll();
+                    assertTrue(expected.contains(key));
+                    assertEquals(last, expected.getPriority(key), 0.0);
+                    expected.decreaseKey(key, -1);
+                    expected.poll();
+                }
+                assertEquals(expected.size(), tested.size());
+            }
+        }
+    }
+}
@@ -62,4 +62,15 @@ public class CustomHashMapTest {
         customLoadBooleanMap.put(nodeC, true);
         assertEquals(true, customLoadBooleanMap.get(nodeC));
     }
+
+    @Test
+    public void keysWithANegativeHashCodeWork() {
+        Node far = new Node(3, 50000, 0.0);
+        assertTrue(far.hashCode() < 0);
+        defaultDoubleMap.put(far, 1.0);
+        for (int i = 0; i < 40; i++) {
+            defaultDoubleMap.put(new Node(i, i, 0.0), 2.0);
+        }
+        assertEquals(1.0, defaultDoubleMap.get(far), 0.0);
+    }
 }
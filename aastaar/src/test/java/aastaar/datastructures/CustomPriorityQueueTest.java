@@ -41,6 +41,14 @@ public class CustomPriorityQueueTest {
         assertEquals(6, pq.getHeapSize());
     }
 
+    @Test
+    public void smallestBecomesRootAfterGrowing() {
+        pq.heapInsert(new Node(4, 4, 4));
+        pq.heapInsert(new Node(5, 5, 11));
+        pq.heapInsert(new Node(6, 6, 1));
+        assertEquals(new Node(6, 6, 1), pq.heapMin());
+    }
+
     @Test
     public void returnsSmallestAsRoot() {
         assertEquals(new Node(1, 1, 3), pq.heapMin());
@@ -82,6 +90,14 @@ public class CustomPriorityQueueTest {
         assertTrue(pq.isEmpty());
     }
     
+    @Test
+    public void clearingEmptiesTheHeap() {
+        pq.clear();
+        assertTrue(pq.isEmpty());
+        pq.heapInsert(new Node(4, 4, 9));
+        assertEquals(new Node(4, 4, 9), pq.heapMin());
+    }
+
     @Test
     public void defaultQueueSizeWorks() {
         pq = new CustomPriorityQueue();
@@ -0,0 +1,108 @@
+package aastaar.datastructures;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Random;
+import mj.aastaar.datastructures.IndexedMinHeap;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for the IndexedMinHeap class.
+ *
+ * @author MJ
+ */
+public class IndexedMinHeapTest {
+
+    IndexedMinHeap heap;
+
+    @Before
+    public void setUp() {
+        heap = new IndexedMinHeap(10);
+        heap.insert(0, 5);
+        heap.insert(1, 3);
+        heap.insert(2, 8);
+    }
+
+    @Test
+    public void addingKeysWorks() {
+        assertEquals(3, heap.size());
+        assertTrue(heap.contains(2));
+        assertFalse(heap.contains(3));
+        assertEquals(8.0, heap.getPriority(2), 0.0);
+    }
+
+    @Test
+    public void pollingReturnsSmallest() {
+        assertEquals(1, heap.poll());
+        assertEquals(0, heap.poll());
+        assertEquals(2, heap.poll());
+        assertTrue(heap.isEmpty());
+    }
+
+    @Test
+    public void decreasingAKeyMovesItToTheRoot() {
+        heap.decreaseKey(2, 1);
+        assertEquals(3, heap.size());
+        assertEquals(2, heap.peek());
+        assertEquals(1.0, heap.peekPriority(), 0.0);
+    }
+
+    @Test
+    public void aHigherPriorityIsIgnored() {
+        heap.decreaseKey(1, 9);
+        assertEquals(1, heap.poll());
+    }
+
+    @Test
+    public void addingAKeyTwiceKeepsOneEntry() {
+        heap.add(0, 2);
+        heap.add(0, 4);
+        assertEquals(3, heap.size());
+        assertEquals(0, heap.poll());
+        assertEquals(1, heap.poll());
+        assertFalse(heap.contains(0));
+    }
+
+    @Test
+    public void clearingEmptiesTheHeap() {
+        heap.clear();
+        assertTrue(heap.isEmpty());
+        assertFalse(heap.contains(1));
+        heap.insert(1, 7);
+        assertEquals(1, heap.poll());
+    }
+
+    @Test
+    public void randomOperationsReturnKeysInOrder() {
+        Random random = new Random(7);
+        IndexedMinHeap big = new IndexedMinHeap(1000);
+        double[] best = new double[1000];
+        Arrays.fill(best, Double.MAX_VALUE);
+        for (int i = 0; i < 5000; i++) {
+            int key = random.nextInt(1000);
+            double priority = random.nextInt(10000);
+            big.add(key, priority);
+            best[key] = Math.min(best[key], priority);
+        }
+        double previous = -1;
+        int count = 0;
+        while (!big.isEmpty()) {
+            double priority = big.peekPriority();
+            int key = big.poll();
+            assertEquals(best[key], priority, 0.0);
+            assertTrue(priority >= previous);
+            previous = priority;
+            count++;
+        }
+        int added = 0;
+        for (double b : best) {
+            if (b != Double.MAX_VALUE) {
+                added++;
+            }
+        }
+        assertEquals(added, count);
+    }
+}
@@ -0,0 +1,89 @@
+package aastaar.datastructures;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import mj.aastaar.datastructures.LongDoubleHashMap;
+import mj.aastaar.map.Node;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for the LongDoubleHashMap class.
+ *
+ * @author MJ
+ */
+public class LongDoubleHashMapTest {
+
+    private LongDoubleHashMap map;
+
+    @Before
+    public void setUp() {
+        map = new LongDoubleHashMap();
+    }
+
+    @Test
+    public void addingEntriesWorks() {
+        map.put(Node.key(3, 4), 72.0);
+        assertTrue(map.containsKey(Node.key(3, 4)));
+        assertFalse(map.containsKey(Node.key(4, 3)));
+        assertEquals(72.0, map.get(Node.key(3, 4), -1), 0.0);
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    public void missingKeysReturnTheGivenValue() {
+        assertEquals(-1.0, map.get(42L, -1), 0.0);
+        assertTrue(map.isEmpty());
+    }
+
+    @Test
+    public void puttingAnExistingKeyUpdatesTheValue() {
+        map.put(7L, 1.0);
+        map.put(7L, 2.0);
+        assertEquals(2.0, map.get(7L, -1), 0.0);
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    public void growingKeepsEveryEntry() {
+        for (int x = 0; x < 300; x++) {
+            for (int y = 0; y < 300; y++) {
+                map.put(Node.key(x, y), x * 1000 + y);
+            }
+        }
+        assertEquals(90000, map.size());
+        for (int x = 0; x < 300; x++) {
+            for (int y = 0; y < 300; y++) {
+                assertEquals(x * 1000 + y, map.get(Node.key(x, y), -1), 0.0);
+            }
+        }
+    }
+
+    @Test
+    public void negativeAndLargeKeysWork() {
+        map.put(Node.key(-5, 2000000000), 1.0);
+        map.put(Long.MIN_VALUE, 2.0);
+        assertEquals(1.0, map.get(Node.key(-5, 2000000000), -1), 0.0);
+        assertEquals(2.0, map.get(Long.MIN_VALUE, -1), 0.0);
+    }
+
+    @Test
+    public void keysAreListedOnce() {
+        map.put(3L, 1.0);
+        map.put(1L, 1.0);
+        map.put(3L, 2.0);
+        long[] keys = map.keys();
+        Arrays.sort(keys);
+        assertArrayEquals(new long[]{1L, 3L}, keys);
+    }
+
+    @Test
+    public void clearingEmptiesTheMap() {
+        map.put(3L, 1.0);
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertFalse(map.containsKey(3L));
+    }
+}
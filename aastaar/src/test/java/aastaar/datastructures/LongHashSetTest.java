@@ -0,0 +1,82 @@
+package aastaar.datastructures;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import mj.aastaar.datastructures.LongHashSet;
+import mj.aastaar.map.Node;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for the LongHashSet class.
+ *
+ * @author MJ
+ */
+public class LongHashSetTest {
+
+    private LongHashSet set;
+
+    @Before
+    public void setUp() {
+        set = new LongHashSet();
+    }
+
+    @Test
+    public void addingKeysWorks() {
+        assertTrue(set.add(Node.key(3, 4)));
+        assertTrue(set.contains(Node.key(3, 4)));
+        assertFalse(set.contains(Node.key(4, 3)));
+        assertEquals(1, set.size());
+    }
+
+    @Test
+    public void addingAnExistingKeyReturnsFalse() {
+        set.add(7L);
+        assertFalse(set.add(7L));
+        assertEquals(1, set.size());
+    }
+
+    @Test
+    public void growingKeepsEveryKey() {
+        for (int x = 0; x < 300; x++) {
+            for (int y = 0; y < 300; y++) {
+                set.add(Node.key(x, y));
+            }
+        }
+        assertEquals(90000, set.size());
+        for (int x = 0; x < 300; x++) {
+            for (int y = 0; y < 300; y++) {
+                assertTrue(set.contains(Node.key(x, y)));
+            }
+        }
+        assertFalse(set.contains(Node.key(300, 0)));
+    }
+
+    @Test
+    public void negativeAndLargeKeysWork() {
+        set.add(Node.key(-5, 2000000000));
+        set.add(Long.MIN_VALUE);
+        assertTrue(set.contains(Node.key(-5, 2000000000)));
+        assertTrue(set.contains(Long.MIN_VALUE));
+    }
+
+    @Test
+    public void keysAreListedOnce() {
+        set.add(3L);
+        set.add(1L);
+        set.add(3L);
+        long[] keys = set.keys();
+        Arrays.sort(keys);
+        assertArrayEquals(new long[]{1L, 3L}, keys);
+    }
+
+    @Test
+    public void clearingEmptiesTheSet() {
+        set.add(3L);
+        set.clear();
+        assertTrue(set.isEmpty());
+        assertFalse(set.contains(3L));
+    }
+}
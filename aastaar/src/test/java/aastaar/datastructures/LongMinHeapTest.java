@@ -0,0 +1,74 @@
+package aastaar.datastructures;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Random;
+import mj.aastaar.datastructures.LongMinHeap;
+import mj.aastaar.map.Node;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for the LongMinHeap class.
+ *
+ * @author MJ
+ */
+public class LongMinHeapTest {
+
+    LongMinHeap heap;
+
+    @Before
+    public void setUp() {
+        heap = new LongMinHeap(2);
+        heap.add(Node.key(0, 1), 5);
+        heap.add(Node.key(2, 3), 3);
+        heap.add(Node.key(4, 5), 8);
+    }
+
+    @Test
+    public void pollingReturnsSmallest() {
+        assertEquals(3, heap.size());
+        assertEquals(3.0, heap.peekPriority(), 0.0);
+        assertEquals(Node.key(2, 3), heap.poll());
+        assertEquals(Node.key(0, 1), heap.poll());
+        assertEquals(Node.key(4, 5), heap.poll());
+        assertTrue(heap.isEmpty());
+    }
+
+    @Test
+    public void addingAKeyAgainKeepsBothEntries() {
+        heap.add(Node.key(4, 5), 1);
+        assertEquals(4, heap.size());
+        assertEquals(Node.key(4, 5), heap.poll());
+        assertEquals(Node.key(2, 3), heap.poll());
+        assertEquals(Node.key(0, 1), heap.poll());
+        assertEquals(Node.key(4, 5), heap.poll());
+    }
+
+    @Test
+    public void clearingEmptiesTheHeap() {
+        heap.clear();
+        assertTrue(heap.isEmpty());
+        heap.add(7L, 2);
+        assertEquals(7L, heap.poll());
+    }
+
+    @Test
+    public void randomPrioritiesArePolledInOrder() {
+        Random random = new Random(3);
+        heap.clear();
+        double[] priorities = new double[1000];
+        for (int i = 0; i < priorities.length; i++) {
+            priorities[i] = random.nextInt(100);
+            heap.add(i, priorities[i]);
+        }
+        Arrays.sort(priorities);
+        for (double priority : priorities) {
+            assertEquals(priority, heap.peekPriority(), 0.0);
+            heap.poll();
+        }
+        assertTrue(heap.isEmpty());
+    }
+}
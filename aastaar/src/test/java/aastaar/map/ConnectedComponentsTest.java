@@ -0,0 +1,67 @@
+package aastaar.map;
+
+import static org.junit.Assert.*;
+
+import mj.aastaar.map.ConnectedComponents;
+import mj.aastaar.map.Grid;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for the connected areas of a grid.
+ *
+ * @author MJ
+ */
+public class ConnectedComponentsTest {
+
+    private ConnectedComponents components;
+
+    @Before
+    public void setUp() {
+        char[][] gridArray = {
+            {'.', '.', 'W', '.', '.'},
+            {'.', 'W', 'W', 'S', '.'},
+            {'W', '.', 'W', 'W', 'W'},
+            {'.', 'W', '.', '.', '.'},
+            {'.', '.', 'W', 'S', '.'}
+        };
+        Grid grid = new Grid(gridArray, new char[]{'W'}, 2.0);
+        components = new ConnectedComponents(grid);
+    }
+
+    @Test
+    public void everyAreaHasItsOwnLabel() {
+        assertEquals(5, components.getComponentCount());
+    }
+
+    @Test
+    public void impassablePositionsHaveNoLabel() {
+        assertEquals(-1, components.label(0, 2));
+    }
+
+    @Test
+    public void shallowWaterConnectsAnArea() {
+        assertTrue(components.connected(0, 3, 1, 3));
+        assertTrue(components.connected(0, 4, 1, 4));
+        assertEquals(4, components.getSize(components.label(0, 3)));
+    }
+
+    @Test
+    public void diagonalNeighboursAreNotConnected() {
+        assertFalse(components.connected(1, 0, 2, 1));
+        assertFalse(components.connected(2, 1, 3, 0));
+    }
+
+    @Test
+    public void separatedAreasAreNotConnected() {
+        assertFalse(components.connected(0, 0, 0, 3));
+        assertFalse(components.connected(3, 0, 3, 2));
+        assertTrue(components.connected(3, 2, 4, 4));
+    }
+
+    @Test
+    public void impassablePositionsAreNotConnected() {
+        assertFalse(components.connected(0, 2, 0, 2));
+    }
+}
@@ -0,0 +1,172 @@
+package aastaar.map;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import mj.aastaar.algorithms.DijkstraWithArray;
+import mj.aastaar.map.Grid;
+import mj.aastaar.map.GridFile;
+import mj.aastaar.map.Node;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for the GridFile class.
+ * 
+ * @author MJ
+ */
+public class GridFileTest {
+
+    private Grid grid;
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        char[][] gridArray = {
+            {'T', 'T', 'W', '@', '@', '.'},
+            {'T', '.', 'W', 'W', '@', '.'},
+            {'W', '.', '.', '.', 'T', '.'},
+            {'S', '.', '.', '.', 'T', '.'},
+            {'S', '.', 'T', '.', '.', '.'}
+        };
+        grid = new Grid(gridArray, new char[]{'T', 'W', '@'}, 2.0);
+        file = File.createTempFile("grid", GridFile.FILE_EXTENSION);
+        GridFile.save(grid, file);
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    public void aMappedGridHasTheSameTerrain() throws IOException {
+        Grid mapped = GridFile.map(file);
+        assertEquals(grid.getLength(), mapped.getLength());
+        assertEquals(grid.getRowLength(), mapped.getRowLength());
+        assertArrayEquals(grid.getGrid2D(), mapped.getGrid2D());
+        assertEquals(grid.terrainChecksum(), mapped.terrainChecksum());
+        assertArrayEquals(grid.getImpassable(), mapped.getImpassable());
+        assertEquals(2.0, mapped.getHeavyEdgeWeight(), 0.0001);
+    }
+
+    @Test
+    public void aGridFileIsMappedWithMatchingSettingsInAnyOrder() throws IOException {
+        Grid mapped = GridFile.map(file, new char[]{'@', 'T', 'W'}, 2.0);
+        assertEquals(grid.terrainChecksum(), mapped.terrainChecksum());
+    }
+
+    @Test(expected = IOException.class)
+    public void aGridFileWithAnotherHeavyEdgeWeightIsRejected() throws IOException {
+        GridFile.map(file, new char[]{'T', 'W', '@'}, 3.0);
+    }
+
+    @Test(expected = IOException.class)
+    public void aGridFileWithOtherImpassableCharactersIsRejected() throws IOException {
+        GridFile.map(file, new char[]{'T', 'W'}, 2.0);
+    }
+
+    @Test
+    public void aMappedGridHasTheSameMoves() throws IOException {
+        Grid mapped = GridFile.map(file);
+        for (int cell = 0; cell < grid.getCellCount(); cell++) {
+            assertEquals(grid.getMoves(cell, 8), mapped.getMoves(cell, 8));
+        }
+    }
+
+    @Test
+    public void searchesOnAMappedGridFindTheSameCosts() throws IOException {
+        Grid mapped = GridFile.map(file);
+        DijkstraWithArray original = new DijkstraWithArray(grid);
+        DijkstraWithArray onMapped = new DijkstraWithArray(mapped);
+        Node start = new Node(1, 1, 0);
+        Node goal = new Node(0, 5, 0);
+        assertEquals(original.search(start, goal, 8), onMapped.search(start, goal, 8));
+        assertEquals(original.getCost(goal), onMapped.getCost(goal), 0.0001);
+    }
+
+    @Test
+    public void changingAMappedGridDoesNotChangeTheFile() throws IOException {
+        Grid mapped = GridFile.map(file);
+        mapped.setCell(1, 1, 'T');
+        mapped.setCell(2, 1, 'X');
+        assertFalse(mapped.isPassable(1, 1));
+        assertEquals('X', mapped.getGrid2D()[2][1]);
+        assertNull(mapped.getNeighbours(2, 1, 4)[1]);
+        Grid again = GridFile.map(file);
+        assertTrue(again.isPassable(1, 1));
+        assertEquals(grid.terrainChecksum(), again.terrainChecksum());
+    }
+
+    @Test
+    public void mapFilesAreConverted() throws IOException {
+        File mapFile = File.createTempFile("grid", ".map");
+        try {
+            Files.write(mapFile.toPath(), "type octile\nheight 2\nwidth 3\nmap\n.S.\nT..\n"
+                    .getBytes(StandardCharsets.US_ASCII));
+            GridFile.convert(mapFile.toPath(), file, new char[]{'T'}, 3.0);
+            Grid mapped = GridFile.map(file);
+            assertArrayEquals(new char[][]{{'.', 'S', '.'}, {'T', '.', '.'}}, mapped.getGrid2D());
+            assertEquals(3.0, mapped.terrainWeight(0, 1), 0.0001);
+        } finally {
+            mapFile.delete();
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void aCorruptedBodyIsRejected() throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(raf.length() - 1);
+            raf.write(0x7f);
+        }
+        GridFile.map(file);
+    }
+
+    @Test(expected = IOException.class)
+    public void aCorruptedHeavyEdgeWeightIsRejected() throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(16);
+            raf.writeDouble(20.0);
+        }
+        GridFile.map(file);
+    }
+
+    @Test(expected = IOException.class)
+    public void aCorruptedTerrainClassIsRejected() throws IOException {
+        // the passability flag of the first terrain class after the border,
+        // after the header of 40 bytes, the three impassable characters and
+        // the border class of 12 bytes
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(40 + 3 * 2 + 12 + 2);
+            int flag = raf.read();
+            raf.seek(40 + 3 * 2 + 12 + 2);
+            raf.write(flag ^ 1);
+        }
+        GridFile.map(file);
+    }
+
+    @Test(expected = IOException.class)
+    public void aTruncatedFileIsRejected() throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 1);
+        }
+        GridFile.map(file);
+    }
+
+    @Test(expected = IOException.class)
+    public void otherFilesAreRejected() throws IOException {
+        Files.write(file.toPath(), "type octile\n".getBytes(StandardCharsets.US_ASCII));
+        GridFile.map(file);
+    }
+
+    @Test
+    public void gridFilesAreStoredNextToTheMap() {
+        assertEquals("mapdata/a.grid", GridFile.gridPath("mapdata/a.map"));
+    }
+}
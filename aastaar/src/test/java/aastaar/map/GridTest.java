@@ -77,6 +77,30 @@ public class GridTest {
         assertNull(leftNeighbour);
     }
 
+    @Test
+    public void gettingCorrectDiagonalNeighbours() {
+        Node[] neighbours = grid.getNeighbours(2, 2, 8);
+        assertEquals(8, neighbours.length);
+
+        Node downRightNeighbour = neighbours[4];
+        assertEquals(3, downRightNeighbour.getX());
+        assertEquals(3, downRightNeighbour.getY());
+
+        Node downLeftNeighbour = neighbours[5];
+        assertEquals(3, downLeftNeighbour.getX());
+        assertEquals(1, downLeftNeighbour.getY());
+
+        //would cut the corner of the impassable 'W' above
+        assertNull(neighbours[6]);
+        assertNull(neighbours[7]);
+    }
+
+    @Test
+    public void diagonalMoveIsNotAllowedPastACorner() {
+        assertFalse(grid.canMoveDiagonally(2, 3, 1, 1));
+        assertTrue(grid.canMoveDiagonally(2, 2, 1, 1));
+    }
+
     @Test
     public void heuristicReturnsCorrectManhattanDistance() {
         int ax = 2;
@@ -107,6 +131,15 @@ public class GridTest {
         assertEquals(h, grid.heuristic(a, b), 0.0);
     }
 
+    @Test
+    public void octileHeuristicReturnsCorrectDistance() {
+        Node a = new Node(2, 4, 0.0);
+        Node b = new Node(8, 1, 0.0);
+        assertEquals(3 + 3 * Math.sqrt(2), grid.octileHeuristic(a, b), 0.000001);
+        assertEquals(grid.octileHeuristic(a, b), grid.heuristic(a, b, 8), 0.0);
+        assertEquals(grid.heuristic(a, b), grid.heuristic(a, b, 4), 0.0);
+    }
+
     @Test
     public void costReturnsOneForGround() {
         Node from = new Node(1, 1, 0);
@@ -138,6 +171,15 @@ public class GridTest {
         
         assertEquals(5.0, grid.cost(from, to), 0.0);
     }
+
+    @Test
+    public void costIsScaledForDiagonalMoves() {
+        Node from = new Node(2, 1, 0);
+        Node to = new Node(3, 2, 0);
+        
+        assertEquals(Math.sqrt(2), grid.cost(from, to), 0.000001);
+        assertEquals(3 * Math.sqrt(2), grid.cost(2, 1, 3, 0), 0.000001);
+    }
     
     
     @Test
@@ -169,4 +211,197 @@ public class GridTest {
     public void nodeIsValidatedWhenValid() {
         assertTrue(grid.nodeIsValid(new Node(1, 1, 0)));
     }
+
+    @Test
+    public void terrainChecksumDependsOnTheTerrainWeights() {
+        char[][] gridArray = {
+            {'T', 'T', 'W', '@', '@'},
+            {'T', '.', 'W', 'W', '@'},
+            {'W', '.', '.', '.', 'T'},
+            {'S', '.', '.', '.', 'T'},
+            {'S', '.', 'T', 'T', 'T'}
+        };
+        char[] impassable = {'T', 'W', '@'};
+        assertEquals(grid.terrainChecksum(),
+                new Grid(gridArray, impassable, 2.0).terrainChecksum());
+        assertFalse(grid.terrainChecksum()
+                == new Grid(gridArray, impassable, 3.0).terrainChecksum());
+    }
+
+    @Test
+    public void positionsInTheSameAreaAreReachable() {
+        assertTrue(grid.isReachable(new Node(1, 1, 0), new Node(4, 1, 0)));
+        assertTrue(grid.isReachable(new Node(2, 2, 0), new Node(2, 2, 0)));
+    }
+
+    @Test
+    public void positionsInDifferentAreasAreNotReachable() {
+        char[][] gridArray = {
+            {'.', '.', 'W', '.'},
+            {'.', '.', 'W', '.'},
+            {'W', 'W', 'W', '.'},
+            {'.', '.', '.', '.'}
+        };
+        Grid walled = new Grid(gridArray, new char[]{'W'}, 2.0);
+        assertFalse(walled.isReachable(new Node(0, 0, 0), new Node(3, 3, 0)));
+        assertSame(walled.getComponents(), walled.getComponents());
+    }
+
+    @Test
+    public void invalidPositionsAreNotReachable() {
+        assertFalse(grid.isReachable(new Node(0, 0, 0), new Node(1, 1, 0)));
+        assertFalse(grid.isReachable(new Node(1, 1, 0), new Node(5, 1, 0)));
+    }
+
+    @Test
+    public void theCharacterArrayIsBuiltFromTheTerrainClasses() {
+        char[][] gridArray = grid.getGrid2D();
+        assertEquals(5, gridArray.length);
+        assertEquals('W', gridArray[0][2]);
+        assertEquals('S', gridArray[4][0]);
+        assertEquals('.', gridArray[4][1]);
+        gridArray[1][1] = 'T';
+        assertTrue(grid.isPassable(1, 1));
+    }
+
+    @Test
+    public void paddedIndicesMapBackToTheSameCell() {
+        for (int x = 0; x < grid.getLength(); x++) {
+            for (int y = 0; y < grid.getRowLength(); y++) {
+                int padded = grid.getPaddedIndex(x, y);
+                assertEquals(padded, grid.pad(grid.getIndex(x, y)));
+                assertEquals(grid.getIndex(x, y), grid.unpad(padded));
+                assertEquals(grid.isPassable(x, y), grid.isPassableAt(padded));
+                assertEquals(grid.terrainWeight(x, y), grid.terrainWeightAt(padded), 0.0001);
+            }
+        }
+    }
+
+    @Test
+    public void theBorderIsImpassable() {
+        for (int x = -1; x <= grid.getLength(); x++) {
+            assertFalse(grid.isPassableAt(grid.getPaddedIndex(x, -1)));
+            assertFalse(grid.isPassableAt(grid.getPaddedIndex(x, grid.getRowLength())));
+        }
+        for (int y = -1; y <= grid.getRowLength(); y++) {
+            assertFalse(grid.isPassableAt(grid.getPaddedIndex(-1, y)));
+            assertFalse(grid.isPassableAt(grid.getPaddedIndex(grid.getLength(), y)));
+        }
+    }
+
+    @Test
+    public void offsetsPointToTheNeighbours() {
+        int padded = grid.getPaddedIndex(2, 2);
+        assertEquals(grid.getPaddedIndex(3, 2), padded + grid.getOffset(0));
+        assertEquals(grid.getPaddedIndex(1, 2), padded + grid.getOffset(1));
+        assertEquals(grid.getPaddedIndex(2, 3), padded + grid.getOffset(2));
+        assertEquals(grid.getPaddedIndex(2, 1), padded + grid.getOffset(3));
+        assertEquals(grid.getPaddedIndex(1, 1), padded + grid.getOffset(7));
+    }
+
+    @Test
+    public void costOfPaddedIndicesEqualsCostOfCoordinates() {
+        int from = grid.getPaddedIndex(3, 1);
+        assertEquals(grid.cost(3, 1, 3, 0), grid.cost(from, from + grid.getOffset(3), 3), 0.0001);
+        assertEquals(grid.cost(3, 1, 4, 0), grid.cost(from, from + grid.getOffset(5), 5), 0.0001);
+        assertEquals(grid.cost(3, 1, 2, 2), grid.cost(from, from + grid.getOffset(6), 6), 0.0001);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void tooManyKindsOfTerrainAreRejected() {
+        char[][] gridArray = new char[1][300];
+        for (int y = 0; y < 300; y++) {
+            gridArray[0][y] = (char) ('A' + y);
+        }
+        new Grid(gridArray, new char[0], 2.0);
+    }
+
+    @Test
+    public void anEmptyGridHasNoPositions() {
+        Grid empty = new Grid(new char[0][0], new char[]{'T'}, 2.0);
+        assertEquals(0, empty.getLength());
+        assertEquals(0, empty.getGrid2D().length);
+        assertFalse(empty.isPassable(0, 0));
+    }
+
+    @Test
+    public void bufferedNeighboursEqualTheNeighbourNodes() {
+        int[] neighbours = new int[8];
+        double[] costs = new double[8];
+        for (int directions : new int[]{4, 8}) {
+            for (int x = 0; x < grid.getLength(); x++) {
+                for (int y = 0; y < grid.getRowLength(); y++) {
+                    int count = grid.getNeighbours(grid.getIndex(x, y), directions, neighbours, costs);
+                    int i = 0;
+                    for (Node next : grid.getNeighbours(x, y, directions)) {
+                        if (next == null) {
+                            continue;
+                        }
+                        assertEquals(grid.getIndex(next.getX(), next.getY()), neighbours[i]);
+                        assertEquals(grid.cost(x, y, next.getX(), next.getY()), costs[i], 0.0001);
+                        i++;
+                    }
+                    assertEquals(i, count);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void bufferedNeighboursOfACorner() {
+        int[] neighbours = new int[8];
+        double[] costs = new double[8];
+        int count = grid.getNeighbours(grid.getIndex(4, 0), 8, neighbours, costs);
+        assertEquals(3, count);
+        assertEquals(grid.getIndex(3, 0), neighbours[0]);
+        assertEquals(5.0, costs[0], 0.0001);
+        assertEquals(grid.getIndex(4, 1), neighbours[1]);
+        assertEquals(grid.getIndex(3, 1), neighbours[2]);
+        assertEquals(3.0 * Math.sqrt(2), costs[2], 0.0001);
+    }
+
+    @Test
+    public void movesHaveABitForEveryAllowedDirection() {
+        int cell = grid.getIndex(3, 1);
+        assertEquals(0x0f | 0x20 | 0x40, grid.getMoves(cell, 8));
+        assertEquals(0x0f, grid.getMoves(cell, 4));
+        assertEquals(0, grid.getMoves(grid.getIndex(0, 0), 4) & 0x0c);
+    }
+
+    @Test
+    public void changingACellUpdatesTheMovesOfTheNeighbours() {
+        grid.setCell(2, 2, 'T');
+        assertFalse(grid.isPassable(2, 2));
+        assertNull(grid.getNeighbours(2, 1, 4)[2]);
+        assertNull(grid.getNeighbours(3, 1, 8)[6]);
+        assertEquals('T', grid.getGrid2D()[2][2]);
+        grid.setCell(2, 2, 'S');
+        assertNotNull(grid.getNeighbours(2, 1, 4)[2]);
+        assertEquals(2.0, grid.terrainWeight(2, 2), 0.0001);
+    }
+
+    @Test
+    public void changingACellUpdatesTheConnectedAreas() {
+        assertTrue(grid.isReachable(new Node(2, 2, 0), new Node(4, 1, 0)));
+        grid.setCell(2, 1, 'W');
+        grid.setCell(3, 1, 'W');
+        grid.setCell(3, 2, 'W');
+        assertTrue(grid.isReachable(new Node(2, 2, 0), new Node(2, 3, 0)));
+        assertFalse(grid.isReachable(new Node(2, 2, 0), new Node(4, 1, 0)));
+    }
+
+    @Test
+    public void changingACellOutOfBoundsDoesNothing() {
+        long checksum = grid.terrainChecksum();
+        grid.setCell(5, 0, '.');
+        assertEquals(checksum, grid.terrainChecksum());
+    }
+
+    @Test
+    public void anewTerrainCharacterGetsItsOwnClass() {
+        grid.setCell(1, 1, '#');
+        assertEquals('#', grid.getGrid2D()[1][1]);
+        assertTrue(grid.isPassable(1, 1));
+        assertEquals(0.0, grid.terrainWeight(1, 1), 0.0001);
+    }
 }
@@ -0,0 +1,156 @@
+package aastaar.map;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import mj.aastaar.Scenario;
+import mj.aastaar.map.Grid;
+import mj.aastaar.map.GridFile;
+import mj.aastaar.map.MapLoader;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for the MapLoader class.
+ *
+ * @author MJ
+ */
+public class MapLoaderTest {
+
+    private final char[] impassable = {'T', 'W', '@'};
+    private Path directory;
+    private Path small;
+    private Path wide;
+    private Path broken;
+    private Path stored;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("maps");
+        small = write("a.map", "type octile\nheight 2\nwidth 3\nmap\n..T\nS..\n");
+        wide = write("b.map", "type octile\nheight 1\nwidth 4\nmap\n....\n");
+        broken = write("c.map", "type octile\nheight 3\nwidth 2\nmap\n..\n");
+        write("notes.txt", "not a map");
+        stored = directory.resolve("d" + GridFile.FILE_EXTENSION);
+        GridFile.convert(wide, stored.toFile(), impassable, 2.0);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        for (File file : directory.toFile().listFiles()) {
+            file.delete();
+        }
+        Files.delete(directory);
+    }
+
+    @Test
+    public void aDirectoryStandsForItsMapFilesInOrder() throws IOException {
+        List<Path> files = MapLoader.mapFiles(Arrays.asList(directory));
+        assertEquals(Arrays.asList(small, wide, broken, stored), files);
+    }
+
+    @Test
+    public void filesAreKeptAsGiven() throws IOException {
+        List<Path> files = MapLoader.mapFiles(Arrays.asList(wide, small));
+        assertEquals(Arrays.asList(wide, small), files);
+    }
+
+    @Test
+    public void resultsAreInTheOrderOfTheFiles() {
+        List<MapLoader.Result> results = new MapLoader(impassable, 2.0, 3)
+                .load(Arrays.asList(wide, small, stored));
+        assertEquals(3, results.size());
+        assertEquals(wide, results.get(0).getPath());
+        assertEquals(4, results.get(0).getGrid().getRowLength());
+        assertEquals(small, results.get(1).getPath());
+        assertEquals(3, results.get(1).getGrid().getRowLength());
+        assertEquals(stored, results.get(2).getPath());
+        assertEquals(4, results.get(2).getGrid().getRowLength());
+    }
+
+    @Test
+    public void aFailedMapOnlyFailsItsOwnResult() {
+        List<MapLoader.Result> results = new MapLoader(impassable, 2.0, 2)
+                .load(Arrays.asList(small, broken, wide));
+        assertTrue(results.get(0).isLoaded());
+        assertFalse(results.get(1).isLoaded());
+        assertNull(results.get(1).getGrid());
+        assertTrue(results.get(1).getError() instanceof IOException);
+        assertTrue(results.get(2).isLoaded());
+        assertNull(results.get(2).getError());
+    }
+
+    @Test
+    public void aMissingFileIsAFailedResult() {
+        MapLoader.Result result = new MapLoader(impassable, 2.0, 1)
+                .load(directory.resolve("missing.map"));
+        assertFalse(result.isLoaded());
+        assertNotNull(result.getError());
+        assertTrue(result.getNanos() >= 0);
+    }
+
+    @Test
+    public void loadedMapsHaveTheTerrainOfTheFiles() {
+        Grid grid = new MapLoader(impassable, 2.0, 1).load(small).getGrid();
+        assertEquals(2, grid.getLength());
+        assertEquals('T', grid.getGrid2D()[0][2]);
+        assertEquals('S', grid.getGrid2D()[1][0]);
+    }
+
+    @Test
+    public void aGridFileWithOtherSettingsFailsItsOwnResult() {
+        List<MapLoader.Result> results = new MapLoader(impassable, 3.0, 2)
+                .load(Arrays.asList(wide, stored));
+        assertTrue(results.get(0).isLoaded());
+        assertEquals(3.0, results.get(0).getGrid().getHeavyEdgeWeight(), 0.0);
+        assertFalse(results.get(1).isLoaded());
+        assertTrue(results.get(1).getError() instanceof IOException);
+    }
+
+    @Test
+    public void noFilesGiveNoResults() {
+        assertTrue(new MapLoader(impassable, 2.0, 4).load(new ArrayList<Path>()).isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void atLeastOneThreadIsNeeded() {
+        new MapLoader(impassable, 2.0, 0);
+    }
+
+    @Test
+    public void scenarioKeepsOnlyTheLoadedMaps() {
+        Scenario scenario = new Scenario();
+        List<MapLoader.Result> results = scenario.initGrids(Arrays.asList(directory),
+                impassable, 2.0, 2);
+        assertEquals(4, results.size());
+        Grid[] grids = scenario.getGrids();
+        assertEquals(3, grids.length);
+        for (Grid grid : grids) {
+            assertNotNull(grid);
+        }
+        assertSame(grids[0], scenario.getGrid());
+        assertTrue(scenario.getJumpTable().matches(grids[0]));
+    }
+
+    @Test
+    public void scenarioWithoutLoadedMapsKeepsItsGrids() {
+        Scenario scenario = new Scenario();
+        scenario.initGrids(Arrays.asList(broken), impassable, 2.0, 1);
+        assertNull(scenario.getGrids());
+    }
+
+    private Path write(String name, String content) throws IOException {
+        Path path = directory.resolve(name);
+        Files.write(path, content.getBytes(StandardCharsets.US_ASCII));
+        return path;
+    }
+}
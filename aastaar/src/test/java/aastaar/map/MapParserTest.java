@@ -0,0 +1,136 @@
+package aastaar.map;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import mj.aastaar.map.Grid;
+import mj.aastaar.map.MapCreator;
+import mj.aastaar.map.MapParser;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for the MapParser class.
+ * 
+ * @author MJ
+ */
+public class MapParserTest {
+
+    private MapParser parser;
+
+    @Before
+    public void setUp() {
+        parser = new MapParser(new char[]{'T', 'W', '@'}, 2.0);
+    }
+
+    private Grid parse(String data) throws IOException {
+        byte[] bytes = data.getBytes(StandardCharsets.US_ASCII);
+        return parser.parse(Channels.newChannel(new ByteArrayInputStream(bytes)));
+    }
+
+    @Test
+    public void theTestMapEqualsTheMapOfMapCreator() throws IOException {
+        MapCreator creator = new MapCreator();
+        creator.createMapFromFile("testmaps/test.map");
+        Grid grid = parser.parseResource("testmaps/test.map");
+        assertArrayEquals(creator.getGrid(), grid.getGrid2D());
+        assertTrue(grid.isPassable(1, 1));
+        assertFalse(grid.isPassable(0, 1));
+    }
+
+    @Test
+    public void heightIsTheLengthAndWidthIsTheRowLength() throws IOException {
+        Grid grid = parse("type octile\nheight 2\nwidth 3\nmap\n.S.\nT..\n");
+        assertEquals(2, grid.getLength());
+        assertEquals(3, grid.getRowLength());
+        assertEquals('S', grid.getGrid2D()[0][1]);
+        assertEquals(2.0, grid.terrainWeight(0, 1), 0.0001);
+    }
+
+    @Test
+    public void windowsLineEndingsAndAMissingLastLineEndAreRead() throws IOException {
+        Grid grid = parse("type octile\r\nheight 2\r\nwidth 2\r\nmap\r\n.T\r\nS.");
+        assertArrayEquals(new char[][]{{'.', 'T'}, {'S', '.'}}, grid.getGrid2D());
+    }
+
+    @Test
+    public void mapsLargerThanTheBufferAreRead() throws IOException {
+        StringBuilder data = new StringBuilder("type octile\nheight 300\nwidth 400\nmap\n");
+        for (int x = 0; x < 300; x++) {
+            for (int y = 0; y < 400; y++) {
+                data.append((x + y) % 7 == 0 ? 'T' : '.');
+            }
+            data.append('\n');
+        }
+        Grid grid = parse(data.toString());
+        for (int x = 0; x < 300; x++) {
+            for (int y = 0; y < 400; y++) {
+                assertEquals((x + y) % 7 != 0, grid.isPassable(x, y));
+            }
+        }
+    }
+
+    @Test
+    public void filesAreReadFromTheFileSystem() throws IOException {
+        Path file = Files.createTempFile("parser", ".map");
+        try {
+            Files.write(file, "type octile\nheight 1\nwidth 2\nmap\n.@\n".getBytes(StandardCharsets.US_ASCII));
+            Grid grid = parser.parse(file);
+            assertTrue(grid.isPassable(0, 0));
+            assertFalse(grid.isPassable(0, 1));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void aShortRowIsRejected() throws IOException {
+        parse("type octile\nheight 2\nwidth 3\nmap\n...\n..\n");
+    }
+
+    @Test(expected = IOException.class)
+    public void aLongRowIsRejected() throws IOException {
+        parse("type octile\nheight 2\nwidth 3\nmap\n....\n...\n");
+    }
+
+    @Test(expected = IOException.class)
+    public void missingRowsAreRejected() throws IOException {
+        parse("type octile\nheight 3\nwidth 3\nmap\n...\n...\n");
+    }
+
+    @Test(expected = IOException.class)
+    public void extraRowsAreRejected() throws IOException {
+        parse("type octile\nheight 1\nwidth 3\nmap\n...\n...\n");
+    }
+
+    @Test(expected = IOException.class)
+    public void missingDimensionsAreRejected() throws IOException {
+        parse("type octile\nheight 1\nmap\n...\n");
+    }
+
+    @Test(expected = IOException.class)
+    public void dimensionsOverflowingTheSizeAreRejected() throws IOException {
+        parse("type octile\nheight 65536\nwidth 65536\nmap\n...\n");
+    }
+
+    @Test(expected = IOException.class)
+    public void theLargestWidthIsRejected() throws IOException {
+        parse("type octile\nheight 1\nwidth 2147483647\nmap\n...\n");
+    }
+
+    @Test(expected = IOException.class)
+    public void aBadNumberIsRejected() throws IOException {
+        parse("type octile\nheight x\nwidth 3\nmap\n...\n");
+    }
+
+    @Test(expected = IOException.class)
+    public void aMissingResourceIsRejected() throws IOException {
+        parser.parseResource("wrong/no_file.bad");
+    }
+}
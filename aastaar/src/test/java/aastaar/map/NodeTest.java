@@ -57,4 +57,21 @@ public class NodeTest {
         String example = "not a node";
         assertFalse((nodeA.equals(example)));
     }
+
+    @Test
+    public void packedKeysKeepTheCoordinates() {
+        long key = Node.key(34, 170);
+        assertEquals(key, nodeB.getKey());
+        assertEquals(34, Node.keyX(key));
+        assertEquals(170, Node.keyY(key));
+        assertEquals(-3, Node.keyX(Node.key(-3, -7)));
+        assertEquals(-7, Node.keyY(Node.key(-3, -7)));
+    }
+
+    @Test
+    public void packedKeysAreDifferentForDifferentPositions() {
+        assertFalse(Node.key(0, 6) == Node.key(6, 0));
+        assertFalse(nodeA.getKey() == nodeC.getKey());
+        assertEquals(nodeA.getKey(), nodeD.getKey());
+    }
 }
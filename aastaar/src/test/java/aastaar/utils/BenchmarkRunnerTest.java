@@ -0,0 +1,224 @@
+package aastaar.utils;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import mj.aastaar.utils.BenchmarkRunner;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for the BenchmarkRunner class.
+ *
+ * @author MJ
+ */
+public class BenchmarkRunnerTest {
+
+    private Path directory;
+    private Path room;
+    private Path corridor;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("benchmark");
+        room = write("room.map", "type octile\nheight 6\nwidth 6\nmap\n"
+                + "......\n......\n..TT..\n..TT..\n......\n......\n");
+        corridor = write("corridor.map", "type octile\nheight 1\nwidth 8\nmap\n........\n");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        for (File file : directory.toFile().listFiles()) {
+            file.delete();
+        }
+        Files.delete(directory);
+    }
+
+    @Test
+    public void everyAlgorithmSearchesEveryQueryOfEveryMap() {
+        BenchmarkRunner runner = new BenchmarkRunner(Arrays.asList(room, corridor));
+        runner.setAlgorithms(new String[]{"AStarWithArray", "JumpPointSearch", "BidirectionalAStar"});
+        runner.setQueries(5, 3);
+        runner.setWarmup(2);
+        List<BenchmarkRunner.Result> results = runner.run();
+        assertEquals(2 * 3 * 5, results.size());
+        assertEquals("room.map", results.get(0).getMap());
+        assertEquals("AStarWithArray", results.get(0).getAlgorithm());
+        assertEquals("JumpPointSearch", results.get(5).getAlgorithm());
+        assertEquals("corridor.map", results.get(29).getMap());
+        assertEquals(4, results.get(29).getQuery());
+    }
+
+    @Test
+    public void theAlgorithmsAgreeOnTheCosts() {
+        BenchmarkRunner runner = new BenchmarkRunner(Arrays.asList(room));
+        runner.setAlgorithms(new String[]{"DijkstraWithArray", "AStarWithHashMap", "JumpPointSearch"});
+        runner.setQueries(10, 1);
+        List<BenchmarkRunner.Result> results = runner.run();
+        for (int i = 0; i < 10; i++) {
+            BenchmarkRunner.Result dijkstra = results.get(i);
+            assertTrue(dijkstra.getLength() >= 0);
+            assertTrue(dijkstra.getNanos() > 0);
+            assertEquals(dijkstra.getCost(), results.get(10 + i).getCost(), 0.0001);
+            assertEquals(dijkstra.getCost(), results.get(20 + i).getCost(), 0.0001);
+            assertEquals(dijkstra.getStart(), results.get(20 + i).getStart());
+        }
+    }
+
+    @Test
+    public void landmarksAreStoredNextToTheMapAndAgreeOnTheCosts() {
+        BenchmarkRunner runner = new BenchmarkRunner(Arrays.asList(room));
+        runner.setAlgorithms(new String[]{"DijkstraWithArray", "AStarWithLandmarks"});
+        runner.setQueries(10, 1);
+        List<BenchmarkRunner.Result> results = runner.run();
+        assertTrue(directory.resolve("room-8.alt").toFile().isFile());
+        for (int i = 0; i < 10; i++) {
+            assertEquals(results.get(i).getCost(), results.get(10 + i).getCost(), 0.0001);
+        }
+    }
+
+    @Test
+    public void expandedPositionsAreCountedWhenPossible() {
+        BenchmarkRunner runner = new BenchmarkRunner(Arrays.asList(room));
+        runner.setAlgorithms(new String[]{"DijkstraWithArray", "BidirectionalDijkstra"});
+        runner.setQueries(3, 1);
+        List<BenchmarkRunner.Result> results = runner.run();
+        assertTrue(results.get(0).getExpanded() > 0);
+        assertEquals(-1, results.get(3).getExpanded());
+    }
+
+    @Test
+    public void theSameSeedGivesTheSameQueries() {
+        BenchmarkRunner first = new BenchmarkRunner(Arrays.asList(room));
+        BenchmarkRunner second = new BenchmarkRunner(Arrays.asList(room));
+        first.setQueries(8, 42);
+        second.setQueries(8, 42);
+        List<BenchmarkRunner.Result> a = first.run();
+        List<BenchmarkRunner.Result> b = second.run();
+        for (int i = 0; i < 8; i++) {
+            assertEquals(a.get(i).getStart(), b.get(i).getStart());
+            assertEquals(a.get(i).getGoal(), b.get(i).getGoal());
+            assertEquals(a.get(i).getLength(), b.get(i).getLength());
+        }
+    }
+
+    @Test
+    public void queriesAreReadFromAScenarioFile() throws IOException {
+        Path scenario = write("room.map.scen", "version 1\n"
+                + "0\tmaps/room.map\t6\t6\t0\t0\t5\t5\t7.0\n"
+                + "0\tmaps/other.map\t6\t6\t0\t0\t1\t1\t1.4\n"
+                + "0\troom.map\t6\t6\t5\t0\t5\t1\t1\n"
+                + "0\troom.map\t6\t6\t2\t2\t5\t5\t0\n");
+        BenchmarkRunner runner = new BenchmarkRunner(Arrays.asList(room));
+        runner.setScenarioFile(scenario);
+        List<BenchmarkRunner.Result> results = runner.run();
+        assertEquals(2, results.size());
+        assertTrue(results.get(0).getLength() >= 5);
+        assertEquals(0, results.get(1).getStart().getX());
+        assertEquals(5, results.get(1).getStart().getY());
+        assertEquals(1, results.get(1).getGoal().getX());
+        assertEquals(1, results.get(1).getLength());
+    }
+
+    @Test
+    public void anInvalidScenarioFileGivesNoResults() throws IOException {
+        Path scenario = write("broken.scen", "version 1\n0\troom.map\t6\t6\tx\t0\t5\t5\t7.0\n");
+        BenchmarkRunner runner = new BenchmarkRunner(Arrays.asList(room));
+        runner.setScenarioFile(scenario);
+        assertTrue(runner.run().isEmpty());
+    }
+
+    @Test
+    public void jumpPointSearchIsSkippedWithFourDirections() {
+        BenchmarkRunner runner = new BenchmarkRunner(Arrays.asList(room));
+        runner.setAlgorithms(new String[]{"JumpPointSearch", "AStarWithArray"});
+        runner.setDirections(4);
+        runner.setQueries(4, 1);
+        List<BenchmarkRunner.Result> results = runner.run();
+        assertEquals(4, results.size());
+        assertEquals("AStarWithArray", results.get(0).getAlgorithm());
+    }
+
+    @Test
+    public void resultsAreWrittenAsCsvAndJson() throws IOException {
+        BenchmarkRunner runner = new BenchmarkRunner(Arrays.asList(corridor));
+        runner.setQueries(2, 1);
+        List<BenchmarkRunner.Result> results = runner.run();
+        StringWriter csv = new StringWriter();
+        BenchmarkRunner.writeCsv(results, csv);
+        String[] lines = csv.toString().split("\n");
+        assertEquals(3, lines.length);
+        assertEquals("map,algorithm,query,start_x,start_y,goal_x,goal_y,time_ns,expanded,length,cost",
+                lines[0]);
+        assertTrue(lines[1].startsWith("corridor.map,AStarWithArray,0,0,"));
+        assertEquals(11, lines[1].split(",").length);
+
+        StringWriter json = new StringWriter();
+        BenchmarkRunner.writeJson(results, json);
+        assertTrue(json.toString().startsWith("[\n  {\"map\": \"corridor.map\""));
+        assertTrue(json.toString().contains("\"time_ns\": "));
+        assertTrue(json.toString().endsWith("}\n]\n"));
+    }
+
+    @Test
+    public void theSummaryHasALinePerMapAndAlgorithm() {
+        BenchmarkRunner runner = new BenchmarkRunner(Arrays.asList(room, corridor));
+        runner.setAlgorithms(new String[]{"AStarWithArray", "DijkstraWithArray"});
+        runner.setQueries(3, 1);
+        String[] lines = BenchmarkRunner.summary(runner.run()).split("\n");
+        assertEquals(4, lines.length);
+        assertTrue(lines[0].startsWith("room.map AStarWithArray: n 3, mean "));
+        assertTrue(lines[3].contains("p99.9"));
+    }
+
+    @Test
+    public void argumentsAreParsed() {
+        BenchmarkRunner runner = BenchmarkRunner.parse(new String[]{"--algorithms",
+            "DijkstraWithArray", "--queries", "2", "--seed", "9", "--warmup", "0",
+            "--output", "results.json", room.toString()});
+        List<BenchmarkRunner.Result> results = runner.run();
+        assertEquals(2, results.size());
+        assertEquals("DijkstraWithArray", results.get(0).getAlgorithm());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownAlgorithmsAreRejected() {
+        BenchmarkRunner.parse(new String[]{"--algorithms", "AStar", room.toString()});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownOptionsAreRejected() {
+        BenchmarkRunner.parse(new String[]{"--fast", "yes", room.toString()});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void mapsAreRequired() {
+        BenchmarkRunner.parse(new String[]{"--queries", "5"});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidNumbersAreRejected() {
+        BenchmarkRunner.parse(new String[]{"--queries", "many", room.toString()});
+    }
+
+    @Test
+    public void missingMapsGiveNoResults() {
+        BenchmarkRunner runner = new BenchmarkRunner(Arrays.asList(directory.resolve("none.map")));
+        assertTrue(runner.run().isEmpty());
+    }
+
+    private Path write(String name, String content) throws IOException {
+        Path file = directory.resolve(name);
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+}
@@ -0,0 +1,159 @@
+package aastaar.utils;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Random;
+import mj.aastaar.utils.LatencyHistogram;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for the LatencyHistogram class.
+ *
+ * @author MJ
+ */
+public class LatencyHistogramTest {
+
+    private LatencyHistogram histogram;
+
+    @Before
+    public void setUp() {
+        histogram = new LatencyHistogram();
+    }
+
+    @Test
+    public void emptyHistogramReturnsZeros() {
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMin());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0.0, histogram.getMean(), 0.0);
+        assertEquals(0, histogram.getPercentile(50));
+    }
+
+    @Test
+    public void smallValuesAreExact() {
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i);
+        }
+        assertEquals(100, histogram.getCount());
+        assertEquals(1, histogram.getMin());
+        assertEquals(100, histogram.getMax());
+        assertEquals(50.5, histogram.getMean(), 0.0001);
+        assertEquals(50, histogram.getPercentile(50));
+        assertEquals(90, histogram.getPercentile(90));
+        assertEquals(99, histogram.getPercentile(99));
+        assertEquals(100, histogram.getPercentile(100));
+    }
+
+    @Test
+    public void largeValuesAreWithinTwoPercent() {
+        Random random = new Random(42);
+        long[] values = new long[10000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = 1000 + (long) (random.nextDouble() * 100000000);
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+        double[] percentiles = {50, 90, 99, 99.9};
+        for (double p : percentiles) {
+            long exact = values[(int) Math.ceil(p / 100 * values.length) - 1];
+            long estimate = histogram.getPercentile(p);
+            assertTrue(estimate >= exact);
+            assertTrue(estimate <= exact * 1.02);
+        }
+        assertEquals(values[values.length - 1], histogram.getPercentile(100));
+        assertEquals(values[values.length - 1], histogram.getMax());
+    }
+
+    @Test
+    public void percentilesAreNotBelowTheMinimum() {
+        histogram.record(1000000);
+        histogram.record(1000000);
+        assertEquals(1000000, histogram.getPercentile(0));
+        assertEquals(1000000, histogram.getPercentile(50));
+    }
+
+    @Test
+    public void negativeValuesAreRecordedAsZero() {
+        histogram.record(-5);
+        assertEquals(0, histogram.getMin());
+        assertEquals(1, histogram.getCount());
+    }
+
+    @Test
+    public void veryLargeValuesCanBeRecorded() {
+        histogram.record(Long.MAX_VALUE);
+        assertEquals(Long.MAX_VALUE, histogram.getPercentile(50));
+    }
+
+    @Test
+    public void addingMergesTheValues() {
+        LatencyHistogram other = new LatencyHistogram();
+        histogram.record(10);
+        other.record(20);
+        other.record(30);
+        histogram.add(other);
+        assertEquals(3, histogram.getCount());
+        assertEquals(10, histogram.getMin());
+        assertEquals(30, histogram.getMax());
+        assertEquals(20.0, histogram.getMean(), 0.0001);
+        assertEquals(20, histogram.getPercentile(50));
+    }
+
+    @Test
+    public void resetRemovesTheValues() {
+        histogram.record(10);
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+        histogram.record(20);
+        assertEquals(20, histogram.getMin());
+    }
+
+    @Test
+    public void writtenHistogramCanBeRead() throws IOException {
+        Random random = new Random(7);
+        for (int i = 0; i < 1000; i++) {
+            histogram.record(random.nextInt(50000000));
+        }
+        StringWriter writer = new StringWriter();
+        histogram.write(writer);
+        assertTrue(writer.toString().startsWith("low_ns,high_ns,count,percentile\n"));
+        assertTrue(writer.toString().trim().endsWith(",100.0000"));
+
+        LatencyHistogram read = LatencyHistogram.read(new StringReader(writer.toString()));
+        assertEquals(histogram.getCount(), read.getCount());
+        double[] percentiles = {50, 90, 99, 99.9};
+        for (double p : percentiles) {
+            long original = histogram.getPercentile(p);
+            long copy = read.getPercentile(p);
+            assertTrue(copy <= original);
+            assertTrue(copy >= original * 0.98);
+        }
+        assertEquals(histogram.getMean(), read.getMean(), histogram.getMean() * 0.02);
+    }
+
+    @Test(expected = IOException.class)
+    public void readingOtherDataFails() throws IOException {
+        LatencyHistogram.read(new StringReader("map,algorithm\n1,2\n"));
+    }
+
+    @Test(expected = IOException.class)
+    public void readingBrokenBucketFails() throws IOException {
+        LatencyHistogram.read(new StringReader("low_ns,high_ns,count,percentile\nx,1,2,50.0\n"));
+    }
+
+    @Test
+    public void summaryContainsThePercentiles() {
+        histogram.record(2000000);
+        String summary = histogram.toString();
+        assertTrue(summary.contains("p50 2.000 ms"));
+        assertTrue(summary.contains("p99.9 2.000 ms"));
+        assertTrue(summary.contains("max 2.000 ms"));
+    }
+}
@@ -0,0 +1,127 @@
+package aastaar.utils;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import mj.aastaar.algorithms.JumpPointTable;
+import mj.aastaar.map.Grid;
+import mj.aastaar.utils.TableStore;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for the TableStore class.
+ *
+ * @author MJ
+ */
+public class TableStoreTest {
+
+    private File directory;
+    private int builds;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("tables").toFile();
+        builds = 0;
+    }
+
+    @After
+    public void tearDown() {
+        delete(directory);
+    }
+
+    @Test
+    public void computedTableIsStoredInTheFileAndLoadedNextTime() {
+        File file = new File(directory, "maps/arena.tab");
+        assertEquals("table", loadOrBuild(file, null));
+        assertTrue(file.isFile());
+        assertEquals("table", loadOrBuild(file, null));
+        assertEquals(1, builds);
+    }
+
+    @Test
+    public void tableWithoutAFileIsComputedEveryTime() {
+        assertEquals("table", loadOrBuild(null, "testmaps/none.tab"));
+        assertEquals("table", loadOrBuild(null, "testmaps/none.tab"));
+        assertEquals(2, builds);
+    }
+
+    @Test
+    public void corruptTableIsComputedAgainAndReplaced() throws IOException {
+        File file = new File(directory, "arena.tab");
+        Files.write(file.toPath(), "other".getBytes(StandardCharsets.UTF_8));
+        assertEquals("table", loadOrBuild(file, null));
+        assertEquals(1, builds);
+        assertEquals("table", new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void tableIsLoadedFromTheClassPath() {
+        TableStore.loadOrBuild("test table", null, "testmaps/test.map",
+                is -> "loaded", this::build, (table, file) -> fail());
+        assertEquals(0, builds);
+    }
+
+    @Test
+    public void computedTableIsNotWrittenOnTheClassPath() {
+        char[][] gridArray = {
+            {'.', '.', '.'},
+            {'.', '.', '.'}
+        };
+        Grid grid = new Grid(gridArray, new char[]{'T'}, 2.0);
+        JumpPointTable.loadOrBuild("testmaps/test.map", grid, null);
+        ClassLoader cl = Thread.currentThread().getContextClassLoader();
+        assertNull(cl.getResource(JumpPointTable.tablePath("testmaps/test.map")));
+    }
+
+    @Test
+    public void computedTableIsStoredInTheTableDirectory() {
+        char[][] gridArray = {
+            {'.', '.', '.'},
+            {'.', '.', '.'}
+        };
+        Grid grid = new Grid(gridArray, new char[]{'T'}, 2.0);
+        JumpPointTable.loadOrBuild("testmaps/test.map", grid, directory);
+        assertTrue(new File(directory, "testmaps/test.jps").isFile());
+    }
+
+    private String loadOrBuild(File file, String resource) {
+        return TableStore.loadOrBuild("test table", file, resource,
+                this::load, this::build, this::save);
+    }
+
+    private String load(InputStream is) throws IOException {
+        byte[] bytes = new byte[16];
+        int count = is.read(bytes);
+        String table = new String(bytes, 0, Math.max(count, 0), StandardCharsets.UTF_8);
+        if (!table.equals("table")) {
+            throw new IOException("Not a test table.");
+        }
+        return table;
+    }
+
+    private String build() {
+        builds++;
+        return "table";
+    }
+
+    private void save(String table, File file) throws IOException {
+        Files.write(file.toPath(), table.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void delete(File file) {
+        File[] files = file.listFiles();
+        if (files != null) {
+            for (File child : files) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}